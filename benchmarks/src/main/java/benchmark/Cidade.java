@@ -0,0 +1,42 @@
+package benchmark;
+
+import model.ArmazemSensores;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+
+/**
+ * Monta as cidades usadas pelos benchmarks.
+ *
+ * Os sensores ficam espalhados em um quadrado de 10 km de lado, com limite 100 e nível inicial
+ * sorteado com semente fixa, para que execuções diferentes meçam exatamente a mesma cidade.
+ */
+final class Cidade {
+    static final int LIMITE = 100;
+    static final double LADO = 10_000;
+
+    private Cidade() {
+    }
+
+    /**
+     * Cria um armazém com a quantidade de sensores informada.
+     */
+    static ArmazemSensores criar(int sensores, long semente) {
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        ArmazemSensores armazem = new ArmazemSensores(sensores);
+        for (int i = 0; i < sensores; i++) {
+            int id = armazem.adicionar(LIMITE, aleatorio.nextDouble() * LADO, aleatorio.nextDouble() * LADO);
+            armazem.setNivel(id, aleatorio.nextInt(LIMITE));
+        }
+        return armazem;
+    }
+
+    /**
+     * Descarta a saída padrão: o sistema imprime uma linha a cada salvamento e coleta,
+     * o que mediria o console em vez do código.
+     */
+    static void silenciarSaida() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
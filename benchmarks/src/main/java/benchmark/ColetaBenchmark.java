@@ -0,0 +1,51 @@
+package benchmark;
+
+import model.ArmazemSensores;
+import model.SistemaColetaLixo;
+import org.openjdk.jmh.annotations.*;
+import strategy.ColetaPorNivelMaisAlto;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede {@link SistemaColetaLixo#coletarLixo()} (geração da rota e esvaziamento de todos os sensores).
+ *
+ * A coleta esvazia a cidade, então os níveis originais são restaurados antes de cada chamada.
+ * A restauração fica fora da medida, mas nas cidades menores o custo de preparação por chamada
+ * do JMH pesa no resultado; compare esses tamanhos apenas entre execuções.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ColetaBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int sensores;
+
+    private SistemaColetaLixo sistema;
+    private ArmazemSensores armazem;
+    private int[] niveisOriginais;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Cidade.silenciarSaida();
+        armazem = Cidade.criar(sensores, 42);
+        sistema = new SistemaColetaLixo(armazem, Collections.emptyList(), new ColetaPorNivelMaisAlto());
+        niveisOriginais = new int[sensores];
+        armazem.copiarNiveis(niveisOriginais);
+    }
+
+    @Setup(Level.Invocation)
+    public void encher() {
+        armazem.restaurarNiveis(niveisOriginais);
+    }
+
+    @Benchmark
+    public void coletarLixo() {
+        sistema.coletarLixo();
+    }
+}
@@ -0,0 +1,34 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ponto de entrada do jar de benchmarks.
+ *
+ * Aceita os mesmos argumentos da linha de comando do JMH (por exemplo {@code -p sensores=1000}
+ * ou um filtro como {@code RotaBenchmark}), mas liga por padrão o profiler de GC, que informa a
+ * taxa de alocação, e grava os resultados em JSON em {@code jmh-resultados.json}, para que
+ * execuções diferentes possam ser comparadas.
+ */
+public class Executar {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions linhaComando = new CommandLineOptions(args);
+        ChainedOptionsBuilder opcoes = new OptionsBuilder().parent(linhaComando);
+        if (linhaComando.getProfilers().isEmpty()) {
+            opcoes.addProfiler(GCProfiler.class);
+        }
+        if (!linhaComando.getResultFormat().hasValue()) {
+            opcoes.resultFormat(ResultFormatType.JSON);
+        }
+        if (!linhaComando.getResult().hasValue()) {
+            opcoes.result("jmh-resultados.json");
+        }
+        new Runner(opcoes.build()).run();
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import model.ArmazemSensores;
+import model.SistemaColetaLixo;
+import org.openjdk.jmh.annotations.*;
+import strategy.ColetaPorNivelMaisAlto;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o salvamento e a restauração de estado do sistema (padrão Memento).
+ *
+ * Antes de cada salvamento 1% dos sensores muda de nível, como acontece entre dois cliques na
+ * interface; assim o histórico grava deltas e, a cada intervalo, um estado completo.
+ * Como restaurar consome o histórico, a restauração é medida junto com o salvamento que a precede.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class MementoBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int sensores;
+
+    private SistemaColetaLixo sistema;
+    private ArmazemSensores armazem;
+    private int alterados;
+    private int proximo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Cidade.silenciarSaida();
+        armazem = Cidade.criar(sensores, 42);
+        sistema = new SistemaColetaLixo(armazem, Collections.emptyList(), new ColetaPorNivelMaisAlto());
+        alterados = Math.max(1, sensores / 100);
+        sistema.salvarEstado();
+    }
+
+    private void alterarNiveis() {
+        for (int i = 0; i < alterados; i++) {
+            armazem.setNivel(proximo, (armazem.getNivel(proximo) + 1) % Cidade.LIMITE);
+            proximo = proximo + 1 == sensores ? 0 : proximo + 1;
+        }
+    }
+
+    @Benchmark
+    public void salvarEstado() {
+        alterarNiveis();
+        sistema.salvarEstado();
+    }
+
+    @Benchmark
+    public void salvarERestaurarEstado() {
+        alterarNiveis();
+        sistema.salvarEstado();
+        sistema.restaurarEstado();
+    }
+}
@@ -0,0 +1,56 @@
+package benchmark;
+
+import model.ArmazemSensores;
+import model.Rota;
+import model.SensorLixo;
+import org.openjdk.jmh.annotations.*;
+import strategy.ColetaPorNivelMaisAlto;
+import strategy.ColetaSequencial;
+import strategy.EstrategiaColeta;
+import strategy.PoliticaColeta;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede {@link EstrategiaColeta#gerarRota(List)} das duas estratégias originais sobre a cidade inteira,
+ * visitando todas as lixeiras ou só as que passaram de 95% do limite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class RotaBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int sensores;
+
+    @Param({"nivel", "sequencial"})
+    public String estrategia;
+
+    @Param({"todas", "95"})
+    public String politica;
+
+    private EstrategiaColeta coleta;
+    private List<SensorLixo> lista;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        ArmazemSensores armazem = Cidade.criar(sensores, 42);
+        int[] ids = new int[sensores];
+        for (int i = 0; i < sensores; i++) {
+            ids[i] = i;
+        }
+        lista = armazem.listar(ids);
+        PoliticaColeta selecao = "todas".equals(politica)
+                ? PoliticaColeta.todas() : PoliticaColeta.aPartirDe(Double.parseDouble(politica));
+        coleta = "nivel".equals(estrategia) ? new ColetaPorNivelMaisAlto(selecao) : new ColetaSequencial(selecao);
+    }
+
+    @Benchmark
+    public Rota gerarRota() {
+        return coleta.gerarRota(lista);
+    }
+}
@@ -0,0 +1,67 @@
+package benchmark;
+
+import model.ArmazemSensores;
+import model.SensorLixo;
+import model.SensorLixoCapacidade;
+import observer.Observador;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede {@link SensorLixoCapacidade#simularAumento(int)} e o repasse de {@link SensorLixo#notificar()}
+ * para os observadores registrados.
+ *
+ * Cada chamada usa o próximo sensor da cidade, percorrendo todos os ids, para que o tamanho da
+ * cidade (e o uso de cache) apareça no resultado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class SensorBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int sensores;
+
+    @Param({"1", "16"})
+    public int observadores;
+
+    private ArmazemSensores armazem;
+    private int proximo;
+
+    @Setup(Level.Trial)
+    public void preparar(Blackhole buraco) {
+        armazem = Cidade.criar(sensores, 42);
+        for (int i = 0; i < observadores; i++) {
+            armazem.registrarObservador((Observador) buraco::consume);
+        }
+    }
+
+    private SensorLixoCapacidade proximoSensor() {
+        SensorLixoCapacidade sensor = armazem.getSensor(proximo);
+        proximo = proximo + 1 == sensores ? 0 : proximo + 1;
+        return sensor;
+    }
+
+    /**
+     * Sensores que chegam ao limite são esvaziados na hora, como numa coleta: assim a medida
+     * inclui uma notificação a cada {@link Cidade#LIMITE} aumentos em vez de ficar presa no limite.
+     */
+    @Benchmark
+    public void simularAumento() {
+        SensorLixoCapacidade sensor = proximoSensor();
+        sensor.simularAumento(1);
+        if (sensor.getNivel() >= sensor.getLimite()) {
+            armazem.esvaziar(sensor.getId());
+        }
+    }
+
+    @Benchmark
+    public void notificar() {
+        proximoSensor().notificar();
+    }
+}
@@ -0,0 +1,64 @@
+package app;
+
+import factory.FabricaCaminhaoSimples;
+import model.ArmazemSensores;
+import model.CaminhaoColeta;
+import model.SistemaColetaLixo;
+import painel.ServidorPainel;
+import simulacao.MotorEventos;
+import strategy.ColetaPorNivelMaisAlto;
+import strategy.PoliticaColeta;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Executa a simulação sem interface gráfica e a publica no painel web local.
+ *
+ * As lixeiras enchem e os caminhões trabalham pelo {@link MotorEventos}, avançando o relógio
+ * simulado na velocidade informada; o painel pode ser aberto em qualquer navegador da máquina.
+ *
+ * Uso: {@code PainelWeb [sensores] [porta] [velocidade]} (padrão: 10000, 8080 e 60 segundos
+ * simulados por segundo real).
+ */
+public class PainelWeb {
+    private static final int LIMITE = 100;
+    private static final double LADO_CIDADE = 10_000;
+    private static final int QUADRO_MS = 100;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int porta = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        double velocidade = args.length > 2 ? Double.parseDouble(args[2]) : 60;
+
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        ArmazemSensores armazem = new ArmazemSensores(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            armazem.adicionar(LIMITE, aleatorio.nextDouble() * LADO_CIDADE, aleatorio.nextDouble() * LADO_CIDADE);
+        }
+        FabricaCaminhaoSimples fabrica = new FabricaCaminhaoSimples(20 * LIMITE, LADO_CIDADE / 2, LADO_CIDADE / 2);
+        List<CaminhaoColeta> caminhoes = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, quantidade / 500); i++) {
+            caminhoes.add(fabrica.criar());
+        }
+        SistemaColetaLixo sistema = new SistemaColetaLixo(armazem, caminhoes,
+                new ColetaPorNivelMaisAlto(PoliticaColeta.aPartirDe(80)));
+        sistema.setMensagens(false);
+
+        InetSocketAddress endereco = new InetSocketAddress(InetAddress.getLoopbackAddress(), porta);
+        try (MotorEventos eventos = new MotorEventos(sistema, 42, 0.01, 10, 30);
+             ServidorPainel painel = new ServidorPainel(sistema, endereco)) {
+            eventos.agendarDespachos(1800);
+            System.out.println("Painel em http://localhost:" + painel.getPorta() + "/ (Ctrl+C para sair)");
+            while (true) {
+                eventos.avancarAte(eventos.getAgora() + velocidade * QUADRO_MS / 1000.0);
+                eventos.sincronizarNiveis();
+                Thread.sleep(QUADRO_MS);
+            }
+        }
+    }
+}
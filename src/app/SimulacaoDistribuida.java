@@ -0,0 +1,50 @@
+package app;
+
+import distribuido.ConfiguracaoDistribuida;
+import distribuido.CoordenadorDistribuido;
+
+import java.io.IOException;
+
+/**
+ * Executa a mesma simulação com 1, 2, 4... processos de trabalho na máquina local e mostra a
+ * vazão (passos de sensor por segundo) e o ganho em relação a um único processo.
+ *
+ * Uso: {@code SimulacaoDistribuida [sensores] [passos] [máximo de processos]}
+ * (padrão: 2.000.000 sensores, 200 passos e a quantidade de núcleos).
+ */
+public class SimulacaoDistribuida {
+    private static final int AUMENTO_MAXIMO = 2;
+    private static final int INTERVALO_COLETA = 10;
+    private static final int CAMINHOES_POR_MILHAO = 6000;
+    private static final int CAPACIDADE_CAMINHAO = 2000;
+    private static final double PERCENTUAL_COLETA = 80;
+
+    public static void main(String[] args) throws IOException {
+        int sensores = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int passos = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int maximo = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ConfiguracaoDistribuida configuracao = new ConfiguracaoDistribuida(sensores, 42, AUMENTO_MAXIMO,
+                INTERVALO_COLETA, (int) Math.max(1, (long) sensores * CAMINHOES_POR_MILHAO / 1_000_000),
+                CAPACIDADE_CAMINHAO, PERCENTUAL_COLETA);
+
+        System.out.printf("%-10s %12s %16s %8s %14s %14s %14s%n", "processos", "tempo (s)",
+                "sensor-passo/s", "ganho", "transbordado", "coletado", "transferências");
+        double base = 0;
+        for (int processos = 1; processos <= maximo; processos *= 2) {
+            try (CoordenadorDistribuido coordenador = new CoordenadorDistribuido(configuracao)) {
+                coordenador.iniciarProcessos(processos);
+                coordenador.avancar(INTERVALO_COLETA); // Aquecimento das JVMs
+                long inicio = System.nanoTime();
+                coordenador.avancar(passos);
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+                double vazao = (double) sensores * passos / segundos;
+                if (base == 0) {
+                    base = vazao;
+                }
+                System.out.printf("%-10d %12.2f %16.0f %7.2fx %14d %14d %14d%n", processos, segundos, vazao,
+                        vazao / base, coordenador.getTransbordado(), coordenador.getLixoColetado(),
+                        coordenador.getTransferencias());
+            }
+        }
+    }
+}
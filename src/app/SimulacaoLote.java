@@ -0,0 +1,67 @@
+package app;
+
+import simulacao.Cenario;
+import simulacao.ExecutorCenarios;
+import simulacao.ResultadoCenario;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executa um lote de cenários de simulação sem interface gráfica, para planejamento de capacidade.
+ *
+ * Os cenários combinam quantidades de sensores, distribuições de enchimento e estratégias de
+ * coleta, repetidas com sementes diferentes. Os resultados são gravados em CSV conforme cada
+ * cenário termina, e um resumo por estratégia é impresso no final.
+ *
+ * Uso: {@code SimulacaoLote [quantidade de cenários] [arquivo CSV]} (padrão: 1000 e resultados.csv).
+ */
+public class SimulacaoLote {
+    private static final int[] SENSORES = {100, 500, 2000};
+    private static final int PASSOS = 200;
+    private static final int INTERVALO_COLETA = 10;
+
+    public static void main(String[] args) throws IOException {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Path arquivo = Paths.get(args.length > 1 ? args[1] : "resultados.csv");
+
+        // Percorre a grade sensores x distribuição x estratégia, trocando a semente a cada volta
+        List<Cenario> cenarios = new ArrayList<>(quantidade);
+        Cenario.Distribuicao[] distribuicoes = Cenario.Distribuicao.values();
+        Cenario.Estrategia[] estrategias = Cenario.Estrategia.values();
+        int combinacoes = SENSORES.length * distribuicoes.length * estrategias.length;
+        for (int i = 0; i < quantidade; i++) {
+            int c = i % combinacoes;
+            int sensores = SENSORES[c / (distribuicoes.length * estrategias.length)];
+            Cenario.Distribuicao distribuicao = distribuicoes[(c / estrategias.length) % distribuicoes.length];
+            Cenario.Estrategia estrategia = estrategias[c % estrategias.length];
+            long semente = 1000L + i / combinacoes;
+            cenarios.add(new Cenario(i, estrategia, distribuicao, sensores, PASSOS, INTERVALO_COLETA,
+                    Math.max(1, sensores / 10), semente));
+        }
+
+        System.out.println("Executando " + quantidade + " cenários...");
+        long inicio = System.nanoTime();
+        List<ResultadoCenario> resultados;
+        try (Writer csv = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            resultados = new ExecutorCenarios().executar(cenarios, csv);
+        }
+        System.out.printf("Concluído em %.1f s. Resultados em %s%n", (System.nanoTime() - inicio) / 1e9, arquivo);
+
+        System.out.printf("%-16s %9s %14s %12s %14s %10s%n",
+                "estratégia", "cenários", "transbordado", "paradas", "rota (km)", "cpu (ms)");
+        for (Map.Entry<Cenario.Estrategia, ExecutorCenarios.Resumo> e : ExecutorCenarios.resumir(resultados).entrySet()) {
+            ExecutorCenarios.Resumo r = e.getValue();
+            System.out.printf("%-16s %9d %14.0f %12.0f %14.1f %10.1f%n", e.getKey(), r.getCenarios(),
+                    r.getTransbordado().getAverage(), r.getParadas().getAverage(),
+                    r.getComprimentoKm().getAverage(), r.getCpuMs().getAverage());
+        }
+    }
+}
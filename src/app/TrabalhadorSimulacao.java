@@ -0,0 +1,22 @@
+package app;
+
+import distribuido.TrabalhadorDistribuido;
+
+import java.io.IOException;
+
+/**
+ * Processo de trabalho da simulação distribuída. Normalmente é iniciado pelo
+ * {@link distribuido.CoordenadorDistribuido}, mas também pode ser iniciado à mão.
+ *
+ * Uso: {@code TrabalhadorSimulacao <host do coordenador> <porta>}.
+ */
+public class TrabalhadorSimulacao {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: TrabalhadorSimulacao <host do coordenador> <porta>");
+            System.exit(2);
+        }
+        TrabalhadorDistribuido.executar(args[0], Integer.parseInt(args[1]));
+    }
+}
@@ -0,0 +1,82 @@
+package distribuido;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Parâmetros de uma simulação distribuída, iguais para todos os processos: tamanho da cidade,
+ * como as lixeiras enchem, a frota e quando ela coleta. A cidade inteira é reproduzível a partir
+ * da semente e da quantidade de partições.
+ */
+public class ConfiguracaoDistribuida {
+    public static final double LADO_CIDADE = 10_000; // Metros; as lixeiras ficam em um quadrado deste lado
+
+    private int sensores;
+    private long semente;
+    private int aumentoMaximo;       // Maior aumento de nível sorteado por passo
+    private int intervaloColeta;     // Passos entre duas coletas
+    private int caminhoes;
+    private int capacidadeCaminhao;
+    private double percentualColeta; // Só lixeiras com ao menos esta ocupação entram na rota
+
+    public ConfiguracaoDistribuida(int sensores, long semente, int aumentoMaximo, int intervaloColeta,
+                                   int caminhoes, int capacidadeCaminhao, double percentualColeta) {
+        if (sensores < 1 || aumentoMaximo < 1 || intervaloColeta < 1 || caminhoes < 0 || capacidadeCaminhao < 1) {
+            throw new IllegalArgumentException("Sensores, aumento, intervalo e capacidade devem ser positivos.");
+        }
+        if (percentualColeta < 0 || percentualColeta > 100) {
+            throw new IllegalArgumentException("O percentual deve estar entre 0 e 100: " + percentualColeta);
+        }
+        this.sensores = sensores;
+        this.semente = semente;
+        this.aumentoMaximo = aumentoMaximo;
+        this.intervaloColeta = intervaloColeta;
+        this.caminhoes = caminhoes;
+        this.capacidadeCaminhao = capacidadeCaminhao;
+        this.percentualColeta = percentualColeta;
+    }
+
+    public int getSensores() {
+        return sensores;
+    }
+
+    public long getSemente() {
+        return semente;
+    }
+
+    public int getAumentoMaximo() {
+        return aumentoMaximo;
+    }
+
+    public int getIntervaloColeta() {
+        return intervaloColeta;
+    }
+
+    public int getCaminhoes() {
+        return caminhoes;
+    }
+
+    public int getCapacidadeCaminhao() {
+        return capacidadeCaminhao;
+    }
+
+    public double getPercentualColeta() {
+        return percentualColeta;
+    }
+
+    void escrever(DataOutputStream saida) throws IOException {
+        saida.writeInt(sensores);
+        saida.writeLong(semente);
+        saida.writeInt(aumentoMaximo);
+        saida.writeInt(intervaloColeta);
+        saida.writeInt(caminhoes);
+        saida.writeInt(capacidadeCaminhao);
+        saida.writeDouble(percentualColeta);
+    }
+
+    static ConfiguracaoDistribuida ler(DataInputStream entrada) throws IOException {
+        return new ConfiguracaoDistribuida(entrada.readInt(), entrada.readLong(), entrada.readInt(),
+                entrada.readInt(), entrada.readInt(), entrada.readInt(), entrada.readDouble());
+    }
+}
@@ -0,0 +1,366 @@
+package distribuido;
+
+import memento.CortesCheckpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordena uma simulação dividida entre vários processos (JVMs) na mesma máquina, ligados por
+ * sockets na interface local ({@code 127.0.0.1}).
+ *
+ * A cidade é dividida em faixas verticais, uma por processo de trabalho
+ * ({@link TrabalhadorDistribuido}); cada processo gera e simula só os sensores da sua faixa, então
+ * a memória necessária se divide entre os processos. O coordenador não guarda sensores: ele é dono
+ * do relógio global, encaminha os caminhões que passam de uma faixa para a outra, soma as métricas
+ * e orquestra os checkpoints.
+ *
+ * O relógio avança em barreiras: o coordenador envia a todos os processos quantos passos avançar
+ * (até a próxima coleta) junto com os caminhões que chegam a cada faixa, e só começa a barreira
+ * seguinte depois de receber o relatório de todos. Os caminhões que deixam uma faixa na coleta
+ * chegam à faixa vizinha na barreira seguinte. Como cada faixa é determinística e as transferências
+ * seguem uma ordem fixa, a mesma configuração e quantidade de processos produzem sempre o mesmo resultado.
+ *
+ * As mensagens usam o {@link Protocolo} binário; por barreira trafegam apenas algumas dezenas de
+ * bytes por processo, mais oito bytes por caminhão transferido.
+ */
+public class CoordenadorDistribuido implements AutoCloseable {
+    private static final String ARQUIVO_COORDENADOR = "coordenador.estado";
+    private static final int ESPERA_CONEXAO_MS = 60_000;
+
+    private final ConfiguracaoDistribuida configuracao;
+    private final ServerSocket servidor;
+    private final List<Process> processos = new ArrayList<>();
+    private final List<Conexao> conexoes = new ArrayList<>();
+    private List<List<Particao.Caminhao>> emTransito = new ArrayList<>(); // Caminhões a entregar a cada faixa
+
+    private long tick;
+    private long transbordado;
+    private long lixoColetado;
+    private long entregue;
+    private long paradas;
+    private long transferencias;
+    private int cheios;
+
+    /**
+     * Abre o coordenador em uma porta livre da interface local, à espera dos processos de trabalho.
+     */
+    public CoordenadorDistribuido(ConfiguracaoDistribuida configuracao) throws IOException {
+        this.configuracao = configuracao;
+        this.servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        servidor.setSoTimeout(ESPERA_CONEXAO_MS);
+    }
+
+    /**
+     * Porta em que o coordenador aceita os processos de trabalho.
+     */
+    public int getPorta() {
+        return servidor.getLocalPort();
+    }
+
+    /**
+     * Inicia os processos de trabalho como novas JVMs, com o mesmo classpath desta, e aguarda a
+     * conexão de todos. A saída de erro dos processos é a mesma deste.
+     * @param quantidade quantidade de processos (e de faixas da cidade).
+     * @param argumentosJvm opções adicionais da JVM dos processos (por exemplo, {@code -Xmx2g}).
+     */
+    public void iniciarProcessos(int quantidade, String... argumentosJvm) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        for (int i = 0; i < quantidade; i++) {
+            List<String> comando = new ArrayList<>();
+            comando.add(java);
+            comando.addAll(List.of(argumentosJvm));
+            comando.add("-cp");
+            comando.add(System.getProperty("java.class.path"));
+            comando.add("app.TrabalhadorSimulacao");
+            comando.add(InetAddress.getLoopbackAddress().getHostAddress());
+            comando.add(Integer.toString(getPorta()));
+            processos.add(new ProcessBuilder(comando)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+        aceitar(quantidade);
+    }
+
+    /**
+     * Aguarda a conexão de processos de trabalho iniciados por fora e entrega a cada um a sua faixa.
+     * A ordem de conexão define o índice da faixa. Os caminhões começam repartidos entre as faixas.
+     */
+    public void aceitar(int quantidade) throws IOException {
+        if (!conexoes.isEmpty()) {
+            throw new IllegalStateException("Os processos de trabalho já foram conectados.");
+        }
+        if (quantidade < 1) {
+            throw new IllegalArgumentException("É preciso ao menos um processo de trabalho.");
+        }
+        for (int i = 0; i < quantidade; i++) {
+            Conexao conexao = new Conexao(servidor.accept());
+            conexoes.add(conexao);
+            if (conexao.entrada.readInt() != Protocolo.MAGICO || conexao.entrada.readInt() != Protocolo.VERSAO) {
+                throw new IOException("Processo de trabalho com protocolo incompatível.");
+            }
+            conexao.saida.writeByte(Protocolo.PARTICAO);
+            conexao.saida.writeInt(i);
+            conexao.saida.writeInt(quantidade);
+            configuracao.escrever(conexao.saida);
+            conexao.saida.flush();
+        }
+        for (Conexao conexao : conexoes) {
+            Protocolo.esperar(conexao.entrada, Protocolo.CONFIRMACAO);
+        }
+        for (int p = 0; p < quantidade; p++) {
+            emTransito.add(new ArrayList<>());
+        }
+        for (int c = 0; c < configuracao.getCaminhoes(); c++) {
+            emTransito.get(c % quantidade).add(new Particao.Caminhao(c, 0));
+        }
+    }
+
+    /**
+     * Avança a simulação a quantidade de passos informada, em barreiras que terminam nas coletas.
+     */
+    public void avancar(long passos) throws IOException {
+        int intervalo = configuracao.getIntervaloColeta();
+        int particoes = conexoes.size();
+        while (passos > 0) {
+            int barreira = (int) Math.min(passos, intervalo - tick % intervalo);
+
+            // Envia a todos antes de ler qualquer resposta, para que as faixas avancem em paralelo
+            for (int p = 0; p < particoes; p++) {
+                DataOutputStream saida = conexoes.get(p).saida;
+                saida.writeByte(Protocolo.PASSO);
+                saida.writeInt(barreira);
+                Protocolo.escreverCaminhoes(saida, emTransito.get(p));
+                saida.flush();
+                emTransito.get(p).clear();
+            }
+            cheios = 0;
+            for (int p = 0; p < particoes; p++) {
+                DataInputStream entrada = conexoes.get(p).entrada;
+                Protocolo.esperar(entrada, Protocolo.RELATORIO);
+                transbordado += entrada.readLong();
+                lixoColetado += entrada.readLong();
+                entregue += entrada.readLong();
+                paradas += entrada.readInt();
+                cheios += entrada.readInt();
+                List<Particao.Caminhao> saidas = Protocolo.lerCaminhoes(entrada, configuracao.getCaminhoes());
+                emTransito.get((p + 1) % particoes).addAll(saidas);
+                transferencias += saidas.size();
+            }
+            tick += barreira;
+            passos -= barreira;
+        }
+    }
+
+    /**
+     * Grava um checkpoint consistente da simulação inteira no diretório informado.
+     *
+     * Entre duas barreiras nenhum processo está avançando, então todos gravam o mesmo passo. Cada
+     * processo grava a sua faixa em um subdiretório novo ({@code corte-N}) e o coordenador grava o
+     * relógio, as métricas e os caminhões em trânsito; só então o arquivo
+     * {@value CortesCheckpoint#ARQUIVO_ATUAL} passa, de forma atômica, a apontar para o novo corte,
+     * e o anterior é apagado (ver {@link CortesCheckpoint}).
+     * O diretório deve ser acessível a todos os processos.
+     */
+    public void salvarEstado(Path diretorio) throws IOException {
+        Path corte = CortesCheckpoint.novoCorte(diretorio).toAbsolutePath();
+
+        enviarATodos(Protocolo.SALVAR, corte);
+        try (DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(corte.resolve(ARQUIVO_COORDENADOR))))) {
+            saida.writeInt(conexoes.size());
+            saida.writeLong(tick);
+            saida.writeLong(transbordado);
+            saida.writeLong(lixoColetado);
+            saida.writeLong(entregue);
+            saida.writeLong(paradas);
+            saida.writeLong(transferencias);
+            saida.writeInt(cheios);
+            for (List<Particao.Caminhao> caminhoes : emTransito) {
+                Protocolo.escreverCaminhoes(saida, caminhoes);
+            }
+        }
+
+        CortesCheckpoint.publicar(diretorio, corte);
+    }
+
+    /**
+     * Restaura a simulação inteira a partir do último corte gravado por {@link #salvarEstado(Path)}.
+     * A configuração e a quantidade de processos devem ser as mesmas da gravação.
+     */
+    public void restaurarEstado(Path diretorio) throws IOException {
+        Path atual = CortesCheckpoint.corteAtual(diretorio);
+        if (atual == null) {
+            throw new IOException("Nenhum checkpoint distribuído em " + diretorio);
+        }
+        Path corte = atual.toAbsolutePath();
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(corte.resolve(ARQUIVO_COORDENADOR))))) {
+            int particoes = entrada.readInt();
+            if (particoes != conexoes.size()) {
+                throw new IOException("O checkpoint tem " + particoes + " partições, mas há "
+                        + conexoes.size() + " processos de trabalho.");
+            }
+            long tickSalvo = entrada.readLong();
+            long[] contadores = new long[5];
+            for (int i = 0; i < contadores.length; i++) {
+                contadores[i] = entrada.readLong();
+            }
+            int cheiosSalvos = entrada.readInt();
+            List<List<Particao.Caminhao>> transito = new ArrayList<>();
+            for (int p = 0; p < particoes; p++) {
+                transito.add(Protocolo.lerCaminhoes(entrada, configuracao.getCaminhoes()));
+            }
+
+            long[] ticks = enviarATodos(Protocolo.RESTAURAR, corte);
+            for (long t : ticks) {
+                if (t != tickSalvo) {
+                    throw new IOException("Partição restaurada no passo " + t + ", esperado " + tickSalvo);
+                }
+            }
+            tick = tickSalvo;
+            transbordado = contadores[0];
+            lixoColetado = contadores[1];
+            entregue = contadores[2];
+            paradas = contadores[3];
+            transferencias = contadores[4];
+            cheios = cheiosSalvos;
+            emTransito = transito;
+        }
+    }
+
+    /**
+     * Passo atual do relógio global.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Quantidade de processos de trabalho (e de faixas da cidade).
+     */
+    public int getProcessos() {
+        return conexoes.size();
+    }
+
+    /**
+     * Lixo que excedeu o limite das lixeiras, somado em todas as faixas.
+     */
+    public long getTransbordado() {
+        return transbordado;
+    }
+
+    public long getLixoColetado() {
+        return lixoColetado;
+    }
+
+    /**
+     * Lixo descarregado nos depósitos pelos caminhões que encheram.
+     */
+    public long getEntregue() {
+        return entregue;
+    }
+
+    public long getParadas() {
+        return paradas;
+    }
+
+    /**
+     * Quantas vezes um caminhão passou de uma faixa para outra.
+     */
+    public long getTransferencias() {
+        return transferencias;
+    }
+
+    /**
+     * Lixeiras cheias ao fim da última barreira, na cidade inteira.
+     */
+    public int getCheios() {
+        return cheios;
+    }
+
+    /**
+     * Encerra os processos de trabalho e fecha as conexões.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Conexao conexao : conexoes) {
+            try {
+                conexao.saida.writeByte(Protocolo.ENCERRAR);
+                conexao.saida.flush();
+            } catch (IOException e) {
+                // O processo já terminou
+            }
+            conexao.socket.close();
+        }
+        for (Process processo : processos) {
+            try {
+                if (!processo.waitFor(5, TimeUnit.SECONDS)) {
+                    processo.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                processo.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        servidor.close();
+    }
+
+    /**
+     * Envia um comando com um diretório a todos os processos e aguarda a confirmação de todos.
+     * @return o passo informado por cada processo na confirmação.
+     */
+    private long[] enviarATodos(byte tipo, Path diretorio) throws IOException {
+        for (Conexao conexao : conexoes) {
+            conexao.saida.writeByte(tipo);
+            conexao.saida.writeUTF(diretorio.toString());
+            conexao.saida.flush();
+        }
+        long[] ticks = new long[conexoes.size()];
+        IOException falha = null;
+        for (int p = 0; p < ticks.length; p++) {
+            try {
+                Protocolo.esperar(conexoes.get(p).entrada, Protocolo.CONFIRMACAO);
+                ticks[p] = conexoes.get(p).entrada.readLong();
+            } catch (IOException e) {
+                // Continua lendo as respostas dos demais para manter as conexões em ordem
+                if (falha == null) {
+                    falha = e;
+                }
+            }
+        }
+        if (falha != null) {
+            throw falha;
+        }
+        return ticks;
+    }
+
+    /**
+     * Socket de um processo de trabalho com os fluxos de entrada e saída bufferizados.
+     */
+    private static final class Conexao {
+        final Socket socket;
+        final DataInputStream entrada;
+        final DataOutputStream saida;
+
+        Conexao(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            this.entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.saida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package distribuido;
+
+import model.ArmazemSensores;
+import model.SensorLixo;
+import model.SistemaColetaLixo;
+import strategy.ColetaPorNivelMaisAlto;
+import strategy.PoliticaColeta;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Parte da cidade simulada por um processo de trabalho: uma faixa vertical do mapa, com os seus
+ * sensores, o seu {@link SistemaColetaLixo} e os caminhões que estão nela.
+ *
+ * Os sensores da faixa são gerados a partir da semente da configuração e do índice da partição,
+ * sem que o coordenador precise enviá-los. Os aumentos de cada passo usam um gerador criado a
+ * partir da semente da partição e do número do passo, de modo que o estado completo da partição
+ * é apenas o nível das lixeiras, o passo atual e os caminhões presentes.
+ *
+ * A cada coleta, os caminhões presentes, em ordem de chegada, percorrem a rota da estratégia (as
+ * lixeiras acima do percentual de coleta, da mais cheia para a menos cheia) até encherem. Um
+ * caminhão que enche descarrega no depósito e continua na faixa; um que termina a rota sem encher
+ * segue, com a carga que tem, para a faixa vizinha.
+ */
+final class Particao {
+    private static final int LIMITE_LIXEIRA = 100;
+
+    private final int indice;
+    private final ConfiguracaoDistribuida configuracao;
+    private final ArmazemSensores armazem;
+    private final SistemaColetaLixo sistema;
+    private final long semente;
+    private List<Caminhao> caminhoes = new ArrayList<>();
+    private long tick;
+
+    // Contadores desde o último relatório
+    private long transbordado;
+    private long lixoColetado;
+    private long entregue;
+    private int paradas;
+
+    Particao(ConfiguracaoDistribuida configuracao, int indice, int particoes) {
+        this.indice = indice;
+        this.configuracao = configuracao;
+        SplittableRandom raiz = new SplittableRandom(configuracao.getSemente());
+        for (int p = 0; p < indice; p++) {
+            raiz.split();
+        }
+        SplittableRandom aleatorio = raiz.split();
+        this.semente = aleatorio.nextLong();
+
+        long total = configuracao.getSensores();
+        int n = (int) (total * (indice + 1) / particoes - total * indice / particoes);
+        double largura = ConfiguracaoDistribuida.LADO_CIDADE / particoes;
+        armazem = new ArmazemSensores(Math.max(n, 1));
+        for (int i = 0; i < n; i++) {
+            armazem.adicionar(LIMITE_LIXEIRA, (indice + aleatorio.nextDouble()) * largura,
+                    aleatorio.nextDouble() * ConfiguracaoDistribuida.LADO_CIDADE);
+        }
+        sistema = new SistemaColetaLixo(armazem, Collections.emptyList(),
+                new ColetaPorNivelMaisAlto(PoliticaColeta.aPartirDe(configuracao.getPercentualColeta())));
+        sistema.setMensagens(false);
+    }
+
+    /**
+     * Recebe caminhões vindos de outra partição; eles coletam a partir da próxima coleta.
+     */
+    void receber(List<Caminhao> chegadas) {
+        caminhoes.addAll(chegadas);
+    }
+
+    /**
+     * Avança a quantidade de passos informada.
+     * @return os caminhões que deixaram a partição, na ordem em que saíram.
+     */
+    List<Caminhao> avancar(int passos) {
+        List<Caminhao> saidas = new ArrayList<>();
+        for (int i = 0; i < passos; i++) {
+            tick++;
+            encher();
+            if (tick % configuracao.getIntervaloColeta() == 0) {
+                coletar(saidas);
+            }
+        }
+        return saidas;
+    }
+
+    private void encher() {
+        SplittableRandom gerador = new SplittableRandom(semente + tick).split();
+        int limite = configuracao.getAumentoMaximo() + 1;
+        int n = armazem.tamanho();
+        for (int id = 0; id < n; id++) {
+            int quantidade = gerador.nextInt(limite);
+            if (quantidade == 0) {
+                continue;
+            }
+            int livre = armazem.getLimite(id) - armazem.getNivel(id);
+            if (quantidade > livre) {
+                transbordado += quantidade - livre;
+            }
+            if (livre > 0) {
+                armazem.aumentar(id, quantidade);
+            }
+        }
+    }
+
+    private void coletar(List<Caminhao> saidas) {
+        if (caminhoes.isEmpty()) {
+            return;
+        }
+        List<SensorLixo> pontos = sistema.gerarRota().getPontos();
+        int capacidade = configuracao.getCapacidadeCaminhao();
+        int proxima = 0;
+        List<Caminhao> ficam = new ArrayList<>(caminhoes.size());
+        for (Caminhao caminhao : caminhoes) {
+            while (proxima < pontos.size()) {
+                int id = pontos.get(proxima).getId();
+                if (caminhao.carga + armazem.getNivel(id) > capacidade) {
+                    break;
+                }
+                int coletado = armazem.esvaziar(id);
+                caminhao.carga += coletado;
+                lixoColetado += coletado;
+                paradas++;
+                proxima++;
+            }
+            if (proxima < pontos.size()) {
+                entregue += caminhao.carga; // Cheio: descarrega no depósito e fica
+                caminhao.carga = 0;
+                ficam.add(caminhao);
+            } else {
+                saidas.add(caminhao);
+            }
+        }
+        caminhoes = ficam;
+    }
+
+    /**
+     * Escreve os contadores acumulados desde o último relatório e os zera.
+     */
+    void escreverRelatorio(DataOutputStream saida) throws IOException {
+        saida.writeLong(transbordado);
+        saida.writeLong(lixoColetado);
+        saida.writeLong(entregue);
+        saida.writeInt(paradas);
+        saida.writeInt(armazem.contarCheios());
+        transbordado = 0;
+        lixoColetado = 0;
+        entregue = 0;
+        paradas = 0;
+    }
+
+    /**
+     * Grava o estado da partição no diretório: os níveis em um checkpoint do sistema e o passo
+     * atual com os caminhões presentes em um arquivo à parte.
+     */
+    void salvar(Path diretorio) throws IOException {
+        sistema.salvarEstado(diretorio.resolve(String.format("particao-%03d.niveis", indice)));
+        try (DataOutputStream saida = new DataOutputStream(Files.newOutputStream(arquivoEstado(diretorio)))) {
+            saida.writeLong(tick);
+            Protocolo.escreverCaminhoes(saida, caminhoes);
+        }
+    }
+
+    /**
+     * Restaura o estado gravado por {@link #salvar(Path)}. Os contadores do relatório são zerados.
+     */
+    void restaurar(Path diretorio) throws IOException {
+        sistema.restaurarEstado(diretorio.resolve(String.format("particao-%03d.niveis", indice)));
+        try (DataInputStream entrada = new DataInputStream(Files.newInputStream(arquivoEstado(diretorio)))) {
+            tick = entrada.readLong();
+            caminhoes = Protocolo.lerCaminhoes(entrada, configuracao.getCaminhoes());
+        }
+        transbordado = 0;
+        lixoColetado = 0;
+        entregue = 0;
+        paradas = 0;
+    }
+
+    int getIndice() {
+        return indice;
+    }
+
+    /**
+     * Total de caminhões da cidade, em todas as partições.
+     */
+    int getFrota() {
+        return configuracao.getCaminhoes();
+    }
+
+    long getTick() {
+        return tick;
+    }
+
+    private Path arquivoEstado(Path diretorio) {
+        return diretorio.resolve(String.format("particao-%03d.estado", indice));
+    }
+
+    /**
+     * Caminhão da frota, identificado na cidade inteira, com a carga que leva.
+     */
+    static final class Caminhao {
+        final int id;
+        int carga;
+
+        Caminhao(int id, int carga) {
+            this.id = id;
+            this.carga = carga;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package distribuido;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Protocolo binário entre o coordenador e os processos de trabalho.
+ *
+ * Cada mensagem é um byte de tipo seguido dos campos em ordem fixa, gravados com
+ * {@link DataOutputStream} (big-endian), sem nomes nem separadores:
+ * <pre>
+ * trabalhador → coordenador, ao conectar: MAGICO (int), VERSAO (int)
+ * PARTICAO     índice (int), partições (int), configuração       → CONFIRMACAO
+ * PASSO        passos (int), caminhões que chegam                 → RELATORIO
+ * RELATORIO    transbordado, coletado, entregue (long), paradas, cheios (int), caminhões que saem
+ * SALVAR       diretório (UTF)                                    → CONFIRMACAO com o passo (long)
+ * RESTAURAR    diretório (UTF)                                    → CONFIRMACAO com o passo (long)
+ * ENCERRAR     (sem campos)
+ * ERRO         mensagem (UTF), em resposta a qualquer comando que falhou
+ * </pre>
+ * Uma lista de caminhões é a quantidade (int) seguida de id e carga (int) de cada um.
+ *
+ * Uma falha ao executar um comando é respondida com ERRO, e o processo de trabalho continua
+ * atendendo. Uma mensagem malformada (tipo desconhecido, quantidade inválida) também é respondida
+ * com ERRO, mas encerra a conexão: os bytes seguintes já não podem ser interpretados.
+ */
+final class Protocolo {
+    static final int MAGICO = 0x53434444; // "SCDD"
+    static final int VERSAO = 1;
+
+    static final byte PARTICAO = 1;
+    static final byte PASSO = 2;
+    static final byte RELATORIO = 3;
+    static final byte SALVAR = 4;
+    static final byte RESTAURAR = 5;
+    static final byte CONFIRMACAO = 6;
+    static final byte ENCERRAR = 7;
+    static final byte ERRO = 8;
+
+    private Protocolo() {
+    }
+
+    /**
+     * Lê o tipo da próxima mensagem e falha se não for o esperado. Uma mensagem de erro
+     * do outro lado vira uma {@link IOException} com o texto recebido.
+     */
+    static void esperar(DataInputStream entrada, byte tipo) throws IOException {
+        byte recebido = entrada.readByte();
+        if (recebido == ERRO) {
+            throw new IOException(entrada.readUTF());
+        }
+        if (recebido != tipo) {
+            throw new IOException("Mensagem inesperada: tipo " + recebido + ", esperado " + tipo);
+        }
+    }
+
+    static void escreverCaminhoes(DataOutputStream saida, List<Particao.Caminhao> caminhoes) throws IOException {
+        saida.writeInt(caminhoes.size());
+        for (Particao.Caminhao caminhao : caminhoes) {
+            saida.writeInt(caminhao.id);
+            saida.writeInt(caminhao.carga);
+        }
+    }
+
+    /**
+     * Lê uma lista de caminhões, recusando quantidades negativas ou maiores que a frota.
+     * @param frota total de caminhões da cidade, que nenhuma lista pode ultrapassar.
+     */
+    static List<Particao.Caminhao> lerCaminhoes(DataInputStream entrada, int frota) throws IOException {
+        int quantidade = entrada.readInt();
+        if (quantidade < 0 || quantidade > frota) {
+            throw new IOException("Quantidade de caminhões inválida: " + quantidade + " (frota de " + frota + ")");
+        }
+        List<Particao.Caminhao> caminhoes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            caminhoes.add(new Particao.Caminhao(entrada.readInt(), entrada.readInt()));
+        }
+        return caminhoes;
+    }
+}
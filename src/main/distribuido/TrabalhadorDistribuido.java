@@ -0,0 +1,102 @@
+package distribuido;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Lado do processo de trabalho da simulação distribuída: conecta-se ao coordenador, recebe a sua
+ * partição da cidade e executa os comandos recebidos até o coordenador encerrar a conexão.
+ *
+ * Os comandos são atendidos um de cada vez, na ordem em que chegam. Uma falha em um comando é
+ * devolvida ao coordenador como mensagem de erro, e o processo continua atendendo os seguintes;
+ * só uma mensagem malformada, que não pode ser lida até o fim, encerra a conexão.
+ */
+public final class TrabalhadorDistribuido {
+
+    private TrabalhadorDistribuido() {
+    }
+
+    /**
+     * Conecta-se ao coordenador e atende os comandos até o encerramento.
+     */
+    public static void executar(String host, int porta) throws IOException {
+        try (Socket socket = new Socket(host, porta)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            saida.writeInt(Protocolo.MAGICO);
+            saida.writeInt(Protocolo.VERSAO);
+            saida.flush();
+
+            Protocolo.esperar(entrada, Protocolo.PARTICAO);
+            int indice = entrada.readInt();
+            int particoes = entrada.readInt();
+            Particao particao = new Particao(ConfiguracaoDistribuida.ler(entrada), indice, particoes);
+            saida.writeByte(Protocolo.CONFIRMACAO);
+            saida.flush();
+
+            while (atender(entrada, saida, particao)) {
+                saida.flush();
+            }
+            saida.flush(); // Erro de uma mensagem malformada, se houve
+        } catch (EOFException e) {
+            // Coordenador encerrou a conexão sem o comando de encerramento
+        }
+    }
+
+    /**
+     * Atende um comando. Qualquer falha é respondida com {@link Protocolo#ERRO}; se a mensagem
+     * não pôde ser lida por inteiro, a conexão é encerrada em seguida.
+     * @return {@code false} quando o comando é o de encerramento ou a mensagem era malformada.
+     */
+    private static boolean atender(DataInputStream entrada, DataOutputStream saida, Particao particao)
+            throws IOException {
+        byte tipo = entrada.readByte();
+        boolean lido = false;
+        try {
+            switch (tipo) {
+                case Protocolo.PASSO: {
+                    int passos = entrada.readInt();
+                    List<Particao.Caminhao> chegadas = Protocolo.lerCaminhoes(entrada, particao.getFrota());
+                    lido = true;
+                    particao.receber(chegadas);
+                    List<Particao.Caminhao> saidas = particao.avancar(passos);
+                    saida.writeByte(Protocolo.RELATORIO);
+                    particao.escreverRelatorio(saida);
+                    Protocolo.escreverCaminhoes(saida, saidas);
+                    return true;
+                }
+                case Protocolo.SALVAR:
+                case Protocolo.RESTAURAR: {
+                    String diretorio = entrada.readUTF();
+                    lido = true;
+                    if (tipo == Protocolo.SALVAR) {
+                        particao.salvar(Paths.get(diretorio));
+                    } else {
+                        particao.restaurar(Paths.get(diretorio));
+                    }
+                    saida.writeByte(Protocolo.CONFIRMACAO);
+                    saida.writeLong(particao.getTick());
+                    return true;
+                }
+                case Protocolo.ENCERRAR:
+                    return false;
+                default:
+                    throw new IOException("Comando desconhecido: " + tipo);
+            }
+        } catch (EOFException e) {
+            throw e; // Conexão encerrada no meio da mensagem: não há a quem responder
+        } catch (IOException | RuntimeException e) {
+            saida.writeByte(Protocolo.ERRO);
+            saida.writeUTF("Partição " + particao.getIndice() + ", comando " + tipo + ": " + e);
+            return lido;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package distrito;
+
+import memento.CortesCheckpoint;
+import model.ArmazemSensores;
+import model.SistemaColetaLixo;
+import simulacao.MotorSimulacao;
+import strategy.EstrategiaColeta;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Divide a cidade em {@link Distrito}s e coordena a execução deles em várias threads.
+ *
+ * Os sensores são repartidos por bisseção espacial recursiva: a região é cortada ao meio no eixo
+ * mais comprido, pela mediana, até formar a quantidade de distritos pedida. Cada distrito fica
+ * com sensores vizinhos e aproximadamente o mesmo número deles, o que mantém as rotas locais.
+ *
+ * Há mais distritos que threads de trabalho: cada thread atende vários distritos, e
+ * {@link #rebalancear()} redistribui os distritos entre as threads conforme o tempo de CPU que cada
+ * um consumiu, tirando distritos de uma thread sobrecarregada por um distrito "quente".
+ *
+ * Todos os comandos que envolvem vários distritos são enviados com a trava do coordenador, de modo
+ * que as caixas de entrada de todos os distritos recebem esses comandos na mesma ordem. Uma consulta
+ * ou um salvamento enviado a todos os distritos forma, portanto, um corte consistente: cada distrito
+ * responde depois de exatamente os mesmos comandos anteriores, mesmo executando em paralelo.
+ * Tarefas enviadas diretamente a um distrito ({@link Distrito#enviar}) valem só para ele.
+ *
+ * Comandos retornam um {@link CompletableFuture} concluído quando todos os distritos terminarem;
+ * não é preciso esperar por um comando para enviar o próximo.
+ */
+public class CoordenadorDistritos implements AutoCloseable {
+    private final Distrito[] distritos;
+    private final int[] distritoDe;             // Distrito de cada sensor da cidade
+    private final int[] localDe;                // Id do sensor dentro do seu distrito
+    private final ExecutorService[] threads;
+    private final int[] threadDe;               // Thread de trabalho de cada distrito
+
+    /**
+     * Reparte os sensores da cidade (limites, posições e níveis atuais) em distritos.
+     * O armazém informado serve apenas de modelo e não é alterado nem usado depois.
+     *
+     * @param quantidadeDistritos quantidade de partições da cidade.
+     * @param quantidadeThreads threads de trabalho que executam os distritos.
+     * @param fabricaEstrategia cria a estratégia de coleta de cada distrito a partir do armazém dele.
+     * @param semente semente dos motores de simulação dos distritos.
+     * @param aumentoMaximo maior aumento de nível por passo (ver {@link MotorSimulacao}).
+     */
+    public CoordenadorDistritos(ArmazemSensores cidade, int quantidadeDistritos, int quantidadeThreads,
+                                Function<ArmazemSensores, EstrategiaColeta> fabricaEstrategia,
+                                long semente, int aumentoMaximo) {
+        if (quantidadeDistritos < 1 || quantidadeThreads < 1) {
+            throw new IllegalArgumentException("É preciso ao menos um distrito e uma thread.");
+        }
+        threads = new ExecutorService[quantidadeThreads];
+        for (int t = 0; t < quantidadeThreads; t++) {
+            String nome = "distrito-trabalho-" + t;
+            threads[t] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, nome);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        int n = cidade.tamanho();
+        distritoDe = new int[n];
+        localDe = new int[n];
+        threadDe = new int[quantidadeDistritos];
+        distritos = new Distrito[quantidadeDistritos];
+        SplittableRandom sementes = new SplittableRandom(semente);
+        int[][] particoes = particionar(cidade, quantidadeDistritos);
+        for (int d = 0; d < quantidadeDistritos; d++) {
+            int[] ids = particoes[d];
+            ArmazemSensores armazem = new ArmazemSensores(Math.max(ids.length, 1));
+            for (int local = 0; local < ids.length; local++) {
+                int global = ids[local];
+                armazem.adicionar(cidade.getLimite(global), cidade.getX(global), cidade.getY(global));
+                armazem.setNivel(local, cidade.getNivel(global));
+                distritoDe[global] = d;
+                localDe[global] = local;
+            }
+            SistemaColetaLixo sistema = new SistemaColetaLixo(armazem, Collections.emptyList(),
+                    fabricaEstrategia.apply(armazem));
+            sistema.setMensagens(false);
+            MotorSimulacao motor = new MotorSimulacao(armazem, sementes.nextLong(), aumentoMaximo);
+            motor.setParalelo(false); // O paralelismo vem dos distritos
+            threadDe[d] = d % quantidadeThreads;
+            distritos[d] = new Distrito(d, ids, armazem, sistema, motor, threads[threadDe[d]]);
+        }
+    }
+
+    public int getQuantidadeDistritos() {
+        return distritos.length;
+    }
+
+    public Distrito getDistrito(int indice) {
+        return distritos[indice];
+    }
+
+    /**
+     * Distrito responsável pelo sensor da cidade informado.
+     */
+    public Distrito distritoDoSensor(int idGlobal) {
+        return distritos[distritoDe[idGlobal]];
+    }
+
+    /**
+     * Quantidade de sensores na cidade inteira.
+     */
+    public int tamanho() {
+        return distritoDe.length;
+    }
+
+    /**
+     * Avança um passo de simulação em todos os distritos.
+     */
+    public synchronized CompletableFuture<Void> passo() {
+        return emTodos(d -> d.getMotor().passo());
+    }
+
+    /**
+     * Aplica aumentos de lixo a sensores da cidade. Os aumentos são agrupados por distrito e
+     * cada distrito recebe uma única tarefa com a sua parte.
+     * @param ids ids dos sensores na cidade.
+     * @param quantidades aumento de cada sensor, na mesma posição de {@code ids}.
+     * @param n quantidade de posições usadas nos vetores.
+     */
+    public synchronized CompletableFuture<Void> aumentar(int[] ids, int[] quantidades, int n) {
+        int[] contagem = new int[distritos.length];
+        for (int i = 0; i < n; i++) {
+            contagem[distritoDe[ids[i]]]++;
+        }
+        int[][] locais = new int[distritos.length][];
+        int[][] aumentos = new int[distritos.length][];
+        for (int d = 0; d < distritos.length; d++) {
+            locais[d] = new int[contagem[d]];
+            aumentos[d] = new int[contagem[d]];
+            contagem[d] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            int d = distritoDe[ids[i]];
+            locais[d][contagem[d]] = localDe[ids[i]];
+            aumentos[d][contagem[d]++] = quantidades[i];
+        }
+
+        CompletableFuture<?>[] futuros = new CompletableFuture<?>[distritos.length];
+        int enviados = 0;
+        for (int d = 0; d < distritos.length; d++) {
+            if (contagem[d] == 0) {
+                continue;
+            }
+            int[] l = locais[d];
+            int[] a = aumentos[d];
+            futuros[enviados++] = distritos[d].enviar(s -> {
+                ArmazemSensores armazem = s.getArmazem();
+                for (int i = 0; i < l.length; i++) {
+                    armazem.aumentar(l[i], a[i]);
+                }
+            });
+        }
+        return CompletableFuture.allOf(Arrays.copyOf(futuros, enviados));
+    }
+
+    /**
+     * Executa a coleta em todos os distritos, cada um com a sua estratégia.
+     */
+    public synchronized CompletableFuture<Void> coletarLixo() {
+        return emTodos(d -> d.getSistema().coletarLixo());
+    }
+
+    /**
+     * Salva o estado de todos os distritos no histórico em memória de cada um, no mesmo ponto da
+     * sequência de comandos. Enquanto salvamentos e restaurações forem feitos pelo coordenador, os
+     * históricos dos distritos avançam e recuam juntos.
+     */
+    public synchronized CompletableFuture<Void> salvarEstado() {
+        return emTodos(d -> d.getSistema().salvarEstado());
+    }
+
+    /**
+     * Restaura, em todos os distritos, o estado salvo anteriormente pelo {@link #salvarEstado()}.
+     */
+    public synchronized CompletableFuture<Void> restaurarEstado() {
+        return emTodos(d -> d.getSistema().restaurarEstado());
+    }
+
+    /**
+     * Copia os níveis da cidade inteira para o vetor de destino, na ordem dos ids da cidade.
+     * Os níveis formam um corte consistente: todos os distritos são lidos no mesmo ponto da
+     * sequência de comandos. Aguarda até a cópia terminar.
+     */
+    public void copiarNiveis(int[] destino) {
+        CompletableFuture<Void> copia;
+        synchronized (this) {
+            copia = emTodos(d -> {
+                ArmazemSensores armazem = d.getArmazem();
+                int[] ids = d.getIdsGlobaisInterno();
+                for (int local = 0; local < ids.length; local++) {
+                    destino[ids[local]] = armazem.getNivel(local);
+                }
+            });
+        }
+        aguardar(copia);
+    }
+
+    /**
+     * Quantidade de sensores cheios na cidade, somada em um corte consistente.
+     */
+    public int contarCheios() {
+        CompletableFuture<Integer>[] parciais;
+        synchronized (this) {
+            parciais = consultarTodos(d -> d.getArmazem().contarCheios());
+        }
+        int total = 0;
+        for (CompletableFuture<Integer> parcial : parciais) {
+            total += aguardar(parcial);
+        }
+        return total;
+    }
+
+    /**
+     * Grava um checkpoint consistente de todos os distritos no diretório informado.
+     *
+     * Cada distrito grava o seu arquivo, em paralelo, em um subdiretório novo ({@code corte-N});
+     * só depois que todos terminam o arquivo {@value CortesCheckpoint#ARQUIVO_ATUAL} passa, de forma
+     * atômica, a apontar para o novo corte, e o corte anterior é apagado. Uma falha no meio da
+     * gravação deixa o corte anterior intacto (ver {@link CortesCheckpoint}).
+     */
+    public void salvarEstado(Path diretorio) throws IOException {
+        Path corte = CortesCheckpoint.novoCorte(diretorio);
+
+        CompletableFuture<Void> gravacao;
+        synchronized (this) {
+            gravacao = emTodos(d -> gravar(d, arquivoDistrito(corte, d)));
+        }
+        aguardarIo(gravacao);
+
+        CortesCheckpoint.publicar(diretorio, corte);
+    }
+
+    /**
+     * Restaura todos os distritos a partir do último corte gravado por {@link #salvarEstado(Path)}.
+     * A cidade deve ter sido dividida da mesma forma (mesmos sensores e quantidade de distritos).
+     */
+    public void restaurarEstado(Path diretorio) throws IOException {
+        Path atual = CortesCheckpoint.corteAtual(diretorio);
+        if (atual == null) {
+            throw new IOException("Nenhum checkpoint de distritos em " + diretorio);
+        }
+        Path corte = atual;
+        CompletableFuture<Void> restauracao;
+        synchronized (this) {
+            restauracao = emTodos(d -> restaurar(d, arquivoDistrito(corte, d)));
+        }
+        aguardarIo(restauracao);
+    }
+
+    /**
+     * Redistribui os distritos entre as threads de trabalho conforme a carga medida desde a última
+     * redistribuição: os distritos, do mais para o menos carregado, vão um a um para a thread com
+     * menor carga acumulada (em empate, a com menos distritos).
+     * @return quantos distritos mudaram de thread.
+     */
+    public synchronized int rebalancear() {
+        // Chave = carga complementada (bits altos, para ordem decrescente) + distrito (bits baixos)
+        int largura = 32 - Integer.numberOfLeadingZeros(distritos.length);
+        long maximo = Long.MAX_VALUE >>> largura;
+        long[] carga = new long[distritos.length];
+        long[] chaves = new long[distritos.length];
+        for (int d = 0; d < distritos.length; d++) {
+            carga[d] = distritos[d].zerarCarga();
+            chaves[d] = (maximo - Math.max(0, Math.min(carga[d], maximo))) << largura | d;
+        }
+        Arrays.sort(chaves);
+        int mascara = (1 << largura) - 1;
+
+        long[] cargaThread = new long[threads.length];
+        int[] distritosThread = new int[threads.length];
+        int movidos = 0;
+        for (long chave : chaves) {
+            int d = (int) chave & mascara;
+            int melhor = 0;
+            for (int t = 1; t < threads.length; t++) {
+                if (cargaThread[t] < cargaThread[melhor]
+                        || (cargaThread[t] == cargaThread[melhor] && distritosThread[t] < distritosThread[melhor])) {
+                    melhor = t;
+                }
+            }
+            cargaThread[melhor] += carga[d];
+            distritosThread[melhor]++;
+            if (threadDe[d] != melhor) {
+                threadDe[d] = melhor;
+                distritos[d].setExecutor(threads[melhor]);
+                movidos++;
+            }
+        }
+        return movidos;
+    }
+
+    /**
+     * Índice da thread de trabalho que atende o distrito.
+     */
+    public synchronized int getThreadDoDistrito(int indice) {
+        return threadDe[indice];
+    }
+
+    /**
+     * Aguarda todos os comandos enviados até agora terminarem.
+     */
+    public void sincronizar() {
+        CompletableFuture<Void> marcador;
+        synchronized (this) {
+            marcador = emTodos(d -> { });
+        }
+        aguardar(marcador);
+    }
+
+    /**
+     * Aguarda os comandos pendentes e encerra as threads de trabalho.
+     */
+    @Override
+    public void close() {
+        sincronizar();
+        for (ExecutorService thread : threads) {
+            thread.shutdown();
+        }
+        for (ExecutorService thread : threads) {
+            try {
+                thread.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private CompletableFuture<Void> emTodos(Consumer<Distrito> tarefa) {
+        CompletableFuture<?>[] futuros = new CompletableFuture<?>[distritos.length];
+        for (int d = 0; d < distritos.length; d++) {
+            Distrito distrito = distritos[d];
+            futuros[d] = distrito.enviar(s -> tarefa.accept(distrito));
+        }
+        return CompletableFuture.allOf(futuros);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T>[] consultarTodos(Function<Distrito, T> consulta) {
+        CompletableFuture<T>[] futuros = (CompletableFuture<T>[]) new CompletableFuture<?>[distritos.length];
+        for (int d = 0; d < distritos.length; d++) {
+            Distrito distrito = distritos[d];
+            futuros[d] = distrito.consultar(s -> consulta.apply(distrito));
+        }
+        return futuros;
+    }
+
+    private static <T> T aguardar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static void aguardarIo(CompletableFuture<Void> futuro) throws IOException {
+        try {
+            aguardar(futuro);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void gravar(Distrito distrito, Path arquivo) {
+        try {
+            distrito.getSistema().salvarEstado(arquivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void restaurar(Distrito distrito, Path arquivo) {
+        try {
+            distrito.getSistema().restaurarEstado(arquivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path arquivoDistrito(Path corte, Distrito distrito) {
+        return corte.resolve(String.format("distrito-%04d.ckpt", distrito.getId()));
+    }
+
+    /**
+     * Bisseção espacial recursiva: retorna, para cada distrito, os ids da cidade em ordem crescente.
+     */
+    static int[][] particionar(ArmazemSensores cidade, int partes) {
+        int n = cidade.tamanho();
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        int[][] resultado = new int[partes][];
+        dividir(cidade, ids, new long[n], 0, n, partes, 0, resultado);
+        return resultado;
+    }
+
+    private static void dividir(ArmazemSensores cidade, int[] ids, long[] chaves, int inicio, int fim,
+                                int partes, int primeira, int[][] resultado) {
+        if (partes == 1) {
+            int[] parte = Arrays.copyOfRange(ids, inicio, fim);
+            Arrays.sort(parte);
+            resultado[primeira] = parte;
+            return;
+        }
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = inicio; i < fim; i++) {
+            minX = Math.min(minX, cidade.getX(ids[i]));
+            maxX = Math.max(maxX, cidade.getX(ids[i]));
+            minY = Math.min(minY, cidade.getY(ids[i]));
+            maxY = Math.max(maxY, cidade.getY(ids[i]));
+        }
+        boolean porX = maxX - minX >= maxY - minY;
+        double minimo = porX ? minX : minY;
+        double extensao = porX ? maxX - minX : maxY - minY;
+        double escala = extensao > 0 ? Integer.MAX_VALUE / extensao : 0;
+
+        // Chave = coordenada quantizada em 31 bits nos bits altos + id nos bits baixos
+        for (int i = inicio; i < fim; i++) {
+            double c = porX ? cidade.getX(ids[i]) : cidade.getY(ids[i]);
+            chaves[i] = ((long) ((c - minimo) * escala) << 32) | ids[i];
+        }
+        Arrays.sort(chaves, inicio, fim);
+        for (int i = inicio; i < fim; i++) {
+            ids[i] = (int) chaves[i];
+        }
+
+        int esquerda = partes / 2;
+        int corte = inicio + (int) ((long) (fim - inicio) * esquerda / partes);
+        dividir(cidade, ids, chaves, inicio, corte, esquerda, primeira, resultado);
+        dividir(cidade, ids, chaves, corte, fim, partes - esquerda, primeira + esquerda, resultado);
+    }
+}
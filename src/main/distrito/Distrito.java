@@ -0,0 +1,156 @@
+package distrito;
+
+import model.ArmazemSensores;
+import model.SistemaColetaLixo;
+import simulacao.MotorSimulacao;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Um distrito da cidade: uma partição dos sensores com seu próprio armazém, {@link SistemaColetaLixo}
+ * (estratégia, histórico de estados e métricas) e {@link MotorSimulacao}.
+ *
+ * O distrito tem um único escritor. Todo acesso ao seu estado é enviado como tarefa para a caixa
+ * de entrada do distrito e executado, em ordem de chegada, por uma das threads de trabalho do
+ * {@link CoordenadorDistritos}; nunca há duas tarefas do mesmo distrito rodando ao mesmo tempo.
+ * Assim, o armazém e o sistema do distrito não disputam travas nem linhas de cache com os demais.
+ *
+ * A thread que atende o distrito pode ser trocada pelo coordenador para equilibrar a carga; a
+ * troca vale a partir da próxima vez que o distrito for agendado, sem interromper o que já está em
+ * execução. Cada agendamento processa no máximo {@value #TAREFAS_POR_VEZ} tarefas, para que
+ * distritos que dividem a mesma thread se alternem.
+ */
+public class Distrito {
+    private static final int TAREFAS_POR_VEZ = 64;
+
+    private final int id;
+    private final int[] idsGlobais;                 // Id na cidade de cada sensor local
+    private final ArmazemSensores armazem;
+    private final SistemaColetaLixo sistema;
+    private final MotorSimulacao motor;
+
+    private final ConcurrentLinkedQueue<Runnable> caixa = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean agendado = new AtomicBoolean();
+    private volatile Executor executor;             // Thread de trabalho que atende o distrito
+    private final AtomicLong cargaNanos = new AtomicLong(); // Tempo gasto executando tarefas
+
+    Distrito(int id, int[] idsGlobais, ArmazemSensores armazem, SistemaColetaLixo sistema,
+             MotorSimulacao motor, Executor executor) {
+        this.id = id;
+        this.idsGlobais = idsGlobais;
+        this.armazem = armazem;
+        this.sistema = sistema;
+        this.motor = motor;
+        this.executor = executor;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int tamanho() {
+        return idsGlobais.length;
+    }
+
+    /**
+     * Ids na cidade dos sensores do distrito, na ordem dos ids locais.
+     */
+    public int[] getIdsGlobais() {
+        return Arrays.copyOf(idsGlobais, idsGlobais.length);
+    }
+
+    /**
+     * Tempo total, em nanossegundos, gasto nas tarefas do distrito desde a última redistribuição.
+     */
+    public long getCargaNanos() {
+        return cargaNanos.get();
+    }
+
+    /**
+     * Envia uma tarefa para ser executada pelo distrito sobre o seu sistema.
+     * @return futuro concluído quando a tarefa terminar (ou com a exceção lançada por ela).
+     */
+    public CompletableFuture<Void> enviar(Consumer<SistemaColetaLixo> tarefa) {
+        return consultar(s -> {
+            tarefa.accept(s);
+            return null;
+        });
+    }
+
+    /**
+     * Envia uma consulta para ser executada pelo distrito sobre o seu sistema.
+     * O sistema (e o armazém dele) só deve ser usado dentro da tarefa, nunca guardado fora dela.
+     */
+    public <T> CompletableFuture<T> consultar(Function<SistemaColetaLixo, T> tarefa) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        executar(() -> {
+            try {
+                futuro.complete(tarefa.apply(sistema));
+            } catch (Throwable e) {
+                futuro.completeExceptionally(e);
+            }
+        });
+        return futuro;
+    }
+
+    int[] getIdsGlobaisInterno() {
+        return idsGlobais;
+    }
+
+    ArmazemSensores getArmazem() {
+        return armazem;
+    }
+
+    SistemaColetaLixo getSistema() {
+        return sistema;
+    }
+
+    MotorSimulacao getMotor() {
+        return motor;
+    }
+
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Zera a carga medida e retorna o valor anterior.
+     */
+    long zerarCarga() {
+        return cargaNanos.getAndSet(0);
+    }
+
+    /**
+     * Coloca a tarefa na caixa de entrada e agenda o distrito, se ele ainda não estiver agendado.
+     */
+    private void executar(Runnable tarefa) {
+        caixa.add(tarefa);
+        agendar();
+    }
+
+    private void agendar() {
+        if (agendado.compareAndSet(false, true)) {
+            executor.execute(this::drenar);
+        }
+    }
+
+    private void drenar() {
+        long inicio = System.nanoTime();
+        Runnable tarefa;
+        for (int i = 0; i < TAREFAS_POR_VEZ && (tarefa = caixa.poll()) != null; i++) {
+            tarefa.run();
+        }
+        cargaNanos.addAndGet(System.nanoTime() - inicio);
+        agendado.set(false);
+        if (!caixa.isEmpty()) {
+            agendar();
+        }
+    }
+}
@@ -7,6 +7,28 @@ import model.CaminhaoColeta;
  * Implementa o padrão Factory Method para instanciar objetos do tipo CaminhaoColeta.
  */
 public class FabricaCaminhaoSimples implements FabricaElementoCidade<CaminhaoColeta> {
+    private int capacidade;
+    private double depositoX;
+    private double depositoY;
+
+    /**
+     * Construtor que cria caminhões sem limite de carga, com depósito na origem do mapa.
+     */
+    public FabricaCaminhaoSimples() {
+        this(Integer.MAX_VALUE, 0, 0);
+    }
+
+    /**
+     * Construtor que define a capacidade e o depósito dos caminhões criados.
+     * @param capacidade carga máxima de cada caminhão, na unidade do nível dos sensores.
+     * @param depositoX coordenada leste do depósito.
+     * @param depositoY coordenada norte do depósito.
+     */
+    public FabricaCaminhaoSimples(int capacidade, double depositoX, double depositoY) {
+        this.capacidade = capacidade;
+        this.depositoX = depositoX;
+        this.depositoY = depositoY;
+    }
 
     /**
      * Cria e retorna uma nova instância de CaminhaoColeta.
@@ -14,6 +36,6 @@ public class FabricaCaminhaoSimples implements FabricaElementoCidade<CaminhaoCol
      */
     @Override
     public CaminhaoColeta criar() {
-        return new CaminhaoColeta();
+        return new CaminhaoColeta(capacidade, depositoX, depositoY);
     }
 }
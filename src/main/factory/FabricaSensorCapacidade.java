@@ -1,13 +1,16 @@
 package factory;
 
+import model.ArmazemSensores;
 import model.SensorLixo;
-import model.SensorLixoCapacidade;
 
 /**
  * Fábrica responsável por criar sensores de lixo com limite de capacidade.
  * Utiliza o padrão Factory Method para encapsular a criação.
+ *
+ * Todos os sensores criados por uma mesma fábrica compartilham o mesmo {@link ArmazemSensores}.
  */
 public class FabricaSensorCapacidade implements FabricaElementoCidade<SensorLixo> {
+    private ArmazemSensores armazem;
     private int limite;
 
     /**
@@ -15,14 +18,40 @@ public class FabricaSensorCapacidade implements FabricaElementoCidade<SensorLixo
      * @param limite capacidade máxima antes de disparar notificação.
      */
     public FabricaSensorCapacidade(int limite) {
+        this(new ArmazemSensores(), limite);
+    }
+
+    /**
+     * Construtor que cria os sensores dentro de um armazém já existente.
+     * @param armazem armazém onde os dados dos sensores serão guardados.
+     * @param limite capacidade máxima antes de disparar notificação.
+     */
+    public FabricaSensorCapacidade(ArmazemSensores armazem, int limite) {
+        this.armazem = armazem;
         this.limite = limite;
     }
 
     /**
-     * Cria e retorna uma nova instância de SensorLixoCapacidade com o limite configurado.
+     * Cadastra um novo sensor no armazém e retorna sua visão SensorLixoCapacidade.
      */
     @Override
     public SensorLixo criar() {
-        return new SensorLixoCapacidade(limite);
+        return armazem.getSensor(armazem.adicionar(limite));
+    }
+
+    /**
+     * Cadastra um novo sensor na posição informada e retorna sua visão SensorLixoCapacidade.
+     * @param x coordenada leste do sensor no mapa da cidade.
+     * @param y coordenada norte do sensor no mapa da cidade.
+     */
+    public SensorLixo criar(double x, double y) {
+        return armazem.getSensor(armazem.adicionar(limite, x, y));
+    }
+
+    /**
+     * Retorna o armazém compartilhado pelos sensores desta fábrica.
+     */
+    public ArmazemSensores getArmazem() {
+        return armazem;
     }
 }
@@ -0,0 +1,433 @@
+package historico;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Arquivo imutável com as leituras de um trecho de uma partição de tempo, organizado em colunas por sensor.
+ *
+ * Formato (versão 1, inteiros little-endian):
+ * <pre>
+ *  deslocamento  tamanho   conteúdo
+ *   0            4         número mágico "SCTS"
+ *   4            4         versão do formato
+ *   8            8         menor instante do bloco
+ *  16            8         maior instante do bloco
+ *  24            4         quantidade de séries (s), uma por sensor
+ *  28            4         reservado (zero)
+ *  32            8         quantidade de leituras
+ *  40            4         CRC32 dos bytes 0 a 39 e do índice
+ *  44            4         reservado (zero)
+ *  48            56 * s    índice das séries, em ordem crescente de id
+ *  ...                     dados das séries, alinhados em 8 bytes
+ * </pre>
+ * Cada entrada do índice guarda id, quantidade de leituras, primeiro e último instantes, mínimo, máximo
+ * e soma dos níveis, a posição dos dados, a largura em bits dos níveis e quantas palavras eles ocupam.
+ * Com esse resumo, consultas que não precisam dos valores individuais nem abrem os dados da série.
+ *
+ * Os dados de uma série são duas colunas de palavras de 64 bits: os níveis, menos o mínimo, empacotados
+ * com largura fixa (lidos por posição, sem decodificar os anteriores), seguidos dos instantes codificados
+ * pela diferença da diferença, como no Gorilla: leituras em intervalo regular custam um bit cada.
+ *
+ * O bloco é montado em memória e gravado pelo {@link FileChannel} em um arquivo temporário, renomeado
+ * ao final; só o arquivo já renomeado é mapeado para leitura. Mapear o temporário faria a renomeação
+ * falhar no Windows, onde um arquivo mapeado não pode ser renomeado até o mapeamento ser coletado.
+ */
+final class BlocoHistorico {
+    static final int MAGICO = 0x53544353; // "SCTS" em little-endian
+    static final int VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 48;
+    private static final int TAMANHO_ENTRADA = 56;
+    private static final int[] LARGURAS_DIFERENCA = {0, 7, 12, 20, 64}; // Pela quantidade de '1' no prefixo
+
+    private final Path arquivo;
+    private final long particao;
+    private final int sequencia;
+    private final ByteBuffer mapa;
+    private final int series;
+
+    private BlocoHistorico(Path arquivo, long particao, int sequencia, ByteBuffer mapa) {
+        this.arquivo = arquivo;
+        this.particao = particao;
+        this.sequencia = sequencia;
+        this.mapa = mapa;
+        this.series = mapa.getInt(24);
+    }
+
+    /**
+     * Grava as leituras informadas em um novo bloco. As leituras de cada sensor devem estar em ordem de instante.
+     * A gravação passa por um arquivo temporário renomeado ao final, como em {@link memento.ArquivoCheckpoint}.
+     */
+    static BlocoHistorico gravar(Path arquivo, long particao, int sequencia,
+                                 int[] ids, long[] instantes, int[] niveis, int n) throws IOException {
+        // Ordem das leituras por sensor, mantendo a ordem de chegada (e portanto de instante) em cada um
+        long[] ordem = new long[n];
+        for (int i = 0; i < n; i++) {
+            ordem[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(ordem);
+
+        int quantidadeSeries = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || ids[(int) ordem[i]] != ids[(int) ordem[i - 1]]) {
+                quantidadeSeries++;
+            }
+        }
+        ByteBuffer indice = ByteBuffer.allocate(TAMANHO_ENTRADA * quantidadeSeries).order(ByteOrder.LITTLE_ENDIAN);
+        EscritorBits dados = new EscritorBits();
+        long inicio = Long.MAX_VALUE;
+        long fim = Long.MIN_VALUE;
+        long dadosInicio = TAMANHO_CABECALHO + (long) TAMANHO_ENTRADA * quantidadeSeries;
+        for (int a = 0; a < n; ) {
+            int id = ids[(int) ordem[a]];
+            int b = a;
+            int minimo = Integer.MAX_VALUE;
+            int maximo = Integer.MIN_VALUE;
+            long soma = 0;
+            while (b < n && ids[(int) ordem[b]] == id) {
+                int nivel = niveis[(int) ordem[b]];
+                minimo = Math.min(minimo, nivel);
+                maximo = Math.max(maximo, nivel);
+                soma += nivel;
+                b++;
+            }
+            int largura = 64 - Long.numberOfLeadingZeros((long) maximo - minimo);
+            long deslocamento = dadosInicio + 8L * dados.palavras();
+            for (int i = a; i < b; i++) {
+                dados.escrever((long) niveis[(int) ordem[i]] - minimo, largura);
+            }
+            dados.alinhar();
+            int palavrasNiveis = (int) (dadosInicio + 8L * dados.palavras() - deslocamento) / 8;
+
+            long anterior = instantes[(int) ordem[a]];
+            long delta = 0;
+            for (int i = a + 1; i < b; i++) {
+                long instante = instantes[(int) ordem[i]];
+                long novoDelta = instante - anterior;
+                escreverDiferenca(dados, novoDelta - delta);
+                delta = novoDelta;
+                anterior = instante;
+            }
+            dados.alinhar();
+
+            long primeiro = instantes[(int) ordem[a]];
+            inicio = Math.min(inicio, primeiro);
+            fim = Math.max(fim, anterior);
+            indice.putInt(id).putInt(b - a).putLong(primeiro).putLong(anterior)
+                    .putInt(minimo).putInt(maximo).putLong(soma)
+                    .putLong(deslocamento).putInt(largura).putInt(palavrasNiveis);
+            a = b;
+        }
+
+        long tamanho = dadosInicio + 8L * dados.palavras();
+        if (tamanho > Integer.MAX_VALUE) {
+            throw new IOException("Bloco grande demais: " + tamanho + " bytes.");
+        }
+        ByteBuffer saida = ByteBuffer.allocate((int) tamanho).order(ByteOrder.LITTLE_ENDIAN);
+        saida.putInt(0, MAGICO);
+        saida.putInt(4, VERSAO);
+        saida.putLong(8, inicio);
+        saida.putLong(16, fim);
+        saida.putInt(24, quantidadeSeries);
+        saida.putInt(28, 0);
+        saida.putLong(32, n);
+        saida.putInt(44, 0);
+        saida.put(TAMANHO_CABECALHO, indice.array());
+        saida.position((int) dadosInicio);
+        saida.asLongBuffer().put(dados.valores(), 0, dados.palavras());
+        saida.putInt(40, crc(saida, (int) dadosInicio));
+        saida.clear();
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (saida.hasRemaining()) {
+                canal.write(saida);
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return abrir(arquivo, particao, sequencia);
+    }
+
+    /**
+     * Mapeia um bloco já gravado, conferindo o cabeçalho e o índice.
+     */
+    static BlocoHistorico abrir(Path arquivo, long particao, int sequencia) throws IOException {
+        ByteBuffer mapa;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() < TAMANHO_CABECALHO || canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("Tamanho inválido para um bloco de histórico: " + arquivo);
+            }
+            mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (mapa.getInt(0) != MAGICO || mapa.getInt(4) != VERSAO) {
+            throw new IOException("Arquivo não é um bloco de histórico (versão " + VERSAO + "): " + arquivo);
+        }
+        long fimIndice = TAMANHO_CABECALHO + (long) TAMANHO_ENTRADA * mapa.getInt(24);
+        if (mapa.getInt(24) < 0 || fimIndice > mapa.capacity() || crc(mapa, (int) fimIndice) != mapa.getInt(40)) {
+            throw new IOException("Índice corrompido no bloco de histórico " + arquivo);
+        }
+        return new BlocoHistorico(arquivo, particao, sequencia, mapa);
+    }
+
+    Path getArquivo() {
+        return arquivo;
+    }
+
+    long getParticao() {
+        return particao;
+    }
+
+    int getSequencia() {
+        return sequencia;
+    }
+
+    long inicio() {
+        return mapa.getLong(8);
+    }
+
+    long fim() {
+        return mapa.getLong(16);
+    }
+
+    long leituras() {
+        return mapa.getLong(32);
+    }
+
+    long tamanhoEmBytes() {
+        return mapa.capacity();
+    }
+
+    int series() {
+        return series;
+    }
+
+    int id(int s) {
+        return mapa.getInt(entrada(s));
+    }
+
+    int quantidade(int s) {
+        return mapa.getInt(entrada(s) + 4);
+    }
+
+    long primeiro(int s) {
+        return mapa.getLong(entrada(s) + 8);
+    }
+
+    long ultimo(int s) {
+        return mapa.getLong(entrada(s) + 16);
+    }
+
+    int minimo(int s) {
+        return mapa.getInt(entrada(s) + 24);
+    }
+
+    int maximo(int s) {
+        return mapa.getInt(entrada(s) + 28);
+    }
+
+    long soma(int s) {
+        return mapa.getLong(entrada(s) + 32);
+    }
+
+    /**
+     * Posição da série do sensor no índice, por busca binária, ou -1 se o sensor não tem leituras no bloco.
+     */
+    int buscar(int id) {
+        int baixo = 0;
+        int alto = series - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            int atual = id(meio);
+            if (atual < id) {
+                baixo = meio + 1;
+            } else if (atual > id) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodifica as leituras da série com instante em [de, ate), em ordem de instante.
+     */
+    void percorrer(int s, long de, long ate, HistoricoNiveis.Leitor leitor) {
+        int e = entrada(s);
+        int id = mapa.getInt(e);
+        int quantidade = mapa.getInt(e + 4);
+        int minimo = mapa.getInt(e + 24);
+        int niveis = (int) mapa.getLong(e + 40);
+        int largura = mapa.getInt(e + 48);
+        LeitorBits instantes = new LeitorBits(mapa, niveis + 8 * mapa.getInt(e + 52));
+
+        long instante = mapa.getLong(e + 8);
+        long delta = 0;
+        for (int i = 0; i < quantidade; i++) {
+            if (i > 0) {
+                delta += lerDiferenca(instantes);
+                instante += delta;
+            }
+            if (instante >= ate) {
+                return;
+            }
+            if (instante >= de) {
+                leitor.leitura(id, instante, (int) (minimo + lerNivel(niveis, i, largura)));
+            }
+        }
+    }
+
+    private int entrada(int s) {
+        return TAMANHO_CABECALHO + TAMANHO_ENTRADA * s;
+    }
+
+    /**
+     * Lê o i-ésimo nível empacotado com a largura informada, a partir da posição da coluna de níveis.
+     */
+    private long lerNivel(int coluna, int i, int largura) {
+        if (largura == 0) {
+            return 0;
+        }
+        long bit = (long) i * largura;
+        int palavra = (int) (bit >>> 6);
+        int deslocamento = (int) (bit & 63);
+        long alto = mapa.getLong(coluna + 8 * palavra) << deslocamento;
+        if (deslocamento + largura > 64) {
+            alto |= mapa.getLong(coluna + 8 * (palavra + 1)) >>> (64 - deslocamento);
+        }
+        return alto >>> (64 - largura);
+    }
+
+    /**
+     * Grava a diferença entre dois intervalos consecutivos: '0' para zero, ou um prefixo de 2 a 4 bits
+     * seguido do valor em zigue-zague com 7, 12, 20 ou 64 bits.
+     */
+    private static void escreverDiferenca(EscritorBits saida, long diferenca) {
+        long z = (diferenca << 1) ^ (diferenca >> 63); // Sem sinal: diferenças enormes ocupam os 64 bits
+        if (z == 0) {
+            saida.escrever(0, 1);
+        } else if (z >>> 7 == 0) {
+            saida.escrever(0b10, 2);
+            saida.escrever(z, 7);
+        } else if (z >>> 12 == 0) {
+            saida.escrever(0b110, 3);
+            saida.escrever(z, 12);
+        } else if (z >>> 20 == 0) {
+            saida.escrever(0b1110, 4);
+            saida.escrever(z, 20);
+        } else {
+            saida.escrever(0b1111, 4);
+            saida.escrever(z, 64);
+        }
+    }
+
+    private static long lerDiferenca(LeitorBits entrada) {
+        // Quantos '1' iniciam o prefixo (até 4), lidos de uma vez
+        int uns = Long.numberOfLeadingZeros(~(entrada.espiar(4) << 60));
+        if (uns == 0) {
+            entrada.avancar(1);
+            return 0;
+        }
+        entrada.avancar(Math.min(uns + 1, 4));
+        long z = entrada.ler(LARGURAS_DIFERENCA[Math.min(uns, 4)]);
+        return (z >>> 1) ^ -(z & 1);
+    }
+
+    private static int crc(ByteBuffer mapa, int fimIndice) {
+        CRC32 crc = new CRC32();
+        crc.update(mapa.duplicate().position(0).limit(40));
+        crc.update(mapa.duplicate().position(TAMANHO_CABECALHO).limit(fimIndice));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Acumula bits em palavras de 64 bits, do bit mais significativo para o menos significativo.
+     */
+    private static final class EscritorBits {
+        private long[] valores = new long[1024];
+        private long bits;
+
+        void escrever(long valor, int largura) {
+            if (largura == 0) {
+                return;
+            }
+            int palavra = (int) (bits >>> 6);
+            if (palavra + 1 >= valores.length) {
+                valores = Arrays.copyOf(valores, valores.length * 2);
+            }
+            long v = largura == 64 ? valor : valor & ((1L << largura) - 1);
+            int livres = 64 - (int) (bits & 63);
+            if (largura <= livres) {
+                valores[palavra] |= v << (livres - largura);
+            } else {
+                valores[palavra] |= v >>> (largura - livres);
+                valores[palavra + 1] |= v << (64 - (largura - livres));
+            }
+            bits += largura;
+        }
+
+        void alinhar() {
+            bits = (bits + 63) & ~63L;
+        }
+
+        int palavras() {
+            return (int) ((bits + 63) >>> 6);
+        }
+
+        long[] valores() {
+            return valores;
+        }
+    }
+
+    /**
+     * Lê bits em sequência de uma coluna de palavras do bloco mapeado.
+     */
+    private static final class LeitorBits {
+        private final ByteBuffer mapa;
+        private final int inicio;
+        private long bit;
+
+        LeitorBits(ByteBuffer mapa, int inicio) {
+            this.mapa = mapa;
+            this.inicio = inicio;
+        }
+
+        /**
+         * Lê os próximos bits sem avançar; perto do fim da coluna, os bits além dela vêm como zero.
+         */
+        long espiar(int largura) {
+            int palavra = (int) (bit >>> 6);
+            int deslocamento = (int) (bit & 63);
+            long valor = mapa.getLong(inicio + 8 * palavra) << deslocamento;
+            if (deslocamento + largura > 64 && inicio + 8 * (palavra + 1) + 8 <= mapa.capacity()) {
+                valor |= mapa.getLong(inicio + 8 * (palavra + 1)) >>> (64 - deslocamento);
+            }
+            return valor >>> (64 - largura);
+        }
+
+        void avancar(int largura) {
+            bit += largura;
+        }
+
+        long ler(int largura) {
+            int palavra = (int) (bit >>> 6);
+            int deslocamento = (int) (bit & 63);
+            long valor = mapa.getLong(inicio + 8 * palavra) << deslocamento;
+            if (deslocamento + largura > 64) {
+                valor |= mapa.getLong(inicio + 8 * (palavra + 1)) >>> (64 - deslocamento);
+            }
+            bit += largura;
+            return valor >>> (64 - largura);
+        }
+    }
+}
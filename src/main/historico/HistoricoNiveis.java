@@ -0,0 +1,527 @@
+package historico;
+
+import model.ArmazemSensores;
+import observer.FilaNiveis;
+import observer.OuvinteNivel;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * Histórico compactado em disco dos níveis de cada sensor, para análises de longo prazo (por exemplo,
+ * ajustar os limites das lixeiras a partir de meses de leituras).
+ *
+ * Registrado como {@link OuvinteNivel} do armazém, o histórico guarda cada alteração de nível com o
+ * instante informado por um relógio externo (em segundos, simulados ou não). As leituras ficam em
+ * memória até a partição de tempo terminar (um dia, por padrão) ou o buffer encher, e então são gravadas
+ * em um {@link BlocoHistorico}: um arquivo imutável, lido por mapeamento em memória, em colunas por
+ * sensor, com os instantes codificados pela diferença da diferença e os níveis empacotados em poucos
+ * bits. Com leituras a cada poucos minutos, cada uma ocupa cerca de 5 bytes (16 sem compactação),
+ * contra os mapas inteiros guardados a cada salvamento pelo {@link memento.SimulacaoMemento}.
+ *
+ * A thread que altera o nível só publica a leitura em uma {@link FilaNiveis}, sem travas nem disco. Uma
+ * thread gravadora própria retira as leituras da fila e, quando um buffer fecha, o troca por outro e grava
+ * o cheio fora da trava; as consultas continuam vendo as leituras dos buffers ainda não gravados. Uma falha
+ * de gravação não chega a quem alterou o nível: o buffer fica guardado, a gravação é repetida e o erro é
+ * relançado por {@link #descarregar()} e {@link #close()}.
+ *
+ * As consultas percorrem só o que precisam: blocos fora do intervalo de tempo são ignorados pelo
+ * cabeçalho, a série de um sensor é encontrada por busca binária no índice do bloco, e as séries de
+ * outros sensores ou distritos nem são decodificadas. Nas agregações por janela
+ * ({@link #agregar(long, long, long, IntPredicate)}), uma série inteira dentro de uma só janela entra
+ * pelo resumo do índice (quantidade, soma, mínimo e máximo), sem ler os dados.
+ *
+ * Os instantes de uma consulta formam o intervalo [de, ate). O diretório pode ser reaberto: os blocos já
+ * gravados passam a fazer parte das consultas.
+ */
+public class HistoricoNiveis implements OuvinteNivel, AutoCloseable {
+    public static final long HORA = 3600;
+    public static final long DIA = 24 * HORA;
+    private static final int LEITURAS_POR_BLOCO = 1 << 22;
+    private static final int CAPACIDADE_FILA = 1 << 16;
+    private static final int LOTE_DRENAGEM = 4096;
+    private static final int MAXIMO_PRONTOS = 2;       // Buffers fechados à espera do gravador
+    private static final long ESPERA_FALHA_NS = TimeUnit.SECONDS.toNanos(1);
+    private static final String PREFIXO = "particao-";
+    private static final String EXTENSAO = ".ts";
+
+    /**
+     * Recebe as leituras de uma consulta: para cada sensor, em ordem de instante.
+     */
+    @FunctionalInterface
+    public interface Leitor {
+        void leitura(int id, long instante, int nivel);
+    }
+
+    /**
+     * Leituras de uma partição ainda em memória, na ordem de chegada.
+     */
+    private static final class Buffer {
+        long particao;
+        int sequencia;
+        int[] ids = new int[1024];
+        long[] instantes = new long[1024];
+        int[] niveis = new int[1024];
+        int quantidade;
+
+        void guardar(int id, long instante, int nivel) {
+            if (quantidade == ids.length) {
+                int capacidade = Math.min(ids.length * 2, LEITURAS_POR_BLOCO);
+                ids = Arrays.copyOf(ids, capacidade);
+                instantes = Arrays.copyOf(instantes, capacidade);
+                niveis = Arrays.copyOf(niveis, capacidade);
+            }
+            ids[quantidade] = id;
+            instantes[quantidade] = instante;
+            niveis[quantidade] = nivel;
+            quantidade++;
+        }
+    }
+
+    private ArmazemSensores armazem;
+    private Path diretorio;
+    private LongSupplier relogio;          // Instante atual, em segundos
+    private long duracaoParticao;          // Segundos cobertos por partição
+    private final FilaNiveis fila = new FilaNiveis(CAPACIDADE_FILA);
+    private final Thread gravador;
+    private volatile boolean encerrado;
+
+    // Protegidos pela trava do histórico
+    private List<BlocoHistorico> blocos = new ArrayList<>(); // Em ordem de partição e sequência
+    private Buffer atual = new Buffer();   // Leituras da partição atual
+    private ArrayDeque<Buffer> prontos = new ArrayDeque<>(); // Buffers fechados, na ordem de gravação
+    private Buffer livre;                  // Buffer já gravado, reaproveitado na próxima troca
+    private int sequenciaAtual;            // Próximo bloco da partição atual
+    private long ultimoInstante = Long.MIN_VALUE;
+    private IOException falha;             // Última falha do gravador, até uma gravação dar certo
+    private long leituras;                 // Leituras recebidas desde a criação
+    private long descartadas;              // Leituras perdidas enquanto o disco falhava
+
+    /**
+     * Cria o histórico com partições de um dia.
+     */
+    public HistoricoNiveis(ArmazemSensores armazem, Path diretorio, LongSupplier relogio) throws IOException {
+        this(armazem, diretorio, relogio, DIA);
+    }
+
+    /**
+     * Abre (ou cria) o histórico no diretório, carrega os blocos já gravados e passa a ouvir as alterações do armazém.
+     * @param relogio fonte do instante atual, em segundos; deve ser não decrescente.
+     * @param duracaoParticao segundos cobertos por partição; leituras de partições diferentes nunca dividem um bloco.
+     */
+    public HistoricoNiveis(ArmazemSensores armazem, Path diretorio, LongSupplier relogio,
+                           long duracaoParticao) throws IOException {
+        if (duracaoParticao < 1) {
+            throw new IllegalArgumentException("A duração da partição deve ser positiva: " + duracaoParticao);
+        }
+        Files.createDirectories(diretorio);
+        try (DirectoryStream<Path> existentes = Files.newDirectoryStream(diretorio, PREFIXO + "*" + EXTENSAO)) {
+            for (Path arquivo : existentes) {
+                String nome = arquivo.getFileName().toString();
+                String[] partes = nome.substring(PREFIXO.length(), nome.length() - EXTENSAO.length()).split("_");
+                blocos.add(BlocoHistorico.abrir(arquivo, Long.parseLong(partes[0]), Integer.parseInt(partes[1])));
+            }
+        }
+        blocos.sort(Comparator.comparingLong(BlocoHistorico::getParticao).thenComparingInt(BlocoHistorico::getSequencia));
+        this.armazem = armazem;
+        this.diretorio = diretorio;
+        this.relogio = relogio;
+        this.duracaoParticao = duracaoParticao;
+        iniciarParticao(Math.floorDiv(relogio.getAsLong(), duracaoParticao));
+        this.gravador = new Thread(this::gravar, "historico-niveis");
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+        armazem.registrarOuvinte(this);
+    }
+
+    /**
+     * Publica a alteração para o gravador, sem travas; só espera se a fila estiver cheia.
+     */
+    @Override
+    public void nivelAlterado(int id, int anterior, int novo) {
+        fila.publicar(id, novo, relogio.getAsLong());
+    }
+
+    /**
+     * Entrega ao leitor as leituras do sensor com instante em [de, ate), em ordem de instante.
+     */
+    public synchronized void ler(long de, long ate, int id, Leitor leitor) {
+        drenar(false);
+        percorrer(de, ate, id, null, null, leitor);
+    }
+
+    /**
+     * Entrega ao leitor as leituras dos sensores aceitos pelo filtro com instante em [de, ate):
+     * bloco a bloco e, em cada bloco, sensor a sensor em ordem de instante.
+     */
+    public synchronized void ler(long de, long ate, IntPredicate sensores, Leitor leitor) {
+        drenar(false);
+        percorrer(de, ate, -1, sensores, null, leitor);
+    }
+
+    /**
+     * Agrega as leituras do sensor em janelas de {@code passo} segundos a partir de {@code de}
+     * (por exemplo, {@link #HORA} ou {@link #DIA}).
+     */
+    public synchronized Agregado agregar(long de, long ate, long passo, int id) {
+        drenar(false);
+        Agregado agregado = new Agregado(de, ate, passo);
+        percorrer(de, ate, id, null, agregado, agregado::incluir);
+        return agregado;
+    }
+
+    /**
+     * Agrega, em janelas de {@code passo} segundos a partir de {@code de}, as leituras de todos os
+     * sensores aceitos pelo filtro.
+     */
+    public synchronized Agregado agregar(long de, long ate, long passo, IntPredicate sensores) {
+        drenar(false);
+        Agregado agregado = new Agregado(de, ate, passo);
+        percorrer(de, ate, -1, sensores, agregado, agregado::incluir);
+        return agregado;
+    }
+
+    /**
+     * Agrega as leituras dos sensores de um distrito.
+     * @param distritoDe distrito de cada sensor, na ordem dos ids (como em {@link model.ConsultasNivel}).
+     */
+    public Agregado agregarDistrito(long de, long ate, long passo, int[] distritoDe, int distrito) {
+        return agregar(de, ate, passo, id -> id < distritoDe.length && distritoDe[id] == distrito);
+    }
+
+    /**
+     * Grava em novos blocos as leituras que ainda estão em memória, esperando pelo gravador.
+     * @throws IOException se a gravação de algum bloco falhou (as leituras continuam em memória).
+     */
+    public void descarregar() throws IOException {
+        synchronized (this) {
+            drenar(false);
+            fecharAtual();
+        }
+        esperarGravacao();
+    }
+
+    /**
+     * Para de ouvir o armazém, grava as leituras pendentes e encerra o gravador.
+     */
+    @Override
+    public void close() throws IOException {
+        armazem.removerOuvinte(this);
+        try {
+            descarregar();
+        } finally {
+            encerrado = true;
+            LockSupport.unpark(gravador);
+            try {
+                gravador.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public synchronized long getLeituras() {
+        drenar(false);
+        return leituras;
+    }
+
+    /**
+     * Leituras descartadas porque o disco falhou por tempo demais (zero em funcionamento normal).
+     */
+    public synchronized long getDescartadas() {
+        return descartadas;
+    }
+
+    public synchronized int getBlocos() {
+        return blocos.size();
+    }
+
+    /**
+     * Espaço ocupado pelos blocos gravados, em bytes.
+     */
+    public synchronized long tamanhoEmBytes() {
+        long total = 0;
+        for (BlocoHistorico bloco : blocos) {
+            total += bloco.tamanhoEmBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Laço da thread gravadora: retira as leituras da fila e grava os buffers fechados, um por vez,
+     * fora da trava. Depois de uma falha, espera um pouco e tenta de novo o mesmo buffer.
+     */
+    private void gravar() {
+        while (true) {
+            Buffer buffer;
+            synchronized (this) {
+                drenar(true);
+                buffer = prontos.peek();
+                if (buffer == null && encerrado && !fila.possuiRegistros()) {
+                    return;
+                }
+            }
+            if (buffer == null) {
+                fila.aguardar(Long.MAX_VALUE);
+                continue;
+            }
+            try {
+                BlocoHistorico bloco = BlocoHistorico.gravar(arquivo(buffer), buffer.particao, buffer.sequencia,
+                        buffer.ids, buffer.instantes, buffer.niveis, buffer.quantidade);
+                synchronized (this) {
+                    blocos.add(bloco);
+                    prontos.poll();
+                    buffer.quantidade = 0;
+                    livre = buffer;
+                    falha = null;
+                    notifyAll();
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    falha = e instanceof IOException ? (IOException) e : new IOException(e);
+                    notifyAll();
+                }
+                if (encerrado) {
+                    return;
+                }
+                LockSupport.parkNanos(this, ESPERA_FALHA_NS);
+            }
+        }
+    }
+
+    /**
+     * Espera o gravador gravar os buffers fechados até agora, ou falhar.
+     */
+    private synchronized void esperarGravacao() throws IOException {
+        LockSupport.unpark(gravador);
+        boolean interrompida = false;
+        while (!prontos.isEmpty() && falha == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+        if (falha != null) {
+            throw falha;
+        }
+    }
+
+    /**
+     * Retira as leituras da fila para o buffer atual. O gravador para de retirar quando já há buffers
+     * demais à espera, segurando os produtores pela fila cheia; as consultas retiram tudo para responder
+     * com as leituras mais recentes.
+     */
+    private void drenar(boolean limitado) {
+        while (!limitado || prontos.size() < MAXIMO_PRONTOS || falha != null) {
+            if (fila.drenar(this::guardar, LOTE_DRENAGEM) == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Guarda a leitura no buffer atual, fechando-o quando a partição muda ou ele enche.
+     * Leituras de threads diferentes podem sair da fila com instantes levemente fora de ordem;
+     * cada uma conta, no mínimo, com o instante da anterior, mantendo as séries ordenadas.
+     */
+    private void guardar(int id, int nivel, long instante) {
+        if (falha != null && prontos.size() >= MAXIMO_PRONTOS) {
+            descartadas++; // O disco está falhando: não segura a simulação nem estoura a memória
+            return;
+        }
+        instante = Math.max(instante, ultimoInstante);
+        ultimoInstante = instante;
+        long particao = Math.floorDiv(instante, duracaoParticao);
+        if (particao != atual.particao) {
+            fecharAtual();
+            iniciarParticao(particao);
+        }
+        atual.guardar(id, instante, nivel);
+        leituras++;
+        if (atual.quantidade == LEITURAS_POR_BLOCO) {
+            fecharAtual();
+        }
+    }
+
+    /**
+     * Entrega o buffer atual ao gravador e passa a usar um vazio, da mesma partição.
+     */
+    private void fecharAtual() {
+        if (atual.quantidade == 0) {
+            return;
+        }
+        atual.sequencia = sequenciaAtual++;
+        prontos.add(atual);
+        Buffer novo = livre != null ? livre : new Buffer();
+        livre = null;
+        novo.particao = atual.particao;
+        atual = novo;
+        LockSupport.unpark(gravador);
+    }
+
+    private Path arquivo(Buffer buffer) {
+        return diretorio.resolve(String.format("%s%d_%04d%s", PREFIXO, buffer.particao, buffer.sequencia, EXTENSAO));
+    }
+
+    private void iniciarParticao(long particao) {
+        atual.particao = particao;
+        sequenciaAtual = 0;
+        for (BlocoHistorico bloco : blocos) {
+            if (bloco.getParticao() == particao) {
+                sequenciaAtual = Math.max(sequenciaAtual, bloco.getSequencia() + 1);
+            }
+        }
+    }
+
+    /**
+     * Percorre os blocos que tocam o intervalo e, por fim, as leituras em memória (buffers à espera do
+     * gravador e o atual). Com um agregado,
+     * séries inteiras dentro de uma janela entram pelo resumo do índice.
+     * @param id sensor consultado, ou -1 para usar o filtro.
+     */
+    private void percorrer(long de, long ate, int id, IntPredicate filtro, Agregado agregado, Leitor leitor) {
+        for (BlocoHistorico bloco : blocos) {
+            if (bloco.fim() < de || bloco.inicio() >= ate) {
+                continue;
+            }
+            if (id >= 0) {
+                int s = bloco.buscar(id);
+                if (s >= 0) {
+                    percorrerSerie(bloco, s, de, ate, agregado, leitor);
+                }
+            } else {
+                for (int s = 0; s < bloco.series(); s++) {
+                    if (filtro.test(bloco.id(s))) {
+                        percorrerSerie(bloco, s, de, ate, agregado, leitor);
+                    }
+                }
+            }
+        }
+        for (Buffer buffer : prontos) {
+            percorrerBuffer(buffer, de, ate, id, filtro, leitor);
+        }
+        percorrerBuffer(atual, de, ate, id, filtro, leitor);
+    }
+
+    private static void percorrerBuffer(Buffer buffer, long de, long ate, int id, IntPredicate filtro, Leitor leitor) {
+        for (int i = 0; i < buffer.quantidade; i++) {
+            long instante = buffer.instantes[i];
+            if (instante >= de && instante < ate && (id >= 0 ? buffer.ids[i] == id : filtro.test(buffer.ids[i]))) {
+                leitor.leitura(buffer.ids[i], instante, buffer.niveis[i]);
+            }
+        }
+    }
+
+    private static void percorrerSerie(BlocoHistorico bloco, int s, long de, long ate, Agregado agregado, Leitor leitor) {
+        long primeiro = bloco.primeiro(s);
+        long ultimo = bloco.ultimo(s);
+        if (ultimo < de || primeiro >= ate) {
+            return;
+        }
+        if (agregado != null && primeiro >= de && ultimo < ate && agregado.janela(primeiro) == agregado.janela(ultimo)) {
+            agregado.incluir(agregado.janela(primeiro), bloco.quantidade(s), bloco.soma(s), bloco.minimo(s), bloco.maximo(s));
+        } else {
+            bloco.percorrer(s, de, ate, leitor);
+        }
+    }
+
+    /**
+     * Leituras agregadas em janelas de tempo de mesma duração: quantidade, soma, mínimo e máximo dos níveis.
+     */
+    public static final class Agregado {
+        private final long inicio;
+        private final long passo;
+        private final long[] leituras;
+        private final long[] somas;
+        private final int[] minimos;
+        private final int[] maximos;
+
+        Agregado(long de, long ate, long passo) {
+            if (passo < 1 || ate < de) {
+                throw new IllegalArgumentException("Intervalo ou passo inválido: [" + de + ", " + ate + "), passo " + passo);
+            }
+            long janelas = (ate - de + passo - 1) / passo;
+            if (janelas > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Janelas demais: " + janelas);
+            }
+            this.inicio = de;
+            this.passo = passo;
+            this.leituras = new long[(int) janelas];
+            this.somas = new long[(int) janelas];
+            this.minimos = new int[(int) janelas];
+            this.maximos = new int[(int) janelas];
+            Arrays.fill(minimos, Integer.MAX_VALUE);
+            Arrays.fill(maximos, Integer.MIN_VALUE);
+        }
+
+        int janela(long instante) {
+            return (int) ((instante - inicio) / passo);
+        }
+
+        void incluir(int id, long instante, int nivel) {
+            incluir(janela(instante), 1, nivel, nivel, nivel);
+        }
+
+        void incluir(int janela, long quantidade, long soma, int minimo, int maximo) {
+            leituras[janela] += quantidade;
+            somas[janela] += soma;
+            minimos[janela] = Math.min(minimos[janela], minimo);
+            maximos[janela] = Math.max(maximos[janela], maximo);
+        }
+
+        public int getJanelas() {
+            return leituras.length;
+        }
+
+        /**
+         * Instante em que a janela começa.
+         */
+        public long getInicio(int janela) {
+            return inicio + janela * passo;
+        }
+
+        public long getLeituras(int janela) {
+            return leituras[janela];
+        }
+
+        public long getSoma(int janela) {
+            return somas[janela];
+        }
+
+        /**
+         * Média dos níveis lidos na janela (0 se não houve leituras).
+         */
+        public double getMedia(int janela) {
+            return leituras[janela] == 0 ? 0 : (double) somas[janela] / leituras[janela];
+        }
+
+        /**
+         * Menor nível lido na janela ({@link Integer#MAX_VALUE} se não houve leituras).
+         */
+        public int getMinimo(int janela) {
+            return minimos[janela];
+        }
+
+        /**
+         * Maior nível lido na janela ({@link Integer#MIN_VALUE} se não houve leituras).
+         */
+        public int getMaximo(int janela) {
+            return maximos[janela];
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ingestao;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Atalhos para abrir os canais de onde as fontes de leituras recebem os dados.
+ */
+public final class CanaisLeitura {
+
+    private CanaisLeitura() {
+    }
+
+    /**
+     * Abre um arquivo de leituras (CSV ou binário) para leitura sequencial.
+     */
+    public static ReadableByteChannel arquivo(Path caminho) throws IOException {
+        return FileChannel.open(caminho, StandardOpenOption.READ);
+    }
+
+    /**
+     * Escuta na interface de loopback, na porta informada, e aguarda a conexão de um único
+     * emissor de leituras (por exemplo, um concentrador de sensores). A porta é liberada assim
+     * que a conexão é aceita.
+     */
+    public static SocketChannel aguardarConexao(int porta) throws IOException {
+        try (ServerSocketChannel servidor = ServerSocketChannel.open()) {
+            servidor.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+            SocketChannel conexao = servidor.accept();
+            conexao.socket().setReceiveBufferSize(1 << 20);
+            return conexao;
+        }
+    }
+
+    /**
+     * Conecta a um emissor de leituras que escuta na interface de loopback.
+     */
+    public static SocketChannel conectar(int porta) throws IOException {
+        return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+    }
+}
@@ -0,0 +1,65 @@
+package ingestao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Lê leituras no formato binário de registros fixos, a partir de qualquer {@link ReadableByteChannel}.
+ *
+ * Cada registro tem 16 bytes little-endian: id (int), instante em milissegundos (long) e nível (int).
+ * É o formato gravado pelo {@link GravadorLeituras} e o mais barato de analisar: os campos são lidos
+ * por posição direto do buffer.
+ */
+public class FonteBinaria implements FonteLeituras {
+    public static final int TAMANHO_REGISTRO = 16;
+    private static final int TAMANHO_BUFFER = 256 * 1024;
+
+    private ReadableByteChannel canal;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+    private boolean fimDosDados;
+
+    public FonteBinaria(ReadableByteChannel canal) {
+        this.canal = canal;
+        buffer.flip(); // Começa vazio, em modo de leitura
+    }
+
+    @Override
+    public int lerLote(LoteLeituras lote) throws IOException {
+        lote.limpar();
+        while (buffer.remaining() < TAMANHO_REGISTRO && !fimDosDados) {
+            buffer.compact();
+            if (canal.read(buffer) < 0) {
+                fimDosDados = true;
+            }
+            buffer.flip();
+        }
+        if (buffer.remaining() < TAMANHO_REGISTRO) {
+            if (buffer.hasRemaining()) {
+                throw new IOException("Registro incompleto no fim dos dados (" + buffer.remaining() + " bytes).");
+            }
+            return -1;
+        }
+        int p = buffer.position();
+        int disponiveis = Math.min(buffer.remaining() / TAMANHO_REGISTRO, lote.capacidade());
+        for (int i = 0; i < disponiveis; i++, p += TAMANHO_REGISTRO) {
+            lote.adicionar(buffer.getInt(p), buffer.getLong(p + 4), buffer.getInt(p + 12));
+        }
+        buffer.position(p);
+        return disponiveis;
+    }
+
+    /**
+     * O formato binário não tem registros mal formados: todo registro completo é aceito.
+     */
+    @Override
+    public long getRejeitadas() {
+        return 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
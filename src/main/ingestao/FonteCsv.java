@@ -0,0 +1,132 @@
+package ingestao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Lê leituras em texto, uma por linha, no formato {@code id,instante,nivel}
+ * (instante em milissegundos), a partir de qualquer {@link ReadableByteChannel}:
+ * um arquivo ou uma conexão TCP.
+ *
+ * A análise é feita diretamente sobre os bytes do buffer, sem montar {@code String}s:
+ * os números são acumulados dígito a dígito e gravados no lote. Uma linha de cabeçalho no
+ * início (que não comece por dígito) é ignorada; linhas mal formadas são descartadas e contadas.
+ */
+public class FonteCsv implements FonteLeituras {
+    private static final int TAMANHO_BUFFER = 256 * 1024;
+
+    private ReadableByteChannel canal;
+    private ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+    private byte[] dados = buffer.array();
+    private int posicao;            // Início da próxima linha ainda não analisada
+    private int limite;             // Fim dos bytes válidos em dados
+    private boolean fimDosDados;
+    private boolean inicio = true;  // Ainda não analisou a primeira linha
+    private long rejeitadas;
+
+    public FonteCsv(ReadableByteChannel canal) {
+        this.canal = canal;
+    }
+
+    @Override
+    public int lerLote(LoteLeituras lote) throws IOException {
+        lote.limpar();
+        while (!lote.cheio()) {
+            if (analisarLinha(lote)) {
+                continue;
+            }
+            if (fimDosDados) {
+                break;
+            }
+            if (lote.tamanho() > 0) {
+                break; // Entrega o que já tem antes de bloquear esperando mais dados
+            }
+            encherBuffer();
+        }
+        return lote.tamanho() == 0 && fimDosDados && posicao == limite ? -1 : lote.tamanho();
+    }
+
+    @Override
+    public long getRejeitadas() {
+        return rejeitadas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Move os bytes não analisados para o início do buffer e lê mais dados do canal.
+     */
+    private void encherBuffer() throws IOException {
+        if (posicao > 0) {
+            System.arraycopy(dados, posicao, dados, 0, limite - posicao);
+            limite -= posicao;
+            posicao = 0;
+        }
+        if (limite == dados.length) {
+            throw new IOException("Linha com mais de " + dados.length + " bytes.");
+        }
+        buffer.clear().position(limite);
+        if (canal.read(buffer) < 0) {
+            fimDosDados = true;
+        }
+        limite = buffer.position();
+    }
+
+    /**
+     * Analisa a próxima linha completa do buffer (ou a última, sem quebra, no fim dos dados).
+     * @return false se não havia uma linha completa para analisar.
+     */
+    private boolean analisarLinha(LoteLeituras lote) {
+        long id = 0;
+        long instante = 0;
+        long nivel = 0;
+        int campo = 0;
+        int digitos = 0;
+        boolean valida = true;
+        int p = posicao;
+        while (true) {
+            if (p == limite) {
+                if (!fimDosDados || p == posicao) {
+                    return false;
+                }
+                break; // Última linha sem quebra
+            }
+            byte c = dados[p++];
+            if (c >= '0' && c <= '9') {
+                int d = c - '0';
+                switch (campo) {
+                    case 0: id = id * 10 + d; break;
+                    case 1: instante = instante * 10 + d; break;
+                    case 2: nivel = nivel * 10 + d; break;
+                    default: break;
+                }
+                valida &= ++digitos <= 18;
+            } else if (c == ',') {
+                valida &= digitos > 0;
+                digitos = 0;
+                campo++;
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r' && c != ' ') {
+                valida = false;
+            }
+        }
+        boolean vazia = campo == 0 && digitos == 0 && valida;
+        boolean cabecalho = inicio && !valida;
+        posicao = p;
+        inicio = false;
+        if (vazia || cabecalho) {
+            return true;
+        }
+        if (valida && campo == 2 && digitos > 0 && id <= Integer.MAX_VALUE && nivel <= Integer.MAX_VALUE) {
+            lote.adicionar((int) id, instante, (int) nivel);
+        } else {
+            rejeitadas++;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package ingestao;
+
+import java.io.IOException;
+
+/**
+ * Origem de leituras de sensores, entregues em lotes.
+ */
+public interface FonteLeituras extends AutoCloseable {
+
+    /**
+     * Substitui o conteúdo do lote pelas próximas leituras disponíveis.
+     * Em canais bloqueantes, espera até que haja ao menos uma leitura ou o fim dos dados.
+     *
+     * @return quantas leituras foram colocadas no lote, ou -1 no fim dos dados.
+     */
+    int lerLote(LoteLeituras lote) throws IOException;
+
+    /**
+     * Quantidade de registros descartados por estarem mal formados.
+     */
+    long getRejeitadas();
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,45 @@
+package ingestao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Grava leituras no formato binário lido pela {@link FonteBinaria}, por exemplo para registrar
+ * um trecho de operação real e reproduzi-lo depois em testes de carga.
+ */
+public class GravadorLeituras implements AutoCloseable {
+    private static final int TAMANHO_BUFFER = 256 * 1024;
+
+    private WritableByteChannel canal;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+
+    public GravadorLeituras(WritableByteChannel canal) {
+        this.canal = canal;
+    }
+
+    public void gravar(int id, long instante, int nivel) throws IOException {
+        if (buffer.remaining() < FonteBinaria.TAMANHO_REGISTRO) {
+            descarregar();
+        }
+        buffer.putInt(id).putLong(instante).putInt(nivel);
+    }
+
+    /**
+     * Envia ao canal as leituras que ainda estão no buffer.
+     */
+    public void descarregar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        descarregar();
+        canal.close();
+    }
+}
@@ -0,0 +1,119 @@
+package ingestao;
+
+import model.ArmazemSensores;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Aplica aos sensores as leituras recebidas de uma {@link FonteLeituras}.
+ *
+ * Cada leitura substitui o nível do sensor ({@link ArmazemSensores#registrarLeitura(int, int)}),
+ * avisando os ouvintes de nível e notificando os observadores quando a lixeira chega ao limite.
+ * Leituras de sensores inexistentes são descartadas e contadas.
+ *
+ * No modo de reprodução ({@link #setVelocidade(double)}), as leituras são aplicadas respeitando os
+ * intervalos entre os instantes gravados, acelerados pelo fator informado, o que permite repetir um
+ * dia de operação em minutos para testes de carga. Com velocidade zero (o padrão), as leituras são
+ * aplicadas o mais rápido possível.
+ *
+ * Cada ingestor processa uma fonte por vez; para várias fontes ao mesmo tempo, use um ingestor por
+ * thread sobre o mesmo armazém.
+ */
+public class IngestorLeituras {
+    private ArmazemSensores armazem;
+    private LoteLeituras lote;
+    private double velocidade;              // Fator de aceleração da reprodução; 0 = sem pausas
+    private volatile boolean ativo = true;
+    private long aplicadas;
+    private long rejeitadas;                // Leituras de sensores inexistentes
+    private long lotes;
+
+    public IngestorLeituras(ArmazemSensores armazem) {
+        this(armazem, new LoteLeituras());
+    }
+
+    /**
+     * @param lote lote reutilizado a cada leitura da fonte; sua capacidade define o tamanho dos lotes.
+     */
+    public IngestorLeituras(ArmazemSensores armazem, LoteLeituras lote) {
+        this.armazem = armazem;
+        this.lote = lote;
+    }
+
+    /**
+     * Liga a reprodução em tempo acelerado: 1 segue os instantes gravados em tempo real,
+     * 60 reproduz uma hora por minuto, e 0 desliga as pausas.
+     */
+    public void setVelocidade(double velocidade) {
+        if (velocidade < 0) {
+            throw new IllegalArgumentException("A velocidade não pode ser negativa.");
+        }
+        this.velocidade = velocidade;
+    }
+
+    /**
+     * Consome a fonte até o fim dos dados (ou até {@link #parar()}), aplicando as leituras.
+     * @return quantas leituras foram aplicadas nesta chamada.
+     */
+    public long executar(FonteLeituras fonte) throws IOException {
+        long inicioAplicadas = aplicadas;
+        long inicioRelogio = System.nanoTime();
+        long primeiroInstante = Long.MIN_VALUE;
+        int tamanhoCidade = armazem.tamanho();
+
+        while (ativo) {
+            int quantidade = fonte.lerLote(lote);
+            if (quantidade < 0) {
+                break;
+            }
+            lotes++;
+            for (int i = 0; i < quantidade; i++) {
+                int id = lote.getId(i);
+                if (id < 0 || id >= tamanhoCidade) {
+                    tamanhoCidade = armazem.tamanho(); // Sensores podem ter sido cadastrados depois
+                    if (id < 0 || id >= tamanhoCidade) {
+                        rejeitadas++;
+                        continue;
+                    }
+                }
+                if (velocidade > 0) {
+                    long instante = lote.getInstante(i);
+                    if (primeiroInstante == Long.MIN_VALUE) {
+                        primeiroInstante = instante;
+                    }
+                    aguardar(inicioRelogio + (long) ((instante - primeiroInstante) * 1_000_000 / velocidade));
+                }
+                armazem.registrarLeitura(id, lote.getNivel(i));
+                aplicadas++;
+            }
+        }
+        return aplicadas - inicioAplicadas;
+    }
+
+    /**
+     * Interrompe {@link #executar(FonteLeituras)} ao fim do lote atual.
+     */
+    public void parar() {
+        ativo = false;
+    }
+
+    public long getAplicadas() {
+        return aplicadas;
+    }
+
+    public long getRejeitadas() {
+        return rejeitadas;
+    }
+
+    public long getLotes() {
+        return lotes;
+    }
+
+    private static void aguardar(long momento) {
+        long restante;
+        while ((restante = momento - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(restante);
+        }
+    }
+}
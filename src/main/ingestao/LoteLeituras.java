@@ -0,0 +1,70 @@
+package ingestao;
+
+/**
+ * Lote reutilizável de leituras de sensores (id, instante, nível) em vetores primitivos.
+ *
+ * As fontes preenchem o mesmo lote a cada chamada, de modo que ler milhões de leituras
+ * não cria nenhum objeto por leitura.
+ */
+public class LoteLeituras {
+    private static final int CAPACIDADE_PADRAO = 4096;
+
+    private int[] ids;
+    private long[] instantes; // Instante da leitura, em milissegundos
+    private int[] niveis;
+    private int tamanho;
+
+    /**
+     * Cria um lote com capacidade para 4096 leituras.
+     */
+    public LoteLeituras() {
+        this(CAPACIDADE_PADRAO);
+    }
+
+    public LoteLeituras(int capacidade) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("A capacidade do lote deve ser positiva.");
+        }
+        this.ids = new int[capacidade];
+        this.instantes = new long[capacidade];
+        this.niveis = new int[capacidade];
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public int capacidade() {
+        return ids.length;
+    }
+
+    public boolean cheio() {
+        return tamanho == ids.length;
+    }
+
+    public int getId(int i) {
+        return ids[i];
+    }
+
+    public long getInstante(int i) {
+        return instantes[i];
+    }
+
+    public int getNivel(int i) {
+        return niveis[i];
+    }
+
+    /**
+     * Acrescenta uma leitura ao lote. Chamado pelas fontes; o lote não pode estar cheio.
+     */
+    void adicionar(int id, long instante, int nivel) {
+        ids[tamanho] = id;
+        instantes[tamanho] = instante;
+        niveis[tamanho] = nivel;
+        tamanho++;
+    }
+
+    void limpar() {
+        tamanho = 0;
+    }
+}
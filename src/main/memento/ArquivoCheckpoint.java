@@ -0,0 +1,207 @@
+package memento;
+
+import model.ArmazemSensores;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoint binário do estado dos sensores em disco.
+ *
+ * Complementa o {@link SimulacaoCaretaker}, que guarda o histórico apenas em memória: o checkpoint
+ * sobrevive ao reinício da aplicação e permite reconstruir uma cidade grande sem cadastrá-la de novo.
+ *
+ * Formato (versão 1, inteiros little-endian):
+ * <pre>
+ *  deslocamento  tamanho  conteúdo
+ *   0            4        número mágico "SCCK"
+ *   4            4        versão do formato
+ *   8            4        quantidade de sensores (n)
+ *  12            4        reservado (zero)
+ *  16            8        tamanho da carga útil em bytes (8 * n)
+ *  24            4        CRC32 da carga útil
+ *  28            4        CRC32 dos bytes 0 a 27 do cabeçalho
+ *  32            4 * n    níveis, na ordem dos ids
+ *  32 + 4 * n    4 * n    limites, na ordem dos ids
+ * </pre>
+ *
+ * A leitura e a escrita passam por um único {@link ByteBuffer} com o arquivo inteiro: os vetores do
+ * armazém são copiados em bloco para ele (e de volta) e o buffer vai ao {@link FileChannel} de uma
+ * vez, sem nenhum objeto por sensor. A gravação é feita em um arquivo temporário renomeado ao final,
+ * de modo que uma falha no meio da escrita nunca deixa um checkpoint incompleto no lugar do anterior.
+ * O arquivo não é mapeado em memória: no Windows, um arquivo mapeado não pode ser renomeado nem
+ * substituído até o mapeamento ser coletado, o que faria a renomeação falhar.
+ */
+public final class ArquivoCheckpoint {
+    public static final int MAGICO = 0x4B434353; // "SCCK" em little-endian
+    public static final int VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 32;
+
+    private ArquivoCheckpoint() {
+    }
+
+    /**
+     * Grava os níveis e limites de todos os sensores do armazém no arquivo informado,
+     * substituindo o checkpoint anterior, se houver.
+     */
+    public static void gravar(ArmazemSensores armazem, Path arquivo) throws IOException {
+        int n = armazem.tamanho();
+        gravar(n, arquivo, carga -> {
+            armazem.copiarNiveis(fatia(carga, 0, 4 * n).asIntBuffer());
+            armazem.copiarLimites(fatia(carga, 4 * n, 4 * n).asIntBuffer());
+        });
+    }
+
+    /**
+     * Grava os níveis e limites informados, já copiados do armazém (por exemplo, em outra thread).
+     * Os dois vetores devem ter o mesmo tamanho, a quantidade de sensores.
+     */
+    public static void gravar(int[] niveis, int[] limites, Path arquivo) throws IOException {
+        int n = niveis.length;
+        if (limites.length != n) {
+            throw new IllegalArgumentException("Níveis e limites de tamanhos diferentes: " + n + " e " + limites.length);
+        }
+        gravar(n, arquivo, carga -> {
+            fatia(carga, 0, 4 * n).asIntBuffer().put(niveis);
+            fatia(carga, 4 * n, 4 * n).asIntBuffer().put(limites);
+        });
+    }
+
+    /**
+     * Preenche a carga útil (níveis seguidos de limites) e grava o arquivo com cabeçalho e somas de verificação.
+     */
+    private static void gravar(int n, Path arquivo, Consumer<ByteBuffer> preencher) throws IOException {
+        long tamanhoCarga = 8L * n;
+        if (TAMANHO_CABECALHO + tamanhoCarga > Integer.MAX_VALUE) {
+            throw new IOException("Cidade grande demais para um único checkpoint: " + n + " sensores.");
+        }
+
+        ByteBuffer conteudo = ByteBuffer.allocate(TAMANHO_CABECALHO + (int) tamanhoCarga).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer carga = fatia(conteudo, TAMANHO_CABECALHO, (int) tamanhoCarga);
+        preencher.accept(carga);
+
+        conteudo.putInt(0, MAGICO);
+        conteudo.putInt(4, VERSAO);
+        conteudo.putInt(8, n);
+        conteudo.putInt(12, 0);
+        conteudo.putLong(16, tamanhoCarga);
+        conteudo.putInt(24, crc(carga));
+        conteudo.putInt(28, crc(fatia(conteudo, 0, 28)));
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (conteudo.hasRemaining()) {
+                canal.write(conteudo);
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restaura os níveis e limites gravados sobre os sensores já cadastrados no armazém.
+     * O checkpoint deve ter sido gravado de uma cidade com a mesma quantidade de sensores.
+     */
+    public static void restaurar(ArmazemSensores armazem, Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer conteudo = abrir(canal, arquivo);
+            int n = conteudo.getInt(8);
+            if (n != armazem.tamanho()) {
+                throw new IOException("O checkpoint tem " + n + " sensores, mas a cidade tem " + armazem.tamanho() + ".");
+            }
+            armazem.restaurarLimites(fatia(conteudo, TAMANHO_CABECALHO + 4 * n, 4 * n).asIntBuffer());
+            armazem.restaurarNiveis(fatia(conteudo, TAMANHO_CABECALHO, 4 * n).asIntBuffer());
+        }
+    }
+
+    /**
+     * Cria um novo armazém com os sensores gravados no checkpoint (todos na origem do mapa,
+     * já que o formato guarda apenas níveis e limites).
+     */
+    public static ArmazemSensores carregar(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer conteudo = abrir(canal, arquivo);
+            int n = conteudo.getInt(8);
+            ArmazemSensores armazem = new ArmazemSensores(n);
+            armazem.adicionar(fatia(conteudo, TAMANHO_CABECALHO + 4 * n, 4 * n).asIntBuffer());
+            armazem.restaurarNiveis(fatia(conteudo, TAMANHO_CABECALHO, 4 * n).asIntBuffer());
+            return armazem;
+        }
+    }
+
+    /**
+     * Lê apenas os níveis gravados no checkpoint para o vetor de destino, sem tocar em nenhum armazém.
+     * @return a quantidade de sensores do checkpoint.
+     * @throws IOException se o destino for menor que a quantidade de sensores gravada.
+     */
+    public static int lerNiveis(Path arquivo, int[] destino) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer conteudo = abrir(canal, arquivo);
+            int n = conteudo.getInt(8);
+            if (destino.length < n) {
+                throw new IOException("O checkpoint tem " + n + " sensores, mas o destino só comporta " + destino.length + ".");
+            }
+            fatia(conteudo, TAMANHO_CABECALHO, 4 * n).asIntBuffer().get(destino, 0, n);
+            return n;
+        }
+    }
+
+    /**
+     * Lê o arquivo inteiro e valida número mágico, versão, tamanho e somas de verificação.
+     */
+    private static ByteBuffer abrir(FileChannel canal, Path arquivo) throws IOException {
+        long tamanhoArquivo = canal.size();
+        if (tamanhoArquivo < TAMANHO_CABECALHO || tamanhoArquivo > Integer.MAX_VALUE) {
+            throw new IOException("Arquivo de checkpoint inválido: " + arquivo);
+        }
+        ByteBuffer conteudo = ByteBuffer.allocate((int) tamanhoArquivo).order(ByteOrder.LITTLE_ENDIAN);
+        while (conteudo.hasRemaining()) {
+            if (canal.read(conteudo) < 0) {
+                throw new IOException("Arquivo de checkpoint inválido: " + arquivo);
+            }
+        }
+        conteudo.clear();
+
+        if (conteudo.getInt(0) != MAGICO) {
+            throw new IOException("Arquivo não é um checkpoint: " + arquivo);
+        }
+        if (conteudo.getInt(28) != crc(fatia(conteudo, 0, 28))) {
+            throw new IOException("Cabeçalho do checkpoint corrompido: " + arquivo);
+        }
+        int versao = conteudo.getInt(4);
+        if (versao != VERSAO) {
+            throw new IOException("Versão de checkpoint não suportada: " + versao);
+        }
+        int n = conteudo.getInt(8);
+        long tamanhoCarga = conteudo.getLong(16);
+        if (n < 0 || tamanhoCarga != 8L * n || tamanhoArquivo != TAMANHO_CABECALHO + tamanhoCarga) {
+            throw new IOException("Tamanho do checkpoint inconsistente: " + arquivo);
+        }
+        if (conteudo.getInt(24) != crc(fatia(conteudo, TAMANHO_CABECALHO, (int) tamanhoCarga))) {
+            throw new IOException("Dados do checkpoint corrompidos: " + arquivo);
+        }
+        return conteudo;
+    }
+
+    /**
+     * Trecho independente do buffer, na mesma ordem de bytes, sem alterar a posição do original.
+     */
+    private static ByteBuffer fatia(ByteBuffer buffer, int inicio, int tamanho) {
+        return buffer.slice(inicio, tamanho).order(buffer.order());
+    }
+
+    private static int crc(ByteBuffer dados) {
+        CRC32 crc = new CRC32();
+        crc.update(dados);
+        return (int) crc.getValue();
+    }
+}
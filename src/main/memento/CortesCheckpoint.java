@@ -0,0 +1,79 @@
+package memento;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+
+/**
+ * Rotação de cortes de checkpoint em um diretório, para estados gravados em vários arquivos.
+ *
+ * Cada gravação vai para um subdiretório novo ({@code corte-N}, numerado em sequência); quando todos
+ * os arquivos do corte estão no disco, {@link #publicar(Path, Path)} troca, de forma atômica, o
+ * arquivo {@value #ARQUIVO_ATUAL} para apontar para ele e apaga o corte anterior. Uma falha no meio
+ * da gravação deixa o corte anterior intacto e ainda apontado por {@value #ARQUIVO_ATUAL}.
+ */
+public final class CortesCheckpoint {
+    /** Arquivo com o nome do último corte completo. */
+    public static final String ARQUIVO_ATUAL = "ATUAL";
+
+    private static final String PREFIXO = "corte-";
+
+    private CortesCheckpoint() {
+    }
+
+    /**
+     * Cria o diretório do próximo corte, numerado a partir do corte atual.
+     */
+    public static Path novoCorte(Path diretorio) throws IOException {
+        Files.createDirectories(diretorio);
+        String anterior = lerAtual(diretorio);
+        long numero = anterior == null ? 1 : Long.parseLong(anterior.substring(PREFIXO.length())) + 1;
+        return Files.createDirectories(diretorio.resolve(String.format(PREFIXO + "%06d", numero)));
+    }
+
+    /**
+     * Passa a apontar para o corte informado, já completo, e apaga o corte anterior.
+     */
+    public static void publicar(Path diretorio, Path corte) throws IOException {
+        String anterior = lerAtual(diretorio);
+        String nome = corte.getFileName().toString();
+        Path temporario = diretorio.resolve(ARQUIVO_ATUAL + ".tmp");
+        Files.write(temporario, nome.getBytes(StandardCharsets.UTF_8));
+        Files.move(temporario, diretorio.resolve(ARQUIVO_ATUAL),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (anterior != null && !anterior.equals(nome)) {
+            apagar(diretorio.resolve(anterior));
+        }
+    }
+
+    /**
+     * Diretório do último corte publicado, ou {@code null} se nenhum foi publicado ainda.
+     */
+    public static Path corteAtual(Path diretorio) throws IOException {
+        String atual = lerAtual(diretorio);
+        return atual == null ? null : diretorio.resolve(atual);
+    }
+
+    private static String lerAtual(Path diretorio) throws IOException {
+        Path atual = diretorio.resolve(ARQUIVO_ATUAL);
+        if (!Files.exists(atual)) {
+            return null;
+        }
+        return new String(Files.readAllBytes(atual), StandardCharsets.UTF_8).trim();
+    }
+
+    private static void apagar(Path corte) throws IOException {
+        if (!Files.exists(corte)) {
+            return;
+        }
+        try (Stream<Path> arquivos = Files.list(corte)) {
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                Files.delete(arquivo);
+            }
+        }
+        Files.delete(corte);
+    }
+}
@@ -0,0 +1,462 @@
+package memento;
+
+import model.ArmazemSensores;
+import observer.FilaNiveis;
+import observer.OuvinteNivel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Diário somente de acréscimo com todas as alterações de nível dos sensores.
+ *
+ * Registrado como {@link OuvinteNivel} do armazém, o diário grava cada alteração (aumento,
+ * esvaziamento, {@code setNivel}, restauração) como o novo nível do sensor, agrupada pelo tick
+ * informado por um relógio externo (por exemplo, os passos do {@link simulacao.MotorSimulacao}).
+ * Os registros vão para segmentos de tamanho limitado em um diretório; quando um segmento enche,
+ * um novo é aberto.
+ *
+ * A cada intervalo de ticks é gravado um checkpoint completo ({@link ArquivoCheckpoint}).
+ * Para voltar a um tick qualquer, {@link #restaurarAteTick(long)} carrega o checkpoint mais
+ * próximo anterior e reaplica apenas os registros seguintes, de modo que o custo da restauração
+ * fica limitado pelo intervalo de checkpoints, e não pelo tamanho da simulação. Ao contrário do
+ * {@link SimulacaoCaretaker}, restaurar não apaga nada: a própria restauração é gravada no diário,
+ * que também serve como trilha de auditoria ({@link #ler(long, long, Leitor)}).
+ *
+ * A thread que altera o nível não grava nada: publica o registro em uma {@link FilaNiveis}, sem
+ * travas, e uma thread própria do diário o grava no segmento. Quando uma alteração abre o intervalo
+ * de um novo checkpoint, a thread dela reserva a posição do checkpoint na fila e só então copia os
+ * níveis; assim todo registro anterior na fila já está na cópia, e os seguintes são reaplicados
+ * sobre ela. O arquivo do checkpoint também é gravado pela thread do diário. Como os avisos de
+ * threads diferentes podem chegar fora de ordem, cada registro conta, no mínimo, no tick do anterior.
+ * Uma falha de gravação é relançada pelos métodos seguintes do diário ({@link #descarregar()},
+ * {@link #close()}, consultas), nunca para quem alterou o nível; a partir dela o diário fica
+ * incompleto e os registros seguintes são descartados.
+ *
+ * Formato dos segmentos (inteiros little-endian): cabeçalho de 16 bytes (número mágico, versão e
+ * o tick inicial), seguido de registros de 8 bytes (id, nível). Uma marca de tick ocupa 16 bytes
+ * (id = -1, zero, tick) e vale para os registros seguintes.
+ */
+public class DiarioEventos implements OuvinteNivel, AutoCloseable {
+    public static final int MAGICO = 0x4A444353; // "SCDJ" em little-endian
+    public static final int VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 16;
+    private static final int MARCA_TICK = -1;
+    private static final int MARCA_SNAPSHOT = -2;  // Só na fila: pede um checkpoint com a cópia indicada
+    private static final int CAPACIDADE_FILA = 1 << 16;
+    private static final int LOTE_DRENAGEM = 4096;
+    private static final int TAMANHO_BUFFER = 1 << 20;
+    private static final long INTERVALO_SNAPSHOT_PADRAO = 1000;
+    private static final long TAMANHO_SEGMENTO_PADRAO = 64L << 20;
+
+    /**
+     * Recebe os registros lidos do diário, em ordem de gravação.
+     */
+    @FunctionalInterface
+    public interface Leitor {
+        void registro(long tick, int id, int nivel);
+    }
+
+    /**
+     * Checkpoint gravado no início de um tick, com a posição da marca desse tick no diário.
+     */
+    private static final class Snapshot {
+        final long tick;
+        final Path arquivo;
+        final int segmento;
+        final long posicao;
+
+        Snapshot(long tick, Path arquivo, int segmento, long posicao) {
+            this.tick = tick;
+            this.arquivo = arquivo;
+            this.segmento = segmento;
+            this.posicao = posicao;
+        }
+    }
+
+    private ArmazemSensores armazem;
+    private Path diretorio;
+    private LongSupplier relogio;          // Tick atual da simulação
+    private long intervaloSnapshot;        // Ticks entre dois checkpoints
+    private long tamanhoSegmento;          // Tamanho a partir do qual um novo segmento é aberto
+    private final FilaNiveis fila = new FilaNiveis(CAPACIDADE_FILA);
+    private final AtomicLong proximoSnapshot = new AtomicLong(); // Tick a partir do qual cabe outro checkpoint
+    private final Map<Integer, int[][]> copias = new ConcurrentHashMap<>(); // Níveis e limites de cada checkpoint pedido
+    private final AtomicInteger proximaCopia = new AtomicInteger();
+    private final Thread gravador;
+    private volatile boolean encerrado;
+
+    // Protegidos pela trava do diário
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+    private FileChannel canal;             // Segmento aberto para escrita
+    private List<Path> segmentos = new ArrayList<>();
+    private List<Snapshot> snapshots = new ArrayList<>();
+    private long tamanhoAtual;             // Bytes já gravados (ou no buffer) no segmento aberto
+    private long tickAtual;                // Tick da última marca gravada
+    private long registros;                // Alterações gravadas desde a criação
+    private IOException falha;             // Primeira falha de gravação; o diário para de gravar a partir dela
+    private long descartados;              // Registros descartados depois da falha
+
+    /**
+     * Cria o diário com checkpoints a cada 1000 ticks e segmentos de 64 MB.
+     */
+    public DiarioEventos(ArmazemSensores armazem, Path diretorio, LongSupplier relogio) throws IOException {
+        this(armazem, diretorio, relogio, INTERVALO_SNAPSHOT_PADRAO, TAMANHO_SEGMENTO_PADRAO);
+    }
+
+    /**
+     * Cria o diário em um diretório vazio (ou inexistente), grava o checkpoint inicial
+     * e passa a ouvir as alterações do armazém.
+     * @param relogio fonte do tick atual; deve ser não decrescente.
+     * @param intervaloSnapshot quantidade de ticks entre dois checkpoints completos.
+     * @param tamanhoSegmento tamanho aproximado, em bytes, de cada segmento do diário.
+     */
+    public DiarioEventos(ArmazemSensores armazem, Path diretorio, LongSupplier relogio,
+                         long intervaloSnapshot, long tamanhoSegmento) throws IOException {
+        if (intervaloSnapshot < 1 || tamanhoSegmento < TAMANHO_BUFFER) {
+            throw new IllegalArgumentException("Intervalo deve ser positivo e o segmento ter ao menos " + TAMANHO_BUFFER + " bytes.");
+        }
+        Files.createDirectories(diretorio);
+        try (DirectoryStream<Path> existentes = Files.newDirectoryStream(diretorio)) {
+            if (existentes.iterator().hasNext()) {
+                throw new IOException("O diretório do diário precisa estar vazio: " + diretorio);
+            }
+        }
+        this.armazem = armazem;
+        this.diretorio = diretorio;
+        this.relogio = relogio;
+        this.intervaloSnapshot = intervaloSnapshot;
+        this.tamanhoSegmento = tamanhoSegmento;
+        this.tickAtual = relogio.getAsLong();
+
+        abrirSegmento();
+        gravarMarca();
+        gravarSnapshot(arquivo -> ArquivoCheckpoint.gravar(armazem, arquivo));
+        proximoSnapshot.set(tickAtual + intervaloSnapshot);
+        this.gravador = new Thread(this::gravar, "diario-eventos");
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+        armazem.registrarOuvinte(this);
+    }
+
+    /**
+     * Publica a alteração para a thread do diário, sem travas. Se o relógio chegou ao próximo
+     * checkpoint, esta thread (e só ela) reserva a posição do checkpoint e copia os níveis antes.
+     */
+    @Override
+    public void nivelAlterado(int id, int anterior, int novo) {
+        long tick = relogio.getAsLong();
+        long proximo = proximoSnapshot.get();
+        if (tick >= proximo && proximoSnapshot.compareAndSet(proximo, tick + intervaloSnapshot)) {
+            long sequencia = fila.reservar();
+            int n = armazem.tamanho();
+            int[] niveis = new int[n];
+            int[] limites = new int[n];
+            for (int i = 0; i < n; i++) {
+                niveis[i] = armazem.getNivel(i);
+                limites[i] = armazem.getLimite(i);
+            }
+            int copia = proximaCopia.getAndIncrement();
+            copias.put(copia, new int[][]{niveis, limites});
+            fila.publicar(sequencia, MARCA_SNAPSHOT, copia, tick);
+        }
+        fila.publicar(id, novo, tick);
+    }
+
+    /**
+     * Volta os níveis dos sensores ao estado do fim do tick informado.
+     *
+     * Carrega o último checkpoint gravado até esse tick e reaplica os registros seguintes sobre uma
+     * cópia dos níveis; só então o armazém é atualizado, e cada sensor alterado fica registrado no
+     * diário no tick atual. Não deve ser chamado enquanto a simulação altera os sensores.
+     *
+     * @throws IllegalArgumentException se o tick for anterior ao início do diário.
+     */
+    public void restaurarAteTick(long tick) throws IOException {
+        int[] niveis;
+        synchronized (this) {
+            drenar();
+            Snapshot base = null;
+            for (Snapshot s : snapshots) {
+                if (s.tick <= tick) {
+                    base = s;
+                }
+            }
+            if (base == null) {
+                throw new IllegalArgumentException("O diário começa no tick " + snapshots.get(0).tick + ".");
+            }
+            niveis = new int[armazem.tamanho()];
+            armazem.copiarNiveis(niveis); // Sensores cadastrados depois do checkpoint mantêm o nível atual
+            int n = ArquivoCheckpoint.lerNiveis(base.arquivo, niveis);
+            percorrer(base.segmento, base.posicao, base.tick, tick, (t, id, nivel) -> {
+                if (id < n) {
+                    niveis[id] = nivel;
+                }
+            });
+        }
+        armazem.restaurarNiveis(niveis);
+    }
+
+    /**
+     * Percorre, em ordem de gravação, os registros dos ticks do intervalo informado (inclusive).
+     * Útil para auditoria: quem esvaziou cada lixeira e quando, sem guardar cópias completas por passo.
+     */
+    public synchronized void ler(long deTick, long ateTick, Leitor leitor) throws IOException {
+        drenar();
+        // Registros de um tick podem vir antes do checkpoint aberto nele: parte do checkpoint anterior
+        Snapshot base = snapshots.get(0);
+        for (Snapshot s : snapshots) {
+            if (s.tick < deTick) {
+                base = s;
+            }
+        }
+        percorrer(base.segmento, base.posicao, deTick, ateTick, leitor);
+    }
+
+    /**
+     * Grava no disco os registros publicados até aqui.
+     * @throws IOException se alguma gravação do diário falhou.
+     */
+    public synchronized void descarregar() throws IOException {
+        drenar();
+        esvaziarBuffer();
+    }
+
+    /**
+     * Para de ouvir o armazém, grava os registros pendentes e fecha o segmento aberto.
+     */
+    @Override
+    public void close() throws IOException {
+        armazem.removerOuvinte(this);
+        encerrado = true;
+        LockSupport.unpark(gravador);
+        try {
+            gravador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                descarregar();
+                canal.force(false);
+            } finally {
+                canal.close();
+            }
+        }
+    }
+
+    public synchronized long getRegistros() {
+        retirarPublicados();
+        return registros;
+    }
+
+    /**
+     * Registros descartados porque uma gravação anterior falhou (zero em funcionamento normal).
+     */
+    public synchronized long getDescartados() {
+        return descartados;
+    }
+
+    public synchronized int getSegmentos() {
+        retirarPublicados();
+        return segmentos.size();
+    }
+
+    public synchronized int getSnapshots() {
+        retirarPublicados();
+        return snapshots.size();
+    }
+
+    /**
+     * Laço da thread do diário: grava os registros publicados, um lote por vez sob a trava, e dorme
+     * quando a fila esvazia.
+     */
+    private void gravar() {
+        while (true) {
+            synchronized (this) {
+                if (fila.drenar(this::gravarRegistro, LOTE_DRENAGEM) > 0) {
+                    continue;
+                }
+                if (encerrado && !fila.possuiRegistros()) {
+                    return;
+                }
+            }
+            fila.aguardar(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Grava todos os registros já publicados (quem consulta não espera pela thread do diário).
+     * @throws IOException se alguma gravação do diário falhou.
+     */
+    private void drenar() throws IOException {
+        retirarPublicados();
+        if (falha != null) {
+            throw falha;
+        }
+    }
+
+    private void retirarPublicados() {
+        while (fila.drenar(this::gravarRegistro, LOTE_DRENAGEM) > 0) {
+            // Continua até a fila esvaziar
+        }
+    }
+
+    /**
+     * Grava um registro retirado da fila: um pedido de checkpoint ou uma alteração, abrindo antes a
+     * marca do tick se ele avançou.
+     */
+    private void gravarRegistro(int id, int nivel, long tick) {
+        if (falha != null) {
+            if (id == MARCA_SNAPSHOT) {
+                copias.remove(nivel); // O checkpoint não será gravado: libera a cópia dos níveis
+            } else {
+                descartados++;
+            }
+            return;
+        }
+        try {
+            boolean marcou = false;
+            if (tick > tickAtual) {
+                tickAtual = tick;
+                gravarMarca();
+                marcou = true;
+            }
+            if (id == MARCA_SNAPSHOT) {
+                int[][] copia = copias.remove(nivel);
+                if (!marcou) {
+                    gravarMarca(); // O checkpoint começa em uma marca própria, de onde a releitura parte
+                }
+                gravarSnapshot(arquivo -> ArquivoCheckpoint.gravar(copia[0], copia[1], arquivo));
+                return;
+            }
+            reservar(8);
+            buffer.putInt(id).putInt(nivel);
+            tamanhoAtual += 8;
+            registros++;
+        } catch (IOException e) {
+            falha = e;
+            if (id != MARCA_SNAPSHOT) {
+                descartados++;
+            }
+        }
+    }
+
+    /**
+     * Registra um checkpoint na marca do tick atual, que deve ser a última gravada.
+     */
+    private void gravarSnapshot(Gravacao gravacao) throws IOException {
+        long posicao = tamanhoAtual - 16;
+        Path arquivo = diretorio.resolve(String.format("snapshot-%015d.ckpt", tickAtual));
+        gravacao.gravar(arquivo);
+        snapshots.add(new Snapshot(tickAtual, arquivo, segmentos.size() - 1, posicao));
+    }
+
+    /**
+     * Grava o arquivo de um checkpoint.
+     */
+    @FunctionalInterface
+    private interface Gravacao {
+        void gravar(Path arquivo) throws IOException;
+    }
+
+    private void esvaziarBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void gravarMarca() throws IOException {
+        reservar(16);
+        buffer.putInt(MARCA_TICK).putInt(0).putLong(tickAtual);
+        tamanhoAtual += 16;
+    }
+
+    /**
+     * Garante espaço no buffer para o próximo registro, trocando de segmento se o atual estiver cheio.
+     * Um segmento novo sempre começa com a marca do tick atual, para poder ser lido isoladamente.
+     */
+    private void reservar(int bytes) throws IOException {
+        if (tamanhoAtual + bytes > tamanhoSegmento) {
+            esvaziarBuffer();
+            canal.close();
+            abrirSegmento();
+            buffer.putInt(MARCA_TICK).putInt(0).putLong(tickAtual);
+            tamanhoAtual += 16;
+        }
+        if (buffer.remaining() < bytes) {
+            esvaziarBuffer();
+        }
+    }
+
+    private void abrirSegmento() throws IOException {
+        Path arquivo = diretorio.resolve(String.format("diario-%06d.seg", segmentos.size()));
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentos.add(arquivo);
+        buffer.putInt(MAGICO).putInt(VERSAO).putLong(tickAtual);
+        tamanhoAtual = TAMANHO_CABECALHO;
+    }
+
+    /**
+     * Lê os segmentos a partir da posição informada, entregando os registros com tick entre
+     * deTick e ateTick e parando no primeiro tick posterior ao intervalo.
+     */
+    private void percorrer(int primeiroSegmento, long posicao, long deTick, long ateTick, Leitor leitor) throws IOException {
+        esvaziarBuffer();
+        ByteBuffer leitura = ByteBuffer.allocateDirect(TAMANHO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        long tick = Long.MIN_VALUE;
+        for (int s = primeiroSegmento; s < segmentos.size(); s++) {
+            try (FileChannel entrada = FileChannel.open(segmentos.get(s), StandardOpenOption.READ)) {
+                entrada.position(s == primeiroSegmento ? posicao : TAMANHO_CABECALHO);
+                leitura.clear();
+                while (true) {
+                    int lidos = entrada.read(leitura);
+                    leitura.flip();
+                    while (leitura.remaining() >= 8) {
+                        int id = leitura.getInt(leitura.position());
+                        if (id == MARCA_TICK) {
+                            if (leitura.remaining() < 16) {
+                                break;
+                            }
+                            leitura.getInt();
+                            leitura.getInt();
+                            tick = leitura.getLong();
+                            if (tick > ateTick) {
+                                return;
+                            }
+                        } else {
+                            leitura.getInt();
+                            int nivel = leitura.getInt();
+                            if (tick >= deTick) {
+                                leitor.registro(tick, id, nivel);
+                            }
+                        }
+                    }
+                    leitura.compact();
+                    if (lidos < 0) {
+                        if (leitura.position() > 0) {
+                            throw new IOException("Registro incompleto no fim do segmento " + segmentos.get(s));
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
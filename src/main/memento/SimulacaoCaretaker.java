@@ -1,28 +1,191 @@
 package memento;
 
-import java.util.Stack;
-
 /**
  * Classe responsável por armazenar os estados salvos da simulação.
  * Atua como "caretaker" no padrão de projeto Memento.
+ *
+ * O histórico é um anel de tamanho fixo: quando enche, o estado mais antigo é descartado.
+ * Para economizar memória, a maior parte dos estados é guardada como delta (apenas os sensores
+ * que mudaram desde o estado anterior), com um quadro-chave completo a cada intervalo configurado.
+ * O estado mais antigo do anel é sempre um quadro-chave, o que permite reconstruir qualquer
+ * estado aplicando no máximo um intervalo de deltas.
  */
 public class SimulacaoCaretaker {
-    private Stack<SimulacaoMemento> historico = new Stack<>();
+    private static final int CAPACIDADE_PADRAO = 128;
+    private static final int INTERVALO_QUADRO_CHAVE_PADRAO = 16;
+
+    private SimulacaoMemento[] historico; // Anel com os estados salvos
+    private int inicio;                   // Posição do estado mais antigo no anel
+    private int quantidade;               // Quantidade de estados guardados
+    private int intervaloQuadroChave;     // A cada quantos estados um quadro-chave é gravado
+    private int desdeQuadroChave;         // Deltas gravados desde o último quadro-chave
+    private int[] ultimoEstado;           // Níveis completos do estado no topo, base do próximo delta
 
     /**
-     * Armazena um estado da simulação na pilha de histórico.
+     * Cria o histórico com a capacidade e o intervalo de quadros-chave padrão.
+     */
+    public SimulacaoCaretaker() {
+        this(CAPACIDADE_PADRAO, INTERVALO_QUADRO_CHAVE_PADRAO);
+    }
+
+    /**
+     * Cria o histórico com capacidade limitada.
+     * @param capacidade quantidade máxima de estados guardados antes de descartar os mais antigos.
+     * @param intervaloQuadroChave a cada quantos estados salvos um estado completo é gravado.
+     */
+    public SimulacaoCaretaker(int capacidade, int intervaloQuadroChave) {
+        if (capacidade < 1 || intervaloQuadroChave < 1) {
+            throw new IllegalArgumentException("Capacidade e intervalo devem ser positivos.");
+        }
+        this.historico = new SimulacaoMemento[capacidade];
+        this.intervaloQuadroChave = intervaloQuadroChave;
+    }
+
+    /**
+     * Armazena um estado completo da simulação no histórico.
      */
     public void salvarEstado(SimulacaoMemento memento) {
-        historico.push(memento);
+        if (!memento.isQuadroChave()) {
+            throw new IllegalArgumentException("Apenas estados completos podem ser salvos diretamente.");
+        }
+        guardar(memento);
+        ultimoEstado = memento.getNiveis().clone();
+        desdeQuadroChave = 0;
+    }
+
+    /**
+     * Armazena o estado atual da simulação, gravando apenas o que mudou desde o último estado salvo.
+     * O vetor de níveis informado não é retido e pode ser reutilizado por quem chama.
+     *
+     * @param niveis níveis atuais de todos os sensores, indexados pelo id.
+     * @param ordemSensores ids dos sensores na ordem atual do sistema.
+     */
+    public void salvarEstado(int[] niveis, int[] ordemSensores) {
+        if (ultimoEstado == null || ultimoEstado.length != niveis.length
+                || desdeQuadroChave + 1 >= intervaloQuadroChave) {
+            salvarEstado(new SimulacaoMemento(niveis.clone(), ordemSensores));
+            return;
+        }
+
+        int alterados = 0;
+        for (int id = 0; id < niveis.length; id++) {
+            if (niveis[id] != ultimoEstado[id]) {
+                alterados++;
+            }
+        }
+        // Um delta guarda dois inteiros por sensor; acima da metade, o estado completo é menor
+        if (alterados > niveis.length / 2) {
+            salvarEstado(new SimulacaoMemento(niveis.clone(), ordemSensores));
+            return;
+        }
+
+        int[] ids = new int[alterados];
+        int[] novosNiveis = new int[alterados];
+        int i = 0;
+        for (int id = 0; i < alterados; id++) {
+            if (niveis[id] != ultimoEstado[id]) {
+                ids[i] = id;
+                novosNiveis[i] = niveis[id];
+                ultimoEstado[id] = niveis[id];
+                i++;
+            }
+        }
+        guardar(new SimulacaoMemento(ids, novosNiveis, ordemSensores));
+        desdeQuadroChave++;
     }
 
     /**
-     * Restaura e retorna o último estado salvo da simulação.
+     * Restaura e retorna o último estado salvo da simulação, já reconstruído como estado completo.
      */
     public SimulacaoMemento desfazer() {
-        if (!historico.isEmpty()) {
-            return historico.pop();
+        if (quantidade == 0) {
+            return null;
         }
-        return null;
+        SimulacaoMemento topo = historico[posicao(quantidade - 1)];
+        historico[posicao(quantidade - 1)] = null;
+        quantidade--;
+
+        SimulacaoMemento completo = new SimulacaoMemento(ultimoEstado, topo.getOrdemSensores());
+        ultimoEstado = quantidade > 0 ? reconstruir(quantidade - 1) : null;
+        return completo;
+    }
+
+    /**
+     * Quantidade de estados disponíveis para desfazer.
+     */
+    public int tamanho() {
+        return quantidade;
+    }
+
+    /**
+     * Memória aproximada ocupada pelo histórico, em bytes: os vetores de todos os estados guardados
+     * (a ordem dos sensores, compartilhada entre estados consecutivos, é contada uma vez) mais a
+     * cópia completa do estado do topo usada como base dos deltas.
+     */
+    public long tamanhoEmBytes() {
+        long bytes = ultimoEstado != null ? 4L * ultimoEstado.length : 0;
+        int[] ordemAnterior = null;
+        for (int i = 0; i < quantidade; i++) {
+            SimulacaoMemento memento = historico[posicao(i)];
+            bytes += 4L * memento.getNiveis().length;
+            if (!memento.isQuadroChave()) {
+                bytes += 4L * memento.getIds().length;
+            }
+            if (memento.getOrdemSensores() != ordemAnterior) {
+                ordemAnterior = memento.getOrdemSensores();
+                bytes += 4L * ordemAnterior.length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Insere o memento no topo do anel, descartando o mais antigo se o anel estiver cheio.
+     */
+    private void guardar(SimulacaoMemento memento) {
+        if (quantidade == historico.length) {
+            descartarMaisAntigo();
+        }
+        historico[posicao(quantidade)] = memento;
+        quantidade++;
+    }
+
+    /**
+     * Remove o estado mais antigo. Se o seguinte for um delta, ele é promovido a quadro-chave
+     * aplicando-o sobre o vetor do estado descartado, sem nenhuma cópia adicional.
+     */
+    private void descartarMaisAntigo() {
+        SimulacaoMemento antigo = historico[inicio];
+        historico[inicio] = null;
+        inicio = (inicio + 1) % historico.length;
+        quantidade--;
+
+        if (quantidade > 0 && !historico[inicio].isQuadroChave()) {
+            SimulacaoMemento seguinte = historico[inicio];
+            int[] base = antigo.getNiveis();
+            seguinte.aplicarSobre(base);
+            historico[inicio] = new SimulacaoMemento(base, seguinte.getOrdemSensores());
+        }
+    }
+
+    /**
+     * Reconstrói os níveis completos do estado na posição informada (0 = mais antigo),
+     * partindo do quadro-chave mais próximo e aplicando os deltas seguintes.
+     */
+    private int[] reconstruir(int indice) {
+        int chave = indice;
+        while (!historico[posicao(chave)].isQuadroChave()) {
+            chave--;
+        }
+        int[] estado = historico[posicao(chave)].getNiveis().clone();
+        for (int i = chave + 1; i <= indice; i++) {
+            historico[posicao(i)].aplicarSobre(estado);
+        }
+        desdeQuadroChave = indice - chave;
+        return estado;
+    }
+
+    private int posicao(int indice) {
+        return (inicio + indice) % historico.length;
     }
 }
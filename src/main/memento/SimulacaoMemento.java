@@ -1,29 +1,75 @@
 package memento;
 
-import model.SensorLixo;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 /**
  * Armazena o estado dos sensores em um dado momento da simulação.
  * Representa o "memento" no padrão Memento.
+ *
+ * O estado é guardado em vetores primitivos e pode ter duas formas:
+ * - quadro-chave: o nível de todos os sensores, indexado pelo id;
+ * - delta: apenas os ids dos sensores que mudaram desde o estado anterior e seus novos níveis.
+ * Em ambos os casos a ordem dos sensores no sistema é guardada como um vetor de ids.
  */
 public class SimulacaoMemento {
-    private Map<Integer, Integer> estadoSensores;
-    private List<SensorLixo> ordemSensores;
+    private int[] ids;            // Ids alterados (somente em deltas; nulo em quadros-chave)
+    private int[] niveis;         // Níveis de todos os sensores ou apenas dos alterados
+    private int[] ordemSensores;  // Ordem dos sensores no sistema, compartilhada entre mementos
+
+    /**
+     * Cria um memento completo (quadro-chave) a partir dos vetores informados, sem copiá-los.
+     * Os vetores passam a pertencer ao memento e não devem ser alterados por quem os criou.
+     */
+    public SimulacaoMemento(int[] niveis, int[] ordemSensores) {
+        this(null, niveis, ordemSensores);
+    }
+
+    /**
+     * Cria um memento delta com os ids alterados e seus respectivos níveis.
+     */
+    SimulacaoMemento(int[] ids, int[] niveis, int[] ordemSensores) {
+        this.ids = ids;
+        this.niveis = niveis;
+        this.ordemSensores = ordemSensores;
+    }
+
+    /**
+     * Indica se o memento guarda o estado completo ou apenas as alterações.
+     */
+    public boolean isQuadroChave() {
+        return ids == null;
+    }
+
+    /**
+     * Níveis salvos. Em um quadro-chave são indexados pelo id do sensor; em um delta
+     * acompanham as posições de {@link #getIds()}. O vetor retornado não deve ser modificado.
+     */
+    public int[] getNiveis() {
+        return niveis;
+    }
 
-    public SimulacaoMemento(Map<Integer, Integer> estadoSensores, List<SensorLixo> ordemSensores) {
-        this.estadoSensores = new HashMap<>(estadoSensores);
-        this.ordemSensores = List.copyOf(ordemSensores);
+    /**
+     * Ids dos sensores alterados em um delta, ou nulo em um quadro-chave.
+     */
+    public int[] getIds() {
+        return ids;
     }
 
-    public Map<Integer, Integer> getEstadoSensores() {
-        return new HashMap<>(estadoSensores);
+    /**
+     * Ids dos sensores na ordem em que estavam no sistema. O vetor retornado não deve ser modificado.
+     */
+    public int[] getOrdemSensores() {
+        return ordemSensores;
     }
 
-    public List<SensorLixo> getOrdemSensores() {
-        return List.copyOf(ordemSensores);
+    /**
+     * Aplica as alterações deste memento sobre um vetor de níveis completo.
+     */
+    void aplicarSobre(int[] estado) {
+        if (ids == null) {
+            System.arraycopy(niveis, 0, estado, 0, niveis.length);
+            return;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            estado[ids[i]] = niveis[i];
+        }
     }
 }
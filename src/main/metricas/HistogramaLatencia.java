@@ -0,0 +1,182 @@
+package metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latências em nanossegundos, barato o bastante para ficar sempre ligado.
+ *
+ * Os valores caem em baldes log-lineares, como no HdrHistogram: cada potência de 2 é dividida em
+ * 16 sub-baldes, o que dá erro relativo de no máximo 1/16 (6,25%) em qualquer faixa, de
+ * nanossegundos a anos, com apenas 960 contadores. Para que várias threads gravem sem disputar
+ * a mesma linha de cache, os contadores são repartidos em faixas (uma por grupo de threads),
+ * somadas apenas na leitura.
+ */
+public class HistogramaLatencia implements HistogramaLatenciaMBean {
+    private static final int BITS_SUB_BALDE = 4;
+    private static final int SUB_BALDES = 1 << BITS_SUB_BALDE;
+    private static final int BALDES = (64 - BITS_SUB_BALDE) * SUB_BALDES;
+    private static final int SOMA = BALDES;         // Posição da soma dos valores em cada faixa
+    private static final int MAXIMO = BALDES + 1;   // Posição do maior valor em cada faixa
+    private static final int FAIXAS = faixas();
+
+    private final String nome;
+    private final AtomicLongArray[] faixas = new AtomicLongArray[FAIXAS];
+
+    public HistogramaLatencia(String nome) {
+        this.nome = nome;
+        for (int i = 0; i < FAIXAS; i++) {
+            faixas[i] = new AtomicLongArray(BALDES + 2);
+        }
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Registra uma duração, em nanossegundos. Valores negativos contam como zero.
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(nanos, 0);
+        AtomicLongArray faixa = faixas[(int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 32) & (FAIXAS - 1)];
+        faixa.incrementAndGet(balde(valor));
+        faixa.addAndGet(SOMA, valor);
+        if (valor > faixa.get(MAXIMO)) {
+            faixa.accumulateAndGet(MAXIMO, valor, Math::max);
+        }
+    }
+
+    /**
+     * Registra o tempo decorrido desde o instante informado (obtido com {@link System#nanoTime()}).
+     */
+    public void registrarDesde(long inicioNanos) {
+        registrar(System.nanoTime() - inicioNanos);
+    }
+
+    @Override
+    public long getContagem() {
+        long total = 0;
+        for (AtomicLongArray faixa : faixas) {
+            for (int b = 0; b < BALDES; b++) {
+                total += faixa.get(b);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public double getMediaMicros() {
+        long contagem = getContagem();
+        long soma = 0;
+        for (AtomicLongArray faixa : faixas) {
+            soma += faixa.get(SOMA);
+        }
+        return contagem == 0 ? 0 : soma / 1000.0 / contagem;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentil(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return percentil(0.90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentil(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return percentil(0.999) / 1000.0;
+    }
+
+    @Override
+    public double getMaximoMicros() {
+        return maximo() / 1000.0;
+    }
+
+    @Override
+    public void zerar() {
+        for (AtomicLongArray faixa : faixas) {
+            for (int b = 0; b < BALDES + 2; b++) {
+                faixa.set(b, 0);
+            }
+        }
+    }
+
+    /**
+     * Valor abaixo do qual está a fração informada das medidas, em nanossegundos
+     * (limite superior do balde correspondente, sem passar do maior valor registrado).
+     */
+    public long percentil(double fracao) {
+        long[] contagens = new long[BALDES];
+        long total = 0;
+        for (AtomicLongArray faixa : faixas) {
+            for (int b = 0; b < BALDES; b++) {
+                contagens[b] += faixa.get(b);
+            }
+        }
+        for (long c : contagens) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(fracao * total));
+        long acumulado = 0;
+        for (int b = 0; b < BALDES; b++) {
+            acumulado += contagens[b];
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(b), maximo());
+            }
+        }
+        return maximo();
+    }
+
+    /**
+     * Linha de resumo usada no relatório periódico.
+     */
+    public String resumo() {
+        return String.format("%-16s n=%d media=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                nome, getContagem(), getMediaMicros(), getP50Micros(), getP99Micros(), getP999Micros(), getMaximoMicros());
+    }
+
+    private long maximo() {
+        long maximo = 0;
+        for (AtomicLongArray faixa : faixas) {
+            maximo = Math.max(maximo, faixa.get(MAXIMO));
+        }
+        return maximo;
+    }
+
+    /**
+     * Balde do valor: valores até 15 têm balde próprio; acima, o expoente escolhe a potência de 2
+     * e os 4 bits seguintes ao bit mais alto escolhem o sub-balde.
+     */
+    static int balde(long valor) {
+        if (valor < SUB_BALDES) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int subBalde = (int) (valor >>> (expoente - BITS_SUB_BALDE)) & (SUB_BALDES - 1);
+        return (expoente - BITS_SUB_BALDE + 1) * SUB_BALDES + subBalde;
+    }
+
+    static long limiteSuperior(int balde) {
+        if (balde < SUB_BALDES) {
+            return balde;
+        }
+        int expoente = balde / SUB_BALDES + BITS_SUB_BALDE - 1;
+        long inicio = (long) (SUB_BALDES + balde % SUB_BALDES) << (expoente - BITS_SUB_BALDE);
+        return inicio + (1L << (expoente - BITS_SUB_BALDE)) - 1;
+    }
+
+    private static int faixas() {
+        int nucleos = Math.min(Runtime.getRuntime().availableProcessors(), 16);
+        return Integer.highestOneBit(Math.max(nucleos, 1) * 2 - 1);
+    }
+}
@@ -0,0 +1,22 @@
+package metricas;
+
+/**
+ * Interface JMX de um {@link HistogramaLatencia}. Os tempos são expostos em microssegundos.
+ */
+public interface HistogramaLatenciaMBean {
+    long getContagem();
+
+    double getMediaMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaximoMicros();
+
+    void zerar();
+}
@@ -0,0 +1,168 @@
+package metricas;
+
+import observer.BarramentoEventos;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Métricas de um {@link model.SistemaColetaLixo}, pensadas para ficar ligadas em produção.
+ *
+ * Reúne os histogramas de latência das operações principais, o total e a taxa de notificações
+ * de lixeira cheia, a profundidade da fila do {@link BarramentoEventos} (quando conectado), a
+ * memória ocupada pelo histórico de estados e a quantidade de sensores cheios. A gravação custa
+ * um contador repartido por thread; os medidores mais caros (sensores cheios, tamanho do
+ * histórico) só são calculados quando alguém os lê.
+ *
+ * As métricas podem ser publicadas como MBeans ({@link #registrarJmx(String)}), visíveis no
+ * JConsole/VisualVM, e impressas periodicamente pelo {@link RelatorioMetricas}.
+ */
+public class MetricasColeta implements MetricasColetaMBean {
+    private final HistogramaLatencia gerarRota = new HistogramaLatencia("gerarRota");
+    private final HistogramaLatencia salvarEstado = new HistogramaLatencia("salvarEstado");
+    private final HistogramaLatencia restaurarEstado = new HistogramaLatencia("restaurarEstado");
+    private final HistogramaLatencia coletarLixo = new HistogramaLatencia("coletarLixo");
+    private final LongAdder notificacoes = new LongAdder();
+    private final IntSupplier sensoresCheios;
+    private final LongSupplier historicoBytes;
+    private final long criacao = System.nanoTime();
+    private volatile BarramentoEventos barramento;
+    private volatile double taxaNotificacoes = -1;   // Taxa da última amostra; negativa antes da primeira
+    private long ultimaAmostraNotificacoes;
+    private long ultimaAmostraNanos = criacao;
+
+    /**
+     * @param sensoresCheios calcula quantos sensores estão no limite.
+     * @param historicoBytes calcula a memória ocupada pelo histórico de estados.
+     */
+    public MetricasColeta(IntSupplier sensoresCheios, LongSupplier historicoBytes) {
+        this.sensoresCheios = sensoresCheios;
+        this.historicoBytes = historicoBytes;
+    }
+
+    public HistogramaLatencia getGerarRota() {
+        return gerarRota;
+    }
+
+    public HistogramaLatencia getSalvarEstado() {
+        return salvarEstado;
+    }
+
+    public HistogramaLatencia getRestaurarEstado() {
+        return restaurarEstado;
+    }
+
+    public HistogramaLatencia getColetarLixo() {
+        return coletarLixo;
+    }
+
+    /**
+     * Conta notificações de lixeira cheia recebidas pelo sistema.
+     */
+    public void registrarNotificacoes(int quantidade) {
+        notificacoes.add(quantidade);
+    }
+
+    /**
+     * Passa a acompanhar a fila do barramento de eventos.
+     */
+    public void observarBarramento(BarramentoEventos barramento) {
+        this.barramento = barramento;
+    }
+
+    @Override
+    public long getNotificacoes() {
+        return notificacoes.sum();
+    }
+
+    /**
+     * Taxa de notificações medida entre as duas últimas chamadas de {@link #amostrar()};
+     * antes da primeira amostra, a média desde a criação.
+     */
+    @Override
+    public double getNotificacoesPorSegundo() {
+        double taxa = taxaNotificacoes;
+        if (taxa >= 0) {
+            return taxa;
+        }
+        double segundos = (System.nanoTime() - criacao) / 1e9;
+        return segundos > 0 ? getNotificacoes() / segundos : 0;
+    }
+
+    @Override
+    public int getSensoresCheios() {
+        return sensoresCheios.getAsInt();
+    }
+
+    @Override
+    public long getHistoricoBytes() {
+        return historicoBytes.getAsLong();
+    }
+
+    @Override
+    public int getProfundidadeFila() {
+        BarramentoEventos b = barramento;
+        return b != null ? b.getProfundidade() : 0;
+    }
+
+    @Override
+    public int getProfundidadeMaximaFila() {
+        BarramentoEventos b = barramento;
+        return b != null ? b.getProfundidadeMaxima() : 0;
+    }
+
+    @Override
+    public long getEntregasDiretas() {
+        BarramentoEventos b = barramento;
+        return b != null ? b.getEntregasDiretas() : 0;
+    }
+
+    /**
+     * Fecha uma janela de medição da taxa de notificações. Chamado pelo relatório periódico.
+     */
+    public synchronized void amostrar() {
+        long agora = System.nanoTime();
+        long total = getNotificacoes();
+        if (agora > ultimaAmostraNanos) {
+            taxaNotificacoes = (total - ultimaAmostraNotificacoes) / ((agora - ultimaAmostraNanos) / 1e9);
+        }
+        ultimaAmostraNotificacoes = total;
+        ultimaAmostraNanos = agora;
+    }
+
+    /**
+     * Registra as métricas no servidor de MBeans da plataforma, sob o domínio {@code smartcitysim}.
+     * @param nome identifica o sistema quando há mais de um no mesmo processo.
+     */
+    public void registrarJmx(String nome) {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            servidor.registerMBean(this, new ObjectName("smartcitysim:type=Coleta,name=" + ObjectName.quote(nome)));
+            for (HistogramaLatencia h : new HistogramaLatencia[]{gerarRota, salvarEstado, restaurarEstado, coletarLixo}) {
+                servidor.registerMBean(h, new ObjectName("smartcitysim:type=Latencia,sistema="
+                        + ObjectName.quote(nome) + ",name=" + h.getNome()));
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Não foi possível registrar as métricas no JMX: " + nome, e);
+        }
+    }
+
+    /**
+     * Relatório em texto com todas as métricas.
+     */
+    public String formatar() {
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format("notificacoes=%d (%.1f/s) sensoresCheios=%d historico=%d bytes fila=%d (max %d, diretas %d)%n",
+                getNotificacoes(), getNotificacoesPorSegundo(), getSensoresCheios(), getHistoricoBytes(),
+                getProfundidadeFila(), getProfundidadeMaximaFila(), getEntregasDiretas()));
+        for (HistogramaLatencia h : new HistogramaLatencia[]{gerarRota, salvarEstado, restaurarEstado, coletarLixo}) {
+            texto.append(h.resumo()).append(System.lineSeparator());
+        }
+        return texto.toString();
+    }
+}
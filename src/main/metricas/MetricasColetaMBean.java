@@ -0,0 +1,20 @@
+package metricas;
+
+/**
+ * Interface JMX com os contadores e medidores do sistema de coleta.
+ */
+public interface MetricasColetaMBean {
+    long getNotificacoes();
+
+    double getNotificacoesPorSegundo();
+
+    int getSensoresCheios();
+
+    long getHistoricoBytes();
+
+    int getProfundidadeFila();
+
+    int getProfundidadeMaximaFila();
+
+    long getEntregasDiretas();
+}
@@ -0,0 +1,33 @@
+package metricas;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imprime periodicamente as métricas de coleta em texto, em uma thread própria (daemon).
+ */
+public class RelatorioMetricas implements AutoCloseable {
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "relatorio-metricas");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Começa a imprimir as métricas no destino informado a cada intervalo.
+     */
+    public RelatorioMetricas(MetricasColeta metricas, PrintStream destino, long intervalo, TimeUnit unidade) {
+        agendador.scheduleAtFixedRate(() -> {
+            metricas.amostrar();
+            destino.print(metricas.formatar());
+            destino.flush();
+        }, intervalo, intervalo, unidade);
+    }
+
+    @Override
+    public void close() {
+        agendador.shutdownNow();
+    }
+}
@@ -0,0 +1,521 @@
+package model;
+
+import observer.Observador;
+import observer.OuvinteNivel;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Armazena os dados de todos os sensores de lixo em vetores primitivos densos,
+ * indexados pelo id do sensor (estrutura de vetores).
+ *
+ * Em vez de manter um objeto completo por lixeira, níveis e limites ficam lado a lado
+ * na memória. Isso reduz bastante o consumo de heap em cidades com milhões de sensores
+ * e deixa as varreduras (salvar estado, ordenar por nível) amigáveis ao cache.
+ *
+ * Os objetos {@link SensorLixoCapacidade} passam a ser apenas visões leves (armazém + id)
+ * sobre estes vetores, criadas sob demanda.
+ *
+ * As alterações de nível são atômicas por sensor: leituras e escritas usam um {@link VarHandle}
+ * sobre o vetor de níveis, e o aumento usa compare-and-set. Assim várias threads de simulação e
+ * de coleta podem alterar a cidade ao mesmo tempo sem corromper os níveis e sem um bloqueio global,
+ * e a notificação de lixeira cheia é disparada uma única vez, pela thread que fez o nível cruzar
+ * o limite. O cadastro de sensores ({@link #adicionar(int)}) deve terminar antes que outras threads
+ * comecem a alterar níveis, pois pode realocar os vetores.
+ *
+ * Toda alteração muda a {@link #versao()} do armazém, o que permite a quem guarda resultados
+ * derivados dos níveis (como o {@link strategy.CacheRotas}) saber se eles continuam válidos.
+ */
+public class ArmazemSensores {
+    private static final int CAPACIDADE_INICIAL = 16;
+    private static final VarHandle NIVEL = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private int[] niveis;   // Nível atual de cada sensor, indexado pelo id
+    private int[] limites;  // Capacidade máxima de cada sensor, indexada pelo id
+    private double[] x;     // Coordenada x (leste) de cada sensor
+    private double[] y;     // Coordenada y (norte) de cada sensor
+    private int tamanho;    // Quantidade de sensores cadastrados (ids de 0 a tamanho - 1)
+    private List<Observador> observadores = new CopyOnWriteArrayList<>(); // Observadores de todos os sensores do armazém
+    // Registros individuais (esparsos); lidos sem trava pela thread que notifica
+    private final Map<Integer, List<Observador>> observadoresPorSensor = new ConcurrentHashMap<>();
+    private List<OuvinteNivel> ouvintes = new CopyOnWriteArrayList<>(); // Estruturas avisadas a cada alteração de nível
+    private IndicePrioridadeNivel indicePrioridade; // Criado sob demanda pela primeira estratégia que o usar
+    private AtomicLong versao = new AtomicLong();     // Versão de modificação; o bit 0 indica que ela já foi lida
+    private volatile int versaoEstrutura;             // Muda quando sensores ou limites mudam
+
+    /**
+     * Cria um armazém vazio com a capacidade inicial padrão.
+     */
+    public ArmazemSensores() {
+        this(CAPACIDADE_INICIAL);
+    }
+
+    /**
+     * Cria um armazém vazio já reservando espaço para a quantidade informada de sensores,
+     * evitando realocações quando o tamanho da cidade é conhecido de antemão.
+     */
+    public ArmazemSensores(int capacidade) {
+        int inicial = Math.max(capacidade, 1);
+        this.niveis = new int[inicial];
+        this.limites = new int[inicial];
+        this.x = new double[inicial];
+        this.y = new double[inicial];
+    }
+
+    /**
+     * Cadastra um novo sensor vazio com o limite informado, na origem do mapa.
+     * @return o id do sensor, que é também sua posição nos vetores internos.
+     */
+    public int adicionar(int limite) {
+        return adicionar(limite, 0, 0);
+    }
+
+    /**
+     * Cadastra um novo sensor vazio com o limite e a posição informados.
+     * @return o id do sensor, que é também sua posição nos vetores internos.
+     */
+    public synchronized int adicionar(int limite, double x, double y) {
+        if (tamanho == niveis.length) {
+            int novaCapacidade = niveis.length + (niveis.length >> 1) + 1;
+            niveis = Arrays.copyOf(niveis, novaCapacidade);
+            limites = Arrays.copyOf(limites, novaCapacidade);
+            this.x = Arrays.copyOf(this.x, novaCapacidade);
+            this.y = Arrays.copyOf(this.y, novaCapacidade);
+        }
+        limites[tamanho] = limite;
+        niveis[tamanho] = 0;
+        this.x[tamanho] = x;
+        this.y[tamanho] = y;
+        tamanho++;
+        alterarEstrutura();
+        return tamanho - 1;
+    }
+
+    /**
+     * Cadastra de uma vez um sensor vazio, na origem do mapa, para cada limite restante no buffer.
+     * Usado para reconstruir cidades grandes a partir de um checkpoint sem cadastrar sensor a sensor.
+     * @return o id do primeiro sensor cadastrado.
+     */
+    public synchronized int adicionar(IntBuffer limitesNovos) {
+        int quantidade = limitesNovos.remaining();
+        int primeiro = tamanho;
+        if (tamanho + quantidade > niveis.length) {
+            int novaCapacidade = Math.max(tamanho + quantidade, niveis.length + (niveis.length >> 1) + 1);
+            niveis = Arrays.copyOf(niveis, novaCapacidade);
+            limites = Arrays.copyOf(limites, novaCapacidade);
+            this.x = Arrays.copyOf(this.x, novaCapacidade);
+            this.y = Arrays.copyOf(this.y, novaCapacidade);
+        }
+        limitesNovos.get(limites, primeiro, quantidade);
+        Arrays.fill(niveis, primeiro, primeiro + quantidade, 0);
+        Arrays.fill(this.x, primeiro, primeiro + quantidade, 0);
+        Arrays.fill(this.y, primeiro, primeiro + quantidade, 0);
+        tamanho += quantidade;
+        alterarEstrutura();
+        return primeiro;
+    }
+
+    /**
+     * Retorna uma visão do sensor com o id informado.
+     */
+    public SensorLixoCapacidade getSensor(int id) {
+        if (id < 0 || id >= tamanho) {
+            throw new IndexOutOfBoundsException("Sensor inexistente: " + id);
+        }
+        return new SensorLixoCapacidade(this, id);
+    }
+
+    /**
+     * Retorna uma lista somente leitura com as visões dos sensores na ordem dos ids informados.
+     * As visões são criadas sob demanda a cada acesso, sem copiar os dados dos sensores.
+     */
+    public List<SensorLixo> listar(int[] ids) {
+        return new VisaoSensores(ids);
+    }
+
+    /**
+     * Indica se a lista é uma visão de todos os sensores deste armazém na ordem dos ids, ou seja,
+     * se a posição de cada sensor na lista é o próprio id. Nesse caso, quem percorre a lista pode
+     * ler os níveis direto do armazém, sem criar as visões dos sensores.
+     */
+    public boolean cobreEmOrdem(List<SensorLixo> sensores) {
+        return sensores instanceof VisaoSensores && ((VisaoSensores) sensores).cobreEmOrdem(this);
+    }
+
+    /**
+     * Indica se a lista é uma visão deste armazém com cada sensor exatamente uma vez, em qualquer
+     * ordem. Nesse caso, estruturas mantidas sobre o armazém inteiro (como o
+     * {@link #indicePrioridade()}) respondem pela lista sem percorrê-la.
+     */
+    public boolean cobreTodos(List<SensorLixo> sensores) {
+        return sensores instanceof VisaoSensores && ((VisaoSensores) sensores).cobreTodos(this);
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public int getNivel(int id) {
+        return (int) NIVEL.getVolatile(niveis, id);
+    }
+
+    public int getLimite(int id) {
+        return limites[id];
+    }
+
+    public double getX(int id) {
+        return x[id];
+    }
+
+    public double getY(int id) {
+        return y[id];
+    }
+
+    /**
+     * Redefine o nível de um sensor (usado em coletas e restaurações).
+     * Os ouvintes de nível são avisados, mas os observadores de lixeira cheia não são notificados.
+     */
+    public void setNivel(int id, int nivel) {
+        int anterior = (int) NIVEL.getAndSet(niveis, id, nivel);
+        avisarOuvintes(id, anterior, nivel);
+    }
+
+    /**
+     * Esvazia o sensor de forma atômica (usado na coleta).
+     * @return a quantidade de lixo que havia no sensor.
+     */
+    public int esvaziar(int id) {
+        int anterior = (int) NIVEL.getAndSet(niveis, id, 0);
+        if (anterior != 0) {
+            avisarOuvintes(id, anterior, 0);
+        }
+        return anterior;
+    }
+
+    /**
+     * Simula um aumento no nível de lixo do sensor.
+     * Se o nível atingir o limite, ele é travado no limite e os observadores são notificados.
+     *
+     * A atualização é um laço de compare-and-set: se outra thread alterar o mesmo sensor no meio,
+     * a operação é refeita sobre o novo valor. Só a thread que leva o nível de abaixo do limite até
+     * o limite dispara a notificação.
+     */
+    public void aumentar(int id, int quantidade) {
+        int limite = limites[id];
+        while (true) {
+            int anterior = (int) NIVEL.getVolatile(niveis, id);
+            if (anterior >= limite) {
+                return;
+            }
+            int novo = (int) Math.min((long) anterior + quantidade, limite);
+            if (NIVEL.compareAndSet(niveis, id, anterior, novo)) {
+                avisarOuvintes(id, anterior, novo);
+                if (novo >= limite) {
+                    notificar(id);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Aplica uma leitura medida pelo sensor, substituindo o nível atual.
+     * O valor é limitado ao intervalo de zero ao limite do sensor. Se a leitura levar o nível de
+     * abaixo do limite até o limite, os observadores são notificados, uma única vez, como em
+     * {@link #aumentar(int, int)}; leituras repetidas de uma lixeira já cheia não notificam de novo.
+     */
+    public void registrarLeitura(int id, int nivel) {
+        int limite = limites[id];
+        int novo = Math.max(0, Math.min(nivel, limite));
+        int anterior = (int) NIVEL.getAndSet(niveis, id, novo);
+        if (anterior != novo) {
+            avisarOuvintes(id, anterior, novo);
+            if (anterior < limite && novo >= limite) {
+                notificar(id);
+            }
+        }
+    }
+
+    /**
+     * Conta os sensores que estão no limite (lixeiras cheias), percorrendo os vetores.
+     */
+    public int contarCheios() {
+        int cheios = 0;
+        for (int id = 0; id < tamanho; id++) {
+            if ((int) NIVEL.getOpaque(niveis, id) >= limites[id]) {
+                cheios++;
+            }
+        }
+        return cheios;
+    }
+
+    /**
+     * Copia os níveis de todos os sensores para o vetor de destino, na ordem dos ids.
+     * O destino deve ter pelo menos {@link #tamanho()} posições.
+     */
+    public void copiarNiveis(int[] destino) {
+        System.arraycopy(niveis, 0, destino, 0, tamanho);
+    }
+
+    /**
+     * Grava os níveis de todos os sensores no buffer de destino, na ordem dos ids, em uma única cópia.
+     */
+    public void copiarNiveis(IntBuffer destino) {
+        destino.put(niveis, 0, tamanho);
+    }
+
+    /**
+     * Grava os limites de todos os sensores no buffer de destino, na ordem dos ids.
+     */
+    public void copiarLimites(IntBuffer destino) {
+        destino.put(limites, 0, tamanho);
+    }
+
+    /**
+     * Sobrescreve os limites dos sensores com os valores restantes no buffer, na ordem dos ids.
+     */
+    public synchronized void restaurarLimites(IntBuffer origem) {
+        origem.get(limites, 0, Math.min(origem.remaining(), tamanho));
+        alterarEstrutura();
+    }
+
+    /**
+     * Versão de {@link #restaurarNiveis(int[])} que lê os níveis de um buffer (por exemplo, um arquivo
+     * mapeado em memória), sem precisar de um vetor intermediário.
+     */
+    public void restaurarNiveis(IntBuffer origem) {
+        int quantidade = Math.min(origem.remaining(), tamanho);
+        if (ouvintes.isEmpty()) {
+            origem.get(niveis, 0, quantidade);
+            registrarModificacao();
+            return;
+        }
+        for (int id = 0; id < quantidade; id++) {
+            int nivel = origem.get();
+            if (getNivel(id) != nivel) {
+                setNivel(id, nivel);
+            }
+        }
+    }
+
+    /**
+     * Sobrescreve os níveis dos sensores com os valores do vetor de origem, na ordem dos ids.
+     * Sensores além do tamanho da origem permanecem inalterados. Cada sensor é escrito de forma
+     * atômica, mas a restauração como um todo não é: ela não deve concorrer com a simulação.
+     */
+    public void restaurarNiveis(int[] origem) {
+        int quantidade = Math.min(origem.length, tamanho);
+        if (ouvintes.isEmpty()) {
+            System.arraycopy(origem, 0, niveis, 0, quantidade);
+            registrarModificacao();
+            return;
+        }
+        for (int id = 0; id < quantidade; id++) {
+            if (getNivel(id) != origem[id]) {
+                setNivel(id, origem[id]);
+            }
+        }
+    }
+
+    /**
+     * Versão de modificação do armazém. Duas leituras que retornam o mesmo valor garantem que nenhum
+     * nível, limite ou sensor mudou entre elas.
+     *
+     * Para que as threads que alteram níveis não disputem um contador, a versão só é incrementada
+     * pela primeira alteração feita depois de ela ser lida: a leitura marca a versão como observada,
+     * e enquanto ninguém a ler de novo cada alteração custa apenas uma leitura volátil. As alterações
+     * incrementam a versão depois de avisar os ouvintes de nível.
+     */
+    public long versao() {
+        long atual = versao.get();
+        while ((atual & 1) == 0 && !versao.compareAndSet(atual, atual | 1)) {
+            atual = versao.get();
+        }
+        return atual >>> 1;
+    }
+
+    /**
+     * Versão da estrutura do armazém, alterada quando sensores são cadastrados ou limites restaurados.
+     * Mudanças de estrutura também mudam a {@link #versao()}.
+     */
+    public int getVersaoEstrutura() {
+        return versaoEstrutura;
+    }
+
+    /**
+     * Registra uma estrutura que deve ser avisada a cada alteração de nível de qualquer sensor.
+     */
+    public void registrarOuvinte(OuvinteNivel ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Remove uma estrutura registrada com {@link #registrarOuvinte(OuvinteNivel)}.
+     */
+    public void removerOuvinte(OuvinteNivel ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    /**
+     * Retorna o índice de prioridade por nível deste armazém, criando-o e registrando-o
+     * como ouvinte na primeira chamada.
+     */
+    public synchronized IndicePrioridadeNivel indicePrioridade() {
+        if (indicePrioridade == null) {
+            indicePrioridade = new IndicePrioridadeNivel(this);
+            registrarOuvinte(indicePrioridade);
+        }
+        return indicePrioridade;
+    }
+
+    /**
+     * Registra um observador que será notificado quando qualquer sensor do armazém atingir o limite.
+     * É a forma indicada para observar cidades grandes, pois não cria nenhum registro por sensor.
+     */
+    public void registrarObservador(Observador o) {
+        if (!observadores.contains(o)) {
+            observadores.add(o);
+        }
+    }
+
+    /**
+     * Remove um observador registrado para todos os sensores do armazém.
+     */
+    public void removerObservador(Observador o) {
+        observadores.remove(o);
+    }
+
+    /**
+     * Registra um observador interessado apenas no sensor com o id informado.
+     */
+    public void registrarObservador(int id, Observador o) {
+        observadoresPorSensor.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>()).add(o);
+    }
+
+    /**
+     * Notifica os observadores gerais e os observadores específicos do sensor.
+     */
+    public void notificar(int id) {
+        SensorLixo sensor = new SensorLixoCapacidade(this, id);
+        for (Observador o : observadores) {
+            o.atualizar(sensor);
+        }
+        List<Observador> especificos = observadoresPorSensor.get(id);
+        if (especificos != null) {
+            for (Observador o : especificos) {
+                o.atualizar(sensor);
+            }
+        }
+    }
+
+    /**
+     * Avisa os ouvintes sobre uma cópia da lista, pois ouvintes podem ser removidos enquanto a simulação escreve.
+     * Uma falha em um ouvinte não impede os demais de serem avisados nem a versão de mudar; a primeira falha
+     * é relançada depois de todos (as seguintes vão como suprimidas).
+     */
+    private void avisarOuvintes(int id, int anterior, int novo) {
+        RuntimeException falha = null;
+        try {
+            for (OuvinteNivel ouvinte : ouvintes) {
+                try {
+                    ouvinte.nivelAlterado(id, anterior, novo);
+                } catch (RuntimeException e) {
+                    if (falha == null) {
+                        falha = e;
+                    } else {
+                        falha.addSuppressed(e);
+                    }
+                }
+            }
+        } finally {
+            registrarModificacao();
+        }
+        if (falha != null) {
+            throw falha;
+        }
+    }
+
+    /**
+     * Incrementa a versão se ela foi lida desde o último incremento (ver {@link #versao()}).
+     */
+    private void registrarModificacao() {
+        long atual = versao.get();
+        while ((atual & 1) != 0 && !versao.compareAndSet(atual, atual + 1)) {
+            atual = versao.get();
+        }
+    }
+
+    /**
+     * Chamado com a trava do armazém sempre que sensores ou limites mudam.
+     */
+    private void alterarEstrutura() {
+        versaoEstrutura++;
+        registrarModificacao();
+    }
+
+    /**
+     * Lista de acesso aleatório que expõe um conjunto de ids como sensores, sem materializá-los.
+     */
+    private class VisaoSensores extends AbstractList<SensorLixo> implements RandomAccess {
+        private final int[] ids;
+        private int identidade = -1; // 1 se ids[i] == i para todo i, 0 se não; -1 ainda não verificado
+        private int permutacao = -1; // 1 se cada id aparece uma vez, 0 se não; -1 ainda não verificado
+
+        VisaoSensores(int[] ids) {
+            this.ids = ids;
+        }
+
+        boolean cobreEmOrdem(ArmazemSensores armazem) {
+            if (armazem != ArmazemSensores.this || ids.length != tamanho) {
+                return false;
+            }
+            if (identidade < 0) {
+                int i = 0;
+                while (i < ids.length && ids[i] == i) {
+                    i++;
+                }
+                identidade = i == ids.length ? 1 : 0;
+            }
+            return identidade == 1;
+        }
+
+        boolean cobreTodos(ArmazemSensores armazem) {
+            if (armazem != ArmazemSensores.this || ids.length != tamanho) {
+                return false;
+            }
+            if (permutacao < 0) {
+                long[] vistos = new long[(ids.length + 63) >>> 6];
+                boolean unicos = true;
+                for (int i = 0; i < ids.length && unicos; i++) {
+                    int id = ids[i];
+                    unicos = id >= 0 && id < ids.length && (vistos[id >>> 6] & 1L << id) == 0;
+                    if (unicos) {
+                        vistos[id >>> 6] |= 1L << id;
+                    }
+                }
+                permutacao = unicos ? 1 : 0;
+            }
+            return permutacao == 1;
+        }
+
+        @Override
+        public SensorLixo get(int indice) {
+            return new SensorLixoCapacidade(ArmazemSensores.this, ids[indice]);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+}
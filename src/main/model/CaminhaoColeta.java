@@ -2,7 +2,39 @@ package model;
 
 /**
  * Classe que representa um caminhão de coleta.
- * Por enquanto, é uma classe simples sem atributos.
+ * Cada caminhão tem uma capacidade de carga (na mesma unidade do nível dos sensores)
+ * e um depósito de onde sai e para onde volta ao fim da rota.
  */
 public class CaminhaoColeta {
+    private int capacidade;   // Quantidade máxima de lixo recolhida em uma rota
+    private double depositoX; // Posição do depósito do caminhão
+    private double depositoY;
+
+    /**
+     * Cria um caminhão sem limite de carga, com depósito na origem do mapa.
+     */
+    public CaminhaoColeta() {
+        this(Integer.MAX_VALUE, 0, 0);
+    }
+
+    /**
+     * Cria um caminhão com a capacidade e o depósito informados.
+     */
+    public CaminhaoColeta(int capacidade, double depositoX, double depositoY) {
+        this.capacidade = capacidade;
+        this.depositoX = depositoX;
+        this.depositoY = depositoY;
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    public double getDepositoX() {
+        return depositoX;
+    }
+
+    public double getDepositoY() {
+        return depositoY;
+    }
 }
@@ -0,0 +1,448 @@
+package model;
+
+import observer.AlteracoesPendentes;
+import observer.OuvinteNivel;
+
+import java.util.Arrays;
+
+/**
+ * Consultas agregadas sobre os níveis dos sensores de um armazém: quantos estão cheios, nível e
+ * ocupação médios e histograma de ocupação, para a cidade inteira, para um distrito ou para uma
+ * região retangular do mapa, além das lixeiras mais cheias de um distrito ou de uma região.
+ *
+ * As respostas vêm de agregados mantidos incrementalmente, e não de uma varredura de todos os
+ * sensores. A classe é um {@link OuvinteNivel}, mas o aviso só marca o sensor em um vetor de bits
+ * atômico ({@link AlteracoesPendentes}), sem travas; cada consulta aplica antes os sensores
+ * marcados desde a anterior:
+ * <ul>
+ *   <li>cidade e distritos: contadores e somas por distrito, em O(1) por alteração aplicada;</li>
+ *   <li>regiões: o mapa é dividido em uma grade de células, e cada agregado tem uma árvore de
+ *       Fenwick bidimensional sobre as células. As células inteiramente dentro da região são
+ *       somadas em O(log² células); só as células cortadas pela borda têm os seus sensores
+ *       examinados um a um;</li>
+ *   <li>mais cheias: o {@link IndicePrioridadeNivel} do armazém é percorrido do maior nível para
+ *       baixo, parando nas k primeiras lixeiras do distrito ou da região.</li>
+ * </ul>
+ * Como no índice de prioridade, os sensores marcados são aplicados com o nível atual do armazém,
+ * então avisos de threads diferentes fora de ordem não deixam os agregados errados. Sensores
+ * cadastrados depois e mudanças de limite (restaurações) também são incorporados na consulta seguinte.
+ */
+public class ConsultasNivel implements OuvinteNivel {
+    /** Faixas do histograma de ocupação: 0-10%, 10-20%, ..., 90-100% (cheias na última). */
+    public static final int FAIXAS = 10;
+    private static final int MAXIMO_CELULAS = 256; // Por lado da grade
+    private static final int SENSORES_POR_CELULA = 8;
+
+    private final ArmazemSensores armazem;
+    private final int[] distritoDe;   // null = cidade inteira como um distrito
+    private final int distritos;
+    private int tamanho;              // Sensores incorporados
+    private int estrutura;            // Versão de estrutura do armazém incorporada
+    private final AlteracoesPendentes pendentes; // Sensores alterados ainda não aplicados
+
+    // Estado já aplicado aos agregados, por sensor
+    private int[] nivel;
+    private int[] faixa;
+    private int[] celula;
+
+    // Agregados por distrito (o total da cidade é a soma, guardada à parte)
+    private int[] sensoresDistrito;
+    private int[] cheiosDistrito;
+    private long[] somaNiveisDistrito;
+    private long[] somaLimitesDistrito;
+    private int[] histogramaDistrito; // distrito * FAIXAS + faixa
+    private Resumo cidade;
+
+    // Grade de células e árvores de Fenwick 2D sobre ela
+    private int lado;
+    private double minX;
+    private double minY;
+    private double larguraCelula;
+    private double alturaCelula;
+    private int[] inicioCelula;       // Sensores de cada célula, em formato CSR
+    private int[] sensoresCelula;
+    private long[] arvoreSensores;
+    private long[] arvoreCheios;
+    private long[] arvoreNiveis;
+    private long[] arvoreLimites;
+    private long[][] arvoreFaixas;
+
+    /**
+     * Cria as consultas tratando a cidade inteira como um único distrito.
+     * As consultas precisam ser registradas como ouvinte do armazém para continuarem atualizadas
+     * (ver {@link SistemaColetaLixo#consultas()}).
+     */
+    public ConsultasNivel(ArmazemSensores armazem) {
+        this(armazem, null, 1);
+    }
+
+    /**
+     * Cria as consultas com os sensores divididos em distritos.
+     * @param distritoDe distrito de cada sensor, de 0 a {@code distritos - 1}, na ordem dos ids;
+     *                   sensores cadastrados depois ficam no distrito 0.
+     */
+    public ConsultasNivel(ArmazemSensores armazem, int[] distritoDe, int distritos) {
+        if (distritos < 1) {
+            throw new IllegalArgumentException("É preciso ao menos um distrito.");
+        }
+        this.armazem = armazem;
+        this.distritoDe = distritoDe;
+        this.distritos = distritos;
+        this.pendentes = new AlteracoesPendentes(armazem.tamanho());
+        reconstruir();
+    }
+
+    /**
+     * Marca o sensor para ser aplicado aos agregados na próxima consulta, sem tomar a trava das consultas.
+     */
+    @Override
+    public void nivelAlterado(int id, int anterior, int novo) {
+        pendentes.marcar(id);
+    }
+
+    /**
+     * Agregados da cidade inteira.
+     */
+    public synchronized Resumo resumo() {
+        atualizarEstrutura();
+        return cidade.copiar();
+    }
+
+    /**
+     * Agregados de um distrito.
+     */
+    public synchronized Resumo resumoDistrito(int distrito) {
+        atualizarEstrutura();
+        return new Resumo(sensoresDistrito[distrito], cheiosDistrito[distrito], somaNiveisDistrito[distrito],
+                somaLimitesDistrito[distrito],
+                Arrays.copyOfRange(histogramaDistrito, distrito * FAIXAS, (distrito + 1) * FAIXAS));
+    }
+
+    /**
+     * Agregados dos sensores dentro do retângulo informado (bordas incluídas).
+     */
+    public synchronized Resumo resumoRegiao(double x0, double y0, double x1, double y1) {
+        atualizarEstrutura();
+        Resumo resumo = new Resumo(0, 0, 0, 0, new int[FAIXAS]);
+        if (tamanho == 0 || x0 > x1 || y0 > y1) {
+            return resumo;
+        }
+        // Células que tocam a região e, entre elas, as que estão inteiramente dentro
+        int cx0 = coluna(x0);
+        int cx1 = coluna(x1);
+        int cy0 = linha(y0);
+        int cy1 = linha(y1);
+        int ix0 = minX + cx0 * larguraCelula >= x0 ? cx0 : cx0 + 1;
+        int ix1 = minX + (cx1 + 1) * larguraCelula <= x1 || cx1 == lado - 1 && x1 >= minX + lado * larguraCelula
+                ? cx1 : cx1 - 1;
+        int iy0 = minY + cy0 * alturaCelula >= y0 ? cy0 : cy0 + 1;
+        int iy1 = minY + (cy1 + 1) * alturaCelula <= y1 || cy1 == lado - 1 && y1 >= minY + lado * alturaCelula
+                ? cy1 : cy1 - 1;
+        if (ix0 <= ix1 && iy0 <= iy1) {
+            resumo.sensores += (int) retangulo(arvoreSensores, ix0, iy0, ix1, iy1);
+            resumo.cheios += (int) retangulo(arvoreCheios, ix0, iy0, ix1, iy1);
+            resumo.somaNiveis += retangulo(arvoreNiveis, ix0, iy0, ix1, iy1);
+            resumo.somaLimites += retangulo(arvoreLimites, ix0, iy0, ix1, iy1);
+            for (int f = 0; f < FAIXAS; f++) {
+                resumo.histograma[f] += (int) retangulo(arvoreFaixas[f], ix0, iy0, ix1, iy1);
+            }
+        }
+        // Células da borda: sensor a sensor
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                if (cx >= ix0 && cx <= ix1 && cy >= iy0 && cy <= iy1) {
+                    continue;
+                }
+                int c = cy * lado + cx;
+                for (int p = inicioCelula[c]; p < inicioCelula[c + 1]; p++) {
+                    int id = sensoresCelula[p];
+                    double x = armazem.getX(id);
+                    double y = armazem.getY(id);
+                    if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+                        resumo.incluir(nivel[id], armazem.getLimite(id), faixa[id]);
+                    }
+                }
+            }
+        }
+        return resumo;
+    }
+
+    /**
+     * Ids das lixeiras mais cheias (maior nível) do distrito, do maior para o menor nível.
+     * @return quantos ids foram gravados no destino.
+     */
+    public int maisCheiasDistrito(int distrito, int k, int[] destino) {
+        if (distritoDe == null) {
+            return armazem.indicePrioridade().topo(k, destino);
+        }
+        return armazem.indicePrioridade().topo(k, destino,
+                id -> (id < distritoDe.length ? distritoDe[id] : 0) == distrito);
+    }
+
+    /**
+     * Ids das lixeiras mais cheias dentro do retângulo informado, do maior para o menor nível.
+     * @return quantos ids foram gravados no destino.
+     */
+    public int maisCheiasRegiao(double x0, double y0, double x1, double y1, int k, int[] destino) {
+        return armazem.indicePrioridade().topo(k, destino, id -> {
+            double x = armazem.getX(id);
+            double y = armazem.getY(id);
+            return x >= x0 && x <= x1 && y >= y0 && y <= y1;
+        });
+    }
+
+    public int getDistritos() {
+        return distritos;
+    }
+
+    /**
+     * Move o sensor do estado já aplicado para o nível informado em todos os agregados.
+     */
+    private void aplicar(int id, int novoNivel) {
+        int limite = armazem.getLimite(id);
+        int antigo = nivel[id];
+        if (antigo == novoNivel) {
+            return;
+        }
+        int d = distrito(id);
+        int cx = celula[id] % lado;
+        int cy = celula[id] / lado;
+        long delta = novoNivel - antigo;
+        somaNiveisDistrito[d] += delta;
+        cidade.somaNiveis += delta;
+        somar(arvoreNiveis, cx, cy, delta);
+
+        int cheio = (novoNivel >= limite ? 1 : 0) - (antigo >= limite ? 1 : 0);
+        if (cheio != 0) {
+            cheiosDistrito[d] += cheio;
+            cidade.cheios += cheio;
+            somar(arvoreCheios, cx, cy, cheio);
+        }
+        int novaFaixa = faixa(novoNivel, limite);
+        if (novaFaixa != faixa[id]) {
+            histogramaDistrito[d * FAIXAS + faixa[id]]--;
+            histogramaDistrito[d * FAIXAS + novaFaixa]++;
+            cidade.histograma[faixa[id]]--;
+            cidade.histograma[novaFaixa]++;
+            somar(arvoreFaixas[faixa[id]], cx, cy, -1);
+            somar(arvoreFaixas[novaFaixa], cx, cy, 1);
+            faixa[id] = novaFaixa;
+        }
+        nivel[id] = novoNivel;
+    }
+
+    /**
+     * Reconstrói os agregados se o armazém mudou de estrutura; senão aplica os sensores marcados.
+     */
+    private void atualizarEstrutura() {
+        if (tamanho != armazem.tamanho() || estrutura != armazem.getVersaoEstrutura()) {
+            reconstruir();
+            return;
+        }
+        pendentes.retirar(id -> {
+            if (id < tamanho) {
+                aplicar(id, armazem.getNivel(id));
+            }
+        });
+    }
+
+    /**
+     * Recalcula todos os agregados a partir do armazém.
+     */
+    private void reconstruir() {
+        estrutura = armazem.getVersaoEstrutura();
+        int n = armazem.tamanho();
+        // As marcas antigas ficam valendo pela releitura completa abaixo
+        pendentes.redimensionar(n);
+        pendentes.retirarExcedeu();
+        tamanho = n;
+        nivel = new int[n];
+        faixa = new int[n];
+        celula = new int[n];
+        sensoresDistrito = new int[distritos];
+        cheiosDistrito = new int[distritos];
+        somaNiveisDistrito = new long[distritos];
+        somaLimitesDistrito = new long[distritos];
+        histogramaDistrito = new int[distritos * FAIXAS];
+        cidade = new Resumo(0, 0, 0, 0, new int[FAIXAS]);
+
+        // Grade sobre o retângulo que envolve os sensores, com cerca de SENSORES_POR_CELULA por célula
+        lado = (int) Math.max(1, Math.min(MAXIMO_CELULAS, Math.sqrt((double) n / SENSORES_POR_CELULA)));
+        minX = Double.MAX_VALUE;
+        minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int id = 0; id < n; id++) {
+            minX = Math.min(minX, armazem.getX(id));
+            minY = Math.min(minY, armazem.getY(id));
+            maxX = Math.max(maxX, armazem.getX(id));
+            maxY = Math.max(maxY, armazem.getY(id));
+        }
+        if (n == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        larguraCelula = Math.max(maxX - minX, 1e-9) / lado;
+        alturaCelula = Math.max(maxY - minY, 1e-9) / lado;
+        int lado1 = lado + 1;
+        arvoreSensores = new long[lado1 * lado1];
+        arvoreCheios = new long[lado1 * lado1];
+        arvoreNiveis = new long[lado1 * lado1];
+        arvoreLimites = new long[lado1 * lado1];
+        arvoreFaixas = new long[FAIXAS][lado1 * lado1];
+        inicioCelula = new int[lado * lado + 1];
+        sensoresCelula = new int[n];
+
+        // Cada sensor entra primeiro com nível zero e depois é movido para o nível atual
+        for (int id = 0; id < n; id++) {
+            int limite = armazem.getLimite(id);
+            int d = distrito(id);
+            int c = linha(armazem.getY(id)) * lado + coluna(armazem.getX(id));
+            celula[id] = c;
+            inicioCelula[c + 1]++;
+            int vazio = limite <= 0 ? 1 : 0; // Lixeira sem capacidade já está cheia
+            sensoresDistrito[d]++;
+            somaLimitesDistrito[d] += limite;
+            cheiosDistrito[d] += vazio;
+            histogramaDistrito[d * FAIXAS + faixa(0, limite)]++;
+            cidade.incluir(0, limite, faixa(0, limite));
+            int cx = c % lado;
+            int cy = c / lado;
+            somar(arvoreSensores, cx, cy, 1);
+            somar(arvoreLimites, cx, cy, limite);
+            somar(arvoreFaixas[faixa(0, limite)], cx, cy, 1);
+            if (vazio != 0) {
+                somar(arvoreCheios, cx, cy, 1);
+            }
+            faixa[id] = faixa(0, limite);
+        }
+        for (int c = 0; c < lado * lado; c++) {
+            inicioCelula[c + 1] += inicioCelula[c];
+        }
+        int[] proxima = Arrays.copyOf(inicioCelula, lado * lado);
+        for (int id = 0; id < n; id++) {
+            sensoresCelula[proxima[celula[id]]++] = id;
+        }
+        for (int id = 0; id < n; id++) {
+            aplicar(id, armazem.getNivel(id));
+        }
+    }
+
+    private int distrito(int id) {
+        return distritoDe != null && id < distritoDe.length ? distritoDe[id] : 0;
+    }
+
+    private static int faixa(int nivel, int limite) {
+        if (nivel >= limite) {
+            return FAIXAS - 1;
+        }
+        return Math.min(FAIXAS - 1, (int) ((long) Math.max(nivel, 0) * FAIXAS / limite));
+    }
+
+    private int coluna(double x) {
+        return Math.max(0, Math.min(lado - 1, (int) ((x - minX) / larguraCelula)));
+    }
+
+    private int linha(double y) {
+        return Math.max(0, Math.min(lado - 1, (int) ((y - minY) / alturaCelula)));
+    }
+
+    /**
+     * Soma o valor à célula (cx, cy) na árvore de Fenwick 2D.
+     */
+    private void somar(long[] arvore, int cx, int cy, long valor) {
+        int lado1 = lado + 1;
+        for (int i = cx + 1; i <= lado; i += i & -i) {
+            for (int j = cy + 1; j <= lado; j += j & -j) {
+                arvore[i * lado1 + j] += valor;
+            }
+        }
+    }
+
+    /**
+     * Soma das células com coluna menor que cx e linha menor que cy.
+     */
+    private long prefixo(long[] arvore, int cx, int cy) {
+        int lado1 = lado + 1;
+        long total = 0;
+        for (int i = cx; i > 0; i -= i & -i) {
+            for (int j = cy; j > 0; j -= j & -j) {
+                total += arvore[i * lado1 + j];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Soma das células das colunas cx0 a cx1 e linhas cy0 a cy1 (inclusive).
+     */
+    private long retangulo(long[] arvore, int cx0, int cy0, int cx1, int cy1) {
+        return prefixo(arvore, cx1 + 1, cy1 + 1) - prefixo(arvore, cx0, cy1 + 1)
+                - prefixo(arvore, cx1 + 1, cy0) + prefixo(arvore, cx0, cy0);
+    }
+
+    /**
+     * Resultado de uma consulta agregada.
+     */
+    public static class Resumo {
+        private int sensores;
+        private int cheios;
+        private long somaNiveis;
+        private long somaLimites;
+        private int[] histograma;
+
+        Resumo(int sensores, int cheios, long somaNiveis, long somaLimites, int[] histograma) {
+            this.sensores = sensores;
+            this.cheios = cheios;
+            this.somaNiveis = somaNiveis;
+            this.somaLimites = somaLimites;
+            this.histograma = histograma;
+        }
+
+        void incluir(int nivel, int limite, int faixa) {
+            sensores++;
+            if (nivel >= limite) {
+                cheios++;
+            }
+            somaNiveis += nivel;
+            somaLimites += limite;
+            histograma[faixa]++;
+        }
+
+        Resumo copiar() {
+            return new Resumo(sensores, cheios, somaNiveis, somaLimites, histograma.clone());
+        }
+
+        public int getSensores() {
+            return sensores;
+        }
+
+        public int getCheios() {
+            return cheios;
+        }
+
+        public long getSomaNiveis() {
+            return somaNiveis;
+        }
+
+        /**
+         * Nível médio dos sensores (0 se não houver sensores).
+         */
+        public double getNivelMedio() {
+            return sensores == 0 ? 0 : (double) somaNiveis / sensores;
+        }
+
+        /**
+         * Fração da capacidade total ocupada: soma dos níveis sobre a soma dos limites.
+         */
+        public double getOcupacaoMedia() {
+            return somaLimites == 0 ? 0 : (double) somaNiveis / somaLimites;
+        }
+
+        /**
+         * Quantidade de sensores em cada faixa de ocupação (ver {@link ConsultasNivel#FAIXAS}).
+         */
+        public int[] getHistograma() {
+            return histograma.clone();
+        }
+    }
+}
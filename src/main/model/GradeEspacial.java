@@ -0,0 +1,212 @@
+package model;
+
+/**
+ * Índice espacial em grade uniforme sobre um conjunto de pontos do mapa.
+ *
+ * O retângulo que envolve os pontos é dividido em células quadradas, com cerca de dois pontos
+ * por célula. Os pontos de cada célula ficam contíguos em um único vetor (como em uma matriz
+ * esparsa CSR), o que permite buscas por vizinhos examinando apenas os anéis de células ao
+ * redor da posição consultada, em vez de percorrer todos os pontos.
+ *
+ * A grade também permite "remover" pontos já visitados, o que é usado na construção de rotas
+ * pelo vizinho mais próximo. As consultas de k vizinhos ignoram as remoções e podem ser feitas
+ * por várias threads ao mesmo tempo, desde que nenhuma remoção ocorra em paralelo.
+ */
+public class GradeEspacial {
+    private double[] x;
+    private double[] y;
+    private double minX;
+    private double minY;
+    private double tamanhoCelula;
+    private int colunas;
+    private int linhas;
+    private int[] inicioCelula;   // Início do trecho de cada célula em pontosCelula (tamanho células + 1)
+    private int[] ativosCelula;   // Quantos pontos ainda não removidos cada célula possui
+    private int[] pontosCelula;   // Pontos agrupados por célula; os ativos ficam no começo de cada trecho
+    private int[] posicao;        // Posição de cada ponto dentro de pontosCelula
+    private int ativos;           // Total de pontos não removidos
+
+    /**
+     * Cria a grade sobre os pontos de índices 0 a n - 1 dos vetores de coordenadas.
+     */
+    public GradeEspacial(double[] x, double[] y, int n) {
+        this.x = x;
+        this.y = y;
+        this.ativos = n;
+
+        minX = Double.MAX_VALUE;
+        minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        double largura = Math.max(maxX - minX, 1e-9);
+        double altura = Math.max(maxY - minY, 1e-9);
+        tamanhoCelula = Math.max(Math.sqrt(largura * altura * 2.0 / Math.max(n, 1)), 1e-9);
+        colunas = Math.min((int) (largura / tamanhoCelula) + 1, 1 << 15);
+        linhas = Math.min((int) (altura / tamanhoCelula) + 1, 1 << 15);
+        tamanhoCelula = Math.max(largura / colunas, altura / linhas) * (1 + 1e-9);
+
+        int celulas = colunas * linhas;
+        inicioCelula = new int[celulas + 1];
+        ativosCelula = new int[celulas];
+        pontosCelula = new int[n];
+        posicao = new int[n];
+
+        int[] celulaDoPonto = new int[n];
+        for (int i = 0; i < n; i++) {
+            celulaDoPonto[i] = celula(coluna(x[i]), linha(y[i]));
+            inicioCelula[celulaDoPonto[i] + 1]++;
+        }
+        for (int c = 0; c < celulas; c++) {
+            inicioCelula[c + 1] += inicioCelula[c];
+        }
+        for (int i = 0; i < n; i++) {
+            int c = celulaDoPonto[i];
+            int p = inicioCelula[c] + ativosCelula[c]++;
+            pontosCelula[p] = i;
+            posicao[i] = p;
+        }
+    }
+
+    /**
+     * Retira o ponto das buscas por {@link #maisProximo(double, double)}.
+     */
+    public void remover(int ponto) {
+        int c = celula(coluna(x[ponto]), linha(y[ponto]));
+        int ultimo = inicioCelula[c] + ativosCelula[c] - 1;
+        int p = posicao[ponto];
+        if (p > ultimo) {
+            return; // já removido
+        }
+        int trocado = pontosCelula[ultimo];
+        pontosCelula[ultimo] = ponto;
+        pontosCelula[p] = trocado;
+        posicao[trocado] = p;
+        posicao[ponto] = ultimo;
+        ativosCelula[c]--;
+        ativos--;
+    }
+
+    /**
+     * Retorna o ponto ainda não removido mais próximo da posição informada, ou -1 se não houver.
+     */
+    public int maisProximo(double px, double py) {
+        if (ativos == 0) {
+            return -1;
+        }
+        int cx = coluna(px);
+        int cy = linha(py);
+        int melhor = -1;
+        double melhorDist = Double.MAX_VALUE;
+        int raioMaximo = Math.max(colunas, linhas);
+        for (int r = 0; r <= raioMaximo; r++) {
+            for (int gy = cy - r; gy <= cy + r; gy++) {
+                if (gy < 0 || gy >= linhas) {
+                    continue;
+                }
+                boolean borda = gy == cy - r || gy == cy + r;
+                for (int gx = cx - r; gx <= cx + r; gx += borda ? 1 : 2 * r) {
+                    if (gx >= 0 && gx < colunas) {
+                        int c = celula(gx, gy);
+                        for (int p = inicioCelula[c], fim = p + ativosCelula[c]; p < fim; p++) {
+                            int ponto = pontosCelula[p];
+                            double d = distanciaQuadrada(px, py, ponto);
+                            if (d < melhorDist) {
+                                melhorDist = d;
+                                melhor = ponto;
+                            }
+                        }
+                    }
+                    if (r == 0) {
+                        break;
+                    }
+                }
+            }
+            // Qualquer célula do próximo anel está a pelo menos r células de distância
+            double alcance = r * tamanhoCelula;
+            if (melhor >= 0 && melhorDist <= alcance * alcance) {
+                break;
+            }
+        }
+        return melhor;
+    }
+
+    /**
+     * Preenche o destino com até k vizinhos mais próximos do ponto informado (excluindo ele mesmo),
+     * do mais próximo para o mais distante, considerando também os pontos já removidos.
+     * @return quantos vizinhos foram gravados.
+     */
+    public int vizinhosMaisProximos(int ponto, int k, int[] destino) {
+        if (k <= 0) {
+            return 0;
+        }
+        double px = x[ponto];
+        double py = y[ponto];
+        double[] distancias = new double[k];
+        int encontrados = 0;
+        int cx = coluna(px);
+        int cy = linha(py);
+        int raioMaximo = Math.max(colunas, linhas);
+        for (int r = 0; r <= raioMaximo; r++) {
+            for (int gy = cy - r; gy <= cy + r; gy++) {
+                if (gy < 0 || gy >= linhas) {
+                    continue;
+                }
+                boolean borda = gy == cy - r || gy == cy + r;
+                for (int gx = cx - r; gx <= cx + r; gx += borda ? 1 : 2 * r) {
+                    if (gx >= 0 && gx < colunas) {
+                        int c = celula(gx, gy);
+                        for (int p = inicioCelula[c]; p < inicioCelula[c + 1]; p++) {
+                            int outro = pontosCelula[p];
+                            if (outro == ponto) {
+                                continue;
+                            }
+                            double d = distanciaQuadrada(px, py, outro);
+                            if (encontrados < k || d < distancias[encontrados - 1]) {
+                                int i = encontrados < k ? encontrados++ : k - 1;
+                                while (i > 0 && distancias[i - 1] > d) {
+                                    distancias[i] = distancias[i - 1];
+                                    destino[i] = destino[i - 1];
+                                    i--;
+                                }
+                                distancias[i] = d;
+                                destino[i] = outro;
+                            }
+                        }
+                    }
+                    if (r == 0) {
+                        break;
+                    }
+                }
+            }
+            double alcance = r * tamanhoCelula;
+            if (encontrados == k && distancias[k - 1] <= alcance * alcance) {
+                break;
+            }
+        }
+        return encontrados;
+    }
+
+    private double distanciaQuadrada(double px, double py, int ponto) {
+        double dx = x[ponto] - px;
+        double dy = y[ponto] - py;
+        return dx * dx + dy * dy;
+    }
+
+    private int coluna(double px) {
+        return Math.max(0, Math.min(colunas - 1, (int) ((px - minX) / tamanhoCelula)));
+    }
+
+    private int linha(double py) {
+        return Math.max(0, Math.min(linhas - 1, (int) ((py - minY) / tamanhoCelula)));
+    }
+
+    private int celula(int gx, int gy) {
+        return gy * colunas + gx;
+    }
+}
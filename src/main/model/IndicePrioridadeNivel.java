@@ -0,0 +1,195 @@
+package model;
+
+import observer.AlteracoesPendentes;
+import observer.OuvinteNivel;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Índice de prioridade dos sensores de um armazém, organizado em baldes por nível.
+ *
+ * Cada nível possui uma lista duplamente encadeada de ids, guardada em vetores primitivos
+ * (próximo, anterior, início e fim de cada balde). Como o índice é um {@link OuvinteNivel},
+ * cada alteração de nível apenas marca o sensor em um vetor de bits atômico
+ * ({@link AlteracoesPendentes}), sem travas, e a consulta seguinte move cada sensor marcado para o
+ * balde do seu nível atual em O(1). Os k sensores mais cheios são obtidos percorrendo os baldes do
+ * nível mais alto para baixo, em O(k), sem ordenar a cidade inteira a cada rota.
+ *
+ * Sensores com o mesmo nível saem em ordem crescente de id, qualquer que tenha sido a ordem em que
+ * chegaram àquele nível: o resultado depende só dos níveis, e não do histórico de consultas. Cada
+ * balde percorrido é ordenado na leitura, com custo proporcional ao tamanho dos baldes lidos.
+ */
+public class IndicePrioridadeNivel implements OuvinteNivel {
+    private static final int VAZIO = -1;
+
+    private ArmazemSensores armazem;
+    private int[] proximo;   // Próximo id no mesmo balde
+    private int[] anterior;  // Id anterior no mesmo balde
+    private int[] balde;     // Balde (nível) em que cada id está guardado
+    private int[] inicio;    // Primeiro id de cada balde
+    private int[] fim;       // Último id de cada balde
+    private int tamanho;     // Quantidade de sensores já indexados
+    private int maiorBalde = VAZIO; // Maior balde não vazio
+    private final AlteracoesPendentes pendentes;
+    private int capacidadePendentes; // Ids aceitos pelo vetor de pendentes
+    private int[] rascunho = new int[16]; // Ids do balde sendo lido, para ordená-los
+
+    /**
+     * Cria o índice com todos os sensores já cadastrados no armazém.
+     * O índice precisa ser registrado como ouvinte do armazém para continuar atualizado
+     * (ver {@link ArmazemSensores#indicePrioridade()}).
+     */
+    public IndicePrioridadeNivel(ArmazemSensores armazem) {
+        this.armazem = armazem;
+        int capacidade = Math.max(armazem.tamanho(), 1);
+        this.proximo = new int[capacidade];
+        this.anterior = new int[capacidade];
+        this.balde = new int[capacidade];
+        this.inicio = new int[1];
+        this.fim = new int[1];
+        Arrays.fill(inicio, VAZIO);
+        Arrays.fill(fim, VAZIO);
+        this.capacidadePendentes = capacidade;
+        this.pendentes = new AlteracoesPendentes(capacidade);
+        sincronizar();
+    }
+
+    /**
+     * Marca o sensor para ser reposicionado na próxima consulta.
+     *
+     * Não toma a trava do índice: as threads que alteram níveis não disputam entre si nem com quem
+     * consulta. Várias alterações do mesmo sensor entre duas consultas custam um único reposicionamento.
+     */
+    @Override
+    public void nivelAlterado(int id, int anterior, int novo) {
+        pendentes.marcar(id);
+    }
+
+    /**
+     * Preenche o vetor de destino com os ids dos sensores mais cheios, do maior para o menor nível.
+     *
+     * @param k       quantidade máxima de ids desejada.
+     * @param destino vetor com pelo menos k posições.
+     * @return quantos ids foram efetivamente gravados (menos de k se o armazém tiver menos sensores).
+     */
+    public synchronized int topo(int k, int[] destino) {
+        return topo(k, destino, null);
+    }
+
+    /**
+     * Como {@link #topo(int, int[])}, mas considerando apenas os sensores aceitos pelo filtro
+     * (por exemplo, os de uma região). O custo é proporcional aos sensores percorridos até
+     * encontrar os k aceitos.
+     */
+    public synchronized int topo(int k, int[] destino, IntPredicate filtro) {
+        sincronizar();
+        int gravados = 0;
+        for (int b = maiorBalde; b >= 0 && gravados < k; b--) {
+            int quantidade = 0;
+            for (int id = inicio[b]; id != VAZIO; id = proximo[id]) {
+                if (filtro == null || filtro.test(id)) {
+                    if (quantidade == rascunho.length) {
+                        rascunho = Arrays.copyOf(rascunho, quantidade * 2);
+                    }
+                    rascunho[quantidade++] = id;
+                }
+            }
+            Arrays.sort(rascunho, 0, quantidade);
+            int copiados = Math.min(quantidade, k - gravados);
+            System.arraycopy(rascunho, 0, destino, gravados, copiados);
+            gravados += copiados;
+        }
+        return gravados;
+    }
+
+    /**
+     * Indexa os sensores cadastrados no armazém depois da última sincronização e move os sensores
+     * marcados para o balde do seu nível atual.
+     *
+     * O nível é relido do armazém em vez de usar o valor avisado: se duas threads alterarem o
+     * mesmo sensor, o índice fica com o último valor gravado, seja qual for a ordem dos avisos.
+     */
+    private void sincronizar() {
+        int total = armazem.tamanho();
+        if (total > proximo.length) {
+            int novaCapacidade = Math.max(total, proximo.length + (proximo.length >> 1));
+            proximo = Arrays.copyOf(proximo, novaCapacidade);
+            anterior = Arrays.copyOf(anterior, novaCapacidade);
+            balde = Arrays.copyOf(balde, novaCapacidade);
+        }
+        if (total > capacidadePendentes) {
+            // Marcas feitas durante a troca do vetor podem se perder: relê todos os já indexados
+            capacidadePendentes = proximo.length;
+            pendentes.redimensionar(capacidadePendentes);
+            pendentes.retirarExcedeu();
+            for (int id = 0; id < tamanho; id++) {
+                reposicionar(id);
+            }
+        }
+        for (; tamanho < total; tamanho++) {
+            inserir(tamanho, Math.max(armazem.getNivel(tamanho), 0));
+        }
+        pendentes.retirar(this::reposicionar);
+    }
+
+    /**
+     * Move o sensor para o balde do seu nível atual, se ele já estiver indexado.
+     */
+    private void reposicionar(int id) {
+        if (id >= tamanho) {
+            return; // Indexado com o nível atual na próxima sincronização
+        }
+        int destino = Math.max(armazem.getNivel(id), 0);
+        if (balde[id] != destino) {
+            remover(id);
+            inserir(id, destino);
+        }
+    }
+
+    /**
+     * Insere o id no fim do balde informado, criando baldes se o nível for maior que os conhecidos.
+     */
+    private void inserir(int id, int b) {
+        if (b >= inicio.length) {
+            int anteriorTamanho = inicio.length;
+            int novoTamanho = Math.max(b + 1, anteriorTamanho * 2);
+            inicio = Arrays.copyOf(inicio, novoTamanho);
+            fim = Arrays.copyOf(fim, novoTamanho);
+            Arrays.fill(inicio, anteriorTamanho, novoTamanho, VAZIO);
+            Arrays.fill(fim, anteriorTamanho, novoTamanho, VAZIO);
+        }
+        balde[id] = b;
+        proximo[id] = VAZIO;
+        anterior[id] = fim[b];
+        if (fim[b] == VAZIO) {
+            inicio[b] = id;
+        } else {
+            proximo[fim[b]] = id;
+        }
+        fim[b] = id;
+        if (b > maiorBalde) {
+            maiorBalde = b;
+        }
+    }
+
+    /**
+     * Retira o id do balde em que está, atualizando o maior balde não vazio se necessário.
+     */
+    private void remover(int id) {
+        int b = balde[id];
+        if (anterior[id] == VAZIO) {
+            inicio[b] = proximo[id];
+        } else {
+            proximo[anterior[id]] = proximo[id];
+        }
+        if (proximo[id] == VAZIO) {
+            fim[b] = anterior[id];
+        } else {
+            anterior[proximo[id]] = anterior[id];
+        }
+        while (maiorBalde >= 0 && inicio[maiorBalde] == VAZIO) {
+            maiorBalde--;
+        }
+    }
+}
@@ -15,6 +15,14 @@ public class Rota {
         this.pontos = pontos;
     }
 
+    /**
+     * Cria uma rota a partir dos ids dos sensores de um armazém, na ordem de visita.
+     * Os sensores são expostos como uma visão ordenada e só são criados quando acessados.
+     */
+    public Rota(ArmazemSensores armazem, int[] ids) {
+        this.pontos = armazem.listar(ids);
+    }
+
     public List<SensorLixo> getPontos() {
         return pontos;
     }
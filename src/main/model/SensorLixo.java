@@ -4,10 +4,14 @@ import observer.Observador;
 
 /**
  * Interface que representa um sensor de lixo.
- * Fornece métodos para consultar o nível, registrar observadores e notificar eventos.
+ * Fornece métodos para consultar o nível e a posição, registrar observadores e notificar eventos.
  */
 public interface SensorLixo {
+    int getId();
     int getNivel();
+    int getLimite();
+    double getX();
+    double getY();
     void registrarObservador(Observador o);
     void notificar();
 }
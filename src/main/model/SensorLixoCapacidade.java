@@ -2,27 +2,63 @@ package model;
 
 import observer.Observador;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Implementação concreta de SensorLixo com capacidade limitada.
  * Quando o nível atinge o limite, observadores são notificados.
+ *
+ * O sensor é apenas uma visão leve (armazém + id) sobre os vetores de {@link ArmazemSensores}:
+ * nível, limite e observadores ficam guardados no armazém, e não no objeto.
  */
 public class SensorLixoCapacidade implements SensorLixo {
-    private int nivel;
-    private int limite;
-    private List<Observador> observadores;
+    private final ArmazemSensores armazem;
+    private final int id;
 
+    /**
+     * Cria um sensor isolado, com um armazém próprio de uma única posição.
+     */
     public SensorLixoCapacidade(int limite) {
-        this.limite = limite;
-        this.nivel = 0;
-        this.observadores = new ArrayList<>();
+        this.armazem = new ArmazemSensores(1);
+        this.id = armazem.adicionar(limite);
+    }
+
+    /**
+     * Cria a visão do sensor com o id informado dentro de um armazém existente.
+     */
+    SensorLixoCapacidade(ArmazemSensores armazem, int id) {
+        this.armazem = armazem;
+        this.id = id;
+    }
+
+    @Override
+    public int getId() {
+        return id;
     }
 
     @Override
     public int getNivel() {
-        return nivel;
+        return armazem.getNivel(id);
+    }
+
+    @Override
+    public int getLimite() {
+        return armazem.getLimite(id);
+    }
+
+    @Override
+    public double getX() {
+        return armazem.getX(id);
+    }
+
+    @Override
+    public double getY() {
+        return armazem.getY(id);
+    }
+
+    /**
+     * Retorna o armazém que guarda os dados deste sensor.
+     */
+    public ArmazemSensores getArmazem() {
+        return armazem;
     }
 
     /**
@@ -30,31 +66,43 @@ public class SensorLixoCapacidade implements SensorLixo {
      * Se o nível ultrapassar o limite, dispara notificação.
      */
     public void simularAumento(int quantidade) {
-        if (nivel < limite) {
-            this.nivel += quantidade;
-            if (this.nivel >= limite) {
-                this.nivel = limite;
-                notificar();
-            }
-        }
+        armazem.aumentar(id, quantidade);
     }
 
     @Override
     public void registrarObservador(Observador o) {
-        observadores.add(o);
+        armazem.registrarObservador(id, o);
     }
 
     @Override
     public void notificar() {
-        for (Observador o : observadores) {
-            o.atualizar(this);
-        }
+        armazem.notificar(id);
     }
 
     /**
      * Permite redefinir o nível do sensor (usado na restauração de estado).
      */
     public void setNivel(int nivel) {
-        this.nivel = nivel;
+        armazem.setNivel(id, nivel);
+    }
+
+    /**
+     * Duas visões são iguais quando apontam para o mesmo sensor do mesmo armazém.
+     */
+    @Override
+    public boolean equals(Object outro) {
+        if (this == outro) {
+            return true;
+        }
+        if (!(outro instanceof SensorLixoCapacidade)) {
+            return false;
+        }
+        SensorLixoCapacidade s = (SensorLixoCapacidade) outro;
+        return armazem == s.armazem && id == s.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(armazem) + id;
     }
 }
@@ -3,9 +3,15 @@
 // =====================
 package model;
 
-import observer.Observador;
+import observer.BarramentoEventos;
+import observer.ObservadorLote;
+import strategy.CacheRotas;
 import strategy.EstrategiaColeta;
+import strategy.PlanejadorFrota;
 import memento.*;
+import metricas.MetricasColeta;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -13,27 +19,75 @@ import java.util.*;
  * Atua como ponto central de controle entre sensores, caminhões e a estratégia de coleta.
  * Também implementa o padrão Observer para reagir a sensores cheios e utiliza Memento para salvar e restaurar estados.
  */
-public class SistemaColetaLixo implements Observador {
+public class SistemaColetaLixo implements ObservadorLote, AutoCloseable {
+    private static final int CAPACIDADE_CACHE_ROTAS = 8;
+
     private List<SensorLixo> sensores; // Lista dos sensores de lixo na cidade
     private List<CaminhaoColeta> caminhoes; // Lista de caminhões de coleta
     private EstrategiaColeta estrategia; // Estratégia atual utilizada para definir a rota
     private SimulacaoCaretaker caretaker = new SimulacaoCaretaker(); // Responsável por armazenar os estados anteriores
-    private int proximoIdSensor = 0; // Usado para gerar IDs únicos para os sensores
-    private Map<SensorLixo, Integer> idsSensores = new HashMap<>(); // Mapeia sensores para seus respectivos IDs
+    private ArmazemSensores armazem; // Vetores primitivos com os dados de todos os sensores
+    private int[] ordemSensores; // Ids dos sensores na ordem da lista atual
+    private int[] rascunhoNiveis; // Vetor reutilizado para copiar os níveis a cada salvamento
+    private DiarioEventos diario; // Diário opcional com todas as alterações de nível
+    private BarramentoEventos barramento; // Barramento que entrega as notificações, se conectado
+    private boolean mensagens = true; // Se as mensagens de acompanhamento são impressas no console
+    private MetricasColeta metricas = new MetricasColeta(() -> armazem.contarCheios(), () -> caretaker.tamanhoEmBytes());
+    private CacheRotas cacheRotas; // Rotas já geradas, reaproveitadas enquanto os sensores não mudarem; criado sob demanda
+    private ConsultasNivel consultas; // Agregados de nível por distrito e região, criados sob demanda
 
     /**
      * Construtor principal que inicializa o sistema com os sensores, caminhões e estratégia inicial.
      * Também registra o sistema como observador dos sensores.
+     *
+     * Todos os sensores devem pertencer ao mesmo {@link ArmazemSensores} (por exemplo, criados pela
+     * mesma fábrica), pois o sistema trabalha diretamente sobre os vetores do armazém.
      */
     public SistemaColetaLixo(List<SensorLixo> sensores, List<CaminhaoColeta> caminhoes, EstrategiaColeta estrategia) {
+        this.armazem = resolverArmazem(sensores);
         this.sensores = sensores;
         this.caminhoes = caminhoes;
         this.estrategia = estrategia;
+        this.ordemSensores = new int[sensores.size()];
+        for (int i = 0; i < ordemSensores.length; i++) {
+            ordemSensores[i] = sensores.get(i).getId();
+        }
+        armazem.registrarObservador(this);
+    }
 
+    /**
+     * Cria o sistema sobre todos os sensores de um armazém, na ordem dos ids.
+     * É o caminho indicado para cidades grandes, pois nenhuma lista de objetos é montada.
+     */
+    public SistemaColetaLixo(ArmazemSensores armazem, List<CaminhaoColeta> caminhoes, EstrategiaColeta estrategia) {
+        this.armazem = armazem;
+        this.caminhoes = caminhoes;
+        this.estrategia = estrategia;
+        this.ordemSensores = new int[armazem.tamanho()];
+        for (int i = 0; i < ordemSensores.length; i++) {
+            ordemSensores[i] = i;
+        }
+        this.sensores = armazem.listar(ordemSensores);
+        armazem.registrarObservador(this);
+    }
+
+    /**
+     * Descobre o armazém compartilhado pelos sensores informados.
+     */
+    private static ArmazemSensores resolverArmazem(List<SensorLixo> sensores) {
+        ArmazemSensores encontrado = null;
         for (SensorLixo sensor : sensores) {
-            sensor.registrarObservador(this);
-            idsSensores.put(sensor, proximoIdSensor++);
+            if (!(sensor instanceof SensorLixoCapacidade)) {
+                throw new IllegalArgumentException("Sensor sem armazém associado: " + sensor);
+            }
+            ArmazemSensores atual = ((SensorLixoCapacidade) sensor).getArmazem();
+            if (encontrado == null) {
+                encontrado = atual;
+            } else if (encontrado != atual) {
+                throw new IllegalArgumentException("Os sensores devem pertencer ao mesmo armazém.");
+            }
         }
+        return encontrado != null ? encontrado : new ArmazemSensores();
     }
 
     /**
@@ -42,7 +96,34 @@ public class SistemaColetaLixo implements Observador {
      */
     @Override
     public void atualizar(SensorLixo sensor) {
-        System.out.println("Sensor atingiu o limite: " + sensor.getNivel());
+        metricas.registrarNotificacoes(1);
+        mensagem("Sensor atingiu o limite: " + sensor.getNivel());
+    }
+
+    /**
+     * Recebe de uma vez as notificações acumuladas pelo barramento de eventos,
+     * registrando uma única linha por lote em vez de uma por sensor.
+     */
+    @Override
+    public void atualizarLote(List<SensorLixo> sensoresCheios) {
+        if (sensoresCheios.size() == 1) {
+            atualizar(sensoresCheios.get(0));
+            return;
+        }
+        metricas.registrarNotificacoes(sensoresCheios.size());
+        mensagem(sensoresCheios.size() + " sensores atingiram o limite.");
+    }
+
+    /**
+     * Passa a receber as notificações dos sensores através do barramento informado,
+     * de forma assíncrona e em lotes, em vez de diretamente na thread que alterou o nível.
+     */
+    public void conectarBarramento(BarramentoEventos barramento) {
+        armazem.removerObservador(this);
+        barramento.registrar(this);
+        armazem.registrarObservador(barramento);
+        metricas.observarBarramento(barramento);
+        this.barramento = barramento;
     }
 
     /**
@@ -50,14 +131,14 @@ public class SistemaColetaLixo implements Observador {
      * Isso permite restaurar o sistema ao mesmo estado posteriormente (padrão Memento).
      */
     public void salvarEstado() {
-        Map<Integer, Integer> estadoAtual = new HashMap<>();
-        for (SensorLixo sensor : sensores) {
-            int id = idsSensores.get(sensor);
-            estadoAtual.put(id, sensor.getNivel());
+        long inicio = System.nanoTime();
+        if (rascunhoNiveis == null || rascunhoNiveis.length != armazem.tamanho()) {
+            rascunhoNiveis = new int[armazem.tamanho()];
         }
-        SimulacaoMemento memento = new SimulacaoMemento(estadoAtual, sensores);
-        caretaker.salvarEstado(memento);
-        System.out.println("Estado salvo.");
+        armazem.copiarNiveis(rascunhoNiveis);
+        caretaker.salvarEstado(rascunhoNiveis, ordemSensores);
+        metricas.getSalvarEstado().registrarDesde(inicio);
+        mensagem("Estado salvo.");
     }
 
     /**
@@ -65,23 +146,67 @@ public class SistemaColetaLixo implements Observador {
      * e restaurando a ordem original dos sensores.
      */
     public void restaurarEstado() {
+        long inicio = System.nanoTime();
         SimulacaoMemento memento = caretaker.desfazer();
         if (memento == null) {
-            System.out.println("Nenhum estado anterior disponível.");
+            mensagem("Nenhum estado anterior disponível.");
             return;
         }
 
-        Map<Integer, Integer> estadoAnterior = memento.getEstadoSensores();
-        List<SensorLixo> ordemAnterior = memento.getOrdemSensores();
+        armazem.restaurarNiveis(memento.getNiveis());
+        if (memento.getOrdemSensores() != ordemSensores) {
+            this.ordemSensores = memento.getOrdemSensores();
+            this.sensores = armazem.listar(ordemSensores);
+        }
+        metricas.getRestaurarEstado().registrarDesde(inicio);
+        mensagem("Estado restaurado.");
+    }
 
-        for (SensorLixo sensor : ordemAnterior) {
-            int id = idsSensores.get(sensor);
-            if (sensor instanceof SensorLixoCapacidade && estadoAnterior.containsKey(id)) {
-                ((SensorLixoCapacidade) sensor).setNivel(estadoAnterior.get(id));
-            }
+    /**
+     * Grava um checkpoint com o nível e o limite de cada sensor no arquivo informado
+     * (ver {@link ArquivoCheckpoint}). Diferente do histórico em memória, o checkpoint sobrevive
+     * ao reinício da aplicação.
+     */
+    public void salvarEstado(Path arquivo) throws IOException {
+        ArquivoCheckpoint.gravar(armazem, arquivo);
+        mensagem("Estado salvo em " + arquivo + ".");
+    }
+
+    /**
+     * Restaura os níveis e limites dos sensores a partir de um checkpoint gravado por
+     * {@link #salvarEstado(Path)}. O histórico em memória não é alterado.
+     */
+    public void restaurarEstado(Path arquivo) throws IOException {
+        ArquivoCheckpoint.restaurar(armazem, arquivo);
+        mensagem("Estado restaurado de " + arquivo + ".");
+    }
+
+    /**
+     * Associa ao sistema um diário de eventos sobre o mesmo armazém, habilitando {@link #restaurarAteTick(long)}.
+     */
+    public void conectarDiario(DiarioEventos diario) {
+        this.diario = diario;
+    }
+
+    /**
+     * Volta os níveis dos sensores ao fim do tick informado usando o diário de eventos.
+     * Diferente de {@link #restaurarEstado()}, nenhum estado é descartado: a restauração
+     * também fica registrada no diário.
+     */
+    public void restaurarAteTick(long tick) throws IOException {
+        if (diario == null) {
+            throw new IllegalStateException("Nenhum diário de eventos conectado.");
         }
-        this.sensores = new ArrayList<>(ordemAnterior);
-        System.out.println("Estado restaurado.");
+        diario.restaurarAteTick(tick);
+        mensagem("Estado restaurado até o tick " + tick + ".");
+    }
+
+    /**
+     * Substitui o histórico de estados por um novo, limitado à capacidade informada
+     * e gravando um estado completo a cada intervalo de salvamentos. Estados já salvos são descartados.
+     */
+    public void configurarHistorico(int capacidade, int intervaloQuadroChave) {
+        this.caretaker = new SimulacaoCaretaker(capacidade, intervaloQuadroChave);
     }
 
     /**
@@ -91,6 +216,20 @@ public class SistemaColetaLixo implements Observador {
         return sensores;
     }
 
+    /**
+     * Getter para a frota de caminhões do sistema.
+     */
+    public List<CaminhaoColeta> getCaminhoes() {
+        return caminhoes;
+    }
+
+    /**
+     * Getter para o armazém com os dados primitivos dos sensores.
+     */
+    public ArmazemSensores getArmazem() {
+        return armazem;
+    }
+
     /**
      * Getter para a estratégia atual de coleta de lixo.
      */
@@ -106,16 +245,138 @@ public class SistemaColetaLixo implements Observador {
     }
 
     /**
-     * Executa a coleta de lixo conforme a rota gerada pela estratégia atual.
-     * Os sensores são esvaziados na ordem definida pela rota.
+     * Divide os sensores entre os caminhões da frota, respeitando a capacidade de cada um,
+     * e gera em paralelo a rota de cada caminhão com a estratégia atual. Sensores vazios ficam fora
+     * das rotas, e os que não couberam na frota são descartados; ver {@link #planejarFrota(Collection)}.
+     */
+    public Map<CaminhaoColeta, Rota> planejarFrota() {
+        return planejarFrota(new ArrayList<>());
+    }
+
+    /**
+     * Como {@link #planejarFrota()}, acrescentando a {@code naoAtendidos} os sensores que excederam
+     * a capacidade da frota neste planejamento.
+     */
+    public Map<CaminhaoColeta, Rota> planejarFrota(Collection<SensorLixo> naoAtendidos) {
+        EstrategiaColeta atual = estrategia;
+        PlanejadorFrota planejador = new PlanejadorFrota(grupo -> medirRota(atual, grupo));
+        Map<CaminhaoColeta, Rota> rotas = planejador.planejar(sensores, caminhoes);
+        naoAtendidos.addAll(planejador.getNaoAtendidos());
+        return rotas;
+    }
+
+    /**
+     * Gera a rota com todos os sensores usando a estratégia atual.
+     * Se nenhum sensor mudou desde a última rota da mesma estratégia, a rota anterior é
+     * reaproveitada (ver {@link CacheRotas}).
+     */
+    public Rota gerarRota() {
+        long inicio = System.nanoTime();
+        Rota rota = getCacheRotas().obter(estrategia, sensores);
+        metricas.getGerarRota().registrarDesde(inicio);
+        return rota;
+    }
+
+    /**
+     * Cache das rotas geradas por {@link #gerarRota()}, com as estatísticas de acertos e erros.
+     * Criado e registrado como ouvinte do armazém na primeira chamada.
+     */
+    public synchronized CacheRotas getCacheRotas() {
+        if (cacheRotas == null) {
+            cacheRotas = new CacheRotas(armazem, CAPACIDADE_CACHE_ROTAS);
+        }
+        return cacheRotas;
+    }
+
+    /**
+     * Liga ou desliga as mensagens de acompanhamento no console (ligadas por padrão).
+     * Útil ao rodar muitas simulações em lote, em que imprimir cada evento dominaria o tempo.
+     */
+    public void setMensagens(boolean mensagens) {
+        this.mensagens = mensagens;
+    }
+
+    /**
+     * Métricas de latência, notificações, fila e memória do sistema.
+     */
+    public MetricasColeta getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Consultas agregadas sobre os níveis (cheias, nível médio, histograma, mais cheias), com a
+     * cidade inteira como um único distrito. Criadas e registradas como ouvinte na primeira chamada.
+     */
+    public synchronized ConsultasNivel consultas() {
+        if (consultas == null) {
+            consultas(null, 1);
+        }
+        return consultas;
+    }
+
+    /**
+     * Substitui as consultas agregadas por outras com os sensores divididos em distritos.
+     * @param distritoDe distrito de cada sensor, na ordem dos ids do armazém.
+     */
+    public synchronized ConsultasNivel consultas(int[] distritoDe, int distritos) {
+        if (consultas != null) {
+            armazem.removerOuvinte(consultas);
+        }
+        consultas = new ConsultasNivel(armazem, distritoDe, distritos);
+        armazem.registrarOuvinte(consultas);
+        return consultas;
+    }
+
+    private Rota medirRota(EstrategiaColeta estrategia, List<SensorLixo> grupo) {
+        long inicio = System.nanoTime();
+        Rota rota = estrategia.gerarRota(grupo);
+        metricas.getGerarRota().registrarDesde(inicio);
+        return rota;
+    }
+
+    /**
+     * Executa a coleta de lixo conforme as rotas geradas pela estratégia atual.
+     * Com frota cadastrada, cada caminhão esvazia os sensores da sua rota; sem frota,
+     * uma única rota com todos os sensores é usada.
      */
     public void coletarLixo() {
-        Rota rota = estrategia.gerarRota(sensores);
-        for (SensorLixo sensor : rota.getPontos()) {
-            if (sensor instanceof SensorLixoCapacidade) {
-                ((SensorLixoCapacidade) sensor).setNivel(0);
+        long inicio = System.nanoTime();
+        Collection<Rota> rotas = caminhoes.isEmpty()
+                ? Collections.singletonList(gerarRota())
+                : planejarFrota().values();
+        for (Rota rota : rotas) {
+            for (SensorLixo sensor : rota.getPontos()) {
+                armazem.esvaziar(sensor.getId());
             }
         }
-        System.out.println("Coleta realizada conforme a rota.");
+        metricas.getColetarLixo().registrarDesde(inicio);
+        mensagem("Coleta realizada conforme a rota.");
+    }
+
+    /**
+     * Deixa de acompanhar o armazém: remove o sistema (ou o barramento conectado), o cache de rotas
+     * e as consultas agregadas dos observadores e ouvintes dele. Necessário quando o armazém continua em uso depois do
+     * sistema, para que as alterações de nível não sigam passando por objetos descartados.
+     */
+    @Override
+    public synchronized void close() {
+        armazem.removerObservador(this);
+        if (barramento != null) {
+            armazem.removerObservador(barramento);
+        }
+        if (cacheRotas != null) {
+            cacheRotas.close();
+            cacheRotas = null;
+        }
+        if (consultas != null) {
+            armazem.removerOuvinte(consultas);
+            consultas = null;
+        }
+    }
+
+    private void mensagem(String texto) {
+        if (mensagens) {
+            System.out.println(texto);
+        }
     }
 }
@@ -0,0 +1,121 @@
+package observer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto de ids alterados desde a última retirada, em um vetor de bits atômico.
+ *
+ * Marcar custa uma leitura (e, na primeira marca do sensor, uma troca atômica), sem travas nem
+ * alocação, então a thread que altera o nível nunca espera por quem consome as alterações. Várias
+ * alterações do mesmo sensor entre duas retiradas ocupam um único bit. Ids além da capacidade não
+ * são perdidos: ficam sinalizados para que o consumidor se ressincronize por inteiro.
+ *
+ * Quem marca deve gravar o novo valor antes de marcar; quem retira deve ler o valor depois de
+ * retirar. Assim uma alteração nunca se perde: ou o consumidor já vê o novo valor, ou o bit
+ * continua marcado para a próxima retirada.
+ */
+public final class AlteracoesPendentes {
+    private volatile AtomicLongArray bits;
+    private volatile boolean marcado;
+    private volatile boolean excedeu;
+
+    public AlteracoesPendentes(int capacidade) {
+        this.bits = new AtomicLongArray(Math.max(1, (capacidade + 63) >>> 6));
+    }
+
+    public void marcar(int id) {
+        AtomicLongArray atual = bits;
+        int palavra = id >>> 6;
+        if (palavra >= atual.length()) {
+            excedeu = true;
+            marcado = true;
+            return;
+        }
+        long mascara = 1L << id;
+        long valor;
+        while (((valor = atual.get(palavra)) & mascara) == 0) {
+            if (atual.compareAndSet(palavra, valor, valor | mascara)) {
+                marcado = true;
+                return;
+            }
+            // Outra thread marcou um sensor vizinho: tenta de novo
+        }
+    }
+
+    /**
+     * Indica se pode haver ids marcados. Um falso é definitivo no momento da leitura; um verdadeiro
+     * pode vir de marcas já retiradas.
+     */
+    public boolean possuiMarcas() {
+        return marcado;
+    }
+
+    /**
+     * Retira os ids marcados, em ordem crescente, deixando o conjunto vazio.
+     */
+    public int[] retirar() {
+        if (!marcado) {
+            return new int[0];
+        }
+        marcado = false;
+        int[] ids = new int[64];
+        int quantidade = 0;
+        AtomicLongArray atual = bits;
+        for (int palavra = 0; palavra < atual.length(); palavra++) {
+            if (atual.get(palavra) == 0) {
+                continue;
+            }
+            long valor = atual.getAndSet(palavra, 0);
+            while (valor != 0) {
+                if (quantidade == ids.length) {
+                    ids = Arrays.copyOf(ids, quantidade * 2);
+                }
+                ids[quantidade++] = (palavra << 6) + Long.numberOfTrailingZeros(valor);
+                valor &= valor - 1;
+            }
+        }
+        return Arrays.copyOf(ids, quantidade);
+    }
+
+    /**
+     * Retira os ids marcados, entregando cada um à ação em ordem crescente, sem alocar.
+     * Se nada foi marcado desde a última retirada, retorna sem percorrer o vetor.
+     */
+    public void retirar(IntConsumer acao) {
+        if (!marcado) {
+            return;
+        }
+        // Limpa o sinal antes de percorrer: uma marca feita durante a varredura o religa
+        marcado = false;
+        AtomicLongArray atual = bits;
+        for (int palavra = 0; palavra < atual.length(); palavra++) {
+            if (atual.get(palavra) == 0) {
+                continue;
+            }
+            long valor = atual.getAndSet(palavra, 0);
+            while (valor != 0) {
+                acao.accept((palavra << 6) + Long.numberOfTrailingZeros(valor));
+                valor &= valor - 1;
+            }
+        }
+    }
+
+    /**
+     * Indica (e limpa) se algum id além da capacidade foi marcado desde a última chamada.
+     */
+    public boolean retirarExcedeu() {
+        boolean resultado = excedeu;
+        excedeu = false;
+        return resultado;
+    }
+
+    /**
+     * Passa a aceitar ids até a nova capacidade, descartando as marcas atuais (o chamador se
+     * ressincroniza por inteiro).
+     */
+    public void redimensionar(int capacidade) {
+        bits = new AtomicLongArray(Math.max(1, (capacidade + 63) >>> 6));
+    }
+}
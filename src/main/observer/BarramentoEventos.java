@@ -0,0 +1,212 @@
+package observer;
+
+import model.SensorLixo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Barramento assíncrono de notificações de lixeira cheia.
+ *
+ * Para os sensores, o barramento é apenas mais um {@link Observador}: em vez de executar os
+ * observadores finais na thread que alterou o nível, ele enfileira a notificação em uma fila
+ * sem bloqueio (vários produtores) e retorna imediatamente. Threads consumidoras dedicadas
+ * esvaziam a fila em lotes e entregam cada lote aos observadores registrados no barramento
+ * ({@link ObservadorLote#atualizarLote(List)} quando disponível).
+ *
+ * Recursos adicionais:
+ * - Agrupamento: um sensor que já está na fila não é enfileirado de novo.
+ * - Contrapressão: se a fila atingir a capacidade, a notificação é entregue diretamente na
+ *   thread produtora, desacelerando quem produz em vez de descartar alertas ou estourar a memória.
+ * - Estatísticas: publicados, entregues, agrupados, entregas diretas, lotes e profundidade da fila.
+ *
+ * Consumidores sem trabalho dormem até um produtor enfileirar uma notificação e acordar um deles,
+ * sem varredura periódica da fila.
+ *
+ * Com mais de um consumidor, lotes diferentes podem ser entregues ao mesmo tempo; os
+ * observadores registrados devem ser seguros para uso concorrente.
+ */
+public class BarramentoEventos implements Observador {
+    private final ConcurrentLinkedQueue<SensorLixo> fila = new ConcurrentLinkedQueue<>();
+    private final Set<SensorLixo> pendentes = ConcurrentHashMap.newKeySet(); // Sensores já enfileirados
+    private final List<Observador> destinos = new CopyOnWriteArrayList<>();
+    private final AtomicInteger profundidade = new AtomicInteger();
+    private final int capacidade;      // Profundidade a partir da qual a entrega passa a ser direta
+    private final int tamanhoLote;     // Máximo de notificações entregues de uma vez
+    private final boolean agrupar;     // Se notificações repetidas do mesmo sensor são agrupadas
+    private final List<Thread> consumidores = new ArrayList<>();
+    private final ConcurrentLinkedQueue<Thread> dormindo = new ConcurrentLinkedQueue<>(); // Consumidores à espera
+    private volatile boolean ativo = true;
+
+    private final LongAdder publicados = new LongAdder();
+    private final LongAdder entregues = new LongAdder();
+    private final LongAdder agrupados = new LongAdder();
+    private final LongAdder entregasDiretas = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final AtomicInteger profundidadeMaxima = new AtomicInteger();
+
+    /**
+     * Cria o barramento já iniciando as threads consumidoras.
+     * @param consumidores quantidade de threads que entregam os lotes.
+     * @param capacidade profundidade máxima da fila antes de aplicar contrapressão.
+     * @param tamanhoLote máximo de notificações entregues por lote.
+     * @param agrupar se notificações de um sensor que ainda está na fila devem ser agrupadas.
+     */
+    public BarramentoEventos(int consumidores, int capacidade, int tamanhoLote, boolean agrupar) {
+        if (consumidores < 1 || capacidade < 1 || tamanhoLote < 1) {
+            throw new IllegalArgumentException("Consumidores, capacidade e lote devem ser positivos.");
+        }
+        this.capacidade = capacidade;
+        this.tamanhoLote = tamanhoLote;
+        this.agrupar = agrupar;
+        for (int i = 0; i < consumidores; i++) {
+            Thread t = new Thread(this::consumir, "barramento-eventos-" + i);
+            t.setDaemon(true);
+            this.consumidores.add(t);
+            t.start();
+        }
+    }
+
+    /**
+     * Registra um observador que receberá as notificações entregues pelo barramento.
+     */
+    public void registrar(Observador destino) {
+        destinos.add(destino);
+    }
+
+    /**
+     * Recebe a notificação de um sensor e a enfileira para entrega assíncrona.
+     */
+    @Override
+    public void atualizar(SensorLixo sensor) {
+        publicados.increment();
+        if (agrupar && !pendentes.add(sensor)) {
+            agrupados.increment();
+            return;
+        }
+        int atual = profundidade.incrementAndGet();
+        if (atual > capacidade) {
+            profundidade.decrementAndGet();
+            if (agrupar) {
+                pendentes.remove(sensor);
+            }
+            entregasDiretas.increment();
+            entregar(Collections.singletonList(sensor));
+            return;
+        }
+        profundidadeMaxima.accumulateAndGet(atual, Math::max);
+        fila.offer(sensor);
+        Thread consumidor = dormindo.poll();
+        if (consumidor != null) {
+            LockSupport.unpark(consumidor);
+        }
+    }
+
+    /**
+     * Interrompe os consumidores depois de entregar o que ainda estiver na fila.
+     */
+    public void encerrar() throws InterruptedException {
+        ativo = false;
+        for (Thread t : consumidores) {
+            LockSupport.unpark(t);
+            t.join();
+        }
+    }
+
+    public long getPublicados() {
+        return publicados.sum();
+    }
+
+    public long getEntregues() {
+        return entregues.sum();
+    }
+
+    public long getAgrupados() {
+        return agrupados.sum();
+    }
+
+    public long getEntregasDiretas() {
+        return entregasDiretas.sum();
+    }
+
+    public long getLotes() {
+        return lotes.sum();
+    }
+
+    public int getProfundidade() {
+        return profundidade.get();
+    }
+
+    public int getProfundidadeMaxima() {
+        return profundidadeMaxima.get();
+    }
+
+    /**
+     * Resumo textual das estatísticas de contrapressão do barramento.
+     */
+    public String resumo() {
+        return "publicados=" + getPublicados()
+                + " entregues=" + getEntregues()
+                + " agrupados=" + getAgrupados()
+                + " entregasDiretas=" + getEntregasDiretas()
+                + " lotes=" + getLotes()
+                + " profundidade=" + getProfundidade()
+                + " profundidadeMaxima=" + getProfundidadeMaxima();
+    }
+
+    private void consumir() {
+        List<SensorLixo> lote = new ArrayList<>(tamanhoLote);
+        while (ativo || !fila.isEmpty()) {
+            SensorLixo sensor;
+            while (lote.size() < tamanhoLote && (sensor = fila.poll()) != null) {
+                profundidade.decrementAndGet();
+                if (agrupar) {
+                    pendentes.remove(sensor);
+                }
+                lote.add(sensor);
+            }
+            if (lote.isEmpty()) {
+                aguardar();
+                continue;
+            }
+            lotes.increment();
+            entregar(lote);
+            lote.clear();
+        }
+    }
+
+    /**
+     * Dorme até um produtor enfileirar uma notificação ou o barramento ser encerrado. O consumidor
+     * se anuncia antes de conferir a fila, e o produtor procura um consumidor depois de enfileirar:
+     * ou o consumidor vê a notificação, ou o produtor vê o consumidor e o acorda.
+     */
+    private void aguardar() {
+        Thread atual = Thread.currentThread();
+        dormindo.offer(atual);
+        if (ativo && fila.isEmpty()) {
+            LockSupport.park(this);
+        }
+        dormindo.remove(atual);
+    }
+
+    private void entregar(List<SensorLixo> lote) {
+        for (Observador destino : destinos) {
+            if (destino instanceof ObservadorLote) {
+                ((ObservadorLote) destino).atualizarLote(lote);
+            } else {
+                for (SensorLixo sensor : lote) {
+                    destino.atualizar(sensor);
+                }
+            }
+        }
+        entregues.add(lote.size());
+    }
+}
@@ -0,0 +1,142 @@
+package observer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fila circular limitada de alterações de nível, com vários produtores e um único consumidor, sem travas.
+ *
+ * Serve aos ouvintes que precisam de todas as alterações, em ordem (diário, histórico), mas não podem
+ * gravar em disco na thread que alterou o nível. Cada produtor reserva uma posição com um incremento
+ * atômico, grava id, nível e instante em vetores primitivos e publica a posição; o consumidor lê as
+ * posições publicadas na ordem de reserva. Nada é alocado por alteração.
+ *
+ * O consumidor que espera por registros ({@link #aguardar(long)}) dorme até o próximo produtor
+ * publicar, sem varredura periódica. Se o consumidor ficar {@code capacidade} registros para trás,
+ * os produtores esperam por espaço (contrapressão) em vez de descartar alterações ou estourar a memória.
+ *
+ * Só uma thread por vez pode consumir; quem usa a fila garante isso (por exemplo, consumindo sob a
+ * trava do ouvinte).
+ */
+public final class FilaNiveis {
+    private static final long ESPERA_ESPACO_NS = 50_000;
+
+    /**
+     * Recebe os registros retirados da fila, na ordem de reserva.
+     */
+    @FunctionalInterface
+    public interface Consumidor {
+        void registro(int id, int nivel, long instante);
+    }
+
+    private final int mascara;
+    private final int[] ids;
+    private final int[] niveis;
+    private final long[] instantes;
+    private final AtomicLongArray publicados;       // Sequência + 1 do registro publicado em cada posição
+    private final AtomicLong reservados = new AtomicLong();
+    private volatile long consumidos;               // Registros já entregues ao consumidor
+    private volatile Thread consumidor;             // Consumidor dormindo à espera de registros
+
+    /**
+     * @param capacidade quantidade de registros em trânsito, arredondada para a potência de dois seguinte.
+     */
+    public FilaNiveis(int capacidade) {
+        if (capacidade < 1 || capacidade > 1 << 30) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacidade);
+        }
+        int tamanho = capacidade == 1 ? 1 : Integer.highestOneBit(capacidade - 1) << 1;
+        this.mascara = tamanho - 1;
+        this.ids = new int[tamanho];
+        this.niveis = new int[tamanho];
+        this.instantes = new long[tamanho];
+        this.publicados = new AtomicLongArray(tamanho);
+    }
+
+    /**
+     * Publica uma alteração. Só espera se a fila estiver cheia.
+     */
+    public void publicar(int id, int nivel, long instante) {
+        publicar(reservar(), id, nivel, instante);
+    }
+
+    /**
+     * Reserva a próxima posição da fila, esperando por espaço se ela estiver cheia. O consumidor
+     * para nessa posição até ela ser publicada: quem reserva deve publicar logo em seguida.
+     * @return a sequência reservada, para {@link #publicar(long, int, int, long)}.
+     */
+    public long reservar() {
+        long sequencia = reservados.getAndIncrement();
+        while (sequencia - consumidos > mascara) {
+            acordar();
+            LockSupport.parkNanos(this, ESPERA_ESPACO_NS);
+        }
+        return sequencia;
+    }
+
+    /**
+     * Publica o registro na posição reservada.
+     */
+    public void publicar(long sequencia, int id, int nivel, long instante) {
+        int p = (int) sequencia & mascara;
+        ids[p] = id;
+        niveis[p] = nivel;
+        instantes[p] = instante;
+        publicados.set(p, sequencia + 1);
+        if (consumidor != null) {
+            acordar();
+        }
+    }
+
+    /**
+     * Entrega ao consumidor até {@code maximo} registros publicados, em ordem.
+     * @return quantos registros foram entregues.
+     */
+    public int drenar(Consumidor destino, int maximo) {
+        long sequencia = consumidos;
+        int entregues = 0;
+        while (entregues < maximo) {
+            int p = (int) sequencia & mascara;
+            if (publicados.get(p) != sequencia + 1) {
+                break;
+            }
+            destino.registro(ids[p], niveis[p], instantes[p]);
+            sequencia++;
+            entregues++;
+        }
+        if (entregues > 0) {
+            consumidos = sequencia;
+        }
+        return entregues;
+    }
+
+    /**
+     * Indica se há registros reservados e ainda não consumidos (publicados ou em publicação).
+     */
+    public boolean possuiRegistros() {
+        return reservados.get() != consumidos;
+    }
+
+    /**
+     * Dorme até um registro ser publicado, o tempo se esgotar ou a thread ser acordada com
+     * {@link LockSupport#unpark(Thread)}.
+     */
+    public void aguardar(long nanos) {
+        consumidor = Thread.currentThread();
+        try {
+            if (publicados.get((int) consumidos & mascara) != consumidos + 1) {
+                LockSupport.parkNanos(this, nanos);
+            }
+        } finally {
+            consumidor = null;
+        }
+    }
+
+    private void acordar() {
+        Thread t = consumidor;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package observer;
+
+import model.SensorLixo;
+
+import java.util.List;
+
+/**
+ * Extensão do {@link Observador} para quem prefere receber as notificações em lotes.
+ *
+ * Quando muitas lixeiras enchem no mesmo instante, tratar uma notificação por vez (por exemplo,
+ * imprimindo uma linha para cada) vira gargalo. O {@link BarramentoEventos} entrega as notificações
+ * acumuladas de uma só vez para observadores que implementam esta interface.
+ */
+public interface ObservadorLote extends Observador {
+
+    /**
+     * Recebe de uma vez todos os sensores que atingiram o limite desde a última entrega.
+     *
+     * @param sensores Sensores notificados, na ordem em que chegaram ao barramento.
+     *                 A lista é reutilizada pelo barramento e só é válida durante a chamada.
+     *
+     * A implementação padrão apenas repassa cada sensor para {@link #atualizar(SensorLixo)}.
+     */
+    default void atualizarLote(List<SensorLixo> sensores) {
+        for (SensorLixo sensor : sensores) {
+            atualizar(sensor);
+        }
+    }
+}
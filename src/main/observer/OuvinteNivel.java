@@ -0,0 +1,21 @@
+package observer;
+
+/**
+ * Interface para componentes que precisam acompanhar toda alteração de nível dos sensores,
+ * e não apenas o momento em que uma lixeira enche (papel do {@link Observador}).
+ *
+ * É usada por estruturas mantidas de forma incremental, como índices de prioridade,
+ * que se atualizam a cada mudança em vez de varrer a cidade inteira.
+ * Os sensores são identificados pelo id, sem criar objetos a cada notificação.
+ */
+public interface OuvinteNivel {
+
+    /**
+     * Chamado sempre que o nível de um sensor muda.
+     *
+     * @param id       Id do sensor alterado.
+     * @param anterior Nível antes da alteração.
+     * @param novo     Nível depois da alteração.
+     */
+    void nivelAlterado(int id, int anterior, int novo);
+}
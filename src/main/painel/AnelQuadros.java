@@ -0,0 +1,87 @@
+package painel;
+
+/**
+ * Anel com os últimos quadros publicados, compartilhados por todos os clientes.
+ *
+ * Cada quadro é codificado uma única vez, já no formato de Server-Sent Events, e cada cliente
+ * apenas guarda o número do próximo quadro que precisa. Um cliente lento que fica mais de
+ * {@code capacidade} quadros para trás não segura ninguém: ao voltar, descobre que perdeu quadros
+ * ({@link #PERDIDO}) e recebe o estado completo.
+ */
+final class AnelQuadros {
+    /** Indica que o quadro pedido já saiu do anel. */
+    static final Quadro PERDIDO = new Quadro(-1, new byte[0]);
+
+    /**
+     * Quadro publicado: número de sequência e bytes prontos para enviar.
+     */
+    static final class Quadro {
+        final long sequencia;
+        final byte[] bytes;
+
+        Quadro(long sequencia, byte[] bytes) {
+            this.sequencia = sequencia;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Quadro[] quadros;
+    private volatile long ultimo; // Sequência do último quadro publicado (0 = nenhum)
+
+    AnelQuadros(int capacidade) {
+        this.quadros = new Quadro[capacidade];
+    }
+
+    long ultimo() {
+        return ultimo;
+    }
+
+    /**
+     * Publica o próximo quadro e acorda os clientes que o esperam.
+     */
+    synchronized long publicar(byte[] bytes) {
+        long sequencia = ultimo + 1;
+        quadros[(int) (sequencia % quadros.length)] = new Quadro(sequencia, bytes);
+        ultimo = sequencia;
+        notifyAll();
+        return sequencia;
+    }
+
+    /**
+     * Retorna o quadro com a sequência pedida sem esperar: null se ainda não foi publicado,
+     * ou {@link #PERDIDO} se já saiu do anel.
+     */
+    Quadro obter(long sequencia) {
+        if (sequencia > ultimo) {
+            return null;
+        }
+        Quadro quadro = quadros[(int) (sequencia % quadros.length)];
+        return quadro != null && quadro.sequencia == sequencia ? quadro : PERDIDO;
+    }
+
+    /**
+     * Como {@link #obter(long)}, mas espera até o tempo informado pela publicação do quadro.
+     */
+    Quadro aguardar(long sequencia, long esperaMs) throws InterruptedException {
+        Quadro quadro = obter(sequencia);
+        if (quadro != null) {
+            return quadro;
+        }
+        synchronized (this) {
+            long limite = System.currentTimeMillis() + esperaMs;
+            long restante = esperaMs;
+            while (sequencia > ultimo && restante > 0) {
+                wait(restante);
+                restante = limite - System.currentTimeMillis();
+            }
+        }
+        return obter(sequencia);
+    }
+
+    /**
+     * Acorda todos os clientes em espera (usado no encerramento).
+     */
+    synchronized void acordar() {
+        notifyAll();
+    }
+}
@@ -0,0 +1,86 @@
+package painel;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Página do painel: mapa das lixeiras colorido pela ocupação, com o resumo e os últimos alertas,
+ * mantida pelo fluxo de eventos de {@link ServidorPainel}. Fica embutida no código porque o
+ * projeto não empacota recursos.
+ */
+final class PaginaPainel {
+    static final byte[] HTML = """
+            <!DOCTYPE html>
+            <html lang="pt-BR">
+            <head>
+            <meta charset="utf-8">
+            <title>Coleta de Lixo Inteligente</title>
+            <style>
+              body { font-family: sans-serif; margin: 1em; background: #f4f4f4; }
+              #resumo { margin-bottom: .5em; }
+              canvas { background: #fff; border: 1px solid #ccc; }
+              #alertas { font-size: .9em; color: #a00; }
+            </style>
+            </head>
+            <body>
+            <div id="resumo">Conectando...</div>
+            <canvas id="mapa" width="800" height="600"></canvas>
+            <div id="alertas"></div>
+            <script>
+            const mapa = document.getElementById('mapa'), g = mapa.getContext('2d');
+            let x = [], y = [], limites = [], niveis = [], escala = 1, minX = 0, minY = 0, pendente = false;
+
+            function resumo(d) {
+              document.getElementById('resumo').textContent = 'quadro ' + d.seq + ' | lixeiras: ' + niveis.length
+                + ' | cheias: ' + d.cheias + ' | ocupação: ' + (d.ocupacao * 100).toFixed(1) + '%';
+            }
+
+            function cor(id) {
+              const f = Math.max(0, Math.min(1, niveis[id] / limites[id]));
+              return 'rgb(' + Math.round(255 * f) + ',' + Math.round(200 * (1 - f)) + ',60)';
+            }
+
+            function desenhar() {
+              pendente = false;
+              g.clearRect(0, 0, mapa.width, mapa.height);
+              for (let id = 0; id < niveis.length; id++) {
+                g.fillStyle = cor(id);
+                g.fillRect((x[id] - minX) * escala, (y[id] - minY) * escala, 3, 3);
+              }
+            }
+
+            function redesenhar() {
+              if (!pendente) { pendente = true; requestAnimationFrame(desenhar); }
+            }
+
+            const eventos = new EventSource('eventos');
+            eventos.addEventListener('estado', e => {
+              const s = JSON.parse(e.data);
+              x = s.x; y = s.y; limites = s.limites; niveis = s.niveis;
+              minX = Math.min(...x.slice(0, 100000)); minY = Math.min(...y.slice(0, 100000));
+              const largura = Math.max(1, Math.max(...x.slice(0, 100000)) - minX);
+              const altura = Math.max(1, Math.max(...y.slice(0, 100000)) - minY);
+              escala = Math.min((mapa.width - 4) / largura, (mapa.height - 4) / altura);
+              resumo(s); redesenhar();
+            });
+            eventos.addEventListener('niveis', e => {
+              const d = JSON.parse(e.data);
+              let id = 0;
+              for (let i = 0; i < d.ids.length; i++) { id += d.ids[i]; niveis[id] = d.niveis[i]; }
+              resumo(d); redesenhar();
+            });
+            eventos.addEventListener('alertas', e => {
+              const d = JSON.parse(e.data);
+              let id = 0;
+              const ids = d.ids.slice(0, 20).map(v => (id += v));
+              document.getElementById('alertas').textContent = 'Cheias no quadro ' + d.seq + ': ' + ids.join(', ')
+                + (d.ids.length > 20 ? ' e mais ' + (d.ids.length - 20) : '');
+            });
+            eventos.onerror = () => { document.getElementById('resumo').textContent = 'Reconectando...'; };
+            </script>
+            </body>
+            </html>
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private PaginaPainel() {
+    }
+}
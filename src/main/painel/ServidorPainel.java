@@ -0,0 +1,405 @@
+package painel;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.ArmazemSensores;
+import model.ConsultasNivel;
+import model.SensorLixo;
+import model.SistemaColetaLixo;
+import observer.AlteracoesPendentes;
+import observer.Observador;
+import observer.OuvinteNivel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Painel web local do sistema de coleta, servido pelo {@code HttpServer} embutido no JDK.
+ *
+ * Permite acompanhar a cidade de um navegador, inclusive sem interface gráfica e por vários
+ * observadores ao mesmo tempo:
+ * <ul>
+ *   <li>{@code GET /}: página com o mapa das lixeiras, atualizada pelo fluxo de eventos;</li>
+ *   <li>{@code GET /estado}: estado completo em JSON (posições, limites, níveis e resumo);</li>
+ *   <li>{@code GET /eventos}: fluxo Server-Sent Events. Começa com o estado completo (evento
+ *       {@code estado}) e segue com lotes de alterações: evento {@code niveis} com os ids alterados
+ *       codificados pela diferença para o anterior e o nível atual de cada um, e evento
+ *       {@code alertas} com as lixeiras que encheram.</li>
+ * </ul>
+ *
+ * O painel é alimentado pelos ganchos do armazém: como {@link OuvinteNivel} e como {@link Observador}
+ * ele apenas marca o id em um vetor de bits ({@link AlteracoesPendentes}), sem travas nem alocação
+ * na thread da simulação. Uma única thread publicadora junta, a cada intervalo, os sensores marcados,
+ * lê os níveis atuais e codifica um quadro que vai para um {@link AnelQuadros} compartilhado. Os
+ * clientes só copiam bytes já prontos: o custo de codificação não cresce com a quantidade de
+ * clientes. Um cliente lento bloqueia apenas a própria thread de envio; se ficar para trás mais que o
+ * anel comporta, recebe de novo o estado completo (construído uma vez e reaproveitado por todos os
+ * clientes atrasados na mesma sequência). Como os quadros trazem níveis absolutos, aplicá-los
+ * depois de um estado que já os incluía não muda nada.
+ *
+ * Limite: o {@code HttpServer} só escreve de forma bloqueante, então cada cliente de eventos ocupa uma
+ * thread de plataforma enquanto está conectado (com pilha reduzida, já que ela só copia bytes). O
+ * máximo de clientes simultâneos, 4096 por padrão, é portanto também o máximo de threads de envio;
+ * algumas milhares cabem em uma máquina comum, mas para muito mais clientes o fluxo deve passar por
+ * um distribuidor à frente do painel (um proxy reverso com cache de SSE, por exemplo).
+ */
+public class ServidorPainel implements OuvinteNivel, Observador, AutoCloseable {
+    private static final int CAPACIDADE_ANEL = 1024;
+    private static final int INTERVALO_PADRAO_MS = 250;
+    private static final int MAXIMO_CLIENTES_PADRAO = 4096;
+    private static final long ESPERA_MS = 15_000;            // Sem quadros por esse tempo, envia um comentário
+    private static final long PILHA_CLIENTE = 256 * 1024;     // Threads de envio apenas copiam bytes
+    private static final byte[] MANTER_CONEXAO = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final Logger LOG = Logger.getLogger(ServidorPainel.class.getName());
+
+    private final SistemaColetaLixo sistema;
+    private final ArmazemSensores armazem;
+    private final HttpServer servidor;
+    private final ExecutorService conexoes;
+    private final ScheduledExecutorService publicador;
+    private final AlteracoesPendentes niveis;
+    private final AlteracoesPendentes alertas;
+    private final AnelQuadros anel = new AnelQuadros(CAPACIDADE_ANEL);
+    private final int maximoClientes;
+    private final AtomicInteger clientes = new AtomicInteger();
+    private final LongAdder ressincronizacoes = new LongAdder();
+    private final LongAdder recusados = new LongAdder();
+    private final LongAdder falhasPublicacao = new LongAdder();
+    private volatile boolean ativo = true;
+    private Estado estado; // Último estado completo codificado
+
+    /**
+     * Estado completo codificado para uma sequência de quadros: JSON puro e como evento SSE.
+     */
+    private static final class Estado {
+        final long sequencia;
+        final byte[] json;
+        final byte[] evento;
+
+        Estado(long sequencia, byte[] json, byte[] evento) {
+            this.sequencia = sequencia;
+            this.json = json;
+            this.evento = evento;
+        }
+    }
+
+    /**
+     * Cria o painel publicando a cada 250 ms e aceitando até 4096 clientes de eventos.
+     */
+    public ServidorPainel(SistemaColetaLixo sistema, InetSocketAddress endereco) throws IOException {
+        this(sistema, endereco, INTERVALO_PADRAO_MS, MAXIMO_CLIENTES_PADRAO);
+    }
+
+    /**
+     * Cria e inicia o painel, passando a ouvir o armazém do sistema.
+     * @param endereco endereço local do servidor (porta 0 escolhe uma porta livre; ver {@link #getPorta()}).
+     * @param intervaloMs intervalo entre dois lotes de alterações.
+     * @param maximoClientes clientes de eventos simultâneos; os seguintes recebem 503.
+     */
+    public ServidorPainel(SistemaColetaLixo sistema, InetSocketAddress endereco, int intervaloMs,
+                          int maximoClientes) throws IOException {
+        if (intervaloMs < 1 || maximoClientes < 1) {
+            throw new IllegalArgumentException("Intervalo e quantidade de clientes devem ser positivos.");
+        }
+        this.sistema = sistema;
+        this.armazem = sistema.getArmazem();
+        this.maximoClientes = maximoClientes;
+        this.niveis = new AlteracoesPendentes(armazem.tamanho());
+        this.alertas = new AlteracoesPendentes(armazem.tamanho());
+
+        AtomicInteger numero = new AtomicInteger();
+        conexoes = Executors.newCachedThreadPool(tarefa -> {
+            Thread t = new Thread(null, tarefa, "painel-http-" + numero.getAndIncrement(), PILHA_CLIENTE);
+            t.setDaemon(true);
+            return t;
+        });
+        publicador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread t = new Thread(tarefa, "painel-publicador");
+            t.setDaemon(true);
+            return t;
+        });
+
+        servidor = HttpServer.create(endereco, maximoClientes);
+        servidor.createContext("/", this::pagina);
+        servidor.createContext("/estado", this::estado);
+        servidor.createContext("/eventos", this::eventos);
+        servidor.setExecutor(conexoes);
+
+        armazem.registrarOuvinte(this);
+        armazem.registrarObservador(this);
+        servidor.start();
+        publicador.scheduleWithFixedDelay(this::publicarSeguro, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marca o sensor como alterado; o nível é lido na publicação.
+     */
+    @Override
+    public void nivelAlterado(int id, int anterior, int novo) {
+        niveis.marcar(id);
+    }
+
+    /**
+     * Marca a lixeira como cheia para o próximo evento de alertas.
+     */
+    @Override
+    public void atualizar(SensorLixo sensor) {
+        alertas.marcar(sensor.getId());
+    }
+
+    /**
+     * Junta as alterações marcadas desde a última chamada em um quadro e o publica para todos os clientes.
+     * Chamado periodicamente pela thread publicadora; pode ser chamado diretamente para publicar na hora.
+     */
+    public synchronized void publicar() {
+        boolean completo = niveis.retirarExcedeu() | alertas.retirarExcedeu();
+        int[] alterados = niveis.retirar();
+        int[] cheias = alertas.retirar();
+        if (completo) {
+            // Sensores cadastrados depois da criação: os clientes recebem o estado completo
+            niveis.redimensionar(armazem.tamanho());
+            alertas.redimensionar(armazem.tamanho());
+            long sequencia = anel.ultimo() + 1;
+            estado = codificarEstado(sequencia);
+            anel.publicar(estado.evento);
+            return;
+        }
+        if (alterados.length == 0 && cheias.length == 0) {
+            return;
+        }
+        long sequencia = anel.ultimo() + 1;
+        StringBuilder quadro = new StringBuilder(64 + 12 * (alterados.length + cheias.length));
+        if (alterados.length > 0) {
+            ConsultasNivel.Resumo resumo = sistema.consultas().resumo();
+            quadro.append("id: ").append(sequencia).append("\nevent: niveis\ndata: {\"seq\":").append(sequencia)
+                    .append(",\"cheias\":").append(resumo.getCheios())
+                    .append(",\"ocupacao\":").append(String.format(Locale.ROOT, "%.4f", resumo.getOcupacaoMedia()))
+                    .append(",\"ids\":");
+            diferencas(quadro, alterados);
+            quadro.append(",\"niveis\":[");
+            for (int i = 0; i < alterados.length; i++) {
+                quadro.append(i == 0 ? "" : ",").append(armazem.getNivel(alterados[i]));
+            }
+            quadro.append("]}\n\n");
+        }
+        if (cheias.length > 0) {
+            quadro.append("id: ").append(sequencia).append("\nevent: alertas\ndata: {\"seq\":").append(sequencia)
+                    .append(",\"ids\":");
+            diferencas(quadro, cheias);
+            quadro.append("}\n\n");
+        }
+        anel.publicar(quadro.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Para o servidor e a publicação e deixa de ouvir o armazém. As conexões abertas são encerradas.
+     */
+    @Override
+    public void close() {
+        ativo = false;
+        armazem.removerOuvinte(this);
+        armazem.removerObservador(this);
+        publicador.shutdownNow();
+        anel.acordar();
+        servidor.stop(0);
+        conexoes.shutdownNow();
+    }
+
+    /**
+     * Porta em que o servidor está ouvindo.
+     */
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    public int getClientes() {
+        return clientes.get();
+    }
+
+    public long getQuadros() {
+        return anel.ultimo();
+    }
+
+    /**
+     * Quantas vezes um cliente atrasado recebeu de novo o estado completo.
+     */
+    public long getRessincronizacoes() {
+        return ressincronizacoes.sum();
+    }
+
+    /**
+     * Conexões de eventos recusadas por excederem o máximo de clientes.
+     */
+    public long getRecusados() {
+        return recusados.sum();
+    }
+
+    /**
+     * Publicações periódicas que falharam; cada falha também é registrada no log do painel.
+     */
+    public long getFalhasPublicacao() {
+        return falhasPublicacao.sum();
+    }
+
+    private void publicarSeguro() {
+        try {
+            publicar();
+        } catch (RuntimeException e) {
+            // Uma falha em um lote não pode parar as publicações seguintes
+            falhasPublicacao.increment();
+            LOG.log(Level.WARNING, "Falha ao publicar no painel", e);
+        }
+    }
+
+    /**
+     * Estado completo da sequência atual, reaproveitado enquanto nenhum quadro novo for publicado.
+     */
+    private synchronized Estado estadoAtual() {
+        long sequencia = anel.ultimo();
+        if (estado == null || estado.sequencia != sequencia) {
+            estado = codificarEstado(sequencia);
+        }
+        return estado;
+    }
+
+    private Estado codificarEstado(long sequencia) {
+        int n = armazem.tamanho();
+        ConsultasNivel.Resumo resumo = sistema.consultas().resumo();
+        StringBuilder json = new StringBuilder(128 + 24 * n);
+        json.append("{\"seq\":").append(sequencia)
+                .append(",\"sensores\":").append(n)
+                .append(",\"cheias\":").append(resumo.getCheios())
+                .append(",\"ocupacao\":").append(String.format(Locale.ROOT, "%.4f", resumo.getOcupacaoMedia()))
+                .append(",\"x\":[");
+        for (int id = 0; id < n; id++) {
+            json.append(id == 0 ? "" : ",").append(Math.round(armazem.getX(id)));
+        }
+        json.append("],\"y\":[");
+        for (int id = 0; id < n; id++) {
+            json.append(id == 0 ? "" : ",").append(Math.round(armazem.getY(id)));
+        }
+        json.append("],\"limites\":[");
+        for (int id = 0; id < n; id++) {
+            json.append(id == 0 ? "" : ",").append(armazem.getLimite(id));
+        }
+        json.append("],\"niveis\":[");
+        for (int id = 0; id < n; id++) {
+            json.append(id == 0 ? "" : ",").append(armazem.getNivel(id));
+        }
+        json.append("]}");
+        String texto = json.toString();
+        String evento = "id: " + sequencia + "\nevent: estado\ndata: " + texto + "\n\n";
+        return new Estado(sequencia, texto.getBytes(StandardCharsets.UTF_8), evento.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Acrescenta os ids em ordem crescente como diferenças para o anterior (o primeiro, para zero).
+     */
+    private static void diferencas(StringBuilder saida, int[] ids) {
+        saida.append('[');
+        int anterior = 0;
+        for (int i = 0; i < ids.length; i++) {
+            saida.append(i == 0 ? "" : ",").append(ids[i] - anterior);
+            anterior = ids[i];
+        }
+        saida.append(']');
+    }
+
+    private void pagina(HttpExchange troca) throws IOException {
+        if (!"/".equals(troca.getRequestURI().getPath())) {
+            responder(troca, 404, "text/plain; charset=utf-8", "Não encontrado.".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        responder(troca, 200, "text/html; charset=utf-8", PaginaPainel.HTML);
+    }
+
+    private void estado(HttpExchange troca) throws IOException {
+        responder(troca, 200, "application/json", estadoAtual().json);
+    }
+
+    /**
+     * Mantém a conexão de eventos aberta, enviando os quadros do anel a partir do estado completo
+     * (ou do quadro seguinte ao {@code Last-Event-ID}, se ele ainda estiver no anel).
+     */
+    private void eventos(HttpExchange troca) throws IOException {
+        if (clientes.incrementAndGet() > maximoClientes) {
+            clientes.decrementAndGet();
+            recusados.increment();
+            responder(troca, 503, "text/plain; charset=utf-8", "Clientes demais.".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        try {
+            troca.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            troca.getResponseHeaders().set("Cache-Control", "no-cache");
+            troca.sendResponseHeaders(200, 0);
+            OutputStream saida = troca.getResponseBody();
+
+            long proximo = retomada(troca.getRequestHeaders().getFirst("Last-Event-ID"));
+            if (proximo < 0) {
+                Estado inicial = estadoAtual();
+                saida.write(inicial.evento);
+                proximo = inicial.sequencia + 1;
+            }
+            saida.flush();
+            while (ativo) {
+                AnelQuadros.Quadro quadro = anel.aguardar(proximo, ESPERA_MS);
+                if (quadro == null) {
+                    saida.write(MANTER_CONEXAO); // Também descobre clientes que já se desconectaram
+                    saida.flush();
+                } else if (quadro == AnelQuadros.PERDIDO) {
+                    ressincronizacoes.increment();
+                    Estado atual = estadoAtual();
+                    saida.write(atual.evento);
+                    proximo = atual.sequencia + 1;
+                } else {
+                    saida.write(quadro.bytes);
+                    proximo = quadro.sequencia + 1;
+                    if (anel.obter(proximo) == null) {
+                        saida.flush(); // Só esvazia o buffer quando alcançou o último quadro
+                    }
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Cliente desconectado ou servidor encerrado
+        } finally {
+            clientes.decrementAndGet();
+            troca.close();
+        }
+    }
+
+    /**
+     * Próximo quadro a enviar para um cliente que reconectou, ou -1 se ele precisa do estado completo.
+     */
+    private long retomada(String ultimoId) {
+        if (ultimoId == null) {
+            return -1;
+        }
+        try {
+            long proximo = Long.parseLong(ultimoId.trim()) + 1;
+            AnelQuadros.Quadro quadro = anel.obter(proximo);
+            boolean disponivel = quadro != AnelQuadros.PERDIDO && proximo > 0 && proximo <= anel.ultimo() + 1;
+            return disponivel ? proximo : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void responder(HttpExchange troca, int status, String tipo, byte[] corpo) throws IOException {
+        troca.getResponseHeaders().set("Content-Type", tipo);
+        troca.sendResponseHeaders(status, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+    }
+}
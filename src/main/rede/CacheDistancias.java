@@ -0,0 +1,263 @@
+package rede;
+
+import java.util.Arrays;
+
+/**
+ * Cache limitado de custos entre pares de nós, que descarta o par usado há mais tempo (LRU).
+ *
+ * O cache é dividido em segmentos, cada um com a sua trava, para que várias threads consultem
+ * ao mesmo tempo sem disputar uma trava única. Cada segmento guarda os pares em vetores
+ * primitivos, sem objetos por entrada: uma tabela de espalhamento com sondagem linear aponta para
+ * as entradas, e uma lista duplamente encadeada por índices mantém a ordem de uso. Consultar,
+ * guardar e descartar custam O(1).
+ */
+public class CacheDistancias {
+    private static final int SEGMENTOS = 16;
+
+    private final Segmento[] segmentos = new Segmento[SEGMENTOS];
+
+    /**
+     * @param capacidade quantidade máxima de pares guardados, repartida entre os segmentos.
+     */
+    public CacheDistancias(int capacidade) {
+        if (capacidade < SEGMENTOS) {
+            throw new IllegalArgumentException("A capacidade do cache deve ser de ao menos " + SEGMENTOS);
+        }
+        for (int s = 0; s < SEGMENTOS; s++) {
+            segmentos[s] = new Segmento(capacidade / SEGMENTOS + (s < capacidade % SEGMENTOS ? 1 : 0));
+        }
+    }
+
+    /**
+     * Custo guardado para o par, ou {@code NaN} se o par não estiver no cache.
+     */
+    public double obter(int origem, int destino) {
+        long chave = chave(origem, destino);
+        return segmento(chave).obter(chave);
+    }
+
+    /**
+     * Guarda o custo do par, descartando o par usado há mais tempo se o segmento estiver cheio.
+     */
+    public void guardar(int origem, int destino, double custo) {
+        long chave = chave(origem, destino);
+        segmento(chave).guardar(chave, custo);
+    }
+
+    /**
+     * Quantidade de pares guardados.
+     */
+    public int tamanho() {
+        int total = 0;
+        for (Segmento s : segmentos) {
+            synchronized (s) {
+                total += s.ocupadas;
+            }
+        }
+        return total;
+    }
+
+    public void limpar() {
+        for (Segmento s : segmentos) {
+            s.limpar();
+        }
+    }
+
+    public long getAcertos() {
+        long total = 0;
+        for (Segmento s : segmentos) {
+            synchronized (s) {
+                total += s.acertos;
+            }
+        }
+        return total;
+    }
+
+    public long getErros() {
+        long total = 0;
+        for (Segmento s : segmentos) {
+            synchronized (s) {
+                total += s.erros;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Pares descartados por falta de espaço.
+     */
+    public long getExpulsoes() {
+        long total = 0;
+        for (Segmento s : segmentos) {
+            synchronized (s) {
+                total += s.expulsoes;
+            }
+        }
+        return total;
+    }
+
+    private static long chave(int origem, int destino) {
+        return ((long) origem << 32) | (destino & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Espalha os bits da chave (finalizador do MurmurHash3), para que pares vizinhos caiam
+     * em segmentos e posições diferentes.
+     */
+    private static long espalhar(long chave) {
+        chave ^= chave >>> 33;
+        chave *= 0xFF51AFD7ED558CCDL;
+        chave ^= chave >>> 33;
+        chave *= 0xC4CEB9FE1A85EC53L;
+        return chave ^ (chave >>> 33);
+    }
+
+    private Segmento segmento(long chave) {
+        return segmentos[(int) (espalhar(chave) >>> 60)];
+    }
+
+    /**
+     * Parte do cache protegida por uma trava. As entradas ocupam as posições 0 a capacidade - 1;
+     * a tabela guarda posição + 1 (0 = vazio).
+     */
+    private static final class Segmento {
+        private static final int NENHUMA = -1;
+
+        private final long[] chaves;
+        private final double[] custos;
+        private final int[] anterior;  // Vizinho mais recente na ordem de uso
+        private final int[] proxima;   // Vizinho menos recente
+        private final int[] tabela;
+        private final int mascara;
+        private int maisRecente = NENHUMA;
+        private int menosRecente = NENHUMA;
+        private int ocupadas;
+        private long acertos;
+        private long erros;
+        private long expulsoes;
+
+        Segmento(int capacidade) {
+            chaves = new long[capacidade];
+            custos = new double[capacidade];
+            anterior = new int[capacidade];
+            proxima = new int[capacidade];
+            int tamanhoTabela = Integer.highestOneBit(Math.max(capacidade, 1) * 2 - 1) << 1; // Ocupação até 50%
+            tabela = new int[tamanhoTabela];
+            mascara = tamanhoTabela - 1;
+        }
+
+        synchronized double obter(long chave) {
+            int entrada = procurar(chave);
+            if (entrada == NENHUMA) {
+                erros++;
+                return Double.NaN;
+            }
+            acertos++;
+            tornarMaisRecente(entrada);
+            return custos[entrada];
+        }
+
+        synchronized void guardar(long chave, double custo) {
+            int entrada = procurar(chave);
+            if (entrada == NENHUMA) {
+                if (ocupadas < chaves.length) {
+                    entrada = ocupadas++;
+                } else {
+                    entrada = menosRecente; // Reaproveita a posição do par usado há mais tempo
+                    retirarDaTabela(chaves[entrada]);
+                    desligar(entrada);
+                    expulsoes++;
+                }
+                chaves[entrada] = chave;
+                int i = (int) espalhar(chave) & mascara;
+                while (tabela[i] != 0) {
+                    i = (i + 1) & mascara;
+                }
+                tabela[i] = entrada + 1;
+                ligarNoInicio(entrada);
+            } else {
+                tornarMaisRecente(entrada);
+            }
+            custos[entrada] = custo;
+        }
+
+        synchronized void limpar() {
+            Arrays.fill(tabela, 0);
+            ocupadas = 0;
+            maisRecente = NENHUMA;
+            menosRecente = NENHUMA;
+        }
+
+        private int procurar(long chave) {
+            int i = (int) espalhar(chave) & mascara;
+            while (tabela[i] != 0) {
+                int entrada = tabela[i] - 1;
+                if (chaves[entrada] == chave) {
+                    return entrada;
+                }
+                i = (i + 1) & mascara;
+            }
+            return NENHUMA;
+        }
+
+        /**
+         * Remove a chave da tabela, deslocando para trás as chaves seguintes do mesmo agrupamento
+         * para que as sondagens continuem encontrando-as.
+         */
+        private void retirarDaTabela(long chave) {
+            int i = (int) espalhar(chave) & mascara;
+            while (chaves[tabela[i] - 1] != chave) {
+                i = (i + 1) & mascara;
+            }
+            int vazio = i;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mascara;
+                if (tabela[j] == 0) {
+                    break;
+                }
+                int ideal = (int) espalhar(chaves[tabela[j] - 1]) & mascara;
+                // Move j para o vazio se a posição ideal de j não estiver entre o vazio e j (circularmente)
+                if (((j - ideal) & mascara) >= ((j - vazio) & mascara)) {
+                    tabela[vazio] = tabela[j];
+                    vazio = j;
+                }
+            }
+            tabela[vazio] = 0;
+        }
+
+        private void tornarMaisRecente(int entrada) {
+            if (entrada != maisRecente) {
+                desligar(entrada);
+                ligarNoInicio(entrada);
+            }
+        }
+
+        private void desligar(int entrada) {
+            int a = anterior[entrada];
+            int p = proxima[entrada];
+            if (a != NENHUMA) {
+                proxima[a] = p;
+            } else {
+                maisRecente = p;
+            }
+            if (p != NENHUMA) {
+                anterior[p] = a;
+            } else {
+                menosRecente = a;
+            }
+        }
+
+        private void ligarNoInicio(int entrada) {
+            anterior[entrada] = NENHUMA;
+            proxima[entrada] = maisRecente;
+            if (maisRecente != NENHUMA) {
+                anterior[maisRecente] = entrada;
+            }
+            maisRecente = entrada;
+            if (menosRecente == NENHUMA) {
+                menosRecente = entrada;
+            }
+        }
+    }
+}
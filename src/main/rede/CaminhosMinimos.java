@@ -0,0 +1,369 @@
+package rede;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cálculo de caminhos mínimos (menor custo de percurso) sobre uma {@link RedeViaria}.
+ *
+ * {@link #distancia(int, int)} usa o A*: a busca é guiada por uma estimativa do custo restante
+ * que nunca passa do custo real, e termina assim que o destino sai da fila. Sem preparação, a
+ * estimativa é a distância em linha reta vezes o menor custo por metro da rede. Com
+ * {@link #prepararMarcos(int)}, alguns nós distantes entre si viram marcos (técnica ALT): as
+ * distâncias de cada nó até e a partir de cada marco são calculadas uma vez, e a desigualdade
+ * triangular sobre elas dá estimativas muito melhores, que reduzem drasticamente os nós explorados.
+ *
+ * As buscas podem ser feitas por várias threads ao mesmo tempo; cada thread tem o seu próprio
+ * estado de busca (vetores do tamanho da rede), reiniciado em tempo constante por um contador de
+ * época, e uma fila de prioridade binária em vetores primitivos.
+ */
+public class CaminhosMinimos {
+    private final RedeViaria rede;
+    private final ThreadLocal<Busca> buscas;
+    private final LongAdder explorados = new LongAdder();
+    private volatile Marcos marcos;
+
+    public CaminhosMinimos(RedeViaria rede) {
+        this.rede = rede;
+        this.buscas = ThreadLocal.withInitial(() -> new Busca(rede.getNos()));
+    }
+
+    public RedeViaria getRede() {
+        return rede;
+    }
+
+    /**
+     * Escolhe os marcos do ALT e calcula as distâncias de todos os nós até e a partir de cada um.
+     * Cada marco é o nó mais distante dos marcos já escolhidos. Custa duas buscas completas por marco
+     * e {@code 8 × quantidade} bytes por nó.
+     */
+    public synchronized void prepararMarcos(int quantidade) {
+        int n = rede.getNos();
+        if (quantidade < 1 || n == 0) {
+            marcos = null;
+            return;
+        }
+        float[][] de = new float[quantidade][];
+        float[][] ate = new float[quantidade][];
+        float[] menor = new float[n];
+        Arrays.fill(menor, Float.POSITIVE_INFINITY);
+        Busca busca = buscas.get();
+
+        // O primeiro marco é o nó mais distante de um nó qualquer
+        float[] inicial = new float[n];
+        busca.completa(rede, 0, inicial);
+        int marco = maisDistante(inicial);
+        float maior = 0;
+        for (int m = 0; m < quantidade; m++) {
+            de[m] = new float[n];
+            ate[m] = new float[n];
+            busca.completa(rede, marco, de[m]);
+            busca.completa(rede.transposta(), marco, ate[m]);
+            for (int v = 0; v < n; v++) {
+                menor[v] = Math.min(menor[v], de[m][v]);
+                if (de[m][v] != Float.POSITIVE_INFINITY) {
+                    maior = Math.max(maior, de[m][v]);
+                }
+                if (ate[m][v] != Float.POSITIVE_INFINITY) {
+                    maior = Math.max(maior, ate[m][v]);
+                }
+            }
+            marco = maisDistante(menor);
+        }
+        // Os vetores em float arredondam as distâncias; a folga mantém a estimativa abaixo do custo real
+        marcos = new Marcos(de, ate, 4 * Math.ulp(maior));
+    }
+
+    /**
+     * Quantidade de marcos preparados (0 sem preparação).
+     */
+    public int getQuantidadeMarcos() {
+        Marcos atuais = marcos;
+        return atuais == null ? 0 : atuais.de.length;
+    }
+
+    /**
+     * Menor custo de percurso entre dois nós, pelo A*.
+     * @return o custo, ou infinito se o destino não for alcançável.
+     */
+    public double distancia(int origem, int destino) {
+        return buscas.get().ponto(rede, origem, destino, true, marcos);
+    }
+
+    /**
+     * Menor custo entre dois nós pelo algoritmo de Dijkstra, sem estimativa. Serve de referência
+     * para o A*.
+     */
+    public double dijkstra(int origem, int destino) {
+        return buscas.get().ponto(rede, origem, destino, false, null);
+    }
+
+    /**
+     * Custos a partir de um nó até vários destinos, em uma única busca de Dijkstra que termina
+     * quando todos os destinos forem alcançados.
+     * @param resultado recebe o custo até cada destino, na mesma posição (infinito se inalcançável).
+     */
+    public void distancias(int origem, int[] destinos, double[] resultado) {
+        buscas.get().varios(rede, origem, destinos, resultado);
+    }
+
+    /**
+     * Nós retirados da fila de prioridade por todas as buscas até agora, uma medida do esforço das buscas.
+     */
+    public long getNosExplorados() {
+        return explorados.sum();
+    }
+
+    private static int maisDistante(float[] distancias) {
+        int melhor = 0;
+        float maior = -1;
+        for (int v = 0; v < distancias.length; v++) {
+            if (distancias[v] != Float.POSITIVE_INFINITY && distancias[v] > maior) {
+                maior = distancias[v];
+                melhor = v;
+            }
+        }
+        return melhor;
+    }
+
+    /**
+     * Distâncias dos marcos, em float para caber na memória em redes grandes.
+     */
+    private static final class Marcos {
+        final float[][] de;   // de[m][v]: custo do marco m até v
+        final float[][] ate;  // ate[m][v]: custo de v até o marco m
+        final double folga;
+
+        Marcos(float[][] de, float[][] ate, double folga) {
+            this.de = de;
+            this.ate = ate;
+            this.folga = folga;
+        }
+
+        /**
+         * Limite inferior do custo de v até t pela desigualdade triangular.
+         */
+        double estimar(int v, int t) {
+            double melhor = 0;
+            for (int m = 0; m < de.length; m++) {
+                float[] d = de[m];
+                float[] a = ate[m];
+                if (d[t] != Float.POSITIVE_INFINITY && d[v] != Float.POSITIVE_INFINITY) {
+                    melhor = Math.max(melhor, d[t] - d[v]);
+                }
+                if (a[v] != Float.POSITIVE_INFINITY && a[t] != Float.POSITIVE_INFINITY) {
+                    melhor = Math.max(melhor, a[v] - a[t]);
+                }
+            }
+            return Math.max(0, melhor - folga);
+        }
+    }
+
+    /**
+     * Estado de uma busca, reaproveitado entre as buscas da mesma thread.
+     */
+    private final class Busca {
+        private final double[] distancia;
+        private final int[] epocaDistancia; // A distância só vale se a época for a atual
+        private final int[] epocaAlvo;
+        private int epoca;
+
+        // Fila de prioridade binária com remoção preguiçosa: um nó pode aparecer mais de uma vez
+        private double[] chaves = new double[64];
+        private double[] custos = new double[64];
+        private int[] nos = new int[64];
+        private int tamanho;
+
+        Busca(int n) {
+            distancia = new double[n];
+            epocaDistancia = new int[n];
+            epocaAlvo = new int[n];
+        }
+
+        /**
+         * A* (ou Dijkstra, sem estimativa) entre dois nós. Com uma estimativa que nunca passa do
+         * custo real, a primeira vez que o destino sai da fila tem o custo mínimo; nós podem ser
+         * reabertos se um caminho melhor aparecer depois.
+         */
+        double ponto(RedeViaria r, int origem, int destino, boolean estimar, Marcos m) {
+            reiniciar();
+            double tx = r.getX(destino);
+            double ty = r.getY(destino);
+            double fator = r.getFatorEuclidiano();
+            definir(origem, 0);
+            inserir(0, 0, origem);
+            long retirados = 0;
+            try {
+                while (tamanho > 0) {
+                    double custo = custos[0];
+                    int v = remover();
+                    retirados++;
+                    if (custo > distancia[v]) {
+                        continue; // Entrada antiga
+                    }
+                    if (v == destino) {
+                        return custo;
+                    }
+                    for (int a = r.inicioArestas(v), fim = r.fimArestas(v); a < fim; a++) {
+                        int w = r.destino(a);
+                        double novo = custo + r.custo(a);
+                        if (novo < obter(w)) {
+                            definir(w, novo);
+                            double h = 0;
+                            if (estimar) {
+                                h = fator * Math.hypot(r.getX(w) - tx, r.getY(w) - ty);
+                                if (m != null) {
+                                    h = Math.max(h, m.estimar(w, destino));
+                                }
+                            }
+                            inserir(novo + h, novo, w);
+                        }
+                    }
+                }
+                return Double.POSITIVE_INFINITY;
+            } finally {
+                explorados.add(retirados);
+            }
+        }
+
+        /**
+         * Dijkstra de um nó até vários destinos, parando quando todos saírem da fila.
+         */
+        void varios(RedeViaria r, int origem, int[] destinos, double[] resultado) {
+            reiniciar();
+            int faltam = 0;
+            for (int t : destinos) {
+                if (epocaAlvo[t] != epoca) {
+                    epocaAlvo[t] = epoca;
+                    faltam++;
+                }
+            }
+            definir(origem, 0);
+            inserir(0, 0, origem);
+            long retirados = 0;
+            while (tamanho > 0 && faltam > 0) {
+                double custo = custos[0];
+                int v = remover();
+                retirados++;
+                if (custo > distancia[v]) {
+                    continue;
+                }
+                if (epocaAlvo[v] == epoca) {
+                    epocaAlvo[v] = epoca - 1; // Alcançado
+                    faltam--;
+                }
+                relaxar(r, v, custo);
+            }
+            explorados.add(retirados);
+            for (int i = 0; i < destinos.length; i++) {
+                resultado[i] = obter(destinos[i]);
+            }
+        }
+
+        /**
+         * Dijkstra a partir de um nó até esgotar a rede, gravando o custo de todos os nós.
+         */
+        void completa(RedeViaria r, int origem, float[] resultado) {
+            reiniciar();
+            definir(origem, 0);
+            inserir(0, 0, origem);
+            while (tamanho > 0) {
+                double custo = custos[0];
+                int v = remover();
+                if (custo > distancia[v]) {
+                    continue;
+                }
+                relaxar(r, v, custo);
+            }
+            for (int v = 0; v < resultado.length; v++) {
+                resultado[v] = (float) obter(v);
+            }
+        }
+
+        private void relaxar(RedeViaria r, int v, double custo) {
+            for (int a = r.inicioArestas(v), fim = r.fimArestas(v); a < fim; a++) {
+                int w = r.destino(a);
+                double novo = custo + r.custo(a);
+                if (novo < obter(w)) {
+                    definir(w, novo);
+                    inserir(novo, novo, w);
+                }
+            }
+        }
+
+        private void reiniciar() {
+            tamanho = 0;
+            epoca += 2; // Épocas pares; a ímpar anterior marca destinos já alcançados
+            if (epoca < 0) {
+                epoca = 2;
+                Arrays.fill(epocaDistancia, 0);
+                Arrays.fill(epocaAlvo, 0);
+            }
+        }
+
+        private double obter(int v) {
+            return epocaDistancia[v] == epoca ? distancia[v] : Double.POSITIVE_INFINITY;
+        }
+
+        private void definir(int v, double custo) {
+            distancia[v] = custo;
+            epocaDistancia[v] = epoca;
+        }
+
+        private void inserir(double chave, double custo, int no) {
+            if (tamanho == chaves.length) {
+                chaves = Arrays.copyOf(chaves, tamanho * 2);
+                custos = Arrays.copyOf(custos, tamanho * 2);
+                nos = Arrays.copyOf(nos, tamanho * 2);
+            }
+            int i = tamanho++;
+            while (i > 0) {
+                int pai = (i - 1) >>> 1;
+                if (chaves[pai] <= chave) {
+                    break;
+                }
+                mover(pai, i);
+                i = pai;
+            }
+            chaves[i] = chave;
+            custos[i] = custo;
+            nos[i] = no;
+        }
+
+        /**
+         * Retira o topo da fila e retorna o nó; o custo dele deve ser lido antes, em {@code custos[0]}.
+         */
+        private int remover() {
+            int topo = nos[0];
+            tamanho--;
+            double chave = chaves[tamanho];
+            double custo = custos[tamanho];
+            int no = nos[tamanho];
+            int i = 0;
+            while (true) {
+                int filho = 2 * i + 1;
+                if (filho >= tamanho) {
+                    break;
+                }
+                if (filho + 1 < tamanho && chaves[filho + 1] < chaves[filho]) {
+                    filho++;
+                }
+                if (chave <= chaves[filho]) {
+                    break;
+                }
+                mover(filho, i);
+                i = filho;
+            }
+            chaves[i] = chave;
+            custos[i] = custo;
+            nos[i] = no;
+            return topo;
+        }
+
+        private void mover(int de, int para) {
+            chaves[para] = chaves[de];
+            custos[para] = custos[de];
+            nos[para] = nos[de];
+        }
+    }
+}
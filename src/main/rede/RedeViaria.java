@@ -0,0 +1,276 @@
+package rede;
+
+import model.GradeEspacial;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Rede viária da cidade: cruzamentos (nós) com posição no mapa e trechos de rua (arestas
+ * direcionadas) com um custo de percurso.
+ *
+ * As arestas ficam em formato CSR (linhas comprimidas): as que saem do nó {@code v} ocupam as
+ * posições de {@code inicio[v]} a {@code inicio[v + 1] - 1} dos vetores de destino e custo. Uma
+ * rede com um milhão de arestas ocupa poucos vetores primitivos, sem nenhum objeto por nó ou aresta,
+ * e as buscas percorrem as arestas de cada nó em memória contígua. Ruas de mão dupla são duas arestas.
+ *
+ * Formato do arquivo lido por {@link #carregar(Path)} (texto, campos separados por espaços,
+ * linhas iniciadas por {@code #} ignoradas):
+ * <pre>
+ * nós arestas
+ * x y              (uma linha por nó, na ordem dos ids)
+ * origem destino custo
+ * </pre>
+ * A rede não é alterada depois de criada e pode ser consultada por várias threads.
+ */
+public class RedeViaria {
+    private final double[] x;
+    private final double[] y;
+    private final int[] inicio;      // Tamanho nós + 1
+    private final int[] destino;
+    private final double[] custo;
+    private final double fatorEuclidiano; // Menor custo por metro em linha reta entre as arestas
+    private volatile RedeViaria transposta;
+    private volatile GradeEspacial grade;
+
+    /**
+     * Cria a rede a partir das posições dos nós e de uma lista de arestas em qualquer ordem.
+     * @param arestas quantidade de posições usadas nos vetores de arestas.
+     */
+    public RedeViaria(double[] x, double[] y, int[] origens, int[] destinos, double[] custos, int arestas) {
+        int nos = x.length;
+        if (y.length != nos) {
+            throw new IllegalArgumentException("As coordenadas x e y devem ter o mesmo tamanho.");
+        }
+        this.x = x;
+        this.y = y;
+        this.inicio = new int[nos + 1];
+        this.destino = new int[arestas];
+        this.custo = new double[arestas];
+
+        // Ordenação por contagem das arestas pela origem
+        for (int a = 0; a < arestas; a++) {
+            if (origens[a] < 0 || origens[a] >= nos || destinos[a] < 0 || destinos[a] >= nos) {
+                throw new IllegalArgumentException("Aresta " + a + " liga nós inexistentes.");
+            }
+            if (!(custos[a] >= 0)) {
+                throw new IllegalArgumentException("Aresta " + a + " com custo negativo: " + custos[a]);
+            }
+            inicio[origens[a] + 1]++;
+        }
+        for (int v = 0; v < nos; v++) {
+            inicio[v + 1] += inicio[v];
+        }
+        int[] proxima = new int[nos];
+        for (int a = 0; a < arestas; a++) {
+            int v = origens[a];
+            int p = inicio[v] + proxima[v]++;
+            destino[p] = destinos[a];
+            custo[p] = custos[a];
+        }
+
+        double fator = Double.POSITIVE_INFINITY;
+        for (int v = 0; v < nos; v++) {
+            for (int a = inicio[v]; a < inicio[v + 1]; a++) {
+                double reta = Math.hypot(x[destino[a]] - x[v], y[destino[a]] - y[v]);
+                if (reta > 0) {
+                    fator = Math.min(fator, custo[a] / reta);
+                }
+            }
+        }
+        this.fatorEuclidiano = Double.isInfinite(fator) ? 0 : fator;
+    }
+
+    /**
+     * Lê uma rede no formato descrito na classe.
+     */
+    public static RedeViaria carregar(Path arquivo) throws IOException {
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String[] cabecalho = proximaLinha(leitor, arquivo);
+            int nos = Integer.parseInt(cabecalho[0]);
+            int arestas = Integer.parseInt(cabecalho[1]);
+            double[] x = new double[nos];
+            double[] y = new double[nos];
+            for (int v = 0; v < nos; v++) {
+                String[] campos = proximaLinha(leitor, arquivo);
+                x[v] = Double.parseDouble(campos[0]);
+                y[v] = Double.parseDouble(campos[1]);
+            }
+            int[] origens = new int[arestas];
+            int[] destinos = new int[arestas];
+            double[] custos = new double[arestas];
+            for (int a = 0; a < arestas; a++) {
+                String[] campos = proximaLinha(leitor, arquivo);
+                origens[a] = Integer.parseInt(campos[0]);
+                destinos[a] = Integer.parseInt(campos[1]);
+                custos[a] = Double.parseDouble(campos[2]);
+            }
+            return new RedeViaria(x, y, origens, destinos, custos, arestas);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Rede viária inválida em " + arquivo + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Grava a rede no formato lido por {@link #carregar(Path)}.
+     */
+    public void gravar(Path arquivo) throws IOException {
+        try (BufferedWriter escritor = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            escritor.write(getNos() + " " + getArestas() + "\n");
+            for (int v = 0; v < getNos(); v++) {
+                escritor.write(x[v] + " " + y[v] + "\n");
+            }
+            for (int v = 0; v < getNos(); v++) {
+                for (int a = inicio[v]; a < inicio[v + 1]; a++) {
+                    escritor.write(v + " " + destino[a] + " " + custo[a] + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Gera uma rede em grade, com ruas de mão dupla entre cruzamentos vizinhos. O custo de cada
+     * rua é o seu comprimento multiplicado por um fator sorteado entre 1 e 2 (trânsito, semáforos),
+     * igual nos dois sentidos.
+     * @param espacamento distância, em metros, entre dois cruzamentos vizinhos.
+     */
+    public static RedeViaria grade(int colunas, int linhas, double espacamento, long semente) {
+        int nos = colunas * linhas;
+        double[] x = new double[nos];
+        double[] y = new double[nos];
+        for (int l = 0; l < linhas; l++) {
+            for (int c = 0; c < colunas; c++) {
+                x[l * colunas + c] = c * espacamento;
+                y[l * colunas + c] = l * espacamento;
+            }
+        }
+        int maximo = 4 * nos;
+        int[] origens = new int[maximo];
+        int[] destinos = new int[maximo];
+        double[] custos = new double[maximo];
+        int arestas = 0;
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        for (int l = 0; l < linhas; l++) {
+            for (int c = 0; c < colunas; c++) {
+                int v = l * colunas + c;
+                for (int vizinho : new int[]{c + 1 < colunas ? v + 1 : -1, l + 1 < linhas ? v + colunas : -1}) {
+                    if (vizinho < 0) {
+                        continue;
+                    }
+                    double custo = espacamento * (1 + aleatorio.nextDouble());
+                    origens[arestas] = v;
+                    destinos[arestas] = vizinho;
+                    custos[arestas++] = custo;
+                    origens[arestas] = vizinho;
+                    destinos[arestas] = v;
+                    custos[arestas++] = custo;
+                }
+            }
+        }
+        return new RedeViaria(x, y, origens, destinos, custos, arestas);
+    }
+
+    public int getNos() {
+        return x.length;
+    }
+
+    public int getArestas() {
+        return destino.length;
+    }
+
+    public double getX(int no) {
+        return x[no];
+    }
+
+    public double getY(int no) {
+        return y[no];
+    }
+
+    /**
+     * Primeira aresta que sai do nó.
+     */
+    public int inicioArestas(int no) {
+        return inicio[no];
+    }
+
+    /**
+     * Posição logo depois da última aresta que sai do nó.
+     */
+    public int fimArestas(int no) {
+        return inicio[no + 1];
+    }
+
+    public int destino(int aresta) {
+        return destino[aresta];
+    }
+
+    public double custo(int aresta) {
+        return custo[aresta];
+    }
+
+    /**
+     * Menor custo por metro de linha reta entre as arestas da rede. A distância em linha reta
+     * multiplicada por este fator nunca ultrapassa o custo real, o que a torna uma estimativa
+     * válida para o A*.
+     */
+    public double getFatorEuclidiano() {
+        return fatorEuclidiano;
+    }
+
+    /**
+     * Nó mais próximo da posição informada, usado para encaixar lixeiras e depósitos na rede.
+     * O índice espacial é criado na primeira chamada.
+     */
+    public int noMaisProximo(double px, double py) {
+        GradeEspacial atual = grade;
+        if (atual == null) {
+            synchronized (this) {
+                if (grade == null) {
+                    grade = new GradeEspacial(x, y, x.length);
+                }
+                atual = grade;
+            }
+        }
+        return atual.maisProximo(px, py);
+    }
+
+    /**
+     * Rede com todas as arestas invertidas, criada na primeira chamada. Usada para calcular
+     * distâncias até um nó (em vez de a partir dele).
+     */
+    RedeViaria transposta() {
+        RedeViaria atual = transposta;
+        if (atual == null) {
+            synchronized (this) {
+                if (transposta == null) {
+                    int[] origens = new int[destino.length];
+                    for (int v = 0; v < getNos(); v++) {
+                        for (int a = inicio[v]; a < inicio[v + 1]; a++) {
+                            origens[a] = v;
+                        }
+                    }
+                    transposta = new RedeViaria(x, y, destino, origens, custo, destino.length);
+                }
+                atual = transposta;
+            }
+        }
+        return atual;
+    }
+
+    private static String[] proximaLinha(BufferedReader leitor, Path arquivo) throws IOException {
+        String linha;
+        do {
+            linha = leitor.readLine();
+            if (linha == null) {
+                throw new IOException("Fim inesperado do arquivo " + arquivo);
+            }
+            linha = linha.trim();
+        } while (linha.isEmpty() || linha.startsWith("#"));
+        return linha.split("\\s+");
+    }
+}
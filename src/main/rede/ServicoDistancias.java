@@ -0,0 +1,106 @@
+package rede;
+
+import model.ArmazemSensores;
+import strategy.CustoDeslocamento;
+
+import java.util.Arrays;
+
+/**
+ * Custos de deslocamento pela rede viária, para as estratégias de coleta.
+ *
+ * Cada lixeira é encaixada no cruzamento mais próximo uma única vez, na criação do serviço (as
+ * cadastradas depois são encaixadas a cada consulta). Os custos entre cruzamentos são calculados
+ * pelo A* de {@link CaminhosMinimos} e guardados em um {@link CacheDistancias}: uma consulta
+ * repetida custa uma busca na tabela do cache, sem nenhuma busca na rede.
+ *
+ * {@link #preparar(int, int[])} calcula, com uma única busca de Dijkstra, os custos de uma lixeira
+ * até várias outras, o que é bem mais barato que uma busca por par quando as estratégias avaliam
+ * os vizinhos de cada parada.
+ */
+public class ServicoDistancias implements CustoDeslocamento {
+    private final CaminhosMinimos caminhos;
+    private final RedeViaria rede;
+    private final ArmazemSensores armazem;
+    private final CacheDistancias cache;
+    private final int[] noDoSensor;
+
+    /**
+     * @param capacidadeCache quantidade máxima de pares de cruzamentos guardados.
+     */
+    public ServicoDistancias(CaminhosMinimos caminhos, ArmazemSensores armazem, int capacidadeCache) {
+        this.caminhos = caminhos;
+        this.rede = caminhos.getRede();
+        this.armazem = armazem;
+        this.cache = new CacheDistancias(capacidadeCache);
+        this.noDoSensor = new int[armazem.tamanho()];
+        for (int id = 0; id < noDoSensor.length; id++) {
+            noDoSensor[id] = rede.noMaisProximo(armazem.getX(id), armazem.getY(id));
+        }
+    }
+
+    /**
+     * Custo entre dois cruzamentos, do cache ou calculado (e guardado) na hora.
+     */
+    public double entreNos(int origem, int destino) {
+        if (origem == destino) {
+            return 0;
+        }
+        double custo = cache.obter(origem, destino);
+        if (Double.isNaN(custo)) {
+            custo = caminhos.distancia(origem, destino);
+            cache.guardar(origem, destino, custo);
+        }
+        return custo;
+    }
+
+    @Override
+    public double entreSensores(int origem, int destino) {
+        return entreNos(noDoSensor(origem), noDoSensor(destino));
+    }
+
+    @Override
+    public double doPonto(double x, double y, int destino) {
+        return entreNos(rede.noMaisProximo(x, y), noDoSensor(destino));
+    }
+
+    @Override
+    public double ateOPonto(int origem, double x, double y) {
+        return entreNos(noDoSensor(origem), rede.noMaisProximo(x, y));
+    }
+
+    /**
+     * Calcula em uma única busca os custos da origem até os destinos que ainda não estão no cache.
+     */
+    @Override
+    public void preparar(int origem, int[] destinos) {
+        int de = noDoSensor(origem);
+        int[] faltam = new int[destinos.length];
+        int quantidade = 0;
+        for (int destino : destinos) {
+            int para = noDoSensor(destino);
+            if (para != de && Double.isNaN(cache.obter(de, para))) {
+                faltam[quantidade++] = para;
+            }
+        }
+        if (quantidade == 0) {
+            return;
+        }
+        faltam = Arrays.copyOf(faltam, quantidade);
+        double[] custos = new double[quantidade];
+        caminhos.distancias(de, faltam, custos);
+        for (int i = 0; i < quantidade; i++) {
+            cache.guardar(de, faltam[i], custos[i]);
+        }
+    }
+
+    /**
+     * Cruzamento em que a lixeira foi encaixada.
+     */
+    public int noDoSensor(int id) {
+        return id < noDoSensor.length ? noDoSensor[id] : rede.noMaisProximo(armazem.getX(id), armazem.getY(id));
+    }
+
+    public CacheDistancias getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,84 @@
+package simulacao;
+
+/**
+ * Configuração de um cenário de simulação em lote: tamanho da cidade, como as lixeiras enchem,
+ * qual estratégia de coleta é usada e por quanto tempo. Cada cenário é independente e
+ * reproduzível a partir da sua semente.
+ */
+public class Cenario {
+
+    /**
+     * Estratégias de coleta disponíveis para os cenários.
+     */
+    public enum Estrategia {
+        SEQUENCIAL, NIVEL_MAIS_ALTO, GEOGRAFICA, PREDITIVA
+    }
+
+    /**
+     * Como as taxas de enchimento se distribuem entre as lixeiras.
+     */
+    public enum Distribuicao {
+        /** Todas as lixeiras recebem, a cada passo, um aumento sorteado no mesmo intervalo. */
+        UNIFORME,
+        /** A maioria enche devagar e uma minoria (20%) enche muito rápido. */
+        HETEROGENEA,
+        /** Lixeiras perto do centro da cidade enchem mais rápido que as da periferia. */
+        CENTRALIZADA
+    }
+
+    private int id;
+    private Estrategia estrategia;
+    private Distribuicao distribuicao;
+    private int sensores;
+    private int passos;
+    private int intervaloColeta;   // Passos entre duas coletas
+    private int paradasPorColeta;  // Limite de paradas da estratégia por nível mais alto
+    private long semente;
+
+    public Cenario(int id, Estrategia estrategia, Distribuicao distribuicao, int sensores,
+                   int passos, int intervaloColeta, int paradasPorColeta, long semente) {
+        if (sensores < 1 || passos < 1 || intervaloColeta < 1 || paradasPorColeta < 1) {
+            throw new IllegalArgumentException("Sensores, passos, intervalo e paradas devem ser positivos.");
+        }
+        this.id = id;
+        this.estrategia = estrategia;
+        this.distribuicao = distribuicao;
+        this.sensores = sensores;
+        this.passos = passos;
+        this.intervaloColeta = intervaloColeta;
+        this.paradasPorColeta = paradasPorColeta;
+        this.semente = semente;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Estrategia getEstrategia() {
+        return estrategia;
+    }
+
+    public Distribuicao getDistribuicao() {
+        return distribuicao;
+    }
+
+    public int getSensores() {
+        return sensores;
+    }
+
+    public int getPassos() {
+        return passos;
+    }
+
+    public int getIntervaloColeta() {
+        return intervaloColeta;
+    }
+
+    public int getParadasPorColeta() {
+        return paradasPorColeta;
+    }
+
+    public long getSemente() {
+        return semente;
+    }
+}
@@ -0,0 +1,262 @@
+package simulacao;
+
+import model.ArmazemSensores;
+import model.Rota;
+import model.SensorLixo;
+import model.SistemaColetaLixo;
+import strategy.ColetaGeografica;
+import strategy.ColetaPorNivelMaisAlto;
+import strategy.ColetaPreditiva;
+import strategy.ColetaSequencial;
+import strategy.EstrategiaColeta;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.DoubleSummaryStatistics;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Executa muitos {@link Cenario}s independentes em paralelo (Monte Carlo), para planejamento de capacidade.
+ *
+ * Cada cenário monta a sua própria cidade: armazém, {@link SistemaColetaLixo}, estratégia e
+ * gerador {@link SplittableRandom} com a semente do cenário. Nada é compartilhado entre cenários
+ * durante a execução, então as threads do pool não disputam travas nem linhas de cache; cada
+ * resultado vai para a sua própria posição do vetor de resultados. O único ponto de encontro é a
+ * escrita da linha CSV, feita uma vez por cenário, assim que ele termina.
+ *
+ * Simulação de cada cenário, a cada passo:
+ * <ol>
+ *   <li>cada lixeira recebe o aumento sorteado conforme a {@link Cenario.Distribuicao}; o que
+ *       excede o limite é contado como lixo transbordado;</li>
+ *   <li>a cada {@code intervaloColeta} passos, a estratégia gera uma rota, que é percorrida a
+ *       partir do depósito (no centro da cidade) e de volta a ele, esvaziando as lixeiras visitadas.</li>
+ * </ol>
+ */
+public class ExecutorCenarios {
+    public static final double LADO_CIDADE = 10_000; // Metros; as lixeiras ficam em um quadrado deste lado
+    private static final int LIMITE_LIXEIRA = 100;
+    private static final int AUMENTO_MAXIMO = 10;  // Aumento médio por passo: metade disto
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private ForkJoinPool pool;
+
+    /**
+     * Cria o executor sobre o pool comum, que usa todos os núcleos disponíveis.
+     */
+    public ExecutorCenarios() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ExecutorCenarios(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Executa todos os cenários e escreve uma linha CSV por cenário, na ordem em que terminarem.
+     * @param csv destino das linhas, ou {@code null} para não gravar; recebe o cabeçalho primeiro.
+     * @return os resultados, na mesma ordem dos cenários.
+     */
+    public List<ResultadoCenario> executar(List<Cenario> cenarios, Writer csv) throws IOException {
+        ResultadoCenario[] resultados = new ResultadoCenario[cenarios.size()];
+        if (csv != null) {
+            csv.write(ResultadoCenario.cabecalhoCsv());
+            csv.write('\n');
+        }
+        try {
+            pool.submit(() -> IntStream.range(0, resultados.length).parallel().forEach(i -> {
+                ResultadoCenario resultado = executar(cenarios.get(i));
+                resultados[i] = resultado;
+                if (csv != null) {
+                    escrever(csv, resultado);
+                }
+            })).join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (csv != null) {
+            csv.flush();
+        }
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Executa um único cenário na thread atual. Todo o trabalho do cenário fica nesta thread (as
+     * estratégias não dividem a rota com outras), de modo que o tempo de CPU medido é o do cenário.
+     */
+    public static ResultadoCenario executar(Cenario cenario) {
+        long cpuInicio = THREADS.getCurrentThreadCpuTime();
+        SplittableRandom aleatorio = new SplittableRandom(cenario.getSemente());
+        int n = cenario.getSensores();
+
+        // Cidade do cenário: posições sorteadas e taxa de enchimento de cada lixeira
+        ArmazemSensores armazem = new ArmazemSensores(n);
+        int[] aumentoMaximo = new int[n];
+        for (int i = 0; i < n; i++) {
+            double x = aleatorio.nextDouble() * LADO_CIDADE;
+            double y = aleatorio.nextDouble() * LADO_CIDADE;
+            armazem.adicionar(LIMITE_LIXEIRA, x, y);
+            aumentoMaximo[i] = aumentoMaximo(cenario.getDistribuicao(), x, y, aleatorio);
+        }
+
+        long[] passo = new long[1]; // Relógio da estratégia preditiva
+        EstrategiaColeta estrategia = criarEstrategia(cenario, armazem, () -> passo[0]);
+        SistemaColetaLixo sistema = new SistemaColetaLixo(armazem, Collections.emptyList(), estrategia);
+        sistema.setMensagens(false);
+
+        long transbordado = 0;
+        long paradas = 0;
+        long lixoColetado = 0;
+        double comprimento = 0;
+        for (int t = 1; t <= cenario.getPassos(); t++) {
+            passo[0] = t;
+            for (int id = 0; id < n; id++) {
+                int quantidade = aleatorio.nextInt(aumentoMaximo[id] + 1);
+                if (quantidade == 0) {
+                    continue;
+                }
+                int livre = armazem.getLimite(id) - armazem.getNivel(id);
+                if (quantidade > livre) {
+                    transbordado += quantidade - livre;
+                }
+                if (livre > 0) {
+                    armazem.aumentar(id, quantidade);
+                }
+            }
+            if (t % cenario.getIntervaloColeta() == 0) {
+                Rota rota = sistema.gerarRota();
+                List<SensorLixo> pontos = rota.getPontos();
+                comprimento += comprimento(armazem, pontos);
+                for (SensorLixo sensor : pontos) {
+                    lixoColetado += armazem.esvaziar(sensor.getId());
+                }
+                paradas += pontos.size();
+            }
+        }
+        sistema.close();
+        if (estrategia instanceof ColetaPreditiva) {
+            ((ColetaPreditiva) estrategia).close();
+        }
+        long cpu = THREADS.getCurrentThreadCpuTime() - cpuInicio;
+        return new ResultadoCenario(cenario, transbordado, paradas, lixoColetado, comprimento, cpu);
+    }
+
+    /**
+     * Agrupa os resultados por estratégia.
+     */
+    public static Map<Cenario.Estrategia, Resumo> resumir(List<ResultadoCenario> resultados) {
+        Map<Cenario.Estrategia, Resumo> resumos = new EnumMap<>(Cenario.Estrategia.class);
+        for (ResultadoCenario r : resultados) {
+            resumos.computeIfAbsent(r.getCenario().getEstrategia(), e -> new Resumo()).incluir(r);
+        }
+        return resumos;
+    }
+
+    /**
+     * Estatísticas (contagem, mínimo, média e máximo) de um grupo de resultados.
+     */
+    public static class Resumo {
+        private DoubleSummaryStatistics transbordado = new DoubleSummaryStatistics();
+        private DoubleSummaryStatistics paradas = new DoubleSummaryStatistics();
+        private DoubleSummaryStatistics comprimentoKm = new DoubleSummaryStatistics();
+        private DoubleSummaryStatistics cpuMs = new DoubleSummaryStatistics();
+
+        void incluir(ResultadoCenario r) {
+            transbordado.accept(r.getTransbordado());
+            paradas.accept(r.getParadas());
+            comprimentoKm.accept(r.getComprimento() / 1000);
+            cpuMs.accept(r.getTempoCpuNanos() / 1e6);
+        }
+
+        public long getCenarios() {
+            return transbordado.getCount();
+        }
+
+        public DoubleSummaryStatistics getTransbordado() {
+            return transbordado;
+        }
+
+        public DoubleSummaryStatistics getParadas() {
+            return paradas;
+        }
+
+        public DoubleSummaryStatistics getComprimentoKm() {
+            return comprimentoKm;
+        }
+
+        public DoubleSummaryStatistics getCpuMs() {
+            return cpuMs;
+        }
+    }
+
+    private static EstrategiaColeta criarEstrategia(Cenario cenario, ArmazemSensores armazem, LongSupplier relogio) {
+        switch (cenario.getEstrategia()) {
+            case SEQUENCIAL:
+                return new ColetaSequencial();
+            case NIVEL_MAIS_ALTO:
+                return new ColetaPorNivelMaisAlto(cenario.getParadasPorColeta());
+            case GEOGRAFICA: {
+                // Os cenários já ocupam o pool; sequencial, o tempo de CPU da thread inclui toda a rota
+                ColetaGeografica geografica = new ColetaGeografica(LADO_CIDADE / 2, LADO_CIDADE / 2);
+                geografica.setParalela(false);
+                return geografica;
+            }
+            case PREDITIVA:
+                return new ColetaPreditiva(armazem, relogio, cenario.getIntervaloColeta());
+            default:
+                throw new IllegalArgumentException("Estratégia desconhecida: " + cenario.getEstrategia());
+        }
+    }
+
+    private static int aumentoMaximo(Cenario.Distribuicao distribuicao, double x, double y, SplittableRandom aleatorio) {
+        switch (distribuicao) {
+            case HETEROGENEA:
+                return aleatorio.nextInt(5) == 0 ? 4 * AUMENTO_MAXIMO : AUMENTO_MAXIMO / 2;
+            case CENTRALIZADA:
+                double dx = x / LADO_CIDADE - 0.5;
+                double dy = y / LADO_CIDADE - 0.5;
+                double distancia = Math.sqrt(dx * dx + dy * dy) / Math.sqrt(0.5); // 0 no centro, 1 nos cantos
+                return (int) Math.round(AUMENTO_MAXIMO * 2 * (1 - distancia));
+            default:
+                return AUMENTO_MAXIMO;
+        }
+    }
+
+    /**
+     * Comprimento da rota saindo do depósito, no centro da cidade, e voltando a ele.
+     */
+    private static double comprimento(ArmazemSensores armazem, List<SensorLixo> pontos) {
+        double x = LADO_CIDADE / 2;
+        double y = LADO_CIDADE / 2;
+        double total = 0;
+        for (SensorLixo sensor : pontos) {
+            int id = sensor.getId();
+            total += Math.hypot(armazem.getX(id) - x, armazem.getY(id) - y);
+            x = armazem.getX(id);
+            y = armazem.getY(id);
+        }
+        return total + Math.hypot(LADO_CIDADE / 2 - x, LADO_CIDADE / 2 - y);
+    }
+
+    private static void escrever(Writer csv, ResultadoCenario resultado) {
+        String linha = resultado.linhaCsv() + "\n";
+        try {
+            synchronized (csv) {
+                csv.write(linha);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
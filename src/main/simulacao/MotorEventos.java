@@ -0,0 +1,486 @@
+package simulacao;
+
+import model.ArmazemSensores;
+import model.CaminhaoColeta;
+import model.Rota;
+import model.SensorLixo;
+import model.SistemaColetaLixo;
+import observer.AlteracoesPendentes;
+import observer.OuvinteNivel;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Motor de simulação por eventos discretos para o enchimento das lixeiras e o trabalho dos caminhões.
+ *
+ * Em vez de avançar em passos fixos, o motor mantém uma fila de prioridade de eventos com instante
+ * marcado, em segundos simulados, e salta direto de um evento para o seguinte: períodos sem
+ * nenhum acontecimento não custam nada, e toda a frota é atendida por uma única thread.
+ * Os eventos são:
+ * <ul>
+ *   <li>uma lixeira atinge o limite: cada lixeira enche a uma taxa constante, então o instante em
+ *       que ela enche é calculado de uma vez, e não acompanhado passo a passo;</li>
+ *   <li>um caminhão chega a uma lixeira, e termina de esvaziá-la depois do tempo de serviço;</li>
+ *   <li>um caminhão volta ao depósito e descarrega;</li>
+ *   <li>despachos periódicos, que distribuem rotas aos caminhões parados.</li>
+ * </ul>
+ * Eventos no mesmo instante são tratados na ordem em que foram agendados, então a mesma semente e
+ * a mesma sequência de chamadas produzem sempre o mesmo resultado.
+ *
+ * O nível de cada lixeira é mantido pelo motor como base + taxa × tempo decorrido. O armazém só
+ * recebe o nível quando algo acontece com a lixeira (enche ou é esvaziada) ou quando
+ * {@link #sincronizarNiveis()} é chamado, por exemplo antes de gerar rotas ou ao desenhar a tela.
+ * Alterações feitas por fora no armazém (um passo do {@link MotorSimulacao}, uma restauração)
+ * passam a ser a nova base da lixeira; sincronize antes delas para não perder o enchimento acumulado.
+ *
+ * Os métodos são sincronizados. As alterações feitas por outras threads não tomam a trava do
+ * motor: a lixeira é apenas marcada em um vetor de bits atômico ({@link AlteracoesPendentes}) e
+ * rebaseada com o nível atual do armazém no início da próxima operação, antes de o relógio andar,
+ * como se tivesse sido recebida no mesmo instante.
+ *
+ * O motor se registra como ouvinte do armazém ao ser criado; quem o substitui por outro sobre o
+ * mesmo armazém deve fechá-lo ({@link #close()}).
+ */
+public class MotorEventos implements OuvinteNivel, AutoCloseable {
+    private static final byte LIMITE = 0;
+    private static final byte CHEGADA = 1;
+    private static final byte FIM_SERVICO = 2;
+    private static final byte RETORNO = 3;
+    private static final byte DESPACHO = 4;
+
+    private final SistemaColetaLixo sistema;
+    private final ArmazemSensores armazem;
+    private final PriorityQueue<Evento> fila = new PriorityQueue<>();
+    private long agendados;            // Desempata eventos no mesmo instante
+    private double agora;              // Segundos simulados
+
+    // Nível contínuo de cada lixeira: base + taxa * (agora - desde)
+    private final double[] base;
+    private final double[] desde;
+    private final double[] taxa;       // Unidades de lixo por segundo
+    private final int[] geracao;       // Invalida o evento de limite agendado quando a lixeira muda
+
+    private final List<CaminhaoColeta> frota;
+    private final Map<CaminhaoColeta, Integer> indiceCaminhao = new IdentityHashMap<>();
+    private final Viagem[] viagens;    // Viagem em andamento de cada caminhão (null = no depósito)
+    private final double velocidade;   // Metros por segundo
+    private final double tempoServico; // Segundos para esvaziar uma lixeira
+    private double intervaloDespacho;  // 0 = sem despachos automáticos
+    private volatile Thread escritor;  // Thread do motor enquanto ele altera o armazém
+    private final AlteracoesPendentes externas; // Lixeiras alteradas por fora ainda não rebaseadas
+
+    private long eventos;
+    private long transbordamentos;
+    private long lixoColetado;
+    private double lixoTransbordado;
+    private long paradas;
+    private long viagensConcluidas;
+    private int caminhoesEmRota;
+    private final List<SensorLixo> naoAtendidas = new ArrayList<>(); // Lixeiras sem caminhão no último despacho
+
+    /**
+     * Cria o motor sobre os sensores e a frota do sistema, no instante zero.
+     * @param semente semente que sorteia a taxa de enchimento de cada lixeira.
+     * @param taxaMaxima maior taxa de enchimento sorteada, em unidades de nível por segundo.
+     * @param velocidade velocidade dos caminhões, em metros por segundo.
+     * @param tempoServico segundos que um caminhão leva para esvaziar uma lixeira.
+     */
+    public MotorEventos(SistemaColetaLixo sistema, long semente, double taxaMaxima,
+                        double velocidade, double tempoServico) {
+        if (sistema.getCaminhoes().isEmpty()) {
+            throw new IllegalArgumentException("O sistema precisa de ao menos um caminhão.");
+        }
+        if (taxaMaxima < 0 || velocidade <= 0 || tempoServico < 0) {
+            throw new IllegalArgumentException("Taxa, velocidade e tempo de serviço inválidos.");
+        }
+        this.sistema = sistema;
+        this.armazem = sistema.getArmazem();
+        this.frota = sistema.getCaminhoes();
+        this.velocidade = velocidade;
+        this.tempoServico = tempoServico;
+        this.viagens = new Viagem[frota.size()];
+        for (int c = 0; c < frota.size(); c++) {
+            indiceCaminhao.put(frota.get(c), c);
+        }
+
+        int n = armazem.tamanho();
+        base = new double[n];
+        desde = new double[n];
+        taxa = new double[n];
+        geracao = new int[n];
+        externas = new AlteracoesPendentes(n);
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        for (int id = 0; id < n; id++) {
+            base[id] = armazem.getNivel(id);
+            taxa[id] = aleatorio.nextDouble() * taxaMaxima;
+            agendarLimite(id);
+        }
+        armazem.registrarOuvinte(this);
+    }
+
+    /**
+     * Define a taxa de enchimento de uma lixeira a partir de agora.
+     */
+    public synchronized void setTaxa(int id, double taxa) {
+        aplicarExternas();
+        rebasear(id, nivelContinuo(id));
+        this.taxa[id] = taxa;
+        agendarLimite(id);
+    }
+
+    /**
+     * Passa a despachar os caminhões parados a cada intervalo de tempo simulado, a partir de agora.
+     * Zero desliga os despachos automáticos.
+     */
+    public synchronized void agendarDespachos(double intervalo) {
+        boolean agendar = intervaloDespacho == 0 && intervalo > 0;
+        intervaloDespacho = intervalo;
+        if (agendar) {
+            agendar(agora + intervalo, DESPACHO, 0, 0);
+        }
+    }
+
+    /**
+     * Distribui rotas, geradas com a estratégia atual do sistema, aos caminhões parados no depósito.
+     * Os níveis são sincronizados antes do planejamento. As lixeiras que o planejamento destina a
+     * caminhões ainda em rota ficam para o próximo despacho, assim como as que excedem a capacidade
+     * da frota ({@link #getNaoAtendidas()}). As lixeiras que ainda faltam nas viagens em andamento
+     * são retiradas das rotas novas, para que nenhuma seja coletada por dois caminhões.
+     * @return quantos caminhões saíram.
+     */
+    public synchronized int despachar() {
+        sincronizarNiveis();
+        boolean[] emViagem = new boolean[base.length];
+        for (Viagem viagem : viagens) {
+            if (viagem != null) {
+                for (int i = viagem.proxima; i < viagem.pontos.size(); i++) {
+                    emViagem[viagem.pontos.get(i).getId()] = true;
+                }
+            }
+        }
+        int saidas = 0;
+        naoAtendidas.clear();
+        for (Map.Entry<CaminhaoColeta, Rota> plano : sistema.planejarFrota(naoAtendidas).entrySet()) {
+            int c = indiceCaminhao.get(plano.getKey());
+            if (viagens[c] != null) {
+                continue;
+            }
+            List<SensorLixo> pontos = new ArrayList<>(plano.getValue().getPontos());
+            pontos.removeIf(sensor -> emViagem[sensor.getId()]);
+            if (pontos.isEmpty()) {
+                continue;
+            }
+            CaminhaoColeta caminhao = frota.get(c);
+            Viagem viagem = new Viagem(pontos, caminhao.getDepositoX(), caminhao.getDepositoY());
+            viagens[c] = viagem;
+            caminhoesEmRota++;
+            saidas++;
+            agendar(agora + deslocamento(viagem, pontos.get(0).getId()), CHEGADA, c, 0);
+        }
+        naoAtendidas.removeIf(sensor -> emViagem[sensor.getId()]);
+        return saidas;
+    }
+
+    /**
+     * Trata todos os eventos até o instante informado (inclusive) e leva o relógio até ele.
+     * @return quantos eventos foram tratados.
+     */
+    public synchronized int avancarAte(double instante) {
+        aplicarExternas();
+        int tratados = 0;
+        while (!fila.isEmpty() && fila.peek().instante <= instante) {
+            tratar(fila.poll());
+            tratados++;
+        }
+        agora = Math.max(agora, instante);
+        return tratados;
+    }
+
+    /**
+     * Trata o próximo evento da fila, levando o relógio até ele.
+     * @return {@code false} se não há eventos agendados.
+     */
+    public synchronized boolean proximoEvento() {
+        aplicarExternas();
+        Evento evento = fila.poll();
+        if (evento == null) {
+            return false;
+        }
+        tratar(evento);
+        return true;
+    }
+
+    /**
+     * Grava no armazém o nível atual de todas as lixeiras (a parte inteira do nível contínuo).
+     */
+    public synchronized void sincronizarNiveis() {
+        aplicarExternas();
+        escritor = Thread.currentThread();
+        try {
+            for (int id = 0; id < base.length; id++) {
+                int nivel = (int) Math.min(nivelContinuo(id), armazem.getLimite(id));
+                if (armazem.getNivel(id) != nivel) {
+                    armazem.registrarLeitura(id, nivel);
+                }
+            }
+        } finally {
+            escritor = null;
+        }
+    }
+
+    /**
+     * Recebe alterações de nível feitas por fora do motor, que passam a ser a nova base da lixeira
+     * na próxima operação. As escritas do próprio motor são ignoradas.
+     */
+    @Override
+    public void nivelAlterado(int id, int anterior, int novo) {
+        if (escritor == Thread.currentThread() || id >= base.length) {
+            return;
+        }
+        externas.marcar(id);
+    }
+
+    /**
+     * Deixa de acompanhar o armazém e descarta os eventos agendados. As estatísticas continuam
+     * disponíveis; o motor não deve mais ser avançado.
+     */
+    @Override
+    public synchronized void close() {
+        armazem.removerOuvinte(this);
+        fila.clear();
+    }
+
+    /**
+     * Rebaseia as lixeiras alteradas por fora desde a última operação com o nível atual do armazém.
+     */
+    private void aplicarExternas() {
+        externas.retirar(id -> {
+            rebasear(id, armazem.getNivel(id));
+            agendarLimite(id);
+        });
+    }
+
+    private void tratar(Evento evento) {
+        agora = evento.instante;
+        eventos++;
+        switch (evento.tipo) {
+            case LIMITE:
+                if (evento.geracao == geracao[evento.alvo]) {
+                    transbordamentos++;
+                    escrever(evento.alvo, armazem.getLimite(evento.alvo));
+                }
+                break;
+            case CHEGADA:
+                chegar(evento.alvo);
+                break;
+            case FIM_SERVICO:
+                concluirServico(evento.alvo);
+                break;
+            case RETORNO:
+                viagens[evento.alvo] = null;
+                caminhoesEmRota--;
+                viagensConcluidas++;
+                break;
+            case DESPACHO:
+                if (intervaloDespacho > 0) {
+                    despachar();
+                    agendar(agora + intervaloDespacho, DESPACHO, 0, 0);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Evento desconhecido: " + evento.tipo);
+        }
+    }
+
+    private void chegar(int c) {
+        Viagem viagem = viagens[c];
+        int id = viagem.pontos.get(viagem.proxima).getId();
+        viagem.x = armazem.getX(id);
+        viagem.y = armazem.getY(id);
+        int nivel = (int) Math.min(nivelContinuo(id), armazem.getLimite(id));
+        if ((long) viagem.carga + nivel > frota.get(c).getCapacidade()) {
+            voltar(c); // Não cabe: volta ao depósito com o que já leva
+            return;
+        }
+        agendar(agora + tempoServico, FIM_SERVICO, c, 0);
+    }
+
+    private void concluirServico(int c) {
+        Viagem viagem = viagens[c];
+        int id = viagem.pontos.get(viagem.proxima).getId();
+        int coletado = (int) Math.min(nivelContinuo(id), armazem.getLimite(id));
+        rebasear(id, 0);
+        agendarLimite(id);
+        escrever(id, 0);
+        viagem.carga += coletado;
+        lixoColetado += coletado;
+        paradas++;
+
+        viagem.proxima++;
+        if (viagem.proxima < viagem.pontos.size()) {
+            agendar(agora + deslocamento(viagem, viagem.pontos.get(viagem.proxima).getId()), CHEGADA, c, 0);
+        } else {
+            voltar(c);
+        }
+    }
+
+    private void voltar(int c) {
+        Viagem viagem = viagens[c];
+        CaminhaoColeta caminhao = frota.get(c);
+        double distancia = Math.hypot(caminhao.getDepositoX() - viagem.x, caminhao.getDepositoY() - viagem.y);
+        agendar(agora + distancia / velocidade, RETORNO, c, 0);
+    }
+
+    private double deslocamento(Viagem viagem, int destino) {
+        return Math.hypot(armazem.getX(destino) - viagem.x, armazem.getY(destino) - viagem.y) / velocidade;
+    }
+
+    private double nivelContinuo(int id) {
+        return base[id] + taxa[id] * (agora - desde[id]);
+    }
+
+    /**
+     * Fixa o nível da lixeira a partir de agora, contabilizando o que transbordou até aqui.
+     */
+    private void rebasear(int id, double nivel) {
+        double excesso = nivelContinuo(id) - armazem.getLimite(id);
+        if (excesso > 0) {
+            lixoTransbordado += excesso;
+        }
+        base[id] = nivel;
+        desde[id] = agora;
+    }
+
+    /**
+     * Agenda o instante em que a lixeira atinge o limite, descartando o agendamento anterior.
+     */
+    private void agendarLimite(int id) {
+        int g = ++geracao[id];
+        double falta = armazem.getLimite(id) - base[id];
+        if (falta > 0 && taxa[id] > 0) {
+            agendar(desde[id] + falta / taxa[id], LIMITE, id, g);
+        }
+    }
+
+    private void escrever(int id, int nivel) {
+        escritor = Thread.currentThread();
+        try {
+            armazem.registrarLeitura(id, nivel);
+        } finally {
+            escritor = null;
+        }
+    }
+
+    private void agendar(double instante, byte tipo, int alvo, int geracao) {
+        fila.add(new Evento(instante, agendados++, tipo, alvo, geracao));
+    }
+
+    /**
+     * Instante atual, em segundos simulados.
+     */
+    public synchronized double getAgora() {
+        return agora;
+    }
+
+    /**
+     * Instante do próximo evento agendado, ou infinito se não houver nenhum.
+     */
+    public synchronized double getProximoInstante() {
+        aplicarExternas();
+        return fila.isEmpty() ? Double.POSITIVE_INFINITY : fila.peek().instante;
+    }
+
+    /**
+     * Nível atual da lixeira segundo o motor, com a fração acumulada desde o último evento.
+     */
+    public synchronized double getNivel(int id) {
+        aplicarExternas();
+        return Math.min(nivelContinuo(id), armazem.getLimite(id));
+    }
+
+    public synchronized long getEventos() {
+        return eventos;
+    }
+
+    /**
+     * Quantas vezes alguma lixeira atingiu o limite.
+     */
+    public synchronized long getTransbordamentos() {
+        return transbordamentos;
+    }
+
+    /**
+     * Lixo que não coube nas lixeiras cheias até o último evento que tocou cada uma delas.
+     */
+    public synchronized double getLixoTransbordado() {
+        aplicarExternas();
+        return lixoTransbordado;
+    }
+
+    public synchronized long getLixoColetado() {
+        return lixoColetado;
+    }
+
+    public synchronized long getParadas() {
+        return paradas;
+    }
+
+    public synchronized long getViagensConcluidas() {
+        return viagensConcluidas;
+    }
+
+    public synchronized int getCaminhoesEmRota() {
+        return caminhoesEmRota;
+    }
+
+    /**
+     * Lixeiras que não couberam na capacidade da frota no último despacho.
+     */
+    public synchronized List<SensorLixo> getNaoAtendidas() {
+        return new ArrayList<>(naoAtendidas);
+    }
+
+    /**
+     * Viagem de um caminhão: as paradas da rota, a próxima delas, a carga e a última posição.
+     */
+    private static final class Viagem {
+        final List<SensorLixo> pontos;
+        int proxima;
+        int carga;
+        double x;
+        double y;
+
+        Viagem(List<SensorLixo> pontos, double x, double y) {
+            this.pontos = pontos;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static final class Evento implements Comparable<Evento> {
+        final double instante;
+        final long ordem;
+        final byte tipo;
+        final int alvo;     // Lixeira (limite) ou índice do caminhão
+        final int geracao;
+
+        Evento(double instante, long ordem, byte tipo, int alvo, int geracao) {
+            this.instante = instante;
+            this.ordem = ordem;
+            this.tipo = tipo;
+            this.alvo = alvo;
+            this.geracao = geracao;
+        }
+
+        @Override
+        public int compareTo(Evento outro) {
+            int c = Double.compare(instante, outro.instante);
+            return c != 0 ? c : Long.compare(ordem, outro.ordem);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package simulacao;
+
+import model.ArmazemSensores;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Motor de simulação em passos fixos (ticks), sem interface gráfica.
+ *
+ * A cada passo, todos os sensores do armazém recebem um aumento aleatório de lixo entre 1 e
+ * o aumento máximo configurado. Os sensores são divididos em blocos de tamanho fixo, processados
+ * em paralelo; cada bloco usa seu próprio gerador {@link SplittableRandom}, obtido por
+ * {@code split()} de um gerador raiz, sempre na mesma ordem. Como o tamanho dos blocos não depende
+ * da quantidade de núcleos, a mesma semente produz exatamente a mesma simulação em qualquer máquina,
+ * seja ela executada em paralelo ou em sequência.
+ *
+ * O motor pode seguir uma taxa de passos por segundo (para acompanhar a simulação em tempo real)
+ * ou rodar o mais rápido possível, o que permite simular semanas da cidade em segundos.
+ */
+public class MotorSimulacao {
+    private static final int TAMANHO_BLOCO = 4096;
+
+    private ArmazemSensores armazem;
+    private int aumentoMaximo;          // Maior aumento de nível sorteado por passo
+    private SplittableRandom raiz;      // Origem de todos os geradores dos blocos
+    private long passosExecutados;
+    private double passosPorSegundo;    // 0 = o mais rápido possível
+    private boolean paralelo = true;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Cria o motor sobre os sensores de um armazém.
+     * @param armazem sensores simulados.
+     * @param semente semente que determina toda a sequência de aumentos.
+     * @param aumentoMaximo maior aumento de nível sorteado para um sensor em um passo.
+     */
+    public MotorSimulacao(ArmazemSensores armazem, long semente, int aumentoMaximo) {
+        if (aumentoMaximo < 1) {
+            throw new IllegalArgumentException("O aumento máximo deve ser positivo.");
+        }
+        this.armazem = armazem;
+        this.aumentoMaximo = aumentoMaximo;
+        this.raiz = new SplittableRandom(semente);
+    }
+
+    /**
+     * Define quantos passos por segundo {@link #executar(long)} deve seguir.
+     * Zero (o padrão) executa os passos o mais rápido possível.
+     */
+    public void setPassosPorSegundo(double passosPorSegundo) {
+        this.passosPorSegundo = passosPorSegundo;
+    }
+
+    /**
+     * Liga ou desliga o processamento paralelo dos blocos. O resultado é o mesmo nos dois modos.
+     */
+    public void setParalelo(boolean paralelo) {
+        this.paralelo = paralelo;
+    }
+
+    /**
+     * Define o pool usado no processamento paralelo (por padrão, o pool comum).
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public long getPassosExecutados() {
+        return passosExecutados;
+    }
+
+    /**
+     * Avança um passo: todos os sensores recebem seu aumento de lixo.
+     */
+    public void passo() {
+        int n = armazem.tamanho();
+        int blocos = (n + TAMANHO_BLOCO - 1) / TAMANHO_BLOCO;
+        SplittableRandom[] geradores = new SplittableRandom[blocos];
+        for (int b = 0; b < blocos; b++) {
+            geradores[b] = raiz.split();
+        }
+
+        if (paralelo && blocos > 1) {
+            pool.submit(() -> IntStream.range(0, blocos).parallel()
+                    .forEach(b -> avancarBloco(b, geradores[b], n))).join();
+        } else {
+            for (int b = 0; b < blocos; b++) {
+                avancarBloco(b, geradores[b], n);
+            }
+        }
+        passosExecutados++;
+    }
+
+    /**
+     * Executa a quantidade de passos informada, respeitando a taxa configurada.
+     */
+    public void executar(long passos) throws InterruptedException {
+        long intervalo = passosPorSegundo > 0 ? (long) (1_000_000_000L / passosPorSegundo) : 0;
+        long proximo = System.nanoTime();
+        for (long i = 0; i < passos; i++) {
+            passo();
+            if (intervalo > 0) {
+                proximo += intervalo;
+                long espera = proximo - System.nanoTime();
+                if (espera > 0) {
+                    TimeUnit.NANOSECONDS.sleep(espera);
+                }
+            }
+        }
+    }
+
+    private void avancarBloco(int bloco, SplittableRandom gerador, int n) {
+        int inicio = bloco * TAMANHO_BLOCO;
+        int fim = Math.min(inicio + TAMANHO_BLOCO, n);
+        for (int id = inicio; id < fim; id++) {
+            armazem.aumentar(id, gerador.nextInt(aumentoMaximo) + 1);
+        }
+    }
+}
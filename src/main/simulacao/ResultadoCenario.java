@@ -0,0 +1,62 @@
+package simulacao;
+
+/**
+ * Resultado da execução de um {@link Cenario}.
+ */
+public class ResultadoCenario {
+    private Cenario cenario;
+    private long transbordado;      // Lixo que chegou com a lixeira já cheia
+    private long paradas;           // Lixeiras visitadas em todas as coletas
+    private long lixoColetado;
+    private double comprimento;     // Distância total percorrida nas rotas, em metros
+    private long tempoCpuNanos;
+
+    public ResultadoCenario(Cenario cenario, long transbordado, long paradas, long lixoColetado,
+                            double comprimento, long tempoCpuNanos) {
+        this.cenario = cenario;
+        this.transbordado = transbordado;
+        this.paradas = paradas;
+        this.lixoColetado = lixoColetado;
+        this.comprimento = comprimento;
+        this.tempoCpuNanos = tempoCpuNanos;
+    }
+
+    public Cenario getCenario() {
+        return cenario;
+    }
+
+    public long getTransbordado() {
+        return transbordado;
+    }
+
+    public long getParadas() {
+        return paradas;
+    }
+
+    public long getLixoColetado() {
+        return lixoColetado;
+    }
+
+    public double getComprimento() {
+        return comprimento;
+    }
+
+    public long getTempoCpuNanos() {
+        return tempoCpuNanos;
+    }
+
+    /**
+     * Cabeçalho das linhas produzidas por {@link #linhaCsv()}.
+     */
+    public static String cabecalhoCsv() {
+        return "cenario,estrategia,distribuicao,sensores,passos,intervalo_coleta,semente,"
+                + "transbordado,paradas,lixo_coletado,comprimento_km,cpu_ms";
+    }
+
+    public String linhaCsv() {
+        return cenario.getId() + "," + cenario.getEstrategia() + "," + cenario.getDistribuicao() + ","
+                + cenario.getSensores() + "," + cenario.getPassos() + "," + cenario.getIntervaloColeta() + ","
+                + cenario.getSemente() + "," + transbordado + "," + paradas + "," + lixoColetado + ","
+                + String.format(java.util.Locale.ROOT, "%.3f,%.3f", comprimento / 1000, tempoCpuNanos / 1e6);
+    }
+}
@@ -0,0 +1,300 @@
+package strategy;
+
+import model.ArmazemSensores;
+import model.Rota;
+import model.SensorLixo;
+import observer.OuvinteNivel;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache de rotas geradas pelas estratégias de coleta sobre os sensores de um armazém.
+ *
+ * Cada rota fica guardada pela estratégia e pela lista de sensores usadas para gerá-la (ambas
+ * comparadas por identidade) e carimbada com a {@link ArmazemSensores#versao() versão} do armazém
+ * naquele momento. Pedir a mesma rota de novo custa apenas a leitura da versão enquanto nenhum
+ * nível mudar. A validade depende da estratégia ({@link EstrategiaColeta#validade()}): rotas que só
+ * dependem da lista, como a geográfica, são reaproveitadas mesmo depois de alterações de nível, e
+ * rotas que dependem do relógio nunca são guardadas.
+ *
+ * Para estratégias {@link EstrategiaIncremental}, o cache também registra as últimas alterações
+ * de nível (até {@value #CAPACIDADE_REGISTRO}) como ouvinte do armazém. Quando a versão mudou, mas
+ * por poucas alterações, a estratégia recebe apenas essas alterações e pode manter ou ajustar a
+ * rota anterior em vez de gerá-la do zero. Quando o registro enche, ele para de registrar até o
+ * próximo pedido, e as rotas anteriores passam a ser geradas do zero.
+ *
+ * O cache guarda no máximo a quantidade de rotas informada, descartando a usada há mais tempo.
+ * Quem cria o cache deve fechá-lo ({@link #close()}) quando o armazém continuar em uso sem ele.
+ * As rotas retornadas são compartilhadas entre os pedidos e não devem ser modificadas, assim como
+ * as listas de sensores usadas como chave.
+ */
+public class CacheRotas implements OuvinteNivel, AutoCloseable {
+    private static final int CAPACIDADE_REGISTRO = 1024;
+
+    private final ArmazemSensores armazem;
+    private final int capacidade;
+    private final Map<Chave, Entrada> entradas;
+
+    // Registro das alterações de nível recentes, protegido por "registro"
+    private final Object registro = new Object();
+    private final int[] ids = new int[CAPACIDADE_REGISTRO];
+    private final int[] anteriores = new int[CAPACIDADE_REGISTRO];
+    private final int[] novos = new int[CAPACIDADE_REGISTRO];
+    private int registradas;
+    private long geracaoRegistro;         // Muda sempre que o registro recomeça do zero
+    private boolean transbordou;          // Alguma alteração deixou de ser registrada
+    private volatile boolean registrando; // Há rotas que podem ser atualizadas a partir do registro
+
+    private long acertos;
+    private long erros;
+    private long remendos;
+    private long expulsoes;
+
+    /**
+     * Cria o cache e passa a acompanhar as alterações de nível do armazém.
+     * @param capacidade quantidade máxima de rotas guardadas.
+     */
+    public CacheRotas(ArmazemSensores armazem, int capacidade) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("A capacidade do cache deve ser positiva.");
+        }
+        this.armazem = armazem;
+        this.capacidade = capacidade;
+        this.entradas = new LinkedHashMap<Chave, Entrada>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, Entrada> maisAntiga) {
+                if (size() > CacheRotas.this.capacidade) {
+                    expulsoes++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        armazem.registrarOuvinte(this);
+    }
+
+    /**
+     * Retorna a rota da estratégia para a lista de sensores, reaproveitando ou atualizando a rota
+     * guardada quando possível e gerando-a do zero caso contrário.
+     */
+    public synchronized Rota obter(EstrategiaColeta estrategia, List<SensorLixo> sensores) {
+        EstrategiaColeta.Validade validade = estrategia.validade();
+        if (validade == EstrategiaColeta.Validade.NUNCA) {
+            erros++;
+            return estrategia.gerarRota(sensores);
+        }
+        Chave chave = new Chave(estrategia, sensores);
+        Entrada entrada = entradas.get(chave);
+
+        if (validade == EstrategiaColeta.Validade.LISTA) {
+            if (entrada != null && entrada.tamanho == sensores.size()) {
+                acertos++;
+                return entrada.rota;
+            }
+            erros++;
+            Rota rota = estrategia.gerarRota(sensores);
+            entradas.put(chave, new Entrada(rota, sensores.size(), 0, 0, 0, 0));
+            return rota;
+        }
+
+        // A ordem importa: estrutura, versão e só então a posição no registro (ver ArmazemSensores.versao)
+        boolean incremental = estrategia instanceof EstrategiaIncremental;
+        if (incremental) {
+            registrando = true;
+        }
+        int estrutura = armazem.getVersaoEstrutura();
+        long versao = armazem.versao();
+        int posicao;
+        long geracao;
+        synchronized (registro) {
+            if (transbordou) {
+                registradas = 0;
+                geracaoRegistro++;
+                transbordou = false;
+                registrando = incremental;
+            }
+            posicao = registradas;
+            geracao = geracaoRegistro;
+        }
+
+        if (entrada != null && entrada.estrutura == estrutura && entrada.tamanho == sensores.size()) {
+            if (entrada.versao == versao) {
+                acertos++;
+                return entrada.rota;
+            }
+            if (incremental && entrada.geracao == geracao) {
+                Rota rota = ((EstrategiaIncremental) estrategia).atualizarRota(entrada.rota, sensores,
+                        new Janela(entrada.posicao, posicao));
+                if (rota != null) {
+                    remendos++;
+                    entradas.put(chave, new Entrada(rota, sensores.size(), estrutura, versao, geracao, posicao));
+                    return rota;
+                }
+            }
+        }
+
+        erros++;
+        Rota rota = estrategia.gerarRota(sensores);
+        entradas.put(chave, new Entrada(rota, sensores.size(), estrutura, versao, geracao, posicao));
+        return rota;
+    }
+
+    /**
+     * Registra a alteração, se houver rotas que possam ser atualizadas a partir dela.
+     * Fora disso, custa apenas uma leitura volátil.
+     */
+    @Override
+    public void nivelAlterado(int id, int anterior, int novo) {
+        if (!registrando) {
+            return;
+        }
+        synchronized (registro) {
+            if (registradas == CAPACIDADE_REGISTRO) {
+                transbordou = true;
+                registrando = false;
+                return;
+            }
+            ids[registradas] = id;
+            anteriores[registradas] = anterior;
+            novos[registradas] = novo;
+            registradas++;
+        }
+    }
+
+    /**
+     * Descarta todas as rotas guardadas. As estatísticas são mantidas.
+     */
+    public synchronized void limpar() {
+        entradas.clear();
+    }
+
+    /**
+     * Deixa de acompanhar as alterações de nível do armazém e descarta as rotas guardadas.
+     */
+    @Override
+    public synchronized void close() {
+        armazem.removerOuvinte(this);
+        registrando = false;
+        entradas.clear();
+    }
+
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    /**
+     * Pedidos atendidos com a rota guardada, sem nenhuma alteração.
+     */
+    public synchronized long getAcertos() {
+        return acertos;
+    }
+
+    /**
+     * Pedidos em que a rota precisou ser gerada do zero.
+     */
+    public synchronized long getErros() {
+        return erros;
+    }
+
+    /**
+     * Pedidos atendidos atualizando a rota guardada a partir das alterações registradas.
+     */
+    public synchronized long getRemendos() {
+        return remendos;
+    }
+
+    /**
+     * Rotas descartadas por falta de espaço.
+     */
+    public synchronized long getExpulsoes() {
+        return expulsoes;
+    }
+
+    /**
+     * Fração dos pedidos atendidos sem gerar a rota do zero (acertos e remendos).
+     */
+    public synchronized double taxaAcerto() {
+        long total = acertos + remendos + erros;
+        return total == 0 ? 0 : (acertos + remendos) / (double) total;
+    }
+
+    /**
+     * Rota guardada e o momento (versões e posição no registro) em que ela foi gerada.
+     */
+    private static final class Entrada {
+        final Rota rota;
+        final int tamanho;     // Tamanho da lista de sensores
+        final int estrutura;
+        final long versao;
+        final long geracao;
+        final int posicao;
+
+        Entrada(Rota rota, int tamanho, int estrutura, long versao, long geracao, int posicao) {
+            this.rota = rota;
+            this.tamanho = tamanho;
+            this.estrutura = estrutura;
+            this.versao = versao;
+            this.geracao = geracao;
+            this.posicao = posicao;
+        }
+    }
+
+    /**
+     * Estratégia e lista de sensores, comparadas por identidade.
+     */
+    private static final class Chave {
+        final EstrategiaColeta estrategia;
+        final List<SensorLixo> sensores;
+
+        Chave(EstrategiaColeta estrategia, List<SensorLixo> sensores) {
+            this.estrategia = estrategia;
+            this.sensores = sensores;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Chave && ((Chave) o).estrategia == estrategia && ((Chave) o).sensores == sensores;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(estrategia) + System.identityHashCode(sensores);
+        }
+    }
+
+    /**
+     * Trecho do registro entre duas posições. Só é lido com a trava do cache, e as posições
+     * anteriores à última leitura de {@code registradas} não são mais alteradas até o próximo recomeço.
+     */
+    private final class Janela implements EstrategiaIncremental.Alteracoes {
+        private final int inicio;
+        private final int fim;
+
+        Janela(int inicio, int fim) {
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        public int quantidade() {
+            return fim - inicio;
+        }
+
+        @Override
+        public int id(int indice) {
+            return ids[inicio + indice];
+        }
+
+        @Override
+        public int anterior(int indice) {
+            return anteriores[inicio + indice];
+        }
+
+        @Override
+        public int novo(int indice) {
+            return novos[inicio + indice];
+        }
+    }
+}
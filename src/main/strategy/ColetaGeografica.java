@@ -0,0 +1,479 @@
+package strategy;
+
+import model.GradeEspacial;
+import model.Rota;
+import model.SensorLixo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Implementação da estratégia de coleta que considera a posição geográfica dos sensores.
+ *
+ * As outras estratégias ignoram o mapa e fazem o caminhão cruzar a cidade várias vezes.
+ * Aqui a rota é um circuito que sai do depósito e volta a ele, construído em duas etapas:
+ *
+ * 1. Construção pelo vizinho mais próximo: partindo do depósito, o caminhão sempre segue para
+ *    o sensor ainda não visitado mais próximo, encontrado com um índice em grade ({@link GradeEspacial}).
+ * 2. Melhoria por busca local: movimentos 2-opt (inverter um trecho da rota) e Or-opt (mover um
+ *    trecho de até três paradas para outro ponto), avaliados apenas entre cada parada e seus
+ *    vizinhos mais próximos, até que nenhum movimento encurte a rota.
+ *
+ * Restringir os movimentos aos vizinhos próximos mantém a otimização rápida mesmo com dezenas
+ * de milhares de paradas. Em cidades grandes, o cálculo dessas vizinhanças (a etapa mais cara)
+ * é feito em paralelo, a menos que desligado por {@link #setParalela(boolean)}.
+ *
+ * Por padrão o custo entre duas paradas é a distância em linha reta. Com um
+ * {@link CustoDeslocamento} (por exemplo, pela rede viária), a busca local passa a usar esse custo,
+ * tratado como simétrico (ruas de mão dupla): os vizinhos de cada parada continuam sendo escolhidos
+ * pela posição, mas são ordenados e avaliados pelo custo, calculado de uma vez para cada parada.
+ */
+public class ColetaGeografica implements EstrategiaIncremental {
+    private static final int VIZINHOS = 8;
+    private static final int LIMIAR_PARALELO = 2048;
+    private static final double EPSILON = 1e-9;
+
+    private double depositoX; // Posição de onde os caminhões saem e para onde voltam
+    private double depositoY;
+    private PoliticaColeta politica; // Quais lixeiras entram no circuito
+    private CustoDeslocamento custo; // null = distância em linha reta
+    private volatile boolean paralela = true; // Se as vizinhanças de cidades grandes são calculadas em paralelo
+
+    /**
+     * Cria a estratégia com o depósito na origem do mapa.
+     */
+    public ColetaGeografica() {
+        this(0, 0);
+    }
+
+    /**
+     * Cria a estratégia com o depósito na posição informada.
+     */
+    public ColetaGeografica(double depositoX, double depositoY) {
+        this(depositoX, depositoY, PoliticaColeta.todas());
+    }
+
+    /**
+     * Cria a estratégia com o depósito na posição informada, montando o circuito apenas sobre as
+     * lixeiras selecionadas pela política. Como a otimização trabalha só sobre as paradas
+     * selecionadas, o custo do planejamento cai junto com a quantidade de paradas.
+     */
+    public ColetaGeografica(double depositoX, double depositoY, PoliticaColeta politica) {
+        this(depositoX, depositoY, politica, null);
+    }
+
+    /**
+     * Cria a estratégia otimizando o circuito pelo custo de deslocamento informado em vez da
+     * distância em linha reta.
+     */
+    public ColetaGeografica(double depositoX, double depositoY, PoliticaColeta politica, CustoDeslocamento custo) {
+        this.depositoX = depositoX;
+        this.depositoY = depositoY;
+        this.politica = politica;
+        this.custo = custo;
+    }
+
+    /**
+     * Liga ou desliga o cálculo das vizinhanças em paralelo (ligado por padrão). Quem já gera muitas
+     * rotas ao mesmo tempo ganha pouco com ele, e com ele desligado todo o trabalho de uma rota fica
+     * na thread que a pediu, onde pode ser medido (por exemplo, o tempo de CPU de um cenário).
+     */
+    public void setParalela(boolean paralela) {
+        this.paralela = paralela;
+    }
+
+    /**
+     * Gera uma rota curta que visita os sensores selecionados pela política (por padrão, todos),
+     * saindo e voltando ao depósito.
+     *
+     * @param sensores Lista de sensores de lixo a serem visitados.
+     * @return Uma rota (`Rota`) com os sensores na ordem de visita, sem o depósito.
+     */
+    @Override
+    public Rota gerarRota(List<SensorLixo> sensores) {
+        sensores = politica.filtrar(sensores);
+        int n = sensores.size() + 1; // o nó 0 é o depósito
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int[] ids = new int[n];
+        x[0] = depositoX;
+        y[0] = depositoY;
+        ids[0] = -1;
+        for (int i = 1; i < n; i++) {
+            SensorLixo s = sensores.get(i - 1);
+            x[i] = s.getX();
+            y[i] = s.getY();
+            ids[i] = s.getId();
+        }
+
+        Circuito circuito = new Circuito(x, y, ids, custo, paralela);
+        circuito.otimizar();
+
+        List<SensorLixo> ordem = new ArrayList<>(n - 1);
+        for (int i = 1; i < n; i++) {
+            ordem.add(sensores.get(circuito.rota[i] - 1));
+        }
+        return new Rota(ordem);
+    }
+
+    /**
+     * Sem política, a rota visita todos os sensores e depende só das posições deles, que não mudam
+     * depois do cadastro; por isso pode ser reaproveitada enquanto a lista de sensores for a mesma.
+     */
+    @Override
+    public Validade validade() {
+        return politica.incluiTodas() ? Validade.LISTA : Validade.NIVEIS;
+    }
+
+    /**
+     * Mantém o circuito anterior se as alterações não mudaram a seleção da política.
+     */
+    @Override
+    public Rota atualizarRota(Rota anterior, List<SensorLixo> sensores, Alteracoes alteracoes) {
+        return politica.preservaSelecao(sensores, alteracoes) ? anterior : null;
+    }
+
+    /**
+     * Comprimento total do circuito depósito → sensores → depósito para a ordem informada
+     * (ou o custo total, se a estratégia usa um {@link CustoDeslocamento}).
+     */
+    public double comprimento(List<SensorLixo> ordem) {
+        if (custo != null) {
+            if (ordem.isEmpty()) {
+                return 0;
+            }
+            double total = custo.doPonto(depositoX, depositoY, ordem.get(0).getId());
+            for (int i = 1; i < ordem.size(); i++) {
+                total += custo.entreSensores(ordem.get(i - 1).getId(), ordem.get(i).getId());
+            }
+            return total + custo.ateOPonto(ordem.get(ordem.size() - 1).getId(), depositoX, depositoY);
+        }
+        double total = 0;
+        double px = depositoX;
+        double py = depositoY;
+        for (SensorLixo s : ordem) {
+            total += Math.hypot(s.getX() - px, s.getY() - py);
+            px = s.getX();
+            py = s.getY();
+        }
+        return total + Math.hypot(depositoX - px, depositoY - py);
+    }
+
+    /**
+     * Circuito fechado sobre os nós 0 (depósito) a n - 1, guardado como vetor de visita
+     * mais a posição de cada nó nesse vetor.
+     */
+    private static class Circuito {
+        private final double[] x;
+        private final double[] y;
+        private final int[] ids;       // Id de cada nó no armazém (-1 no depósito)
+        private final CustoDeslocamento custo;
+        private final boolean paralela;
+        private final int n;
+        private final int[] rota;      // Nós na ordem de visita; ao final, rota[0] é o depósito
+        private final int[] posicao;   // Posição de cada nó em rota
+        private int[][] vizinhos;      // Vizinhos mais próximos de cada nó
+
+        Circuito(double[] x, double[] y, int[] ids, CustoDeslocamento custo, boolean paralela) {
+            this.x = x;
+            this.y = y;
+            this.ids = ids;
+            this.custo = custo;
+            this.paralela = paralela;
+            this.n = x.length;
+            this.rota = new int[n];
+            this.posicao = new int[n];
+        }
+
+        void otimizar() {
+            GradeEspacial grade = new GradeEspacial(x, y, n);
+            calcularVizinhos(grade);
+            construirVizinhoMaisProximo(grade);
+            if (n >= 5) {
+                buscaLocal();
+            }
+            girarParaDeposito();
+        }
+
+        /**
+         * Calcula os vizinhos mais próximos de cada nó; em paralelo quando há muitos nós, se permitido.
+         */
+        private void calcularVizinhos(GradeEspacial grade) {
+            int k = Math.min(VIZINHOS, n - 1);
+            vizinhos = new int[n][];
+            IntStream indices = IntStream.range(0, n);
+            if (paralela && n >= LIMIAR_PARALELO) {
+                indices = indices.parallel();
+            }
+            indices.forEach(i -> {
+                int[] lista = new int[k];
+                int encontrados = grade.vizinhosMaisProximos(i, k, lista);
+                vizinhos[i] = encontrados == k ? lista : Arrays.copyOf(lista, encontrados);
+                if (custo != null) {
+                    ordenarPorCusto(i);
+                }
+            });
+        }
+
+        /**
+         * Calcula de uma vez os custos do nó até os vizinhos (no sentido em que {@link #dist}
+         * os consulta) e reordena os vizinhos do mais barato para o mais caro.
+         */
+        private void ordenarPorCusto(int i) {
+            int[] lista = vizinhos[i];
+            if (i != 0) {
+                int[] destinos = new int[lista.length];
+                int quantidade = 0;
+                for (int j : lista) {
+                    if (j != 0 && ids[j] > ids[i]) {
+                        destinos[quantidade++] = ids[j];
+                    }
+                }
+                custo.preparar(ids[i], Arrays.copyOf(destinos, quantidade));
+            }
+            // Chave = bits do custo em ordem de long com sinal (bits altos) + posição na lista (bits baixos);
+            // os bits menos significativos do custo dão lugar à posição, que desempata custos quase iguais
+            int largura = 32 - Integer.numberOfLeadingZeros(lista.length);
+            long[] chaves = new long[lista.length];
+            for (int p = 0; p < lista.length; p++) {
+                long bits = Double.doubleToLongBits(dist(i, lista[p]));
+                bits ^= (bits >> 63) & Long.MAX_VALUE;
+                chaves[p] = (bits >> largura) << largura | p;
+            }
+            Arrays.sort(chaves);
+            int mascara = (1 << largura) - 1;
+            int[] ordenados = new int[lista.length];
+            for (int p = 0; p < lista.length; p++) {
+                ordenados[p] = lista[(int) chaves[p] & mascara];
+            }
+            vizinhos[i] = ordenados;
+        }
+
+        private void construirVizinhoMaisProximo(GradeEspacial grade) {
+            int atual = 0;
+            grade.remover(0);
+            for (int i = 0; i < n; i++) {
+                rota[i] = atual;
+                posicao[atual] = i;
+                if (i + 1 < n) {
+                    atual = grade.maisProximo(x[atual], y[atual]);
+                    grade.remover(atual);
+                }
+            }
+        }
+
+        /**
+         * Aplica movimentos 2-opt e Or-opt usando "bits de não olhar": apenas nós cujas
+         * arestas mudaram recentemente voltam para a fila de avaliação.
+         */
+        private void buscaLocal() {
+            int[] fila = new int[n];
+            boolean[] naFila = new boolean[n];
+            int cabeca = 0;
+            int quantidade = n;
+            for (int i = 0; i < n; i++) {
+                fila[i] = rota[i];
+                naFila[rota[i]] = true;
+            }
+            int[] tocados = new int[6];
+            while (quantidade > 0) {
+                int a = fila[cabeca];
+                cabeca = (cabeca + 1) % n;
+                quantidade--;
+                naFila[a] = false;
+
+                int alterados = melhorar2Opt(a, tocados);
+                if (alterados == 0) {
+                    alterados = melhorarOrOpt(a, tocados);
+                }
+                for (int i = 0; i < alterados; i++) {
+                    int t = tocados[i];
+                    if (!naFila[t]) {
+                        naFila[t] = true;
+                        fila[(cabeca + quantidade) % n] = t;
+                        quantidade++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Procura um 2-opt que encurte a rota trocando uma das arestas de a por uma aresta até
+         * um vizinho próximo. Retorna quantos nós tiveram arestas alteradas (0 se nenhum).
+         */
+        private int melhorar2Opt(int a, int[] tocados) {
+            for (int sentido = 0; sentido < 2; sentido++) {
+                int b = sentido == 0 ? sucessor(a) : antecessor(a);
+                double dab = dist(a, b);
+                for (int c : vizinhos[a]) {
+                    double dac = dist(a, c);
+                    if (dac >= dab) {
+                        break;
+                    }
+                    int d = sentido == 0 ? sucessor(c) : antecessor(c);
+                    if (c == b || d == a) {
+                        continue;
+                    }
+                    double ganho = dab + dist(c, d) - dac - dist(b, d);
+                    if (ganho > EPSILON) {
+                        trocar(a, b, c, d);
+                        tocados[0] = a;
+                        tocados[1] = b;
+                        tocados[2] = c;
+                        tocados[3] = d;
+                        return 4;
+                    }
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Procura um Or-opt que mova o trecho de até três paradas iniciado em s1 para
+         * entre um vizinho próximo e seu sucessor, na orientação mais curta.
+         */
+        private int melhorarOrOpt(int s1, int[] tocados) {
+            if (s1 == 0) {
+                return 0;
+            }
+            for (int tamanho = 1; tamanho <= 3 && tamanho < n - 3; tamanho++) {
+                int s2 = s1;
+                boolean contemDeposito = false;
+                for (int i = 1; i < tamanho; i++) {
+                    s2 = sucessor(s2);
+                    contemDeposito |= s2 == 0;
+                }
+                if (contemDeposito) {
+                    return 0;
+                }
+                int p = antecessor(s1);
+                int nx = sucessor(s2);
+                double ganhoRemocao = dist(p, s1) + dist(s2, nx) - dist(p, nx);
+                if (ganhoRemocao <= EPSILON) {
+                    continue;
+                }
+                for (int extremo = 0; extremo < 2; extremo++) {
+                    int origem = extremo == 0 ? s1 : s2;
+                    for (int c : vizinhos[origem]) {
+                        if (dist(origem, c) >= ganhoRemocao) {
+                            break;
+                        }
+                        int e = sucessor(c);
+                        if (noTrecho(c, s1, tamanho) || noTrecho(e, s1, tamanho)
+                                || c == p || e == p || c == nx || e == nx) {
+                            continue;
+                        }
+                        double dce = dist(c, e);
+                        double invertido = dist(c, s2) + dist(s1, e) - dce;
+                        double direto = dist(c, s1) + dist(s2, e) - dce;
+                        double custo = Math.min(invertido, direto);
+                        if (ganhoRemocao - custo > EPSILON) {
+                            // Três trocas de arestas: a primeira e a segunda inserem o trecho
+                            // invertido entre c e e; a terceira desfaz a inversão se for melhor
+                            trocar(p, s1, c, e);
+                            trocar(p, c, nx, s2);
+                            if (direto < invertido) {
+                                trocar(c, s2, s1, e);
+                            }
+                            tocados[0] = p;
+                            tocados[1] = nx;
+                            tocados[2] = s1;
+                            tocados[3] = s2;
+                            tocados[4] = c;
+                            tocados[5] = e;
+                            return 6;
+                        }
+                    }
+                }
+            }
+            return 0;
+        }
+
+        private boolean noTrecho(int no, int inicio, int tamanho) {
+            int atual = inicio;
+            for (int i = 0; i < tamanho; i++) {
+                if (atual == no) {
+                    return true;
+                }
+                atual = sucessor(atual);
+            }
+            return false;
+        }
+
+        /**
+         * Remove as arestas {a,b} e {c,d} e adiciona {a,c} e {b,d}, invertendo o trecho entre elas.
+         * Funciona em qualquer orientação: se b não for o sucessor de a, os papéis são espelhados.
+         */
+        private void trocar(int a, int b, int c, int d) {
+            if (sucessor(a) != b) {
+                int t = a;
+                a = b;
+                b = t;
+                t = c;
+                c = d;
+                d = t;
+            }
+            inverter(posicao[b], posicao[c]);
+        }
+
+        /**
+         * Inverte o trecho circular de i até j. Como o circuito é fechado, inverter o trecho
+         * complementar produz o mesmo circuito, então sempre o menor dos dois é invertido.
+         */
+        private void inverter(int i, int j) {
+            int tamanho = (j - i + n) % n + 1;
+            if (tamanho * 2 > n) {
+                int novoI = (j + 1) % n;
+                j = (i - 1 + n) % n;
+                i = novoI;
+                tamanho = n - tamanho;
+            }
+            for (int passo = 0; passo < tamanho / 2; passo++) {
+                int ni = rota[i];
+                int nj = rota[j];
+                rota[i] = nj;
+                posicao[nj] = i;
+                rota[j] = ni;
+                posicao[ni] = j;
+                i = (i + 1) % n;
+                j = (j - 1 + n) % n;
+            }
+        }
+
+        /**
+         * Rotaciona o vetor para que a rota comece no depósito.
+         */
+        private void girarParaDeposito() {
+            int inicio = posicao[0];
+            int[] copia = rota.clone();
+            for (int i = 0; i < n; i++) {
+                rota[i] = copia[(inicio + i) % n];
+                posicao[rota[i]] = i;
+            }
+        }
+
+        private int sucessor(int no) {
+            return rota[(posicao[no] + 1) % n];
+        }
+
+        private int antecessor(int no) {
+            return rota[(posicao[no] - 1 + n) % n];
+        }
+
+        private double dist(int a, int b) {
+            if (custo == null) {
+                return Math.hypot(x[a] - x[b], y[a] - y[b]);
+            }
+            if (a == b) {
+                return 0;
+            }
+            if (a == 0 || b == 0) {
+                return custo.doPonto(x[0], y[0], ids[a == 0 ? b : a]);
+            }
+            // Custo simétrico: sempre consultado do menor para o maior id
+            return ids[a] < ids[b] ? custo.entreSensores(ids[a], ids[b]) : custo.entreSensores(ids[b], ids[a]);
+        }
+    }
+}
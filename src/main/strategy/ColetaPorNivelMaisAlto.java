@@ -1,6 +1,8 @@
 package strategy;
 
+import model.ArmazemSensores;
 import model.SensorLixo;
+import model.SensorLixoCapacidade;
 import model.Rota;
 import java.util.*;
 
@@ -16,7 +18,41 @@ import java.util.*;
  * Útil para cenários em que a prioridade é esvaziar as lixeiras mais cheias primeiro,
  * evitando transbordamentos.
  */
-public class ColetaPorNivelMaisAlto implements EstrategiaColeta {
+public class ColetaPorNivelMaisAlto implements EstrategiaIncremental {
+    private int maximoParadas;       // Quantidade máxima de sensores incluídos na rota
+    private PoliticaColeta politica; // Quais lixeiras podem entrar na rota
+
+    /**
+     * Cria a estratégia incluindo todos os sensores na rota.
+     */
+    public ColetaPorNivelMaisAlto() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Cria a estratégia incluindo apenas os sensores mais cheios na rota.
+     * @param maximoParadas quantidade máxima de sensores visitados (os k mais cheios).
+     */
+    public ColetaPorNivelMaisAlto(int maximoParadas) {
+        this(PoliticaColeta.todas(), maximoParadas);
+    }
+
+    /**
+     * Cria a estratégia incluindo apenas as lixeiras selecionadas pela política, da mais cheia
+     * para a menos cheia.
+     */
+    public ColetaPorNivelMaisAlto(PoliticaColeta politica) {
+        this(politica, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Cria a estratégia incluindo, entre as lixeiras selecionadas pela política, no máximo
+     * as {@code maximoParadas} mais cheias.
+     */
+    public ColetaPorNivelMaisAlto(PoliticaColeta politica, int maximoParadas) {
+        this.politica = politica;
+        this.maximoParadas = maximoParadas;
+    }
 
     /**
      * Gera uma rota ordenada de sensores, com base no nível de lixo (maior primeiro).
@@ -24,14 +60,129 @@ public class ColetaPorNivelMaisAlto implements EstrategiaColeta {
      * @param sensores Lista dos sensores atualmente em operação.
      * @return Uma rota (`Rota`) contendo os sensores ordenados do mais cheio ao menos cheio.
      *
-     * O método primeiro cria uma cópia da lista original para preservar a integridade dos dados,
-     * depois usa um comparador que classifica os sensores de forma decrescente com base no valor
-     * retornado por `getNivel()`.
+     * Quando a lista contém todos os sensores de um armazém, na ordem dos ids, a rota é lida do
+     * índice de prioridade mantido incrementalmente pelo armazém ({@link model.IndicePrioridadeNivel}),
+     * sem ordenar a cidade inteira. O índice desempata pelo id, que nessa lista é a própria
+     * posição: a rota é a mesma dos dois caminhos.
+     *
+     * Para listas parciais, o método monta um vetor primitivo de chaves em que cada posição
+     * guarda o nível invertido nos 32 bits altos e a posição original do sensor nos 32 bits baixos.
+     * Ordenar esse vetor de `long` dispensa comparadores e objetos intermediários, e o desempate
+     * pela posição mantém a ordem original entre sensores com o mesmo nível. Quando a rota tem
+     * menos paradas que a lista, as k menores chaves são separadas por seleção (quickselect) e só
+     * elas são ordenadas.
+     *
+     * Com uma política de coleta, os sensores são primeiro filtrados por ela em tempo linear.
      */
     @Override
     public Rota gerarRota(List<SensorLixo> sensores) {
-        List<SensorLixo> ordenados = new ArrayList<>(sensores);
-        ordenados.sort(Comparator.comparingInt(SensorLixo::getNivel).reversed());
+        sensores = politica.filtrar(sensores);
+        int n = sensores.size();
+        int k = Math.min(maximoParadas, n);
+
+        ArmazemSensores armazem = armazemCompleto(sensores);
+        if (armazem != null) {
+            int[] ids = new int[k];
+            int gravados = armazem.indicePrioridade().topo(k, ids);
+            return new Rota(armazem, gravados == k ? ids : Arrays.copyOf(ids, gravados));
+        }
+
+        long[] chaves = new long[n];
+        for (int i = 0; i < n; i++) {
+            long nivelInvertido = Integer.MAX_VALUE - (long) sensores.get(i).getNivel();
+            chaves[i] = (nivelInvertido << 32) | i;
+        }
+        if (k < n) {
+            selecionarMenores(chaves, k);
+        }
+        Arrays.sort(chaves, 0, k);
+
+        List<SensorLixo> ordenados = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            ordenados.add(sensores.get((int) chaves[i]));
+        }
         return new Rota(ordenados);
     }
+
+    /**
+     * Mantém a rota anterior quando nenhuma alteração alcançou o nível da última parada.
+     *
+     * A rota guarda os sensores mais cheios; se cada sensor alterado estava e continuou sempre
+     * abaixo do nível da última parada, ele não fazia parte da rota nem passou a fazer, e a ordem
+     * das paradas não mudou. Alterações que tocam esse nível (inclusive empates) ou rotas que já
+     * incluem todos os sensores, cuja ordem muda com qualquer alteração, exigem gerar a rota de novo.
+     *
+     * Com uma política de coleta, a rota é mantida se as alterações não mudaram a seleção da política.
+     */
+    @Override
+    public Rota atualizarRota(Rota anterior, List<SensorLixo> sensores, Alteracoes alteracoes) {
+        if (!politica.incluiTodas()) {
+            return politica.preservaSelecao(sensores, alteracoes) ? anterior : null;
+        }
+        List<SensorLixo> pontos = anterior.getPontos();
+        if (pontos.isEmpty() || alteracoes.quantidade() == 0) {
+            return anterior;
+        }
+        if (pontos.size() >= sensores.size()) {
+            return null;
+        }
+        int corte = pontos.get(pontos.size() - 1).getNivel();
+        for (int i = 0; i < alteracoes.quantidade(); i++) {
+            if (alteracoes.anterior(i) >= corte || alteracoes.novo(i) >= corte) {
+                return null;
+            }
+        }
+        return anterior;
+    }
+
+    /**
+     * Reorganiza o vetor de modo que as k menores chaves ocupem as posições de 0 a k - 1
+     * (em qualquer ordem), em tempo linear médio.
+     */
+    private static void selecionarMenores(long[] chaves, int k) {
+        int inicio = 0;
+        int fim = chaves.length - 1;
+        while (inicio < fim) {
+            // Pivô pela mediana de três, para evitar o pior caso em listas já ordenadas
+            int meio = (inicio + fim) >>> 1;
+            long a = chaves[inicio], b = chaves[meio], c = chaves[fim];
+            long pivo = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            int i = inicio;
+            int j = fim;
+            while (i <= j) {
+                while (chaves[i] < pivo) {
+                    i++;
+                }
+                while (chaves[j] > pivo) {
+                    j--;
+                }
+                if (i <= j) {
+                    long troca = chaves[i];
+                    chaves[i++] = chaves[j];
+                    chaves[j--] = troca;
+                }
+            }
+            if (k <= j) {
+                fim = j;
+            } else if (k >= i) {
+                inicio = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retorna o armazém dos sensores quando a lista cobre todos os sensores dele na ordem dos ids,
+     * caso em que o índice de prioridade do armazém pode ser usado diretamente. Outras listas,
+     * inclusive permutações do armazém inteiro, seguem pelo caminho das chaves primitivas, que
+     * desempata pela posição na lista.
+     */
+    private static ArmazemSensores armazemCompleto(List<SensorLixo> sensores) {
+        if (sensores.isEmpty() || !(sensores.get(0) instanceof SensorLixoCapacidade)) {
+            return null;
+        }
+        ArmazemSensores armazem = ((SensorLixoCapacidade) sensores.get(0)).getArmazem();
+        return armazem.cobreEmOrdem(sensores) ? armazem : null;
+    }
 }
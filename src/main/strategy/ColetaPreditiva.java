@@ -0,0 +1,437 @@
+package strategy;
+
+import model.ArmazemSensores;
+import model.Rota;
+import model.SensorLixo;
+import model.SensorLixoCapacidade;
+import observer.AlteracoesPendentes;
+import observer.OuvinteNivel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Estratégia de coleta que prioriza as lixeiras que vão encher primeiro, e não as mais cheias agora.
+ *
+ * Para cada sensor é mantida uma taxa de enchimento suavizada exponencialmente (média móvel
+ * exponencial do lixo acrescentado por unidade de tempo), atualizada em O(1) a cada alteração de
+ * nível recebida como {@link OuvinteNivel}. Com a taxa e o espaço livre, a estratégia prevê o
+ * instante em que a lixeira fica cheia. Como esse instante é absoluto, ele só muda quando o nível
+ * muda: as previsões ficam em um heap mínimo indexado, ajustado em O(log n) por alteração, e a
+ * rota é lida do heap sem recalcular previsões para a cidade inteira.
+ *
+ * As threads que alteram níveis não disputam uma trava única: a taxa de cada sensor é protegida
+ * por uma de {@value #LISTRAS} travas, escolhida pelo id, e o sensor é apenas marcado em um vetor
+ * de bits atômico ({@link AlteracoesPendentes}). O heap é ajustado na próxima rota (ou consulta
+ * de previsão), a partir da última observação de cada sensor marcado.
+ *
+ * A rota inclui apenas as lixeiras com previsão de encher dentro do horizonte de planejamento,
+ * das mais urgentes (já cheias há mais tempo) para as menos urgentes. Lixeiras quase vazias que
+ * enchem rápido entram antes de transbordar, e lixeiras que enchem devagar não geram visitas inúteis.
+ *
+ * O tempo vem de um relógio externo (por exemplo, os passos do {@link simulacao.MotorSimulacao}
+ * ou milissegundos de leituras reais); a unidade do horizonte é a mesma do relógio. Aumentos
+ * observados no mesmo instante que o anterior contam como uma unidade de tempo.
+ *
+ * A estratégia se registra como ouvinte do armazém ao ser criada; quem a descarta enquanto o
+ * armazém continua em uso deve fechá-la ({@link #close()}).
+ */
+public class ColetaPreditiva implements EstrategiaColeta, OuvinteNivel, AutoCloseable {
+    private static final double SEM_PREVISAO = Double.POSITIVE_INFINITY;
+    private static final double ALFA_PADRAO = 0.3;
+    private static final int LISTRAS = 64; // Potência de dois
+
+    private ArmazemSensores armazem;
+    private LongSupplier relogio;
+    private double alfa;          // Peso da observação mais recente na média móvel
+    private long horizonte;       // Só entram na rota lixeiras previstas para encher até agora + horizonte
+
+    // Protegidos pela trava da listra do sensor (trocados só com todas as travas tomadas)
+    private double[] taxa = new double[0];       // Lixo acrescentado por unidade de tempo, suavizado
+    private long[] ultimaObservacao = new long[0]; // Instante da última alteração de cada sensor
+    private final ReentrantLock[] travas = new ReentrantLock[LISTRAS];
+    private volatile int monitorados;            // Sensores com taxa inicializada
+
+    // Protegidos pela trava da estratégia
+    private final AlteracoesPendentes pendentes = new AlteracoesPendentes(0);
+    private double[] previsao = new double[0];   // Instante previsto para o sensor encher
+    private int[] heap = new int[0];             // Ids ordenados pela previsão (heap mínimo)
+    private int[] posicao = new int[0];          // Posição de cada id no heap
+    private int tamanho;                         // Sensores já indexados
+
+    /**
+     * Cria a estratégia com fator de suavização 0,3.
+     */
+    public ColetaPreditiva(ArmazemSensores armazem, LongSupplier relogio, long horizonte) {
+        this(armazem, relogio, ALFA_PADRAO, horizonte);
+    }
+
+    /**
+     * Cria a estratégia e passa a acompanhar as alterações de nível do armazém.
+     * @param relogio fonte do instante atual, não decrescente.
+     * @param alfa peso, entre 0 e 1, da taxa observada mais recente na média móvel.
+     * @param horizonte intervalo, na unidade do relógio, coberto pelo planejamento da rota.
+     */
+    public ColetaPreditiva(ArmazemSensores armazem, LongSupplier relogio, double alfa, long horizonte) {
+        if (alfa <= 0 || alfa > 1 || horizonte < 0) {
+            throw new IllegalArgumentException("Alfa deve estar em (0, 1] e o horizonte não pode ser negativo.");
+        }
+        this.armazem = armazem;
+        this.relogio = relogio;
+        this.alfa = alfa;
+        this.horizonte = horizonte;
+        for (int i = 0; i < LISTRAS; i++) {
+            travas[i] = new ReentrantLock();
+        }
+        synchronized (this) {
+            sincronizar(relogio.getAsLong());
+        }
+        armazem.registrarOuvinte(this);
+    }
+
+    /**
+     * Atualiza a taxa de enchimento do sensor e o marca para ter a previsão refeita.
+     * Aumentos alimentam a média móvel; quedas (coleta) apenas reiniciam a referência de tempo.
+     * Sensores cadastrados depois da última sincronização começam a ser medidos na próxima rota.
+     */
+    @Override
+    public void nivelAlterado(int id, int anterior, int novo) {
+        if (id < monitorados) {
+            long agora = relogio.getAsLong();
+            ReentrantLock trava = travas[id & (LISTRAS - 1)];
+            trava.lock();
+            try {
+                if (novo > anterior) {
+                    long intervalo = Math.max(agora - ultimaObservacao[id], 1);
+                    taxa[id] = alfa * ((novo - anterior) / (double) intervalo) + (1 - alfa) * taxa[id];
+                }
+                ultimaObservacao[id] = agora;
+            } finally {
+                trava.unlock();
+            }
+        }
+        pendentes.marcar(id);
+    }
+
+    /**
+     * Gera a rota com os sensores previstos para encher dentro do horizonte, do mais urgente ao menos urgente.
+     *
+     * Quando a lista cobre todo o armazém, os sensores são lidos do heap em O(k log k) para os k
+     * sensores da rota. Para listas parciais (por exemplo, o grupo de um caminhão da frota), as
+     * previsões dos sensores da lista são filtradas e ordenadas como chaves primitivas.
+     *
+     * @throws IllegalArgumentException se algum sensor não pertencer ao armazém da estratégia.
+     */
+    @Override
+    public synchronized Rota gerarRota(List<SensorLixo> sensores) {
+        long agora = relogio.getAsLong();
+        sincronizar(agora);
+        aplicarPendentes();
+        double prazo = (double) agora + horizonte;
+
+        if (armazem.cobreTodos(sensores)) {
+            return new Rota(armazem, topoAte(prazo));
+        }
+
+        int n = sensores.size();
+        int[] indices = new int[n];
+        int selecionados = 0;
+        for (int i = 0; i < n; i++) {
+            SensorLixo sensor = sensores.get(i);
+            if (!(sensor instanceof SensorLixoCapacidade) || ((SensorLixoCapacidade) sensor).getArmazem() != armazem) {
+                throw new IllegalArgumentException("Sensor de outro armazém: " + sensor);
+            }
+            double quando = previsao[sensor.getId()];
+            if (quando <= prazo) {
+                indices[selecionados++] = i;
+            }
+        }
+        // Chave = posto da previsão entre as selecionadas (32 bits altos) + posição na lista (32 bits
+        // baixos). O posto vem dos bits da previsão em ordem de long com sinal, ordenados à parte:
+        // previsões distintas nunca empatam, por menor que seja a diferença entre elas
+        long[] previsoes = new long[selecionados];
+        for (int j = 0; j < selecionados; j++) {
+            previsoes[j] = ordenavel(previsao[sensores.get(indices[j]).getId()]);
+        }
+        long[] ordenadas = previsoes.clone();
+        Arrays.sort(ordenadas);
+        long[] chaves = new long[selecionados];
+        for (int j = 0; j < selecionados; j++) {
+            long posto = primeiraPosicao(ordenadas, previsoes[j]);
+            chaves[j] = (posto << 32) | indices[j];
+        }
+        Arrays.sort(chaves);
+        List<SensorLixo> rota = new ArrayList<>(selecionados);
+        for (int i = 0; i < selecionados; i++) {
+            rota.add(sensores.get((int) chaves[i]));
+        }
+        return new Rota(rota);
+    }
+
+    /**
+     * Bits do valor reorganizados para que a ordem dos longs com sinal seja a ordem dos valores.
+     */
+    private static long ordenavel(double valor) {
+        long bits = Double.doubleToLongBits(valor);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Primeira posição do valor no vetor ordenado, que o contém.
+     */
+    private static int primeiraPosicao(long[] ordenados, long valor) {
+        int inicio = 0;
+        int fim = ordenados.length;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (ordenados[meio] < valor) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+
+    /**
+     * Deixa de acompanhar as alterações de nível do armazém. As previsões já feitas continuam
+     * disponíveis, mas param de ser atualizadas.
+     */
+    @Override
+    public void close() {
+        armazem.removerOuvinte(this);
+    }
+
+    /**
+     * A rota depende do instante atual, e não apenas dos níveis: não deve ser reaproveitada.
+     */
+    @Override
+    public Validade validade() {
+        return Validade.NUNCA;
+    }
+
+    /**
+     * Taxa de enchimento suavizada do sensor, em unidades de lixo por unidade de tempo.
+     */
+    public double getTaxa(int id) {
+        if (id >= monitorados) {
+            return 0;
+        }
+        ReentrantLock trava = travas[id & (LISTRAS - 1)];
+        trava.lock();
+        try {
+            return taxa[id];
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Instante previsto para o sensor encher; infinito se ele não está enchendo.
+     */
+    public synchronized double getPrevisaoCheio(int id) {
+        aplicarPendentes();
+        return id < tamanho ? previsao[id] : SEM_PREVISAO;
+    }
+
+    /**
+     * Percorre o heap a partir da raiz com uma fila de prioridade auxiliar de posições, parando
+     * no primeiro sensor previsto para depois do prazo. O heap principal não é alterado.
+     */
+    private int[] topoAte(double prazo) {
+        int[] resultado = new int[16];
+        int gravados = 0;
+        int[] fronteira = new int[16];  // Heap auxiliar de posições do heap principal
+        int abertos = 0;
+        if (tamanho > 0) {
+            fronteira[abertos++] = 0;
+        }
+        while (abertos > 0) {
+            int p = fronteira[0];
+            fronteira[0] = fronteira[--abertos];
+            descerFronteira(fronteira, abertos, 0);
+            int id = heap[p];
+            if (previsao[id] > prazo) {
+                break; // Os filhos e o restante da fronteira são todos posteriores
+            }
+            if (gravados == resultado.length) {
+                resultado = Arrays.copyOf(resultado, gravados * 2);
+            }
+            resultado[gravados++] = id;
+            for (int filho = 2 * p + 1; filho <= 2 * p + 2 && filho < tamanho; filho++) {
+                if (abertos == fronteira.length) {
+                    fronteira = Arrays.copyOf(fronteira, abertos * 2);
+                }
+                fronteira[abertos] = filho;
+                subirFronteira(fronteira, abertos++);
+            }
+        }
+        return Arrays.copyOf(resultado, gravados);
+    }
+
+    private void subirFronteira(int[] fronteira, int i) {
+        int p = fronteira[i];
+        while (i > 0) {
+            int pai = (i - 1) >>> 1;
+            if (previsao[heap[fronteira[pai]]] <= previsao[heap[p]]) {
+                break;
+            }
+            fronteira[i] = fronteira[pai];
+            i = pai;
+        }
+        fronteira[i] = p;
+    }
+
+    private void descerFronteira(int[] fronteira, int abertos, int i) {
+        if (abertos == 0) {
+            return;
+        }
+        int p = fronteira[i];
+        while (true) {
+            int filho = 2 * i + 1;
+            if (filho >= abertos) {
+                break;
+            }
+            if (filho + 1 < abertos && previsao[heap[fronteira[filho + 1]]] < previsao[heap[fronteira[filho]]]) {
+                filho++;
+            }
+            if (previsao[heap[p]] <= previsao[heap[fronteira[filho]]]) {
+                break;
+            }
+            fronteira[i] = fronteira[filho];
+            i = filho;
+        }
+        fronteira[i] = p;
+    }
+
+    /**
+     * Indexa os sensores cadastrados no armazém depois da última sincronização.
+     */
+    private void sincronizar(long agora) {
+        int total = armazem.tamanho();
+        if (total == tamanho) {
+            return;
+        }
+        if (total > heap.length) {
+            int capacidade = Math.max(total, heap.length + (heap.length >> 1));
+            previsao = Arrays.copyOf(previsao, capacidade);
+            heap = Arrays.copyOf(heap, capacidade);
+            posicao = Arrays.copyOf(posicao, capacidade);
+            // Marcas feitas durante a troca podem se perder: os já indexados são refeitos abaixo
+            pendentes.redimensionar(capacidade);
+            pendentes.retirarExcedeu();
+            for (int id = 0; id < tamanho; id++) {
+                pendentes.marcar(id);
+            }
+        }
+        for (ReentrantLock trava : travas) {
+            trava.lock();
+        }
+        try {
+            if (total > taxa.length) {
+                taxa = Arrays.copyOf(taxa, heap.length);
+                ultimaObservacao = Arrays.copyOf(ultimaObservacao, heap.length);
+            }
+            for (int id = tamanho; id < total; id++) {
+                taxa[id] = 0;
+                ultimaObservacao[id] = agora;
+            }
+            monitorados = total;
+        } finally {
+            for (ReentrantLock trava : travas) {
+                trava.unlock();
+            }
+        }
+        for (int id = tamanho; id < total; id++) {
+            previsao[id] = armazem.getNivel(id) >= armazem.getLimite(id) ? agora : SEM_PREVISAO;
+            heap[id] = id;
+            posicao[id] = id;
+        }
+        int inicio = tamanho;
+        tamanho = total;
+        for (int id = inicio; id < total; id++) {
+            subir(posicao[id]);
+        }
+    }
+
+    /**
+     * Refaz a previsão dos sensores marcados desde a última aplicação, a partir da taxa e do
+     * instante da última observação de cada um e do nível atual do armazém.
+     */
+    private void aplicarPendentes() {
+        pendentes.retirar(id -> {
+            if (id >= tamanho) {
+                return; // Indexado na próxima sincronização
+            }
+            double taxaAtual;
+            long observacao;
+            ReentrantLock trava = travas[id & (LISTRAS - 1)];
+            trava.lock();
+            try {
+                taxaAtual = taxa[id];
+                observacao = ultimaObservacao[id];
+            } finally {
+                trava.unlock();
+            }
+            atualizarPrevisao(id, observacao, taxaAtual, armazem.getNivel(id));
+        });
+    }
+
+    private void atualizarPrevisao(int id, long agora, double taxaAtual, int nivel) {
+        int livre = armazem.getLimite(id) - nivel;
+        double nova;
+        if (livre <= 0) {
+            nova = previsao[id] <= agora ? previsao[id] : agora; // Já cheio: mantém desde quando
+        } else if (taxaAtual > 0) {
+            nova = agora + livre / taxaAtual;
+        } else {
+            nova = SEM_PREVISAO;
+        }
+        double antiga = previsao[id];
+        previsao[id] = nova;
+        if (nova < antiga) {
+            subir(posicao[id]);
+        } else if (nova > antiga) {
+            descer(posicao[id]);
+        }
+    }
+
+    private void subir(int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int pai = (i - 1) >>> 1;
+            if (previsao[heap[pai]] <= previsao[id]) {
+                break;
+            }
+            heap[i] = heap[pai];
+            posicao[heap[i]] = i;
+            i = pai;
+        }
+        heap[i] = id;
+        posicao[id] = i;
+    }
+
+    private void descer(int i) {
+        int id = heap[i];
+        while (true) {
+            int filho = 2 * i + 1;
+            if (filho >= tamanho) {
+                break;
+            }
+            if (filho + 1 < tamanho && previsao[heap[filho + 1]] < previsao[heap[filho]]) {
+                filho++;
+            }
+            if (previsao[id] <= previsao[heap[filho]]) {
+                break;
+            }
+            heap[i] = heap[filho];
+            posicao[heap[i]] = i;
+            i = filho;
+        }
+        heap[i] = id;
+        posicao[id] = i;
+    }
+}
@@ -12,8 +12,26 @@ import java.util.List;
  *
  * É útil para situações em que a prioridade não é definida pela quantidade de lixo,
  * mas sim pela ordem física (geográfica) dos sensores ou pela simplicidade do trajeto.
+ *
+ * Com uma {@link PoliticaColeta}, a rota mantém a ordem da lista, mas inclui apenas as lixeiras
+ * selecionadas pela política.
  */
-public class ColetaSequencial implements EstrategiaColeta {
+public class ColetaSequencial implements EstrategiaIncremental {
+    private PoliticaColeta politica; // Quais lixeiras entram na rota
+
+    /**
+     * Cria a estratégia visitando todas as lixeiras.
+     */
+    public ColetaSequencial() {
+        this(PoliticaColeta.todas());
+    }
+
+    /**
+     * Cria a estratégia visitando apenas as lixeiras selecionadas pela política.
+     */
+    public ColetaSequencial(PoliticaColeta politica) {
+        this.politica = politica;
+    }
 
     /**
      * Gera uma rota com base na ordem em que os sensores aparecem.
@@ -26,6 +44,22 @@ public class ColetaSequencial implements EstrategiaColeta {
      */
     @Override
     public Rota gerarRota(List<SensorLixo> sensores) {
-        return new Rota(sensores);
+        return new Rota(politica.filtrar(sensores));
+    }
+
+    /**
+     * Sem política, a ordem da rota não depende dos níveis; com política, a seleção depende.
+     */
+    @Override
+    public Validade validade() {
+        return politica.incluiTodas() ? Validade.LISTA : Validade.NIVEIS;
+    }
+
+    /**
+     * Mantém a rota anterior se as alterações não mudaram a seleção da política.
+     */
+    @Override
+    public Rota atualizarRota(Rota anterior, List<SensorLixo> sensores, Alteracoes alteracoes) {
+        return politica.preservaSelecao(sensores, alteracoes) ? anterior : null;
     }
 }
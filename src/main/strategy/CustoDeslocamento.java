@@ -0,0 +1,57 @@
+package strategy;
+
+import model.ArmazemSensores;
+
+/**
+ * Custo de deslocamento entre lixeiras (identificadas pelo id no armazém) e entre uma lixeira e
+ * uma posição do mapa, como o depósito. As estratégias que levam o mapa em conta consultam os
+ * custos por esta interface, sem depender de como eles são calculados: em linha reta
+ * ({@link #euclidiano(ArmazemSensores)}) ou pela rede viária ({@code rede.ServicoDistancias}).
+ */
+public interface CustoDeslocamento {
+
+    /**
+     * Custo de ir da lixeira de origem até a de destino.
+     */
+    double entreSensores(int origem, int destino);
+
+    /**
+     * Custo de ir da posição informada até a lixeira.
+     */
+    double doPonto(double x, double y, int destino);
+
+    /**
+     * Custo de ir da lixeira até a posição informada.
+     */
+    double ateOPonto(int origem, double x, double y);
+
+    /**
+     * Avisa que os custos da origem até os destinos serão consultados em seguida, permitindo
+     * calculá-los todos de uma vez. Por padrão, não faz nada.
+     */
+    default void preparar(int origem, int[] destinos) {
+    }
+
+    /**
+     * Custos em linha reta entre as posições das lixeiras.
+     */
+    static CustoDeslocamento euclidiano(ArmazemSensores armazem) {
+        return new CustoDeslocamento() {
+            @Override
+            public double entreSensores(int origem, int destino) {
+                return Math.hypot(armazem.getX(destino) - armazem.getX(origem),
+                        armazem.getY(destino) - armazem.getY(origem));
+            }
+
+            @Override
+            public double doPonto(double x, double y, int destino) {
+                return Math.hypot(armazem.getX(destino) - x, armazem.getY(destino) - y);
+            }
+
+            @Override
+            public double ateOPonto(int origem, double x, double y) {
+                return doPonto(x, y, origem);
+            }
+        };
+    }
+}
@@ -26,4 +26,24 @@ public interface EstrategiaColeta {
      * nível de lixo, proximidade geográfica, prioridade do bairro, etc.
      */
     Rota gerarRota(List<SensorLixo> sensores);
+
+    /**
+     * Informa de que depende a rota gerada, para que ela possa ser reaproveitada pelo {@link CacheRotas}.
+     * Por padrão, a rota depende da lista de sensores e dos níveis deles.
+     */
+    default Validade validade() {
+        return Validade.NIVEIS;
+    }
+
+    /**
+     * Até quando uma rota gerada pela estratégia continua válida.
+     */
+    enum Validade {
+        /** A rota depende só da lista de sensores (ordem e posições), e não dos níveis. */
+        LISTA,
+        /** A rota depende da lista e dos níveis (ou limites) dos sensores. */
+        NIVEIS,
+        /** A rota depende de algo externo, como o relógio, e não deve ser reaproveitada. */
+        NUNCA
+    }
 }
@@ -0,0 +1,40 @@
+package strategy;
+
+import model.Rota;
+import model.SensorLixo;
+
+import java.util.List;
+
+/**
+ * Estratégia capaz de atualizar uma rota já gerada a partir das alterações de nível ocorridas
+ * desde então, sem refazê-la do zero.
+ *
+ * Usada pelo {@link CacheRotas} quando poucos sensores mudaram: a estratégia examina só as
+ * alterações e decide se a rota anterior pode ser ajustada (ou mantida como está).
+ */
+public interface EstrategiaIncremental extends EstrategiaColeta {
+
+    /**
+     * Atualiza a rota gerada anteriormente para a mesma lista de sensores.
+     *
+     * @param anterior rota gerada por esta estratégia para a mesma lista.
+     * @param sensores lista de sensores usada para gerar a rota anterior.
+     * @param alteracoes alterações de nível ocorridas desde a geração da rota anterior, em ordem.
+     * @return a rota atualizada, ou {@code null} se as alterações exigirem gerar a rota do zero.
+     */
+    Rota atualizarRota(Rota anterior, List<SensorLixo> sensores, Alteracoes alteracoes);
+
+    /**
+     * Sequência de alterações de nível (id, nível anterior, nível novo), sem objetos por alteração.
+     * Um mesmo sensor pode aparecer mais de uma vez.
+     */
+    interface Alteracoes {
+        int quantidade();
+
+        int id(int indice);
+
+        int anterior(int indice);
+
+        int novo(int indice);
+    }
+}
@@ -0,0 +1,153 @@
+package strategy;
+
+import model.CaminhaoColeta;
+import model.Rota;
+import model.SensorLixo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Divide os sensores entre os caminhões da frota e monta a rota de cada um.
+ *
+ * A divisão é uma varredura angular com capacidade (sweep): os sensores são ordenados pelo
+ * ângulo em torno do centro dos depósitos e distribuídos em setores consecutivos, um por
+ * caminhão, até que a soma dos níveis atinja a capacidade do caminhão. Assim cada caminhão
+ * atende uma região contígua da cidade. Sensores vazios não ocupam espaço em nenhum caminhão.
+ *
+ * Depois da divisão, a rota de cada caminhão é gerada pela estratégia de coleta em uma tarefa
+ * separada de um {@link ForkJoinPool}, de modo que o tempo de planejamento escala com o número
+ * de núcleos à medida que a frota cresce. As estratégias usadas devem ser seguras para uso
+ * concorrente (as estratégias deste pacote são).
+ */
+public class PlanejadorFrota {
+    private Function<CaminhaoColeta, EstrategiaColeta> estrategiaPorCaminhao;
+    private ForkJoinPool pool;
+    private List<SensorLixo> naoAtendidos = new ArrayList<>(); // Sensores que não couberam na frota
+
+    /**
+     * Cria o planejador usando a mesma estratégia para todos os caminhões, no pool comum.
+     */
+    public PlanejadorFrota(EstrategiaColeta estrategia) {
+        this(c -> estrategia, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Cria o planejador com uma estratégia por caminhão, executando as rotas no pool informado.
+     * Útil, por exemplo, para usar uma {@link ColetaGeografica} partindo do depósito de cada caminhão.
+     */
+    public PlanejadorFrota(Function<CaminhaoColeta, EstrategiaColeta> estrategiaPorCaminhao, ForkJoinPool pool) {
+        this.estrategiaPorCaminhao = estrategiaPorCaminhao;
+        this.pool = pool;
+    }
+
+    /**
+     * Divide os sensores entre os caminhões e gera a rota de cada um em paralelo.
+     *
+     * @param sensores  Sensores a serem atendidos.
+     * @param caminhoes Frota disponível.
+     * @return A rota de cada caminhão, na ordem da frota. Caminhões sem sensores recebem rota vazia.
+     *         Sensores vazios ficam fora de todas as rotas; os que excedem a capacidade total ficam
+     *         em {@link #getNaoAtendidos()}.
+     */
+    public Map<CaminhaoColeta, Rota> planejar(List<SensorLixo> sensores, List<CaminhaoColeta> caminhoes) {
+        List<List<SensorLixo>> grupos = agrupar(sensores, caminhoes);
+
+        List<RecursiveTask<Rota>> tarefas = new ArrayList<>(caminhoes.size());
+        for (int i = 0; i < caminhoes.size(); i++) {
+            EstrategiaColeta estrategia = estrategiaPorCaminhao.apply(caminhoes.get(i));
+            List<SensorLixo> grupo = grupos.get(i);
+            tarefas.add(new RecursiveTask<Rota>() {
+                @Override
+                protected Rota compute() {
+                    return grupo.isEmpty() ? new Rota(grupo) : estrategia.gerarRota(grupo);
+                }
+            });
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                ForkJoinTask.invokeAll(tarefas);
+                return null;
+            }
+        });
+
+        Map<CaminhaoColeta, Rota> rotas = new LinkedHashMap<>();
+        for (int i = 0; i < caminhoes.size(); i++) {
+            rotas.put(caminhoes.get(i), tarefas.get(i).join());
+        }
+        return rotas;
+    }
+
+    /**
+     * Sensores que não couberam na capacidade da frota no último planejamento.
+     */
+    public List<SensorLixo> getNaoAtendidos() {
+        return naoAtendidos;
+    }
+
+    /**
+     * Varredura angular com capacidade: retorna um grupo de sensores por caminhão.
+     */
+    private List<List<SensorLixo>> agrupar(List<SensorLixo> sensores, List<CaminhaoColeta> caminhoes) {
+        List<List<SensorLixo>> grupos = new ArrayList<>(caminhoes.size());
+        for (int i = 0; i < caminhoes.size(); i++) {
+            grupos.add(new ArrayList<>());
+        }
+        naoAtendidos = new ArrayList<>();
+        if (caminhoes.isEmpty()) {
+            naoAtendidos.addAll(sensores);
+            return grupos;
+        }
+
+        double centroX = 0;
+        double centroY = 0;
+        for (CaminhaoColeta c : caminhoes) {
+            centroX += c.getDepositoX() / caminhoes.size();
+            centroY += c.getDepositoY() / caminhoes.size();
+        }
+
+        // Chave = ângulo quantizado (32 bits altos) + posição na lista (32 bits baixos), só dos
+        // sensores com lixo: os vazios não têm o que coletar
+        int n = sensores.size();
+        long[] chaves = new long[n];
+        int comLixo = 0;
+        for (int i = 0; i < n; i++) {
+            SensorLixo s = sensores.get(i);
+            if (s.getNivel() <= 0) {
+                continue;
+            }
+            double angulo = Math.atan2(s.getY() - centroY, s.getX() - centroX) + Math.PI;
+            long quantizado = (long) (angulo / (2 * Math.PI) * Integer.MAX_VALUE);
+            chaves[comLixo++] = (quantizado << 32) | i;
+        }
+        Arrays.sort(chaves, 0, comLixo);
+
+        int caminhao = 0;
+        long carga = 0;
+        for (int k = 0; k < comLixo; k++) {
+            SensorLixo s = sensores.get((int) chaves[k]);
+            int demanda = s.getNivel();
+            if (caminhao < caminhoes.size() && carga > 0
+                    && carga + demanda > caminhoes.get(caminhao).getCapacidade()) {
+                caminhao++;
+                carga = 0;
+            }
+            // Sem caminhões restantes, ou sensor maior que a capacidade de um caminhão vazio
+            if (caminhao == caminhoes.size() || demanda > caminhoes.get(caminhao).getCapacidade()) {
+                naoAtendidos.add(s);
+                continue;
+            }
+            grupos.get(caminhao).add(s);
+            carga += demanda;
+        }
+        return grupos;
+    }
+}
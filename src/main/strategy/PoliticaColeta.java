@@ -0,0 +1,256 @@
+package strategy;
+
+import model.ArmazemSensores;
+import model.SensorLixo;
+import model.SensorLixoCapacidade;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Define quais lixeiras entram na rota: todas, só as que atingiram uma fração do limite, ou as K
+ * mais cheias (em fração do limite).
+ *
+ * A seleção é feita em tempo linear, sem ordenar a lista inteira:
+ * <ul>
+ *   <li>limiar: uma única varredura sobre os níveis e limites;</li>
+ *   <li>K mais cheias: particionamento por baldes. Uma primeira varredura conta os sensores em
+ *       {@value #BALDES} faixas de ocupação e encontra a faixa em que está o K-ésimo mais cheio;
+ *       uma segunda recolhe os sensores das faixas acima dela e os candidatos da própria faixa,
+ *       dos quais só os que faltam são escolhidos exatamente.</li>
+ * </ul>
+ * Quando a lista cobre todo o armazém em ordem de id ({@link ArmazemSensores#cobreEmOrdem(List)}),
+ * as varreduras leem os vetores do armazém diretamente, sem criar uma visão por sensor.
+ *
+ * Em um dia típico, em que só uma pequena parte das lixeiras precisa de coleta, a rota passa a ter
+ * apenas essas paradas, o que reduz tanto o planejamento (que trabalha só sobre as selecionadas)
+ * quanto a coleta.
+ */
+public final class PoliticaColeta {
+    private static final int BALDES = 4096;
+    private static final PoliticaColeta TODAS = new PoliticaColeta(Tipo.TODAS, 0, 0);
+
+    private enum Tipo { TODAS, LIMIAR, MAIS_CHEIAS }
+
+    private final Tipo tipo;
+    private final double fracao;    // Ocupação mínima, para o limiar
+    private final int quantidade;   // K, para as mais cheias
+
+    private PoliticaColeta(Tipo tipo, double fracao, int quantidade) {
+        this.tipo = tipo;
+        this.fracao = fracao;
+        this.quantidade = quantidade;
+    }
+
+    /**
+     * Política que visita todas as lixeiras (comportamento original das estratégias).
+     */
+    public static PoliticaColeta todas() {
+        return TODAS;
+    }
+
+    /**
+     * Política que visita apenas as lixeiras com nível de pelo menos o percentual informado do limite.
+     * @param percentual ocupação mínima, de 0 a 100.
+     */
+    public static PoliticaColeta aPartirDe(double percentual) {
+        if (percentual < 0 || percentual > 100) {
+            throw new IllegalArgumentException("O percentual deve estar entre 0 e 100: " + percentual);
+        }
+        return new PoliticaColeta(Tipo.LIMIAR, percentual / 100, 0);
+    }
+
+    /**
+     * Política que visita as K lixeiras mais cheias em fração do limite
+     * (empates decididos pela posição na lista).
+     */
+    public static PoliticaColeta maisCheias(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("A quantidade de lixeiras não pode ser negativa: " + k);
+        }
+        return new PoliticaColeta(Tipo.MAIS_CHEIAS, 0, k);
+    }
+
+    /**
+     * Indica se a política visita todas as lixeiras, caso em que nenhuma seleção é necessária.
+     */
+    public boolean incluiTodas() {
+        return tipo == Tipo.TODAS;
+    }
+
+    /**
+     * Seleciona os sensores a visitar.
+     * @return as posições na lista dos sensores selecionados, em ordem crescente.
+     */
+    public int[] selecionar(List<SensorLixo> sensores) {
+        int n = sensores.size();
+        ArmazemSensores armazem = armazemEmOrdem(sensores);
+        switch (tipo) {
+            case LIMIAR:
+                return acimaDoLimiar(sensores, armazem, n);
+            case MAIS_CHEIAS:
+                return maisCheias(sensores, armazem, n);
+            default:
+                int[] todas = new int[n];
+                for (int i = 0; i < n; i++) {
+                    todas[i] = i;
+                }
+                return todas;
+        }
+    }
+
+    /**
+     * Retorna apenas os sensores selecionados, na ordem da lista. Se a lista cobre o armazém em
+     * ordem de id, o resultado é uma visão sobre os ids selecionados, sem criar os sensores.
+     */
+    public List<SensorLixo> filtrar(List<SensorLixo> sensores) {
+        if (incluiTodas()) {
+            return sensores;
+        }
+        int[] posicoes = selecionar(sensores);
+        ArmazemSensores armazem = armazemEmOrdem(sensores);
+        if (armazem != null) {
+            return armazem.listar(posicoes); // Posição e id coincidem
+        }
+        List<SensorLixo> selecionados = new ArrayList<>(posicoes.length);
+        for (int posicao : posicoes) {
+            selecionados.add(sensores.get(posicao));
+        }
+        return selecionados;
+    }
+
+    /**
+     * Indica se as alterações de nível certamente não mudam a seleção: cada sensor alterado ficou
+     * o tempo todo abaixo do limiar. Só é possível afirmar isso para a política de limiar; para as
+     * demais, qualquer alteração pode mudar a seleção.
+     */
+    public boolean preservaSelecao(List<SensorLixo> sensores, EstrategiaIncremental.Alteracoes alteracoes) {
+        if (alteracoes.quantidade() == 0) {
+            return true;
+        }
+        if (tipo != Tipo.LIMIAR || sensores.isEmpty() || !(sensores.get(0) instanceof SensorLixoCapacidade)) {
+            return false;
+        }
+        ArmazemSensores armazem = ((SensorLixoCapacidade) sensores.get(0)).getArmazem();
+        for (int i = 0; i < alteracoes.quantidade(); i++) {
+            double limiar = fracao * armazem.getLimite(alteracoes.id(i));
+            if (alteracoes.anterior(i) >= limiar || alteracoes.novo(i) >= limiar) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] acimaDoLimiar(List<SensorLixo> sensores, ArmazemSensores armazem, int n) {
+        int[] selecionados = new int[16];
+        int gravados = 0;
+        for (int i = 0; i < n; i++) {
+            int nivel;
+            int limite;
+            if (armazem != null) {
+                nivel = armazem.getNivel(i);
+                limite = armazem.getLimite(i);
+            } else {
+                SensorLixo sensor = sensores.get(i);
+                nivel = sensor.getNivel();
+                limite = sensor.getLimite();
+            }
+            if (nivel >= fracao * limite) {
+                if (gravados == selecionados.length) {
+                    selecionados = Arrays.copyOf(selecionados, gravados * 2);
+                }
+                selecionados[gravados++] = i;
+            }
+        }
+        return Arrays.copyOf(selecionados, gravados);
+    }
+
+    private int[] maisCheias(List<SensorLixo> sensores, ArmazemSensores armazem, int n) {
+        int k = Math.min(quantidade, n);
+        if (k == 0) {
+            return new int[0];
+        }
+
+        // 1ª varredura: quantos sensores há em cada faixa de ocupação
+        int[] contagem = new int[BALDES];
+        for (int i = 0; i < n; i++) {
+            contagem[balde(nivel(sensores, armazem, i), limite(sensores, armazem, i))]++;
+        }
+        int corte = BALDES - 1;
+        int acima = 0; // Sensores em faixas acima do corte: todos entram
+        while (acima + contagem[corte] < k) {
+            acima += contagem[corte--];
+        }
+
+        // 2ª varredura: recolhe os de cima e os candidatos da faixa do corte. Os limites dos vetores
+        // só são testados porque níveis alterados por outra thread entre as varreduras podem mudar de faixa.
+        int[] selecionados = new int[k];
+        int gravados = 0;
+        long[] candidatos = new long[contagem[corte]];
+        int[] posicoes = new int[contagem[corte]];
+        int c = 0;
+        for (int i = 0; i < n; i++) {
+            int nivel = nivel(sensores, armazem, i);
+            int limite = limite(sensores, armazem, i);
+            int b = balde(nivel, limite);
+            if (b > corte) {
+                if (gravados < k) {
+                    selecionados[gravados++] = i;
+                }
+            } else if (b == corte && c < candidatos.length) {
+                // Chave = ocupação exata invertida (31 bits) nos bits altos + ordem do candidato nos baixos
+                candidatos[c] = ((long) (Integer.MAX_VALUE - ocupacao(nivel, limite)) << 32) | c;
+                posicoes[c++] = i;
+            }
+        }
+        int faltam = Math.min(k - gravados, c);
+        if (faltam < c) {
+            Arrays.sort(candidatos, 0, c);
+        }
+        for (int j = 0; j < faltam; j++) {
+            selecionados[gravados++] = posicoes[(int) candidatos[j]];
+        }
+        if (gravados < k) {
+            selecionados = Arrays.copyOf(selecionados, gravados);
+        }
+        Arrays.sort(selecionados);
+        return selecionados;
+    }
+
+    private static int nivel(List<SensorLixo> sensores, ArmazemSensores armazem, int i) {
+        return armazem != null ? armazem.getNivel(i) : sensores.get(i).getNivel();
+    }
+
+    private static int limite(List<SensorLixo> sensores, ArmazemSensores armazem, int i) {
+        return armazem != null ? armazem.getLimite(i) : sensores.get(i).getLimite();
+    }
+
+    /**
+     * Faixa de ocupação do sensor; lixeiras cheias (ou sem limite) ficam na faixa mais alta.
+     */
+    private static int balde(int nivel, int limite) {
+        if (nivel >= limite) {
+            return BALDES - 1;
+        }
+        return (int) ((long) Math.max(nivel, 0) * (BALDES - 1) / limite);
+    }
+
+    /**
+     * Ocupação (nível / limite) em 31 bits, limitada a 1.
+     */
+    private static int ocupacao(int nivel, int limite) {
+        if (nivel >= limite) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) ((long) Math.max(nivel, 0) * Integer.MAX_VALUE / limite);
+    }
+
+    private static ArmazemSensores armazemEmOrdem(List<SensorLixo> sensores) {
+        if (sensores.isEmpty() || !(sensores.get(0) instanceof SensorLixoCapacidade)) {
+            return null;
+        }
+        ArmazemSensores armazem = ((SensorLixoCapacidade) sensores.get(0)).getArmazem();
+        return armazem.cobreEmOrdem(sensores) ? armazem : null;
+    }
+}
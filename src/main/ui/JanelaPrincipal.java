@@ -5,13 +5,15 @@ import model.*;
 import strategy.*;
 import factory.*;
 import observer.*;
+import simulacao.MotorEventos;
+import simulacao.MotorSimulacao;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Classe JanelaPrincipal
@@ -20,12 +22,22 @@ import java.util.Random;
  * Permite a interação com os sensores de lixo e com o sistema de coleta,
  * oferecendo ações como aumentar o nível dos sensores, coletar o lixo
  * e restaurar o estado anterior com base no padrão Memento.
+ *
+ * A coleta é simulada pelo {@link MotorEventos}: o caminhão percorre a rota em tempo simulado,
+ * e a janela apenas reproduz o resultado, avançando o relógio simulado a cada quadro na
+ * velocidade de reprodução escolhida.
  */
 public class JanelaPrincipal extends JFrame {
     private SistemaColetaLixo sistema;                  // Instância principal que coordena sensores, caminhões e estratégia
-    private List<JProgressBar> barras;                  // Representação gráfica do nível de lixo de cada sensor
+    private PainelMapaCalor mapa;                       // Mapa de calor com o nível de lixo de cada sensor
     private JComboBox<String> estrategiaCombo;          // Menu para escolher a estratégia de coleta
     private EstrategiaColeta estrategiaSelecionada;     // Estratégia escolhida no momento
+    private MotorSimulacao motor;                       // Sorteia os aumentos de lixo de forma reproduzível
+    private MotorEventos eventos;                       // Enchimento contínuo e trabalho dos caminhões no tempo simulado
+    private ColetaPreditiva preditiva;                  // Estratégia preditiva, ouvinte do armazém enquanto a janela existir
+    private double velocidadeReproducao = 1;            // Segundos simulados por segundo real
+    private static final int QUADRO_MS = 50;            // Intervalo entre dois quadros da reprodução
+    private static final long HORIZONTE_PREDITIVA_S = 600; // Segundos simulados cobertos pela rota preditiva
 
     /**
      * Construtor da JanelaPrincipal
@@ -34,6 +46,14 @@ public class JanelaPrincipal extends JFrame {
      * Registra os sensores no sistema e prepara os componentes de UI.
      */
     public JanelaPrincipal() {
+        this(3);
+    }
+
+    /**
+     * Cria a janela com a quantidade de sensores informada.
+     * @param quantidadeSensores número de lixeiras simuladas.
+     */
+    public JanelaPrincipal(int quantidadeSensores) {
         setTitle("Sistema de Coleta de Lixo Inteligente");
         setSize(600, 400);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -41,10 +61,10 @@ public class JanelaPrincipal extends JFrame {
 
         // Criação dos sensores usando a fábrica
         FabricaSensorCapacidade fabricaSensor = new FabricaSensorCapacidade(10);
-        SensorLixo s1 = fabricaSensor.criar();
-        SensorLixo s2 = fabricaSensor.criar();
-        SensorLixo s3 = fabricaSensor.criar();
-        List<SensorLixo> sensores = Arrays.asList(s1, s2, s3);
+        List<SensorLixo> sensores = new ArrayList<>(quantidadeSensores);
+        for (int i = 0; i < quantidadeSensores; i++) {
+            sensores.add(fabricaSensor.criar());
+        }
 
         // Criação dos caminhões usando a fábrica
         FabricaCaminhaoSimples fabricaCaminhao = new FabricaCaminhaoSimples();
@@ -56,22 +76,45 @@ public class JanelaPrincipal extends JFrame {
 
         // Inicializa o sistema com sensores, caminhões e estratégia
         sistema = new SistemaColetaLixo(sensores, caminhoes, estrategiaSelecionada);
+        sistema.conectarBarramento(new BarramentoEventos(1, 1024, 256, true)); // Alertas fora da thread da interface
         sistema.salvarEstado(); // Salva o estado inicial para permitir restauração futura
-
-        // Painel de sensores: mostra as barras de progresso
-        JPanel painelSensores = new JPanel();
-        painelSensores.setLayout(new GridLayout(0, 1));
-        barras = new ArrayList<>();
-
-        for (SensorLixo sensor : sensores) {
-            JProgressBar barra = new JProgressBar(0, 10);
-            barra.setValue(sensor.getNivel());
-            barra.setStringPainted(true);
-            painelSensores.add(barra);
-            barras.add(barra);
-        }
-
-        add(painelSensores, BorderLayout.CENTER);
+        sistema.getMetricas().registrarJmx("janela"); // Métricas visíveis no JConsole/VisualVM
+
+        // Motor de simulação com semente fixa: a mesma sequência de cliques gera os mesmos níveis
+        motor = new MotorSimulacao(fabricaSensor.getArmazem(), 42, 5);
+
+        // Eventos discretos: lixeiras enchem devagar sozinhas e o caminhão leva 1 s simulado por lixeira
+        eventos = new MotorEventos(sistema, 42, 0.02, 10, 1);
+
+        // Estratégia preditiva: acompanha as taxas de enchimento desde o início no relógio simulado dos eventos,
+        // em segundos. O relógio é copiado a cada quadro em vez de consultar o motor, cuja trava é mantida
+        // durante o despacho enquanto as rotas (e portanto a estratégia) são geradas em outras threads.
+        AtomicLong segundosSimulados = new AtomicLong();
+        preditiva = new ColetaPreditiva(fabricaSensor.getArmazem(), segundosSimulados::get,
+                HORIZONTE_PREDITIVA_S);
+
+        // Mapa de calor dos sensores: repinta sozinho quando algum nível muda
+        mapa = new PainelMapaCalor(fabricaSensor.getArmazem(), quantidadeSensores <= 100 ? 48 : 8);
+        add(new JScrollPane(mapa), BorderLayout.CENTER);
+
+        // Reprodução: a cada quadro o relógio simulado avança conforme a velocidade escolhida
+        JLabel status = new JLabel(" ");
+        add(status, BorderLayout.NORTH);
+        boolean[] coletando = new boolean[1];
+        new Timer(QUADRO_MS, (ActionEvent e) -> {
+            eventos.avancarAte(eventos.getAgora() + velocidadeReproducao * QUADRO_MS / 1000.0);
+            segundosSimulados.set((long) eventos.getAgora());
+            eventos.sincronizarNiveis();
+            int emRota = eventos.getCaminhoesEmRota();
+            if (coletando[0] && emRota == 0) {
+                sistema.salvarEstado(); // Salva estado após coleta
+            }
+            coletando[0] = emRota > 0;
+            ConsultasNivel.Resumo resumo = sistema.consultas().resumo();
+            status.setText(String.format(" t = %.0f s   caminhões em rota: %d   lixo coletado: %d   cheias: %d   ocupação: %.0f%%",
+                    eventos.getAgora(), emRota, eventos.getLixoColetado(), resumo.getCheios(),
+                    resumo.getOcupacaoMedia() * 100));
+        }).start();
 
         // Painel de botões com funcionalidades principais
         JPanel painelBotoes = new JPanel();
@@ -79,17 +122,8 @@ public class JanelaPrincipal extends JFrame {
         // Botão para simular o aumento do nível de lixo em cada sensor
         JButton btnAumentar = new JButton("Simular Aumento");
         btnAumentar.addActionListener((ActionEvent e) -> {
-            Random rand = new Random();
-            for (SensorLixo sensor : sistema.getSensores()) {
-                int aumento = rand.nextInt(5) + 1;
-                if (sensor instanceof SensorLixoCapacidade) {
-                    SensorLixoCapacidade s = (SensorLixoCapacidade) sensor;
-                    if (s.getNivel() < 10) {
-                        s.simularAumento(aumento); // aumenta o nível
-                    }
-                }
-            }
-            atualizarBarras();             // Atualiza visualmente
+            eventos.sincronizarNiveis();   // O passo soma sobre o nível atual de cada lixeira
+            motor.passo();                 // Aumenta o nível de todos os sensores em um passo
             sistema.salvarEstado();        // Salva novo estado no memento
         });
         painelBotoes.add(btnAumentar);
@@ -98,24 +132,8 @@ public class JanelaPrincipal extends JFrame {
         JButton btnColetar = new JButton("Coletar Lixo");
         btnColetar.addActionListener((ActionEvent e) -> {
             sistema.setEstrategia(estrategiaSelecionada);
-            Rota rota = estrategiaSelecionada.gerarRota(sistema.getSensores());
-
-            // Cria uma thread para simular a coleta com atraso entre sensores
-            new Thread(() -> {
-                for (SensorLixo sensor : rota.getPontos()) {
-                    if (sensor instanceof SensorLixoCapacidade) {
-                        SensorLixoCapacidade s = (SensorLixoCapacidade) sensor;
-                        s.setNivel(0); // Esvazia o sensor
-                        atualizarBarras(); // Atualiza visualmente
-                        try {
-                            Thread.sleep(1000); // Pausa de 1 segundo entre cada coleta
-                        } catch (InterruptedException ex) {
-                            ex.printStackTrace();
-                        }
-                    }
-                }
-                sistema.salvarEstado(); // Salva estado após coleta
-            }).start();
+            // Os caminhões parados saem com a rota da estratégia; o mapa acompanha a reprodução
+            eventos.despachar();
         });
         painelBotoes.add(btnColetar);
 
@@ -123,54 +141,53 @@ public class JanelaPrincipal extends JFrame {
         JButton btnRestaurar = new JButton("Restaurar Estado");
         btnRestaurar.addActionListener((ActionEvent e) -> {
             sistema.restaurarEstado();
-            atualizarBarras();
         });
         painelBotoes.add(btnRestaurar);
 
         // ComboBox para selecionar a estratégia desejada
-        estrategiaCombo = new JComboBox<>(new String[]{"Nível Mais Alto", "Sequencial"});
+        estrategiaCombo = new JComboBox<>(new String[]{"Nível Mais Alto", "Sequencial", "Preditiva"});
         estrategiaCombo.addActionListener((ActionEvent e) -> {
             String escolha = (String) estrategiaCombo.getSelectedItem();
             if ("Nível Mais Alto".equals(escolha)) {
                 estrategiaSelecionada = new ColetaPorNivelMaisAlto();
+            } else if ("Preditiva".equals(escolha)) {
+                estrategiaSelecionada = preditiva;
             } else {
                 estrategiaSelecionada = new ColetaSequencial();
             }
         });
         painelBotoes.add(estrategiaCombo);
 
+        // ComboBox para a velocidade de reprodução do tempo simulado
+        JComboBox<String> velocidadeCombo = new JComboBox<>(new String[]{"1x", "10x", "60x", "600x"});
+        velocidadeCombo.addActionListener((ActionEvent e) -> {
+            String escolha = (String) velocidadeCombo.getSelectedItem();
+            velocidadeReproducao = Double.parseDouble(escolha.substring(0, escolha.length() - 1));
+        });
+        painelBotoes.add(velocidadeCombo);
+
         add(painelBotoes, BorderLayout.SOUTH);
     }
 
     /**
-     * Atualiza a interface gráfica das barras de progresso com os níveis atuais dos sensores
+     * Fecha a janela e desliga do armazém o motor de eventos, a estratégia preditiva e o sistema.
      */
-    private void atualizarBarras() {
-        List<SensorLixo> sensores = sistema.getSensores();
-        for (int i = 0; i < sensores.size(); i++) {
-            SensorLixo sensor = sensores.get(i);
-            if (sensor instanceof SensorLixoCapacidade) {
-                SensorLixoCapacidade s = (SensorLixoCapacidade) sensor;
-                barras.get(i).setValue(s.getNivel());
-
-                // Se estiver cheio, destaca visualmente em vermelho e mostra alerta
-                if (s.getNivel() >= 10) {
-                    barras.get(i).setForeground(Color.RED);
-                    barras.get(i).setString("Lixeira " + (i + 1) + " cheia!");
-                } else {
-                    barras.get(i).setForeground(Color.GREEN);
-                    barras.get(i).setString(null);
-                }
-            }
-        }
+    @Override
+    public void dispose() {
+        eventos.close();
+        preditiva.close();
+        sistema.close();
+        super.dispose();
     }
 
     /**
-     * Método principal para iniciar a interface gráfica da aplicação
+     * Método principal para iniciar a interface gráfica da aplicação.
+     * O primeiro argumento, opcional, define a quantidade de sensores (padrão: 3).
      */
     public static void main(String[] args) {
+        int quantidadeSensores = args.length > 0 ? Integer.parseInt(args[0]) : 3;
         SwingUtilities.invokeLater(() -> {
-            JanelaPrincipal app = new JanelaPrincipal();
+            JanelaPrincipal app = new JanelaPrincipal(quantidadeSensores);
             app.setVisible(true);
         });
     }
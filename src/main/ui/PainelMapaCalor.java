@@ -0,0 +1,176 @@
+package ui;
+
+import model.ArmazemSensores;
+import observer.OuvinteNivel;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Classe PainelMapaCalor
+ *
+ * Mapa de calor com uma célula colorida por sensor, do verde (vazio) ao vermelho (cheio).
+ * Substitui as barras de progresso, que exigiam um componente Swing por lixeira e ficavam
+ * inviáveis a partir de algumas centenas de sensores.
+ *
+ * O painel é virtualizado: desenha apenas as células que aparecem na área visível (o recorte
+ * da pintura), a partir de uma cópia dos níveis tirada na thread do Swing. As threads de
+ * simulação e de coleta nunca tocam nos componentes: cada alteração de nível apenas marca o
+ * painel como "sujo", e um {@link Timer} do Swing, a cerca de 60 quadros por segundo, copia os
+ * níveis e pede uma única repintura, agrupando todas as alterações ocorridas no intervalo.
+ */
+public class PainelMapaCalor extends JPanel implements Scrollable, OuvinteNivel {
+    private static final long serialVersionUID = 1L;
+    private static final int INTERVALO_QUADRO_MS = 16;
+    private static final Color[] PALETA = criarPaleta(101);
+
+    private ArmazemSensores armazem;                          // Fonte dos níveis e limites
+    private int tamanhoCelula;                                // Lado de cada célula, em pixels
+    private int[] niveis = new int[0];                        // Cópia dos níveis usada na pintura
+    private AtomicBoolean sujo = new AtomicBoolean(true);     // Indica alterações ainda não desenhadas
+    private Timer temporizador;                               // Agrupa as repinturas
+
+    /**
+     * Cria o painel sobre os sensores do armazém e começa a acompanhar suas alterações.
+     * @param tamanhoCelula lado de cada célula em pixels.
+     */
+    public PainelMapaCalor(ArmazemSensores armazem, int tamanhoCelula) {
+        this.armazem = armazem;
+        this.tamanhoCelula = tamanhoCelula;
+        setBackground(Color.DARK_GRAY);
+        setToolTipText("");
+        armazem.registrarOuvinte(this);
+
+        temporizador = new Timer(INTERVALO_QUADRO_MS, e -> atualizarQuadro());
+        temporizador.setCoalesce(true);
+        temporizador.start();
+    }
+
+    /**
+     * Chamado por qualquer thread a cada alteração de nível: apenas marca o painel como sujo.
+     */
+    @Override
+    public void nivelAlterado(int id, int anterior, int novo) {
+        sujo.lazySet(true);
+    }
+
+    /**
+     * Força a cópia dos níveis e a repintura no próximo quadro.
+     */
+    public void marcarSujo() {
+        sujo.set(true);
+    }
+
+    /**
+     * Executado pelo temporizador na thread do Swing: copia os níveis e repinta, se necessário.
+     */
+    private void atualizarQuadro() {
+        if (!sujo.getAndSet(false)) {
+            return;
+        }
+        int total = armazem.tamanho();
+        if (niveis.length != total) {
+            niveis = new int[total];
+            revalidate();
+        }
+        armazem.copiarNiveis(niveis);
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int colunas = colunas();
+        Rectangle recorte = g.getClipBounds();
+        int primeiraLinha = recorte.y / tamanhoCelula;
+        int ultimaLinha = (recorte.y + recorte.height) / tamanhoCelula;
+        int primeiraColuna = Math.max(0, recorte.x / tamanhoCelula);
+        int ultimaColuna = Math.min(colunas - 1, (recorte.x + recorte.width) / tamanhoCelula);
+        int lado = Math.max(1, tamanhoCelula - 1);
+
+        for (int linha = primeiraLinha; linha <= ultimaLinha; linha++) {
+            for (int coluna = primeiraColuna; coluna <= ultimaColuna; coluna++) {
+                int id = linha * colunas + coluna;
+                if (id >= niveis.length) {
+                    return;
+                }
+                g.setColor(PALETA[percentual(id)]);
+                g.fillRect(coluna * tamanhoCelula, linha * tamanhoCelula, lado, lado);
+            }
+        }
+    }
+
+    /**
+     * Mostra o nível da lixeira sob o cursor, destacando as que estão cheias.
+     */
+    @Override
+    public String getToolTipText(MouseEvent evento) {
+        int coluna = evento.getX() / tamanhoCelula;
+        int id = (evento.getY() / tamanhoCelula) * colunas() + coluna;
+        if (coluna >= colunas() || id >= niveis.length) {
+            return null;
+        }
+        if (niveis[id] >= armazem.getLimite(id)) {
+            return "Lixeira " + (id + 1) + " cheia!";
+        }
+        return "Lixeira " + (id + 1) + ": " + niveis[id] + "/" + armazem.getLimite(id);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int colunas = colunas();
+        int linhas = (niveis.length + colunas - 1) / colunas;
+        return new Dimension(colunas * tamanhoCelula, Math.max(linhas, 1) * tamanhoCelula);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(600, 300);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visivel, int orientacao, int direcao) {
+        return tamanhoCelula;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visivel, int orientacao, int direcao) {
+        return orientacao == SwingConstants.VERTICAL ? visivel.height : visivel.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    private int colunas() {
+        return Math.max(1, getWidth() / tamanhoCelula);
+    }
+
+    private int percentual(int id) {
+        int limite = armazem.getLimite(id);
+        if (limite <= 0) {
+            return 100;
+        }
+        return Math.max(0, Math.min(100, (int) ((long) niveis[id] * 100 / limite)));
+    }
+
+    /**
+     * Cores do verde ao vermelho passando pelo amarelo, uma por ponto percentual.
+     */
+    private static Color[] criarPaleta(int tamanho) {
+        Color[] paleta = new Color[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            float fracao = i / (float) (tamanho - 1);
+            paleta[i] = Color.getHSBColor((1 - fracao) / 3f, 0.85f, 0.9f);
+        }
+        return paleta;
+    }
+}
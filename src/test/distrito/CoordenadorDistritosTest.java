@@ -0,0 +1,144 @@
+package distrito;
+
+import model.ArmazemSensores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import strategy.ColetaSequencial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoordenadorDistritosTest {
+    private static final int SENSORES = 2000;
+    private static final int DISTRITOS = 16;
+    private static final int THREADS = 4;
+    private static final int PRODUTORES = 4;
+    private static final int TAREFAS = DISTRITOS * 200;
+    private static final int COMANDOS = 300;
+
+    @Test
+    @Timeout(120)
+    void ordemDosComandosSobreviveARedistribuicao() throws InterruptedException {
+        SplittableRandom aleatorio = new SplittableRandom(17);
+        ArmazemSensores cidade = new ArmazemSensores(SENSORES);
+        for (int i = 0; i < SENSORES; i++) {
+            cidade.adicionar(1_000_000, aleatorio.nextDouble() * 1000, aleatorio.nextDouble() * 1000);
+        }
+        try (CoordenadorDistritos coordenador = new CoordenadorDistritos(cidade, DISTRITOS, THREADS,
+                armazem -> new ColetaSequencial(), 1, 10)) {
+            // Por distrito: a próxima tarefa esperada de cada produtor e se alguma tarefa está rodando
+            int[][] proxima = new int[DISTRITOS][PRODUTORES];
+            AtomicBoolean[] rodando = new AtomicBoolean[DISTRITOS];
+            for (int d = 0; d < DISTRITOS; d++) {
+                rodando[d] = new AtomicBoolean();
+            }
+            AtomicReference<String> erro = new AtomicReference<>();
+            CountDownLatch largada = new CountDownLatch(1);
+
+            // Produtores enviam tarefas numeradas direto aos distritos; os distritos pares são
+            // "quentes" (tarefas mais demoradas), para a redistribuição ter o que mover
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < PRODUTORES; p++) {
+                int produtor = p;
+                threads.add(new Thread(() -> {
+                    aguardar(largada);
+                    for (int i = 0; i < TAREFAS; i++) {
+                        int d = i % DISTRITOS;
+                        int sequencia = i / DISTRITOS;
+                        coordenador.getDistrito(d).enviar(s -> {
+                            if (!rodando[d].compareAndSet(false, true)) {
+                                erro.compareAndSet(null, "distrito " + d + " com duas tarefas ao mesmo tempo");
+                            }
+                            if (proxima[d][produtor] != sequencia) {
+                                erro.compareAndSet(null, "distrito " + d + ", produtor " + produtor + ": tarefa "
+                                        + sequencia + " no lugar da " + proxima[d][produtor]);
+                            }
+                            proxima[d][produtor]++;
+                            if (d % 2 == 0) {
+                                Thread.yield(); // Outra thread de trabalho pode pegar o distrito aqui
+                                ocupar(20_000);
+                            }
+                            rodando[d].set(false);
+                        });
+                        ocupar(2_000); // Envios espaçados: as redistribuições pegam distritos no meio da fila
+                    }
+                }, "produtor-" + p));
+            }
+
+            // Redistribuições contínuas enquanto os comandos chegam
+            AtomicBoolean parar = new AtomicBoolean();
+            AtomicInteger movidos = new AtomicInteger();
+            Thread redistribuidor = new Thread(() -> {
+                aguardar(largada);
+                while (!parar.get()) {
+                    movidos.addAndGet(coordenador.rebalancear());
+                    ocupar(200_000);
+                }
+            }, "redistribuidor");
+
+            threads.forEach(Thread::start);
+            redistribuidor.start();
+            largada.countDown();
+
+            // Comandos para a cidade inteira: cada cópia de níveis deve ver todos os aumentos
+            // anteriores em todos os distritos, e nenhum dos seguintes
+            int[] ids = new int[SENSORES];
+            int[] um = new int[SENSORES];
+            for (int i = 0; i < SENSORES; i++) {
+                ids[i] = i;
+                um[i] = 1;
+            }
+            int[] niveis = new int[SENSORES];
+            int[] esperado = new int[SENSORES];
+            for (int c = 1; c <= COMANDOS; c++) {
+                coordenador.aumentar(ids, um, SENSORES);
+                if (c % 10 == 0) {
+                    coordenador.copiarNiveis(niveis);
+                    Arrays.fill(esperado, c);
+                    assertArrayEquals(esperado, niveis, "depois de " + c + " aumentos");
+                }
+            }
+
+            for (Thread t : threads) {
+                t.join();
+            }
+            coordenador.sincronizar();
+            parar.set(true);
+            redistribuidor.join();
+
+            assertNull(erro.get());
+            for (int d = 0; d < DISTRITOS; d++) {
+                for (int p = 0; p < PRODUTORES; p++) {
+                    assertEquals(TAREFAS / DISTRITOS, proxima[d][p], "distrito " + d + ", produtor " + p);
+                }
+            }
+            assertTrue(movidos.get() > 0, "nenhum distrito mudou de thread");
+        }
+    }
+
+    private static void ocupar(long nanos) {
+        long fim = System.nanoTime() + nanos;
+        while (System.nanoTime() < fim) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void aguardar(CountDownLatch largada) {
+        try {
+            largada.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
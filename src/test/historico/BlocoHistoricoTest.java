@@ -0,0 +1,155 @@
+package historico;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BlocoHistoricoTest {
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void diferencasDe64Bits() throws IOException {
+        // Diferenças da diferença de ±2^62 e além: o zigue-zague só cabe nos 64 bits, sem sinal
+        long[] instantes = {
+                0, 1L << 62, 0, -(1L << 62), 1L << 40, Long.MAX_VALUE - 1,
+                Long.MIN_VALUE, Long.MIN_VALUE / 2, -1, 1L << 61, 5
+        };
+        int[] ids = new int[instantes.length];
+        int[] niveis = new int[instantes.length];
+        for (int i = 0; i < niveis.length; i++) {
+            niveis[i] = i * 3;
+        }
+        conferirIdaEVolta(ids, instantes, niveis);
+    }
+
+    @Test
+    void larguraZeroQuandoTodosOsNiveisSaoIguais() throws IOException {
+        int[] ids = {4, 4, 4, 9};
+        long[] instantes = {10, 20, 30, 40};
+        int[] niveis = {77, 77, 77, -5};
+        BlocoHistorico bloco = conferirIdaEVolta(ids, instantes, niveis);
+        int s = bloco.buscar(4);
+        assertEquals(3, bloco.quantidade(s));
+        assertEquals(77, bloco.minimo(s));
+        assertEquals(77, bloco.maximo(s));
+        assertEquals(231, bloco.soma(s));
+    }
+
+    @Test
+    void niveisQueAtravessamDuasPalavras() throws IOException {
+        // 7 e 32 bits por nível: várias leituras começam em uma palavra e terminam na seguinte
+        int n = 200;
+        int[] ids = new int[n];
+        long[] instantes = new long[n];
+        int[] niveis = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i < n / 2 ? 1 : 2;
+            instantes[i] = i;
+            niveis[i] = i < n / 2 ? (i * 37) % 128 : (i % 2 == 0 ? Integer.MIN_VALUE + i : Integer.MAX_VALUE - i);
+        }
+        conferirIdaEVolta(ids, instantes, niveis);
+    }
+
+    @Test
+    void prefixoNoFimDaColuna() throws IOException {
+        // Intervalo regular (um bit por leitura) e uma última diferença de cada largura: o prefixo
+        // cai em todas as posições da última palavra, inclusive encostado no fim da coluna e do arquivo
+        List<int[]> ids = new ArrayList<>();
+        List<long[]> instantes = new ArrayList<>();
+        for (int regulares = 60; regulares <= 70; regulares++) {
+            for (long salto : new long[]{0, 50, 2_000, 500_000, 1L << 40}) {
+                int n = regulares + 2;
+                int[] serie = new int[n];
+                long[] tempos = new long[n];
+                for (int i = 0; i < n; i++) {
+                    serie[i] = ids.size();
+                    tempos[i] = i * 60L + (i == n - 1 ? salto : 0);
+                }
+                ids.add(serie);
+                instantes.add(tempos);
+            }
+        }
+        int total = ids.stream().mapToInt(v -> v.length).sum();
+        int[] todosIds = new int[total];
+        long[] todosInstantes = new long[total];
+        int[] niveis = new int[total];
+        int k = 0;
+        for (int s = 0; s < ids.size(); s++) {
+            for (int i = 0; i < ids.get(s).length; i++) {
+                todosIds[k] = ids.get(s)[i];
+                todosInstantes[k] = instantes.get(s)[i];
+                niveis[k] = (s + i) % 100;
+                k++;
+            }
+        }
+        conferirIdaEVolta(todosIds, todosInstantes, niveis);
+    }
+
+    @Test
+    void seriesAleatorias() throws IOException {
+        SplittableRandom aleatorio = new SplittableRandom(7);
+        for (int rodada = 0; rodada < 20; rodada++) {
+            int n = 1 + aleatorio.nextInt(3000);
+            int[] ids = new int[n];
+            long[] instantes = new long[n];
+            int[] niveis = new int[n];
+            long[] ultimo = new long[50];
+            for (int i = 0; i < n; i++) {
+                int id = aleatorio.nextInt(50);
+                long passo = switch (aleatorio.nextInt(4)) {
+                    case 0 -> 300;
+                    case 1 -> aleatorio.nextInt(100);
+                    case 2 -> aleatorio.nextInt(1 << 20);
+                    default -> aleatorio.nextLong(1L << 50);
+                };
+                ultimo[id] += passo;
+                ids[i] = id;
+                instantes[i] = ultimo[id];
+                niveis[i] = aleatorio.nextInt(1 + aleatorio.nextInt(1 << 16)) - 100;
+            }
+            conferirIdaEVolta(ids, instantes, niveis);
+        }
+    }
+
+    /**
+     * Grava e reabre o bloco e confere, série a série, as leituras decodificadas e o resumo do índice.
+     */
+    private BlocoHistorico conferirIdaEVolta(int[] ids, long[] instantes, int[] niveis) throws IOException {
+        Path arquivo = diretorio.resolve("bloco-" + System.nanoTime() + ".ts");
+        BlocoHistorico.gravar(arquivo, 0, 0, ids, instantes, niveis, ids.length);
+        BlocoHistorico bloco = BlocoHistorico.abrir(arquivo, 0, 0);
+        assertEquals(ids.length, bloco.leituras());
+        for (int s = 0; s < bloco.series(); s++) {
+            int id = bloco.id(s);
+            List<long[]> esperadas = new ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    esperadas.add(new long[]{instantes[i], niveis[i]});
+                }
+            }
+            List<long[]> lidas = new ArrayList<>();
+            bloco.percorrer(s, Long.MIN_VALUE, Long.MAX_VALUE, (lido, instante, nivel) -> {
+                assertEquals(id, lido);
+                lidas.add(new long[]{instante, nivel});
+            });
+            assertEquals(esperadas.size(), bloco.quantidade(s));
+            assertEquals(esperadas.size(), lidas.size(), "leituras do sensor " + id);
+            for (int i = 0; i < esperadas.size(); i++) {
+                assertArrayEquals(esperadas.get(i), lidas.get(i), "leitura " + i + " do sensor " + id);
+            }
+            assertEquals(esperadas.get(0)[0], bloco.primeiro(s));
+            assertEquals(esperadas.get(esperadas.size() - 1)[0], bloco.ultimo(s));
+            assertEquals(s, bloco.buscar(id));
+        }
+        return bloco;
+    }
+}
@@ -0,0 +1,108 @@
+package historico;
+
+import model.ArmazemSensores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoricoNiveisTest {
+    private static final int SENSORES = 40;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void agregarConfereComVarreduraCompleta() throws IOException {
+        ArmazemSensores armazem = new ArmazemSensores(SENSORES);
+        for (int i = 0; i < SENSORES; i++) {
+            armazem.adicionar(1000, i, i);
+        }
+        AtomicLong relogio = new AtomicLong();
+        List<long[]> leituras = new ArrayList<>(); // id, instante, nível
+        SplittableRandom aleatorio = new SplittableRandom(3);
+        try (HistoricoNiveis historico = new HistoricoNiveis(armazem, diretorio, relogio::get, 500)) {
+            for (int i = 0; i < 20_000; i++) {
+                relogio.addAndGet(aleatorio.nextInt(4));
+                int id = aleatorio.nextInt(SENSORES);
+                int nivel = aleatorio.nextInt(1001);
+                armazem.setNivel(id, nivel);
+                leituras.add(new long[]{id, relogio.get(), nivel});
+                if (i % 7_000 == 6_999) {
+                    historico.descarregar(); // Parte em blocos, parte ainda em memória
+                }
+            }
+            assertEquals(leituras.size(), historico.getLeituras());
+            assertTrue(historico.getBlocos() > 1);
+
+            long fim = relogio.get() + 1;
+            for (int rodada = 0; rodada < 200; rodada++) {
+                long de = aleatorio.nextLong(fim);
+                long ate = de + aleatorio.nextLong(fim - de + 1);
+                long passo = 1 + aleatorio.nextLong(Math.max(1, ate - de));
+                int id = aleatorio.nextInt(SENSORES);
+                conferir(historico.agregar(de, ate, passo, id), leituras, de, ate, passo, s -> s == id);
+                int resto = aleatorio.nextInt(3);
+                IntPredicate filtro = s -> s % 3 == resto;
+                conferir(historico.agregar(de, ate, passo, filtro), leituras, de, ate, passo, filtro);
+            }
+        }
+    }
+
+    @Test
+    void reabreOsBlocosGravados() throws IOException {
+        ArmazemSensores armazem = new ArmazemSensores(2);
+        armazem.adicionar(100, 0, 0);
+        armazem.adicionar(100, 1, 1);
+        AtomicLong relogio = new AtomicLong(10);
+        try (HistoricoNiveis historico = new HistoricoNiveis(armazem, diretorio, relogio::get, 100)) {
+            armazem.setNivel(0, 30);
+            relogio.set(250);
+            armazem.setNivel(1, 60);
+        }
+        try (HistoricoNiveis historico = new HistoricoNiveis(armazem, diretorio, relogio::get, 100)) {
+            List<long[]> lidas = new ArrayList<>();
+            historico.ler(0, 1000, s -> true, (id, instante, nivel) -> lidas.add(new long[]{id, instante, nivel}));
+            assertEquals(2, lidas.size());
+            assertEquals(2, historico.getBlocos());
+        }
+    }
+
+    private static void conferir(HistoricoNiveis.Agregado agregado, List<long[]> leituras,
+                                 long de, long ate, long passo, IntPredicate filtro) {
+        int janelas = (int) ((ate - de + passo - 1) / passo);
+        long[] quantidade = new long[janelas];
+        long[] soma = new long[janelas];
+        int[] minimo = new int[janelas];
+        int[] maximo = new int[janelas];
+        Arrays.fill(minimo, Integer.MAX_VALUE);
+        Arrays.fill(maximo, Integer.MIN_VALUE);
+        for (long[] leitura : leituras) {
+            if (leitura[1] >= de && leitura[1] < ate && filtro.test((int) leitura[0])) {
+                int j = (int) ((leitura[1] - de) / passo);
+                quantidade[j]++;
+                soma[j] += leitura[2];
+                minimo[j] = Math.min(minimo[j], (int) leitura[2]);
+                maximo[j] = Math.max(maximo[j], (int) leitura[2]);
+            }
+        }
+        assertEquals(janelas, agregado.getJanelas());
+        for (int j = 0; j < janelas; j++) {
+            String contexto = "janela " + j + " de [" + de + ", " + ate + ") passo " + passo;
+            assertEquals(quantidade[j], agregado.getLeituras(j), contexto);
+            assertEquals(soma[j], agregado.getSoma(j), contexto);
+            assertEquals(minimo[j], agregado.getMinimo(j), contexto);
+            assertEquals(maximo[j], agregado.getMaximo(j), contexto);
+        }
+    }
+}
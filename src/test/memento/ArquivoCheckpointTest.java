@@ -0,0 +1,129 @@
+package memento;
+
+import model.ArmazemSensores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArquivoCheckpointTest {
+    private static final int SENSORES = 5;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void idaEVolta() throws IOException {
+        Path arquivo = gravarExemplo();
+        ArmazemSensores carregado = ArquivoCheckpoint.carregar(arquivo);
+        assertEquals(SENSORES, carregado.tamanho());
+        for (int id = 0; id < SENSORES; id++) {
+            assertEquals(id * 7, carregado.getNivel(id));
+            assertEquals(100 + id, carregado.getLimite(id));
+        }
+        int[] niveis = new int[SENSORES];
+        assertEquals(SENSORES, ArquivoCheckpoint.lerNiveis(arquivo, niveis));
+        assertArrayEquals(new int[]{0, 7, 14, 21, 28}, niveis);
+    }
+
+    @Test
+    void rejeitaQualquerByteAlterado() throws IOException {
+        Path original = gravarExemplo();
+        byte[] bytes = Files.readAllBytes(original);
+        Path arquivo = diretorio.resolve("alterado.ckpt");
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] alterados = bytes.clone();
+            alterados[i] ^= 0x10;
+            Files.write(arquivo, alterados);
+            String mensagem = assertThrows(IOException.class, () -> ArquivoCheckpoint.carregar(arquivo),
+                    "byte " + i).getMessage();
+            if (i < 4) {
+                assertTrue(mensagem.startsWith("Arquivo não é um checkpoint"), mensagem);
+            } else if (i < 32) {
+                assertTrue(mensagem.startsWith("Cabeçalho do checkpoint corrompido"), mensagem);
+            } else {
+                assertTrue(mensagem.startsWith("Dados do checkpoint corrompidos"), mensagem);
+            }
+        }
+    }
+
+    @Test
+    void rejeitaNumeroMagicoVersaoETamanho() throws IOException {
+        byte[] bytes = Files.readAllBytes(gravarExemplo());
+        Path arquivo = diretorio.resolve("cabecalho.ckpt");
+
+        // Mesmo com o CRC do cabeçalho refeito, cada campo ainda é validado
+        byte[] magico = bytes.clone();
+        cabecalho(magico).putInt(0, 0x12345678);
+        refazerCrcCabecalho(magico);
+        Files.write(arquivo, magico);
+        assertMensagem("Arquivo não é um checkpoint", arquivo);
+
+        byte[] versao = bytes.clone();
+        cabecalho(versao).putInt(4, ArquivoCheckpoint.VERSAO + 1);
+        refazerCrcCabecalho(versao);
+        Files.write(arquivo, versao);
+        assertMensagem("Versão de checkpoint não suportada", arquivo);
+
+        byte[] quantidade = bytes.clone();
+        cabecalho(quantidade).putInt(8, SENSORES + 1);
+        refazerCrcCabecalho(quantidade);
+        Files.write(arquivo, quantidade);
+        assertMensagem("Tamanho do checkpoint inconsistente", arquivo);
+
+        Files.write(arquivo, Arrays.copyOf(bytes, bytes.length - 4)); // Truncado
+        assertMensagem("Tamanho do checkpoint inconsistente", arquivo);
+
+        Files.write(arquivo, Arrays.copyOf(bytes, 20)); // Menor que o cabeçalho
+        assertMensagem("Arquivo de checkpoint inválido", arquivo);
+    }
+
+    @Test
+    void restaurarRejeitaCidadeDeOutroTamanho() throws IOException {
+        Path arquivo = gravarExemplo();
+        ArmazemSensores outra = new ArmazemSensores(SENSORES + 1);
+        for (int id = 0; id <= SENSORES; id++) {
+            outra.adicionar(10);
+        }
+        IOException erro = assertThrows(IOException.class, () -> ArquivoCheckpoint.restaurar(outra, arquivo));
+        assertTrue(erro.getMessage().startsWith("O checkpoint tem " + SENSORES + " sensores"), erro.getMessage());
+        assertEquals(10, outra.getLimite(0)); // Nada foi restaurado
+    }
+
+    private Path gravarExemplo() throws IOException {
+        ArmazemSensores armazem = new ArmazemSensores(SENSORES);
+        for (int id = 0; id < SENSORES; id++) {
+            armazem.adicionar(100 + id);
+            armazem.setNivel(id, id * 7);
+        }
+        Path arquivo = diretorio.resolve("exemplo.ckpt");
+        ArquivoCheckpoint.gravar(armazem, arquivo);
+        return arquivo;
+    }
+
+    private static void assertMensagem(String inicio, Path arquivo) {
+        IOException erro = assertThrows(IOException.class, () -> ArquivoCheckpoint.carregar(arquivo));
+        assertTrue(erro.getMessage().startsWith(inicio), erro.getMessage());
+    }
+
+    private static ByteBuffer cabecalho(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void refazerCrcCabecalho(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, 28);
+        cabecalho(bytes).putInt(28, (int) crc.getValue());
+    }
+}
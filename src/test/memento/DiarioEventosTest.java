@@ -0,0 +1,121 @@
+package memento;
+
+import model.ArmazemSensores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiarioEventosTest {
+    private static final int SENSORES = 50;
+    private static final int LIMITE = 100;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void restauraCadaTickDepoisDeRecomecar() throws IOException {
+        SplittableRandom aleatorio = new SplittableRandom(12);
+        ArmazemSensores armazem = novoArmazem();
+        AtomicLong relogio = new AtomicLong();
+        // Checkpoints a cada 7 ticks e segmentos pequenos: a releitura atravessa marcas, checkpoints
+        // e trocas de segmento
+        try (DiarioEventos diario = new DiarioEventos(armazem, diretorio, relogio::get, 7, 1 << 20)) {
+            List<int[]> esperados = new ArrayList<>();
+            esperados.add(niveis(armazem));
+            simular(armazem, relogio, aleatorio, 40, esperados);
+            // As restaurações também são gravadas: cada conferência acontece em um tick novo
+            relogio.incrementAndGet();
+            conferir(diario, armazem, esperados);
+
+            // Recomeça do tick 15: o tick 41 termina com o estado restaurado, e a simulação segue dele
+            diario.restaurarAteTick(15);
+            esperados.add(niveis(armazem));
+            assertArrayEquals(esperados.get(15), esperados.get(41));
+            simular(armazem, relogio, aleatorio, 30, esperados);
+            relogio.incrementAndGet();
+            conferir(diario, armazem, esperados);
+            assertTrue(diario.getSnapshots() > 5);
+            assertEquals(0, diario.getDescartados());
+        }
+    }
+
+    @Test
+    void falhaDeGravacaoChegaAsConsultasENaoAQuemAlteraONivel() throws IOException {
+        ArmazemSensores armazem = novoArmazem();
+        AtomicLong relogio = new AtomicLong();
+        DiarioEventos diario = new DiarioEventos(armazem, diretorio, relogio::get, 5, 1 << 20);
+        armazem.setNivel(0, 10);
+        diario.descarregar();
+
+        // Sem o diretório, o próximo checkpoint não pode ser gravado
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                Files.delete(arquivo);
+            }
+        }
+        Files.delete(diretorio);
+        relogio.set(5);
+        armazem.setNivel(1, 20);  // Pede o checkpoint, que falha na thread do diário
+        for (int i = 1; i <= 10; i++) {
+            armazem.setNivel(2, i); // Descartados, sem exceção para quem altera
+        }
+
+        IOException falha = assertThrows(IOException.class, diario::descarregar);
+        assertSame(falha, assertThrows(IOException.class, () -> diario.restaurarAteTick(0)));
+        assertSame(falha, assertThrows(IOException.class, () -> diario.ler(0, 5, (tick, id, nivel) -> { })));
+        assertEquals(11, diario.getDescartados());
+        assertEquals(1, diario.getRegistros());
+        assertSame(falha, assertThrows(IOException.class, diario::close));
+        assertEquals(10, armazem.getNivel(2));
+    }
+
+    private static ArmazemSensores novoArmazem() {
+        ArmazemSensores armazem = new ArmazemSensores(SENSORES);
+        for (int i = 0; i < SENSORES; i++) {
+            armazem.adicionar(LIMITE);
+        }
+        return armazem;
+    }
+
+    /**
+     * Altera níveis ao acaso por alguns ticks, guardando o estado ao fim de cada um.
+     */
+    private static void simular(ArmazemSensores armazem, AtomicLong relogio, SplittableRandom aleatorio,
+                                int ticks, List<int[]> esperados) {
+        for (int t = 0; t < ticks; t++) {
+            relogio.incrementAndGet();
+            for (int i = 0; i < 1 + aleatorio.nextInt(30); i++) {
+                armazem.setNivel(aleatorio.nextInt(SENSORES), aleatorio.nextInt(LIMITE + 1));
+            }
+            esperados.add(niveis(armazem));
+        }
+    }
+
+    private static void conferir(DiarioEventos diario, ArmazemSensores armazem, List<int[]> esperados)
+            throws IOException {
+        for (int tick = 0; tick < esperados.size(); tick++) {
+            diario.restaurarAteTick(tick);
+            assertArrayEquals(esperados.get(tick), niveis(armazem), "tick " + tick);
+        }
+    }
+
+    private static int[] niveis(ArmazemSensores armazem) {
+        int[] niveis = new int[armazem.tamanho()];
+        armazem.copiarNiveis(niveis);
+        return niveis;
+    }
+}
@@ -0,0 +1,158 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConsultasNivelTest {
+    // 800 sensores dão uma grade de 10 x 10 células; com as coordenadas inteiras de 0 a 100, as
+    // bordas das células caem em múltiplos de 10, onde também há sensores
+    private static final int SENSORES = 800;
+    private static final int LADO = 100;
+    private static final int DISTRITOS = 5;
+
+    @Test
+    void resumosConferemComVarreduraCompleta() {
+        SplittableRandom aleatorio = new SplittableRandom(11);
+        ArmazemSensores armazem = new ArmazemSensores(SENSORES);
+        int[] distritoDe = new int[SENSORES];
+        for (int i = 0; i < SENSORES; i++) {
+            // Os quatro primeiros fixam os limites do mapa nos cantos
+            int x = i < 4 ? (i & 1) * LADO : aleatorio.nextBoolean() ? aleatorio.nextInt(LADO / 10 + 1) * 10
+                    : aleatorio.nextInt(LADO + 1);
+            int y = i < 4 ? (i >> 1) * LADO : aleatorio.nextInt(LADO + 1);
+            armazem.adicionar(1 + aleatorio.nextInt(100), x, y);
+            distritoDe[i] = aleatorio.nextInt(DISTRITOS);
+        }
+        ConsultasNivel consultas = new ConsultasNivel(armazem, distritoDe, DISTRITOS);
+        armazem.registrarOuvinte(consultas);
+
+        for (int rodada = 0; rodada < 50; rodada++) {
+            for (int i = 0; i < 200; i++) {
+                int id = aleatorio.nextInt(SENSORES);
+                armazem.setNivel(id, aleatorio.nextInt(armazem.getLimite(id) + 20));
+            }
+            conferir(armazem, consultas.resumo(), id -> true);
+            for (int d = 0; d < DISTRITOS; d++) {
+                int distrito = d;
+                conferir(armazem, consultas.resumoDistrito(d), id -> distritoDe[id] == distrito);
+            }
+            for (int r = 0; r < 40; r++) {
+                double x0 = coordenada(aleatorio);
+                double x1 = coordenada(aleatorio);
+                double y0 = coordenada(aleatorio);
+                double y1 = coordenada(aleatorio);
+                if (aleatorio.nextInt(4) > 0) { // Uma vez em quatro fica invertido: região vazia
+                    double menor = Math.min(x0, x1);
+                    x1 = Math.max(x0, x1);
+                    x0 = menor;
+                    menor = Math.min(y0, y1);
+                    y1 = Math.max(y0, y1);
+                    y0 = menor;
+                }
+                conferirRegiao(armazem, consultas, x0, y0, x1, y1);
+            }
+        }
+    }
+
+    @Test
+    void regioesNasBordasDaGrade() {
+        SplittableRandom aleatorio = new SplittableRandom(5);
+        ArmazemSensores armazem = new ArmazemSensores(SENSORES);
+        for (int i = 0; i < SENSORES; i++) {
+            armazem.adicionar(50, aleatorio.nextInt(LADO / 10 + 1) * 10, aleatorio.nextInt(LADO / 10 + 1) * 10);
+            armazem.setNivel(i, aleatorio.nextInt(60));
+        }
+        ConsultasNivel consultas = new ConsultasNivel(armazem);
+        armazem.registrarOuvinte(consultas);
+        // Todos os sensores estão em bordas de célula: cada retângulo com lados nas bordas
+        // (e além dos limites do mapa) testa a decisão entre célula inteira e célula da borda
+        double[] bordas = {-10, 0, 10, 20, 50, 90, 100, 110};
+        for (double x0 : bordas) {
+            for (double x1 : bordas) {
+                for (double y0 : bordas) {
+                    for (double y1 : bordas) {
+                        conferirRegiao(armazem, consultas, x0, y0, x1, y1);
+                        conferirRegiao(armazem, consultas, x0 + 1e-9, y0, x1 - 1e-9, y1);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void sensoresCadastradosDepoisEntramNaConsultaSeguinte() {
+        ArmazemSensores armazem = new ArmazemSensores(4);
+        armazem.adicionar(10, 0, 0);
+        armazem.adicionar(10, 10, 10);
+        ConsultasNivel consultas = new ConsultasNivel(armazem);
+        armazem.registrarOuvinte(consultas);
+        armazem.setNivel(1, 10);
+        conferirRegiao(armazem, consultas, 0, 0, 10, 10);
+
+        armazem.adicionar(20, 5, 5);
+        armazem.adicionar(20, 30, 30); // Fora do retângulo que envolvia os sensores
+        armazem.setNivel(3, 15);
+        conferir(armazem, consultas.resumo(), id -> true);
+        conferirRegiao(armazem, consultas, 0, 0, 10, 10);
+        conferirRegiao(armazem, consultas, 5, 5, 30, 30);
+        conferirRegiao(armazem, consultas, 30, 30, 30, 30);
+    }
+
+    private static double coordenada(SplittableRandom aleatorio) {
+        switch (aleatorio.nextInt(4)) {
+            case 0:
+                return aleatorio.nextInt(LADO / 10 + 1) * 10;      // Borda de célula
+            case 1:
+                return aleatorio.nextInt(LADO + 1);                // Coordenada de algum sensor
+            case 2:
+                return aleatorio.nextDouble(-20, LADO + 20);        // Qualquer ponto, inclusive fora do mapa
+            default:
+                return aleatorio.nextBoolean() ? -1e9 : 1e9;       // Muito além dos limites
+        }
+    }
+
+    private static void conferirRegiao(ArmazemSensores armazem, ConsultasNivel consultas,
+                                       double x0, double y0, double x1, double y1) {
+        conferir(armazem, consultas.resumoRegiao(x0, y0, x1, y1), id -> {
+            double x = armazem.getX(id);
+            double y = armazem.getY(id);
+            return x >= x0 && x <= x1 && y >= y0 && y <= y1;
+        }, "região [" + x0 + ", " + x1 + "] x [" + y0 + ", " + y1 + "]");
+    }
+
+    private static void conferir(ArmazemSensores armazem, ConsultasNivel.Resumo resumo, IntPredicate filtro) {
+        conferir(armazem, resumo, filtro, "");
+    }
+
+    private static void conferir(ArmazemSensores armazem, ConsultasNivel.Resumo resumo, IntPredicate filtro,
+                                 String contexto) {
+        int sensores = 0;
+        int cheios = 0;
+        long somaNiveis = 0;
+        long somaLimites = 0;
+        int[] histograma = new int[ConsultasNivel.FAIXAS];
+        for (int id = 0; id < armazem.tamanho(); id++) {
+            if (!filtro.test(id)) {
+                continue;
+            }
+            int nivel = armazem.getNivel(id);
+            int limite = armazem.getLimite(id);
+            sensores++;
+            cheios += nivel >= limite ? 1 : 0;
+            somaNiveis += nivel;
+            somaLimites += limite;
+            histograma[nivel >= limite ? ConsultasNivel.FAIXAS - 1
+                    : Math.min(ConsultasNivel.FAIXAS - 1, nivel * ConsultasNivel.FAIXAS / limite)]++;
+        }
+        assertEquals(sensores, resumo.getSensores(), contexto);
+        assertEquals(cheios, resumo.getCheios(), contexto);
+        assertEquals(somaNiveis, resumo.getSomaNiveis(), contexto);
+        assertEquals(somaLimites == 0 ? 0 : (double) somaNiveis / somaLimites, resumo.getOcupacaoMedia(), contexto);
+        assertArrayEquals(histograma, resumo.getHistograma(), contexto);
+    }
+}
@@ -0,0 +1,118 @@
+package model;
+
+import observer.OuvinteNivel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OuvintesNivelTest {
+    private static final int SENSORES = 16;
+    private static final int LIMITE = 40;
+    private static final int THREADS = 8;
+    private static final int OPERACOES = 100_000;
+
+    @Test
+    @Timeout(60)
+    void nenhumAvisoSePerdeComVariasThreadsNosMesmosSensores() throws InterruptedException {
+        ArmazemSensores armazem = new ArmazemSensores(SENSORES);
+        for (int i = 0; i < SENSORES; i++) {
+            armazem.adicionar(LIMITE);
+        }
+        Balanco primeiro = new Balanco();
+        Balanco segundo = new Balanco();
+        armazem.registrarOuvinte(primeiro);
+        armazem.registrarOuvinte(segundo);
+
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            SplittableRandom aleatorio = new SplittableRandom(t);
+            threads.add(new Thread(() -> {
+                aguardar(largada);
+                for (int i = 0; i < OPERACOES; i++) {
+                    int id = aleatorio.nextInt(SENSORES);
+                    switch (aleatorio.nextInt(4)) {
+                        case 0:
+                            armazem.aumentar(id, 1 + aleatorio.nextInt(10));
+                            break;
+                        case 1:
+                            armazem.setNivel(id, aleatorio.nextInt(LIMITE + 1));
+                            break;
+                        case 2:
+                            armazem.esvaziar(id);
+                            break;
+                        default:
+                            armazem.registrarLeitura(id, aleatorio.nextInt(LIMITE + 10));
+                    }
+                }
+            }));
+        }
+        // Ouvintes entrando e saindo durante os avisos não podem fazer os fixos perderem nenhum
+        AtomicBoolean parar = new AtomicBoolean();
+        Thread rotatividade = new Thread(() -> {
+            aguardar(largada);
+            while (!parar.get()) {
+                OuvinteNivel passageiro = (id, anterior, novo) -> { };
+                armazem.registrarOuvinte(passageiro);
+                armazem.removerOuvinte(passageiro);
+            }
+        });
+        threads.forEach(Thread::start);
+        rotatividade.start();
+        largada.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        parar.set(true);
+        rotatividade.join();
+
+        assertTrue(primeiro.avisos.sum() > THREADS * OPERACOES / 2);
+        assertEquals(primeiro.avisos.sum(), segundo.avisos.sum());
+        for (Balanco balanco : new Balanco[]{primeiro, segundo}) {
+            // Cada transição anterior -> novo é vista uma única vez: por sensor, os avisos formam uma
+            // cadeia do nível inicial (zero) ao final, e cada nível é tanto chegada quanto partida,
+            // exceto as duas pontas
+            for (int id = 0; id < SENSORES; id++) {
+                int fim = armazem.getNivel(id);
+                for (int nivel = 0; nivel <= LIMITE; nivel++) {
+                    int esperado = (nivel == fim ? 1 : 0) - (nivel == 0 ? 1 : 0);
+                    assertEquals(esperado, balanco.saldo.get(id * (LIMITE + 1) + nivel),
+                            "sensor " + id + ", nível " + nivel);
+                }
+            }
+        }
+    }
+
+    private static void aguardar(CountDownLatch largada) {
+        try {
+            largada.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Por sensor e nível: chegadas menos partidas, de todos os avisos recebidos.
+     */
+    private static final class Balanco implements OuvinteNivel {
+        final AtomicIntegerArray saldo = new AtomicIntegerArray(SENSORES * (LIMITE + 1));
+        final LongAdder avisos = new LongAdder();
+
+        @Override
+        public void nivelAlterado(int id, int anterior, int novo) {
+            saldo.incrementAndGet(id * (LIMITE + 1) + novo);
+            saldo.decrementAndGet(id * (LIMITE + 1) + anterior);
+            avisos.increment();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package observer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FilaNiveisTest {
+    private static final int PRODUTORES = 8;
+    private static final int POR_PRODUTOR = 100_000;
+
+    @Test
+    @Timeout(60)
+    void consumidorRecebeTudoNaOrdemDeReservaSobDisputa() throws InterruptedException {
+        // Fila pequena: os produtores esperam por espaço o tempo todo, e o consumidor dorme e acorda
+        FilaNiveis fila = new FilaNiveis(64);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> produtores = new ArrayList<>();
+        for (int p = 0; p < PRODUTORES; p++) {
+            int produtor = p;
+            Thread t = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < POR_PRODUTOR; i++) {
+                    long sequencia = fila.reservar();
+                    if ((i & 7) == produtor) {
+                        Thread.yield(); // Demora entre reservar e publicar: o consumidor deve parar aqui
+                    }
+                    fila.publicar(sequencia, produtor, i, sequencia);
+                }
+            });
+            t.start();
+            produtores.add(t);
+        }
+
+        long total = (long) PRODUTORES * POR_PRODUTOR;
+        int[] proximoDoProdutor = new int[PRODUTORES];
+        long[] esperado = new long[1];
+        AtomicReference<String> erro = new AtomicReference<>();
+        FilaNiveis.Consumidor consumidor = (id, nivel, instante) -> {
+            if (erro.get() == null && (instante != esperado[0] || nivel != proximoDoProdutor[id])) {
+                erro.set("sequência " + instante + " (esperada " + esperado[0] + "), produtor " + id
+                        + " registro " + nivel + " (esperado " + proximoDoProdutor[id] + ")");
+            }
+            esperado[0]++;
+            proximoDoProdutor[id]++;
+        };
+        largada.countDown();
+        while (esperado[0] < total) {
+            if (fila.drenar(consumidor, 1000) == 0) {
+                fila.aguardar(1_000_000_000L);
+            }
+        }
+        for (Thread t : produtores) {
+            t.join();
+        }
+
+        assertNull(erro.get());
+        assertEquals(total, esperado[0]);
+        int[] todos = new int[PRODUTORES];
+        Arrays.fill(todos, POR_PRODUTOR);
+        assertArrayEquals(todos, proximoDoProdutor);
+        assertFalse(fila.possuiRegistros());
+        assertEquals(0, fila.drenar(consumidor, 1));
+    }
+}
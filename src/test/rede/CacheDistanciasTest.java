@@ -0,0 +1,140 @@
+package rede;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CacheDistanciasTest {
+    private static final int SEGMENTOS = 16;
+
+    @Test
+    void confereComMapaDeReferencia() {
+        // Capacidade pequena e poucos nós: a tabela de cada segmento vive com agrupamentos de
+        // sondagem, e cada expulsão exercita o deslocamento para trás das chaves seguintes
+        for (int capacidade : new int[]{16, 37, 128, 1000}) {
+            SplittableRandom aleatorio = new SplittableRandom(capacidade);
+            CacheDistancias cache = new CacheDistancias(capacidade);
+            Referencia referencia = new Referencia(capacidade);
+            int nos = (int) Math.sqrt(capacidade * 3) + 2;
+            for (int i = 0; i < 200_000; i++) {
+                int origem = aleatorio.nextInt(nos);
+                int destino = aleatorio.nextInt(nos);
+                if (aleatorio.nextBoolean()) {
+                    double custo = aleatorio.nextDouble() * 1000;
+                    cache.guardar(origem, destino, custo);
+                    referencia.guardar(origem, destino, custo);
+                } else {
+                    assertEquals(referencia.obter(origem, destino), cache.obter(origem, destino),
+                            "par " + origem + " -> " + destino + " na operação " + i);
+                }
+                if (i % 20_000 == 0) {
+                    // Toda chave guardada continua alcançável pela sondagem, e nenhuma outra aparece
+                    for (int o = 0; o < nos; o++) {
+                        for (int d = 0; d < nos; d++) {
+                            assertEquals(referencia.obter(o, d), cache.obter(o, d), "par " + o + " -> " + d);
+                        }
+                    }
+                }
+            }
+            assertEquals(referencia.tamanho(), cache.tamanho());
+            assertEquals(referencia.expulsoes, cache.getExpulsoes());
+            assertEquals(referencia.acertos, cache.getAcertos());
+            assertEquals(referencia.erros, cache.getErros());
+        }
+    }
+
+    @Test
+    void descartaOParUsadoHaMaisTempo() {
+        CacheDistancias cache = new CacheDistancias(2 * SEGMENTOS); // Dois pares por segmento
+        // Três origens cujos pares com o destino 0 caem no mesmo segmento
+        int[] origens = new int[3];
+        for (int o = 1, achados = 1; achados < origens.length; o++) {
+            if (Referencia.segmento(o, 0) == Referencia.segmento(origens[0], 0)) {
+                origens[achados++] = o;
+            }
+        }
+        cache.guardar(origens[0], 0, 1);
+        cache.guardar(origens[1], 0, 2);
+        assertEquals(1, cache.obter(origens[0], 0)); // O segundo par passa a ser o usado há mais tempo
+        cache.guardar(origens[2], 0, 3);
+        assertEquals(Double.NaN, cache.obter(origens[1], 0));
+        assertEquals(1, cache.obter(origens[0], 0));
+        assertEquals(3, cache.obter(origens[2], 0));
+        assertEquals(1, cache.getExpulsoes());
+
+        cache.limpar();
+        assertEquals(0, cache.tamanho());
+        assertEquals(Double.NaN, cache.obter(origens[0], 0));
+    }
+
+    /**
+     * Mesmo cache montado com um {@link LinkedHashMap} em ordem de acesso por segmento.
+     */
+    private static final class Referencia {
+        private final Map<Long, Double>[] segmentos;
+        long acertos;
+        long erros;
+        long expulsoes;
+
+        @SuppressWarnings("unchecked")
+        Referencia(int capacidade) {
+            segmentos = new Map[SEGMENTOS];
+            for (int s = 0; s < SEGMENTOS; s++) {
+                int limite = capacidade / SEGMENTOS + (s < capacidade % SEGMENTOS ? 1 : 0);
+                segmentos[s] = new LinkedHashMap<Long, Double>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Long, Double> maisAntiga) {
+                        if (size() > limite) {
+                            expulsoes++;
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+            }
+        }
+
+        double obter(int origem, int destino) {
+            Double custo = segmentos[segmento(origem, destino)].get(chave(origem, destino));
+            if (custo == null) {
+                erros++;
+                return Double.NaN;
+            }
+            acertos++;
+            return custo;
+        }
+
+        void guardar(int origem, int destino, double custo) {
+            segmentos[segmento(origem, destino)].put(chave(origem, destino), custo);
+        }
+
+        int tamanho() {
+            int total = 0;
+            for (Map<Long, Double> s : segmentos) {
+                total += s.size();
+            }
+            return total;
+        }
+
+        private static long chave(int origem, int destino) {
+            return ((long) origem << 32) | (destino & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Segmento do par, com o mesmo espalhamento do cache (finalizador do MurmurHash3).
+         */
+        static int segmento(int origem, int destino) {
+            long h = chave(origem, destino);
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return (int) (h >>> 60);
+        }
+    }
+}
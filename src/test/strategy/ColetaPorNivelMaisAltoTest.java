@@ -0,0 +1,70 @@
+package strategy;
+
+import model.ArmazemSensores;
+import model.Rota;
+import model.SensorLixo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColetaPorNivelMaisAltoTest {
+    private static final int SENSORES = 500;
+
+    @Test
+    void indiceEChavesPrimitivasDesempatamIgual() {
+        SplittableRandom aleatorio = new SplittableRandom(21);
+        ArmazemSensores armazem = new ArmazemSensores(SENSORES);
+        for (int i = 0; i < SENSORES; i++) {
+            armazem.adicionar(10, i, 0);
+        }
+        List<SensorLixo> completa = armazem.listar(IntStream.range(0, SENSORES).toArray());
+        assertTrue(armazem.cobreEmOrdem(completa));
+        List<SensorLixo> copia = new ArrayList<>(completa); // Mesma ordem, pelo caminho das chaves
+
+        EstrategiaColeta[] estrategias = {
+                new ColetaPorNivelMaisAlto(), new ColetaPorNivelMaisAlto(7), new ColetaPorNivelMaisAlto(120)
+        };
+        for (int rodada = 0; rodada < 200; rodada++) {
+            // Poucos níveis possíveis: quase todo sensor empata com muitos outros, e a ordem em que
+            // chegam a cada nível varia com as consultas intercaladas
+            for (int i = 0; i < 1 + aleatorio.nextInt(50); i++) {
+                armazem.setNivel(aleatorio.nextInt(SENSORES), aleatorio.nextInt(6));
+            }
+            for (EstrategiaColeta estrategia : estrategias) {
+                if (aleatorio.nextBoolean()) {
+                    assertArrayEquals(ids(estrategia.gerarRota(copia)), ids(estrategia.gerarRota(completa)),
+                            "rodada " + rodada);
+                }
+            }
+        }
+    }
+
+    @Test
+    void empatesSaemEmOrdemDeId() {
+        ArmazemSensores armazem = new ArmazemSensores(6);
+        for (int i = 0; i < 6; i++) {
+            armazem.adicionar(10, i, 0);
+        }
+        List<SensorLixo> completa = armazem.listar(IntStream.range(0, 6).toArray());
+        ColetaPorNivelMaisAlto estrategia = new ColetaPorNivelMaisAlto();
+        // Os sensores chegam ao nível 5 fora da ordem dos ids, com consultas no meio
+        int[] chegada = {4, 1, 5, 0};
+        for (int id : chegada) {
+            armazem.setNivel(id, 5);
+            estrategia.gerarRota(completa);
+        }
+        armazem.setNivel(3, 8);
+        assertArrayEquals(new int[]{3, 0, 1, 4, 5, 2}, ids(estrategia.gerarRota(completa)));
+        assertArrayEquals(new int[]{3, 0, 1, 4, 5, 2}, ids(estrategia.gerarRota(new ArrayList<>(completa))));
+    }
+
+    private static int[] ids(Rota rota) {
+        return rota.getPontos().stream().mapToInt(SensorLixo::getId).toArray();
+    }
+}